@@ -0,0 +1,73 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one physics tick with collision for N robots on the field, walls
+ * included. Robots start on a grid, sized to fit, and drive in alternating
+ * directions so they keep running into the walls and each other. The cost of
+ * collision is the difference between {@code stepAndResolve} and {@code step}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    private static final double DT = 0.005;
+
+    @Param({"2", "4", "100", "400"})
+    public int bodies;
+
+    private SimBot[] bots;
+    private CollisionWorld world;
+    private long tick;
+
+    @Setup
+    public void setUp() {
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        double spacing = 2 * CollisionWorld.FIELD_HALF_SIZE / side;
+        double size = Math.min(17.25, spacing * 0.8);
+
+        bots  = new SimBot[bodies];
+        world = CollisionWorld.forField();
+        for (int i = 0; i < bodies; i++) {
+            bots[i] = new SimBotBuilder()
+                    .setStartPose(-CollisionWorld.FIELD_HALF_SIZE + spacing * (i % side + 0.5),
+                                  -CollisionWorld.FIELD_HALF_SIZE + spacing * (i / side + 0.5),
+                                  i * 0.7)
+                    .setConstraints(60, 60, Math.PI, Math.PI)
+                    .setDimensions(size, size)
+                    .build();
+            world.addBody(bots[i]);
+        }
+    }
+
+    @Benchmark
+    public double step() {
+        drive();
+        return bots[0].getX();
+    }
+
+    @Benchmark
+    public double stepAndResolve() {
+        drive();
+        world.resolve();
+        return bots[0].getX();
+    }
+
+    private void drive() {
+        double cmd = ((tick++ >> 9) & 1) == 0 ? 1.0 : -1.0;
+        for (int i = 0; i < bots.length; i++) {
+            double dir = (i & 1) == 0 ? cmd : -cmd;
+            bots[i].drive(dir, dir * 0.5, 0.2);
+            bots[i].update(DT);
+        }
+    }
+}
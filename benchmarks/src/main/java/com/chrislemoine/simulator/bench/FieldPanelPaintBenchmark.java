@@ -0,0 +1,134 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.AssetCache;
+import com.chrislemoine.simulator.ui.Background;
+import com.chrislemoine.simulator.ui.DriveMode;
+import com.chrislemoine.simulator.ui.FieldPanel;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one full {@link FieldPanel} paint into an offscreen image, per
+ * panel size, alliance (Blue adds the 180 degree field rotation) and number
+ * of robots on the field.
+ * Runs headless; no display is needed.
+ * <p>{@code paint} goes through Swing's {@code JComponent.paint}, which creates a
+ * scratch Graphics per call; {@code paintComponent} calls the panel's own
+ * rendering directly. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} to see what the panel itself allocates per frame.</p>
+ * <p>Every frame starts from an identity transform, as Swing's fresh
+ * Graphics would. Reusing the Graphics as-is would carry over the rounding
+ * residue the robot painter leaves when it undoes its transform, and push
+ * the next frame's background through Java2D's allocating transformed-image
+ * path; that pipeline residue is the one allocation the panel accepts (see
+ * RobotPainterAllocationTest).</p>
+ * <p>{@code paintChanged} is what the panel's own repaint timer does: it
+ * draws only the region the frame changed, clipped as Swing would. Compare
+ * it with {@code paintComponent}, which draws every pixel. Its bytes per op
+ * are Java2D's {@code setClip}, which builds a new clip region per call.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class FieldPanelPaintBenchmark {
+    @Param({"800x800", "3840x2160"})
+    public String size;
+
+    @Param({"RED", "BlUE"})
+    public String alliance;
+
+    @Param({"1", "4"})
+    public int robots;
+
+    private SimBot bot;
+    private ExposedFieldPanel panel;
+    private BufferedImage target;
+    private Graphics2D g2;
+    private final AffineTransform identity = new AffineTransform();
+    private long frame;
+
+    @Setup
+    public void setUp() {
+        String[] wh = size.split("x");
+        int w = Integer.parseInt(wh[0]);
+        int h = Integer.parseInt(wh[1]);
+
+        World world = new World();
+        for (int i = 0; i < robots; i++) {
+            SimBot b = new SimBotBuilder()
+                    .setStartPose(-48 + 32 * i, 36, Math.PI / 2)
+                    .build();
+            world.addRobot(b, null, i % 2 == 0 ? Alliance.RED : Alliance.BlUE, DriveMode.ROBOT_CENTRIC);
+        }
+        bot = world.getRobot(0);
+        AssetCache.shared().load(Background.FIELD_INTO_THE_DEEP_JUICE_DARK).join();   // measure with the field drawn
+        panel = new ExposedFieldPanel(world, Background.FIELD_INTO_THE_DEEP_JUICE_DARK, Alliance.valueOf(alliance));
+        panel.setSize(w, h);
+
+        target = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        g2 = target.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        // Move the robot a little each frame, as the simulation would
+        bot.setPose((frame % 100) * 0.5, 0, (frame++ % 360) * Math.PI / 180);
+        panel.prepareFrame();
+        g2.setTransform(identity);
+        panel.paint(g2);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        bot.setPose((frame % 100) * 0.5, 0, (frame++ % 360) * Math.PI / 180);
+        panel.prepareFrame();
+        g2.setTransform(identity);
+        panel.paintDirect(g2);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage paintChanged() {
+        bot.setPose((frame % 100) * 0.5, 0, (frame++ % 360) * Math.PI / 180);
+        Rectangle changed = panel.prepareFrame();
+        g2.setTransform(identity);
+        g2.setClip(changed.x, changed.y, changed.width, changed.height);
+        panel.paintDirect(g2);
+        g2.setClip(null);
+        return target;
+    }
+
+    /** Opens up paintComponent so it can be measured without Swing's paint bookkeeping. */
+    static final class ExposedFieldPanel extends FieldPanel {
+        ExposedFieldPanel(World world, Background background, Alliance alliance) {
+            super(world, background, alliance);
+        }
+
+        void paintDirect(Graphics2D g2) {
+            paintComponent(g2);
+        }
+
+        @Override
+        protected Rectangle prepareFrame() {
+            return super.prepareFrame();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+
+/**
+ * Long-run accuracy check for heading handling, run with {@code ./gradlew :benchmarks:headingDrift}.
+ * <p>Drives a robot around a circle at constant speed and turn rate, with a
+ * whole number of ticks per revolution, for 10 million ticks. Every full lap
+ * should bring it back to the start pose, so any error left at the end is
+ * accumulated floating-point drift. The same run is repeated with the old
+ * unbounded heading accumulation for comparison.</p>
+ */
+public class HeadingDriftCheck {
+    private static final long TICKS = 10_000_000L;
+    private static final int TICKS_PER_LAP = 400;
+    private static final double DT = 0.005;
+    private static final double SPEED = 30.0;   // inches/sec
+    private static final double MAX_POSITION_ERROR = 1e-3;   // inches
+    private static final double MAX_HEADING_ERROR = 1e-6;    // radians
+
+    public static void main(String[] args) {
+        double omega = 2 * Math.PI / (TICKS_PER_LAP * DT);
+        double h0 = Math.PI / 2;
+
+        // Constraints high enough that the robot is at full speed from the first tick
+        SimBot bot = new SimBotBuilder()
+                .setStartPose(0, 0, h0)
+                .setConstraints(SPEED, 1e9, omega, 1e9)
+                .build();
+        long start = System.nanoTime();
+        for (long t = 0; t < TICKS; t++) {
+            bot.drive(1, 0, 1);
+            bot.update(DT);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double posErr = Math.hypot(bot.getX(), bot.getY());
+        double headErr = Math.abs(SimBot.normalizeAngle(bot.getHeading() - h0));
+
+        // Reference: the previous integration, with the heading left to grow without bound
+        double x = 0, y = 0, h = h0;
+        for (long t = 0; t < TICKS; t++) {
+            double forward = SPEED * DT;
+            x += forward * Math.cos(h);
+            y += forward * Math.sin(h);
+            h += omega * DT;
+        }
+        double legacyPosErr = Math.hypot(x, y);
+        double legacyHeadErr = Math.abs(SimBot.normalizeAngle(h - h0));
+
+        System.out.printf("%d ticks (%d laps) in %.2f s%n", TICKS, TICKS / TICKS_PER_LAP, seconds);
+        System.out.printf("wrapped heading:   position error %.3e in, heading error %.3e rad (heading %.6f)%n",
+                posErr, headErr, bot.getHeading());
+        System.out.printf("unbounded heading: position error %.3e in, heading error %.3e rad (heading %.1f)%n",
+                legacyPosErr, legacyHeadErr, h);
+
+        boolean ok = posErr <= MAX_POSITION_ERROR && headErr <= MAX_HEADING_ERROR;
+        System.out.println(ok ? "PASS" : "FAIL");
+        if (!ok) System.exit(1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.PoseTrail;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.AssetCache;
+import com.chrislemoine.simulator.ui.Background;
+import com.chrislemoine.simulator.ui.DriveMode;
+import com.chrislemoine.simulator.ui.FieldPanel;
+import com.chrislemoine.simulator.ui.OverlayMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a frame with a practice history overlay, after sessions of
+ * different lengths. Each frame records the ticks a 200 Hz simulation would
+ * have run in a 60 Hz frame, then paints the panel.
+ * <p>{@code TRAIL} and {@code HEATMAP} should cost the same however long
+ * the session has run. {@code naiveTrail} is the obvious alternative for
+ * comparison: stroke every point the trail still holds, every frame.</p>
+ * Runs headless; no display is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HistoryOverlayBenchmark {
+    private static final int TICKS_PER_FRAME = 3;
+    private static final double DT = 0.005;
+
+    @Param({"NONE", "TRAIL", "HEATMAP"})
+    public String overlay;
+
+    @Param({"1000", "360000"})
+    public int sessionTicks;
+
+    private World world;
+    private FieldHistory history;
+    private FieldPanelPaintBenchmark.ExposedFieldPanel panel;
+    private BufferedImage target;
+    private Graphics2D g2;
+    private long tick;
+
+    private float[] points;
+    private final Path2D.Float path = new Path2D.Float();
+
+    @Setup
+    public void setUp() {
+        world = new World();
+        for (int i = 0; i < 2; i++) {
+            SimBot bot = new SimBotBuilder().setStartPose(0, 0, 0).build();
+            world.addRobot(bot, null, i == 0 ? Alliance.RED : Alliance.BlUE, DriveMode.ROBOT_CENTRIC);
+        }
+        history = new FieldHistory();
+        history.attach(world);
+        for (int i = 0; i < sessionTicks; i++) drive();
+
+        AssetCache.shared().load(Background.FIELD_INTO_THE_DEEP_JUICE_DARK).join();
+        panel = new FieldPanelPaintBenchmark.ExposedFieldPanel(world, Background.FIELD_INTO_THE_DEEP_JUICE_DARK, Alliance.RED);
+        panel.setSize(800, 800);
+        panel.setHistory(history);
+        panel.setOverlayMode(OverlayMode.valueOf(overlay));
+
+        target = new BufferedImage(800, 800, BufferedImage.TYPE_INT_RGB);
+        g2 = target.createGraphics();
+        points = new float[3 * history.getTrail(0).getCapacity()];
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    /** Moves both robots along wandering loops, as a practice session might, and records them. */
+    private void drive() {
+        double t = tick++ * DT;
+        for (int i = 0; i < world.size(); i++) {
+            double r = 30 + 20 * Math.sin(t * 0.05 + i);
+            double a = t * 0.8 + i * Math.PI;
+            world.getRobot(i).setPose(r * Math.cos(a), r * Math.sin(a) + 10 * Math.sin(t * 0.13), a + Math.PI / 2);
+        }
+        history.record(world);
+    }
+
+    @Benchmark
+    public BufferedImage frame() {
+        for (int i = 0; i < TICKS_PER_FRAME; i++) drive();
+        panel.paintDirect(g2);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage naiveTrail() {
+        for (int i = 0; i < TICKS_PER_FRAME; i++) drive();
+        panel.paintDirect(g2);
+
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setStroke(new BasicStroke(2f));
+        g2.setColor(Color.RED);
+        for (int t = 0; t < history.getTrailCount(); t++) {
+            PoseTrail trail = history.getTrail(t);
+            long from = trail.getOldest(), to = trail.getWritten();
+            trail.copy(from, to, points);
+            path.reset();
+            for (int p = 0; p < to - from; p++) {
+                float px = 400 + points[3 * p] * 400 / 72f, py = 400 - points[3 * p + 1] * 400 / 72f;
+                if (p == 0) path.moveTo(px, py); else path.lineTo(px, py);
+            }
+            g2.draw(path);
+        }
+        return target;
+    }
+}
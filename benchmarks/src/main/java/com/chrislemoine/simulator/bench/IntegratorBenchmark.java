@@ -0,0 +1,51 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.Integrator;
+import com.chrislemoine.simulator.core.MecanumDriveModel;
+import com.chrislemoine.simulator.core.RampDriveModel;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one physics tick for each drive model and integrator, at a coarse
+ * 1/64 s step through hard turns. Pair it with {@link IntegratorErrorReport}
+ * to see what each combination buys in accuracy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntegratorBenchmark {
+    private static final double DT = 1.0 / 64;
+
+    @Param({"EULER", "SEMI_IMPLICIT", "RK4", "POSE_EXPONENTIAL"})
+    public Integrator integrator;
+
+    @Param({"ramp", "mecanum"})
+    public String model;
+
+    private SimBot bot;
+    private long tick;
+
+    @Setup
+    public void setUp() {
+        bot = new SimBotBuilder()
+                .setConstraints(60, 120, 2 * Math.PI, 4 * Math.PI)
+                .setDriveModel(model.equals("mecanum") ? new MecanumDriveModel() : RampDriveModel.INSTANCE)
+                .setIntegrator(integrator)
+                .build();
+    }
+
+    @Benchmark
+    public double step() {
+        double cmd = ((tick++ >> 5) & 1) == 0 ? 1.0 : -1.0;
+        bot.drive(1.0, 0.5 * cmd, cmd);
+        bot.update(DT);
+        return bot.getX();
+    }
+}
@@ -0,0 +1,91 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.DriveModel;
+import com.chrislemoine.simulator.core.Integrator;
+import com.chrislemoine.simulator.core.MecanumDriveModel;
+import com.chrislemoine.simulator.core.RampDriveModel;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+
+/**
+ * Error-versus-cost table for every drive model, integrator and step size,
+ * run with {@code ./gradlew :benchmarks:integratorReport}.
+ * <p>Each combination drives the same 4 s course of hard turns, with inputs
+ * changing every 0.25 s (a whole number of steps at every step size). Its
+ * pose is compared against RK4 at 16 kHz every 0.25 s. Cost is wall time per
+ * simulated second, which is what a batch sweep pays.</p>
+ */
+public class IntegratorErrorReport {
+    private static final double SEGMENT = 0.25;   // seconds per input segment
+    private static final int[] RATES = {1000, 200, 100, 64, 32, 16};
+    private static final int REFERENCE_RATE = 16000;
+    private static final int TIMING_REPEATS = 200;
+
+    // axial, lateral, yaw per segment
+    private static final double[][] COURSE = {
+            {1, 0, 1}, {1, 0, 1}, {1, 0.5, -1}, {0, 1, 1},
+            {1, 0, -1}, {1, 0, -1}, {0.5, 0.5, 1}, {-1, 0, 1},
+            {1, -1, 0}, {1, 0, 1}, {0, 0, -1}, {1, 1, 1},
+            {1, 0, 0.5}, {-1, 0.5, -1}, {0, 0, 0}, {0, 0, 0},
+    };
+
+    public static void main(String[] args) {
+        // Warm every path up first so the timings below are of compiled code
+        for (int r = 0; r < 20; r++) {
+            for (String model : new String[] {"ramp", "mecanum"}) {
+                for (Integrator integrator : Integrator.values()) run(model, integrator, 200);
+            }
+        }
+
+        System.out.println("model    integrator        rate  dt(ms)  maxPosErr(in)  maxHeadErr(rad)  us/sim-s");
+        for (String model : new String[] {"ramp", "mecanum"}) {
+            double[] reference = run(model, Integrator.RK4, REFERENCE_RATE);
+            for (Integrator integrator : Integrator.values()) {
+                for (int rate : RATES) {
+                    double[] poses = run(model, integrator, rate);
+                    double posErr = 0, headErr = 0;
+                    for (int i = 0; i < poses.length; i += 3) {
+                        posErr = Math.max(posErr, Math.hypot(poses[i] - reference[i], poses[i + 1] - reference[i + 1]));
+                        headErr = Math.max(headErr, Math.abs(SimBot.normalizeAngle(poses[i + 2] - reference[i + 2])));
+                    }
+
+                    long start = System.nanoTime();
+                    for (int r = 0; r < TIMING_REPEATS; r++) run(model, integrator, rate);
+                    double usPerSimSecond = (System.nanoTime() - start) / 1e3 / TIMING_REPEATS
+                            / (COURSE.length * SEGMENT);
+
+                    System.out.printf("%-8s %-16s %5d  %6.2f  %13.3e  %15.3e  %8.1f%n",
+                            model, integrator, rate, 1000.0 / rate, posErr, headErr, usPerSimSecond);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drives the course once.
+     * @return x, y, heading at the end of every segment
+     */
+    private static double[] run(String model, Integrator integrator, int rate) {
+        DriveModel driveModel = model.equals("mecanum") ? new MecanumDriveModel() : RampDriveModel.INSTANCE;
+        SimBot bot = new SimBotBuilder()
+                .setStartPose(0, 0, Math.PI / 2)
+                .setConstraints(60, 120, 2 * Math.PI, 4 * Math.PI)
+                .setDriveModel(driveModel)
+                .setIntegrator(integrator)
+                .build();
+
+        double dt = 1.0 / rate;
+        int stepsPerSegment = (int) Math.round(SEGMENT * rate);
+        double[] poses = new double[COURSE.length * 3];
+        for (int s = 0; s < COURSE.length; s++) {
+            for (int t = 0; t < stepsPerSegment; t++) {
+                bot.drive(COURSE[s][0], COURSE[s][1], COURSE[s][2]);
+                bot.update(dt);
+            }
+            poses[3 * s]     = bot.getX();
+            poses[3 * s + 1] = bot.getY();
+            poses[3 * s + 2] = bot.getHeading();
+        }
+        return poses;
+    }
+}
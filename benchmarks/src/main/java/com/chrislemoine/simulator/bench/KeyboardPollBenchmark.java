@@ -0,0 +1,36 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.input.KeyboardController;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of polling the keyboard controller once per tick and reading its axes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyboardPollBenchmark {
+    private KeyboardController controller;
+
+    @Setup
+    public void setUp() {
+        SimBot bot = new SimBotBuilder().build();
+        controller = new KeyboardController(bot);
+    }
+
+    @Benchmark
+    public void poll(Blackhole bh) {
+        controller.poll();
+        bh.consume(controller.getAxial());
+        bh.consume(controller.getLateral());
+        bh.consume(controller.getYaw());
+    }
+}
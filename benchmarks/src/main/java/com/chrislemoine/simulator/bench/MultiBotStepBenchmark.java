@@ -0,0 +1,60 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotArray;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one physics tick for N robots: looping over SimBot objects versus
+ * the structure-of-arrays {@link SimBotArray}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiBotStepBenchmark {
+    private static final double DT = 0.005;
+
+    @Param({"4", "100", "10000"})
+    public int robots;
+
+    private SimBot[] bots;
+    private SimBotArray array;
+    private long tick;
+
+    @Setup
+    public void setUp() {
+        bots  = new SimBot[robots];
+        array = new SimBotArray(robots);
+        for (int i = 0; i < robots; i++) {
+            bots[i] = new SimBotBuilder()
+                    .setStartPose(i % 100, i / 100, i * 0.01)
+                    .setConstraints(40 + i % 40, 60, Math.PI, Math.PI)
+                    .build();
+            array.add(bots[i]);
+        }
+    }
+
+    @Benchmark
+    public double objects() {
+        double cmd = ((tick++ >> 8) & 1) == 0 ? 1.0 : -1.0;
+        for (SimBot bot : bots) {
+            bot.drive(cmd, -cmd, cmd);
+            bot.update(DT);
+        }
+        return bots[0].getX();
+    }
+
+    @Benchmark
+    public double structureOfArrays() {
+        double cmd = ((tick++ >> 8) & 1) == 0 ? 1.0 : -1.0;
+        for (int i = 0; i < robots; i++) array.drive(i, cmd, -cmd, cmd);
+        array.update(DT);
+        return array.getX(0);
+    }
+}
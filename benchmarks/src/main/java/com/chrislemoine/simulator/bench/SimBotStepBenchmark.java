@@ -0,0 +1,49 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one physics tick for a single robot: input mapping plus {@link SimBot#update(double)},
+ * for robot-centric and field-centric input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimBotStepBenchmark {
+    private static final double DT = 0.005;
+
+    private SimBot bot;
+    private long tick;
+
+    @Setup
+    public void setUp() {
+        bot = new SimBotBuilder()
+                .setStartPose(0, 0, Math.PI / 2)
+                .setConstraints(60, 60, Math.PI, Math.PI)
+                .build();
+    }
+
+    @Benchmark
+    public double step() {
+        // Alternate the command so the ramp never settles into a constant state
+        double cmd = ((tick++ >> 8) & 1) == 0 ? 1.0 : -1.0;
+        bot.drive(cmd, -cmd, cmd);
+        bot.update(DT);
+        return bot.getX();
+    }
+
+    @Benchmark
+    public double stepFieldCentric() {
+        double cmd = ((tick++ >> 8) & 1) == 0 ? 1.0 : -1.0;
+        bot.driveFieldCentric(cmd, -cmd, cmd, 0.0);
+        bot.update(DT);
+        return bot.getX();
+    }
+}
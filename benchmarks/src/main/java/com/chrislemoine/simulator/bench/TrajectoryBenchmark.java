@@ -0,0 +1,98 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.input.TrajectoryController;
+import com.chrislemoine.simulator.trajectory.Trajectory;
+import com.chrislemoine.simulator.trajectory.TrajectoryBuilder;
+import com.chrislemoine.simulator.trajectory.TrajectoryCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a trajectory costs at each stage: compiling one from scratch,
+ * loading it from a warm disk cache, finding it in a cache's memory, and
+ * the per-tick table lookup plus control law once it is running.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+    private static final double DT = 0.005;
+
+    private TrajectoryBuilder route;
+    private Path directory;
+    private TrajectoryCache warm;
+    private Trajectory trajectory;
+    private SimBot bot;
+    private TrajectoryController controller;
+    private final double[] sample = new double[Trajectory.SAMPLE_SIZE];
+    private double t;
+
+    @Setup
+    public void setUp() throws IOException {
+        route = new TrajectoryBuilder(0, -48, Math.PI / 2)
+                .splineTo(24, -24, 0)
+                .splineTo(0, 0, Math.PI / 2)
+                .lineTo(-36, 0, Math.PI)
+                .splineTo(-48, 36, -Math.PI / 2);
+        directory = Files.createTempDirectory("trajectory-bench");
+        new TrajectoryCache(directory).get(route);
+        warm = new TrajectoryCache(directory);
+        trajectory = warm.get(route);
+        bot = new SimBotBuilder().setStartPose(0, -48, Math.PI / 2).build();
+        controller = new TrajectoryController(trajectory, bot, DT);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Trajectory compile() {
+        return route.build();
+    }
+
+    @Benchmark
+    public Trajectory loadFromDisk() {
+        return new TrajectoryCache(directory).get(route);
+    }
+
+    @Benchmark
+    public Trajectory memoryHit() {
+        return warm.get(route);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double sample() {
+        t += DT;
+        if (t > trajectory.getDuration()) t = 0;
+        trajectory.sample(t, sample);
+        return sample[Trajectory.X];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double followTick() {
+        if (controller.isFinished()) {
+            bot = new SimBotBuilder().setStartPose(0, -48, Math.PI / 2).build();
+            controller = new TrajectoryController(trajectory, bot, DT);
+        }
+        controller.poll();
+        bot.drive(controller.getAxial(), controller.getLateral(), controller.getYaw());
+        bot.update(DT);
+        return bot.getX();
+    }
+}
@@ -0,0 +1,89 @@
+package com.chrislemoine.simulator.bench;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one whole physics tick as the simulator runs it: every robot's
+ * controller polled, drive and update, collisions against walls and each
+ * other, and the pose snapshot publish. No match clock, so robots never sit
+ * out a phase. A 200 Hz tick has a 5000 us budget.
+ * <p>With telemetry on, the tick is timed as Simulator times it, one robot
+ * update is sampled and every robot's pose goes into its ring buffer; the
+ * difference is what leaving telemetry on during practice costs.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldStepBenchmark {
+    private static final double DT = 0.005;
+
+    @Param({"4", "32", "128"})
+    public int robots;
+
+    @Param({"false", "true"})
+    public boolean telemetry;
+
+    private World world;
+    private PoseSnapshot snapshot;
+    private Telemetry recorder;
+
+    @Setup
+    public void setUp() {
+        ScriptedController course = new ScriptedController(DT)
+                .hold(1, 0, 0, 1.0)
+                .hold(0, 1, 0.5, 1.0)
+                .hold(-1, 0, 0, 1.0)
+                .hold(0, -1, -0.5, 1.0)
+                .looping();
+
+        world = new World();
+        world.setCollisionWorld(CollisionWorld.forField());
+        int side = (int) Math.ceil(Math.sqrt(robots));
+        double spacing = 144.0 / side;
+        double size = Math.min(17.25, spacing * 0.8);
+        for (int i = 0; i < robots; i++) {
+            SimBot bot = new SimBotBuilder()
+                    .setStartPose(-72 + spacing * (i % side + 0.5), -72 + spacing * (i / side + 0.5), i * 0.7)
+                    .setDimensions(size, size)
+                    .build();
+            ScriptedController script = course.copy();
+            int index = world.addRobot(bot, script, i % 2 == 0 ? Alliance.RED : Alliance.BlUE,
+                                       DriveMode.ROBOT_CENTRIC);
+            world.setAutonomous(index, script);
+        }
+        snapshot = new PoseSnapshot();
+        snapshot.reset(world, 5_000_000L);
+        if (telemetry) {
+            recorder = new Telemetry();
+            recorder.attach(world);
+            world.setTelemetry(recorder);
+        }
+    }
+
+    @Benchmark
+    public double tick() {
+        if (recorder != null) {
+            long start = System.nanoTime();
+            world.step(DT);
+            recorder.recordTick(world, start, System.nanoTime());
+        } else {
+            world.step(DT);
+        }
+        snapshot.publish(world, System.nanoTime());
+        return world.getRobot(0).getX();
+    }
+}
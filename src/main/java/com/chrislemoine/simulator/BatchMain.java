@@ -0,0 +1,166 @@
+package com.chrislemoine.simulator;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.BatchEngine;
+import com.chrislemoine.simulator.core.BatchJob;
+import com.chrislemoine.simulator.core.BatchResult;
+import com.chrislemoine.simulator.core.Integrator;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.Simulator;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.core.WorldSnapshot;
+import com.chrislemoine.simulator.input.DriveController;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.input.TrajectoryController;
+import com.chrislemoine.simulator.trajectory.TrajectoryBuilder;
+import com.chrislemoine.simulator.trajectory.TrajectoryCache;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Headless entry point: sweeps drivetrain constraints over a course and
+ * prints one CSV row per configuration. Needs no display.
+ * <p>Usage: {@code BatchMain [tickHz] [integrator] [script|trajectory|branch]}. A
+ * higher-order integrator such as RK4 keeps coarse tick rates accurate, so
+ * sweeps can run at far fewer ticks per simulated second.</p>
+ * <p>The default course is a fixed stick script. The trajectory course
+ * follows a spline profiled for each configuration's own limits; those are
+ * compiled once into the trajectory cache, so repeat sweeps load them.</p>
+ * <p>The branch mode drives the course part way, snapshots the world, and
+ * from that one moment tries every stick command on a grid, printing where
+ * each one ends up.</p>
+ */
+public class BatchMain {
+    /** Stick values tried on each axis in branch mode. */
+    private static final int BRANCH_STEPS = 11;
+
+    public static void main(String[] args) {
+        int tickHz = args.length > 0 ? Integer.parseInt(args[0]) : Simulator.DEFAULT_TICK_HZ;
+        Integrator integrator = args.length > 1 ? Integrator.valueOf(args[1]) : Integrator.SEMI_IMPLICIT;
+        boolean trajectories = args.length > 2 && args[2].equals("trajectory");
+        BatchEngine engine = new BatchEngine(tickHz);
+        if (args.length > 2 && args[2].equals("branch")) {
+            branch(engine, integrator);
+            return;
+        }
+        TrajectoryCache cache = new TrajectoryCache(TrajectoryCache.defaultDirectory());
+
+        // Drive up through the field center, strafe right, then turn
+        ScriptedController course = new ScriptedController(engine.getDt())
+                .hold(1, 0, 0, 1.5)
+                .hold(0, 1, 0, 1.0)
+                .hold(0, 0, -1, 0.5)
+                .idle(2.0);
+
+        List<BatchJob> jobs = new ArrayList<>();
+        for (double maxVel = 30; maxVel <= 90; maxVel += 5) {
+            for (double maxAccel = 20; maxAccel <= 200; maxAccel += 10) {
+                for (double maxAngAccel = Math.PI / 2; maxAngAccel <= 4 * Math.PI; maxAngAccel += Math.PI / 2) {
+                    double v = maxVel, a = maxAccel, aa = maxAngAccel;
+                    Function<SimBot, DriveController> controller = bot -> course.copy();
+                    double duration = course.getDuration();
+                    if (trajectories) {
+                        // Up and round to the field center, turning to face up it
+                        TrajectoryBuilder route = new TrajectoryBuilder(0, -48, Math.PI / 2)
+                                .setConstraints(v, a, Math.PI, aa)
+                                .splineTo(24, -24, 0)
+                                .splineTo(0, 0, Math.PI / 2);
+                        controller = bot -> new TrajectoryController(cache.get(route), bot, engine.getDt());
+                        duration = 10.0;
+                    }
+                    jobs.add(new BatchJob(
+                            String.format("v%.0f_a%.0f_aa%.2f", v, a, aa),
+                            () -> new SimBotBuilder()
+                                    .setStartPose(0, -48, Math.PI / 2)
+                                    .setConstraints(v, a, Math.PI, aa)
+                                    .setDimensions(17.25, 17.25)
+                                    .setIntegrator(integrator)
+                                    .build(),
+                            controller)
+                            .setDuration(duration)
+                            .setTarget(0, 0, 3.0)
+                            .setStopAtTarget(trajectories)
+                            .setWalls(true));
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        List<BatchResult> results = engine.run(jobs);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        engine.shutdown();
+
+        System.out.println(BatchResult.CSV_HEADER);
+        double simSeconds = 0;
+        for (BatchResult r : results) {
+            System.out.println(r.toCsv());
+            simSeconds += r.getSimSeconds();
+        }
+        System.err.printf("%d runs, %.0f simulated s in %.2f wall s (%.0fx real time) on %d threads%n",
+                results.size(), simSeconds, wallSeconds, simSeconds / wallSeconds, engine.getParallelism());
+        if (trajectories) System.err.println("Trajectories: " + cache);
+    }
+
+    /**
+     * Drives the course for two seconds, then branches that state into every
+     * combination of {@link #BRANCH_STEPS} axial, lateral and yaw values held
+     * for another one and a half, and prints one CSV row per branch.
+     */
+    private static void branch(BatchEngine engine, Integrator integrator) {
+        double dt = engine.getDt();
+        ScriptedController course = new ScriptedController(dt)
+                .hold(1, 0, 0, 1.5)
+                .hold(0, 1, 0, 1.0)
+                .hold(0, 0, -1, 0.5)
+                .idle(2.0);
+        Supplier<World> worlds = () -> {
+            World world = new World();
+            world.setCollisionWorld(CollisionWorld.forField());
+            world.addRobot(new SimBotBuilder()
+                                   .setStartPose(0, -48, Math.PI / 2)
+                                   .setDimensions(17.25, 17.25)
+                                   .setIntegrator(integrator)
+                                   .build(),
+                           course.copy(), Alliance.RED, DriveMode.ROBOT_CENTRIC);
+            return world;
+        };
+
+        World world = worlds.get();
+        for (long t = 0, n = Math.round(2.0 / dt); t < n; t++) world.step(dt);
+        WorldSnapshot from = world.snapshot();
+
+        int branches = BRANCH_STEPS * BRANCH_STEPS * BRANCH_STEPS;
+        double seconds = 1.5;
+        long start = System.nanoTime();
+        List<String> rows = engine.explore(worlds, from, branches, seconds,
+                (w, i) -> w.setController(0, new ScriptedController(dt)
+                        .hold(stick(i / (BRANCH_STEPS * BRANCH_STEPS)), stick(i / BRANCH_STEPS % BRANCH_STEPS),
+                              stick(i % BRANCH_STEPS), seconds)),
+                w -> {
+                    SimBot bot = w.getRobot(0);
+                    return String.format("%.1f,%.1f,%.1f,%.3f,%.3f,%.4f,%d",
+                            w.getAppliedAxial(0), w.getAppliedLateral(0), w.getAppliedYaw(0),
+                            bot.getX(), bot.getY(), bot.getHeading(), w.getCollisionWorld().getContactCount());
+                });
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        engine.shutdown();
+
+        System.out.println("axial,lateral,yaw,finalX,finalY,finalHeading,wallContacts");
+        for (String row : rows) System.out.println(row);
+        System.err.printf("%d branches from tick %d (%d-byte snapshot), %.0f simulated s in %.2f wall s "
+                        + "(%.0f branches/s) on %d threads%n",
+                branches, from.getTicks(), from.byteSize(), branches * seconds, wallSeconds,
+                branches / wallSeconds, engine.getParallelism());
+    }
+
+    /** @return the i-th of {@link #BRANCH_STEPS} evenly spaced stick values from -1 to 1 */
+    private static double stick(int i) {
+        return -1 + 2.0 * i / (BRANCH_STEPS - 1);
+    }
+}
@@ -1,48 +1,148 @@
 package com.chrislemoine.simulator;
 
+import com.chrislemoine.simulator.collision.CollisionWorld;
 import com.chrislemoine.simulator.ui.DriveMode;
+import com.chrislemoine.simulator.core.FieldHistory;
 import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.MatchClock;
 import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.SimClock;
 import com.chrislemoine.simulator.core.Simulator;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.field.FieldDefinition;
+import com.chrislemoine.simulator.hardware.OpMode;
+import com.chrislemoine.simulator.hardware.OpModeLoader;
+import com.chrislemoine.simulator.hardware.OpModeRunner;
+import com.chrislemoine.simulator.hardware.SimHardware;
+import com.chrislemoine.simulator.input.DriveController;
+import com.chrislemoine.simulator.input.GamepadController;
+import com.chrislemoine.simulator.input.GamepadSource;
+import com.chrislemoine.simulator.input.JInputGamepadSource;
 import com.chrislemoine.simulator.input.KeyboardController;
+import com.chrislemoine.simulator.input.ReplayController;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.input.ScriptedGamepadSource;
+import com.chrislemoine.simulator.input.TrajectoryController;
+import com.chrislemoine.simulator.net.LinkConditioner;
+import com.chrislemoine.simulator.net.NetClient;
+import com.chrislemoine.simulator.net.NetProtocol;
+import com.chrislemoine.simulator.record.RunFormat;
+import com.chrislemoine.simulator.record.RunRecorder;
+import com.chrislemoine.simulator.record.RunRecording;
+import com.chrislemoine.simulator.record.RunVerifier;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+import com.chrislemoine.simulator.telemetry.TelemetryServer;
+import com.chrislemoine.simulator.trajectory.TrajectoryBuilder;
+import com.chrislemoine.simulator.trajectory.TrajectoryCache;
 import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.AssetCache;
 import com.chrislemoine.simulator.ui.Background;
+import com.chrislemoine.simulator.ui.FieldCanvas;
 import com.chrislemoine.simulator.ui.FieldPanel;
+import com.chrislemoine.simulator.ui.FieldView;
+import com.chrislemoine.simulator.ui.OverlayMode;
+import com.chrislemoine.simulator.ui.RenderMode;
 import com.chrislemoine.simulator.ui.SettingsDialog;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Command line: --record <file> saves the run, --replay <file> drives from a saved run,
+        // --verify <file> replays one headlessly and checks it reproduces exactly,
+        // --gamepad drives with the first attached gamepad, --gamepad-demo with a scripted one,
+        // --bots <n> adds n scripted robots, --match runs the 2:30 match clock with a demo autonomous,
+        // --telemetry <port> serves live telemetry at http://localhost:<port>/telemetry,
+        // --heatmap <file> saves field occupancy as CSV on exit,
+        // --speed <x|unlimited> starts at x times real time (0.25 to 10) or as fast as possible,
+        // --connect <host[:port]> drives a seat on a shared practice server (see NetMain),
+        // --opmode <jar[:Class]|Class> runs user robot code on simulated hardware, driven by
+        // the keyboard or gamepad as gamepad1, --opmode-hz <n> caps its loop rate
+        Path recordPath = null, replayPath = null, heatmapPath = null;
+        String gamepad = null;
+        int extraBots = 0;
+        boolean match = false;
+        int telemetryPort = -1;
+        String speed = null, connect = null, opModeSpec = null;
+        double opModeHz = OpModeRunner.DEFAULT_MAX_LOOP_HZ;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record": recordPath = Paths.get(args[++i]); break;
+                case "--replay": replayPath = Paths.get(args[++i]); break;
+                case "--verify": verify(Paths.get(args[++i])); return;
+                case "--gamepad":
+                case "--gamepad-demo": gamepad = args[i]; break;
+                case "--bots": extraBots = Integer.parseInt(args[++i]); break;
+                case "--match": match = true; break;
+                case "--telemetry": telemetryPort = Integer.parseInt(args[++i]); break;
+                case "--heatmap": heatmapPath = Paths.get(args[++i]); break;
+                case "--speed": speed = args[++i]; break;
+                case "--connect": connect = args[++i]; break;
+                case "--opmode": opModeSpec = args[++i]; break;
+                case "--opmode-hz": opModeHz = Double.parseDouble(args[++i]); break;
+                default: System.err.println("Unknown option: " + args[i]);
+            }
+        }
+
+        // A recording holds only the driven robot, so scripted ones pushing it couldn't be replayed
+        if (extraBots > 0 && recordPath != null) {
+            System.err.println("--bots can't be recorded: a run holds only the driven robot");
+            System.exit(1);
+        }
+        if (extraBots > 0 && replayPath != null) {
+            System.err.println("Ignoring --bots while replaying a run");
+            extraBots = 0;
+        }
+        // A run's input already covers every match phase; under the clock, playback would wait out autonomous
+        if (match && replayPath != null) {
+            System.err.println("Ignoring --match while replaying a run");
+            match = false;
+        }
+
+        // Load user code before anything opens, so a bad jar fails fast
+        OpMode opMode = null;
+        if (opModeSpec != null) {
+            try {
+                opMode = OpModeLoader.load(opModeSpec);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not load OpMode: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
         // Create and configure the main window
         JFrame frame = new JFrame("FTC Virtual Robot Simulator");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setResizable(false);
         frame.setLocationRelativeTo(null);
 
-        // Show settings dialog
+        // Show settings dialog; it starts decoding the chosen background while the user decides
         SettingsDialog settings = new SettingsDialog(frame);
         settings.setVisible(true);
+        long settingsClosed = System.nanoTime();
 
         DriveMode driveType   = settings.getSelectedDriveMode();
         Background background = settings.getSelectedBackground();
+        FieldDefinition field = settings.getSelectedField();
         Alliance alliance     = settings.getSelectedAlliance();
+        RenderMode renderMode = settings.getSelectedRenderMode();
 
-        // Load the selected background so we can get its dimensions
-        BufferedImage bgImage = null;
+        // Size the window from the background's header; the pixels are still decoding in the background
+        Dimension bgSize = null;
         try {
-            bgImage = ImageIO.read(
-                    Main.class.getResource("/background/" + background.getFilename())
-            );
-        } catch (Exception e) {
-            System.err.println("Could not load background for sizing: " +e.getMessage());
+            bgSize = AssetCache.readSize(background);
+        } catch (IOException e) {
+            System.err.println("Could not load background for sizing: " + e.getMessage());
         }
 
-        if (bgImage != null) {
-            double imgAspect = (double) bgImage.getHeight() / bgImage.getHeight();
+        if (bgSize != null) {
+            double imgAspect = (double) bgSize.width / bgSize.height;
             int    contentH  = 800;
             int    contentW  = (int)(contentH * imgAspect);
 
@@ -57,24 +157,323 @@ public class Main {
         }
         frame.setLocationRelativeTo(null);
 
-        // Build the robot model
-        SimBot robot = new SimBotBuilder()
-                .setStartPose(0, 0, Math.PI / 2)
-                .setConstraints(60, 60, Math.PI, Math.PI)
-                .setDimensions(17.25, 17.25)
-                .build();
+        if (connect != null) {
+            runClient(connect, frame, background, alliance, renderMode, settings.getSelectedFpsCap(), gamepad);
+            return;
+        }
 
-        KeyboardController kb = new KeyboardController(robot);
-        frame.addKeyListener(kb);
+        // Build the robot model, or take it from the run being replayed
+        SimBot robot;
+        DriveController controller;
+        KeyboardController kb = null;
+        ScriptedGamepadSource scripted = null;
+        int tickHz = Simulator.DEFAULT_TICK_HZ;
+        CollisionWorld collisions = null;
+        int fieldHash = 0;
+        if (replayPath != null) {
+            // Recordings hold robot-frame input, so they replay robot-centric whatever the dialog says
+            RunRecording recording = RunRecording.open(replayPath);
+            driveType = DriveMode.ROBOT_CENTRIC;
+            robot = recording.createBot();
+            controller = new ReplayController(recording);
+            tickHz = recording.getTickHz();
+            collisions = recording.createCollisionWorld();
+            fieldHash = recording.getFieldHash();
+        } else if (gamepad != null) {
+            robot = buildRobot(field, alliance);
+            GamepadSource source = gamepad.equals("--gamepad")
+                    ? JInputGamepadSource.findFirst()
+                    : new ScriptedGamepadSource()
+                            .at(0, 0, 0, 0)
+                            .at(1, 0, 1, 0)
+                            .at(2, 1, 0, 0.5)
+                            .at(3, 0, -1, 0)
+                            .at(4, -1, 0, -0.5)
+                            .at(5, 0, 0, 0)
+                            .looping();
+            if (source == null) {
+                System.err.println("No gamepad found");
+                System.exit(1);
+            }
+            if (source instanceof ScriptedGamepadSource) scripted = (ScriptedGamepadSource) source;
+            GamepadController pad = new GamepadController(source, 500, 0.05, 0.3);
+            pad.start();
+            controller = pad;
+        } else {
+            robot = buildRobot(field, alliance);
+            kb = new KeyboardController(robot);
+            frame.addKeyListener(kb);
+            controller = kb;
+        }
+        if (replayPath == null) {
+            // The chosen field's walls and structures, or the bare field if it couldn't be loaded
+            collisions = field != null ? field.createCollisionWorld() : CollisionWorld.forField();
+            fieldHash = field != null ? field.getGeometryHash() : 0;
+        }
+
+        // User code drives through simulated hardware; the driver's input becomes its gamepad1.
+        // Motor powers are always robot-frame: field-centric driving is the OpMode's own business
+        OpModeRunner opModeRunner = null;
+        if (opMode != null && replayPath == null) {
+            SimHardware hardware = new SimHardware(robot, 1.0 / tickHz);
+            opModeRunner = new OpModeRunner(opMode, hardware, controller, opModeHz);
+            controller = hardware;
+            driveType = DriveMode.ROBOT_CENTRIC;
+        } else if (opMode != null) {
+            System.err.println("Ignoring --opmode while replaying a run");
+        }
 
-        // Set up the rendering panel with the chosen background
-        FieldPanel panel = new FieldPanel(robot, background, alliance);
-        frame.add(panel);
+        // The driven robot first, so it is the one recorded, then any scripted ones
+        World world = new World();
+        if (collisions != null) world.setCollisionWorld(collisions);
+        if (match) world.setMatchClock(new MatchClock());
+        world.addRobot(robot, controller, alliance, driveType);
+        if (alliance == Alliance.BlUE) world.setDriverHeading(Math.PI);
+        if (match) {
+            TrajectoryCache cache = new TrajectoryCache(TrajectoryCache.defaultDirectory());
+            world.setAutonomous(0, new TrajectoryController(cache.get(demoAutonomous(robot)), robot, 1.0 / tickHz));
+        }
+        addScriptedRobots(world, extraBots, 1.0 / tickHz);
+
+        // Set up the rendering view with the chosen background
+        double fieldSize = field != null ? field.getSize() : FieldDefinition.DEFAULT_SIZE;
+        FieldView view;
+        if (renderMode.isActive()) {
+            FieldCanvas canvas = new FieldCanvas(world, background, alliance, fieldSize,
+                                                 renderMode, settings.getSelectedFpsCap());
+            frame.add(canvas);
+            view = canvas;
+        } else {
+            FieldPanel panel = new FieldPanel(world, background, alliance, fieldSize);
+            frame.add(panel);
+            view = panel;
+        }
         frame.setVisible(true);
 
         // Kick off the simulation loop
-        DriveMode mode = settings.getSelectedDriveMode();
-        Simulator sim = new Simulator(robot, panel, kb, mode);
+        Simulator sim = new Simulator(world, view, tickHz);
+        RunRecorder recorder = recordPath != null
+                ? new RunRecorder(recordPath, robot, tickHz,
+                                  collisions != null ? RunFormat.FLAG_WALLS : 0, fieldHash)
+                : null;
+        sim.setRecorder(recorder);
+
+        // Telemetry is cheap enough to leave on; JMX always, HTTP on request
+        Telemetry telemetry = new Telemetry();
+        telemetry.registerMBean();
+        sim.setTelemetry(telemetry);
+        TelemetryServer telemetryServer = null;
+        if (telemetryPort >= 0) {
+            try {
+                telemetryServer = new TelemetryServer(telemetry, telemetryPort);
+                telemetryServer.start();
+                System.out.println("Telemetry at http://localhost:" + telemetryServer.getPort() + "/telemetry");
+            } catch (IOException e) {
+                System.err.println("Could not start telemetry server: " + e.getMessage());
+            }
+        }
+
+        // Simulated time: P pauses, N steps one tick while paused, -/= slow down and speed up,
+        // 0 returns to real time, U runs unlimited
+        SimClock clock = sim.getClock();
+        if (speed != null) {
+            if (speed.equals("unlimited")) clock.setUnlimited(true); else clock.setScale(Double.parseDouble(speed));
+        }
+        if (scripted != null) scripted.setClock(clock);
+        String title = frame.getTitle();
+        new Timer(500, e -> frame.setTitle(title + "  [" + clock + "]")).start();
+
+        // Practice history: T cycles trail / heatmap / off, C clears it
+        FieldHistory history = new FieldHistory(FieldHistory.DEFAULT_TRAIL_CAPACITY, fieldSize);
+        sim.setHistory(history);
+
+        // Overlay, clock and rewind hotkeys
+        frame.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_T: view.setOverlayMode(view.getOverlayMode().next()); break;
+                    case KeyEvent.VK_C: history.clear(); break;
+                    case KeyEvent.VK_P: clock.togglePause(); break;
+                    case KeyEvent.VK_N: clock.step(); break;
+                    case KeyEvent.VK_MINUS: clock.slower(); break;
+                    case KeyEvent.VK_EQUALS: clock.faster(); break;
+                    case KeyEvent.VK_0: clock.setScale(1.0); break;
+                    case KeyEvent.VK_U: clock.setUnlimited(!clock.isUnlimited()); break;
+                    case KeyEvent.VK_R: sim.resetToStart(); break;
+                    case KeyEvent.VK_K: sim.saveCheckpoint(); break;
+                    case KeyEvent.VK_L: sim.restoreCheckpoint(); break;
+                }
+            }
+        });
         sim.start();
+        if (opModeRunner != null) opModeRunner.start();
+        view.firstFrame().thenAccept(nanos -> System.out.printf(
+                "First frame %.0f ms after settings closed%n", (nanos - settingsClosed) / 1e6));
+
+        // Report loop stability and input latency, and finish the recording on exit
+        KeyboardController keyboard = kb;
+        TelemetryServer server = telemetryServer;
+        Path heatmap = heatmapPath;
+        OpModeRunner runner = opModeRunner;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (runner != null) runner.stop();
+            sim.stop();
+            if (server != null) server.stop();
+            System.out.println("Physics loop: " + sim.getStats());
+            if (runner != null) System.out.println("OpMode " + runner);
+            System.out.printf("Sim clock: %.1f s simulated at %.2f sim s/s on average%n",
+                              clock.getSimSeconds(), clock.getAverageThroughput());
+            System.out.println(telemetry);
+            System.out.println("Assets: " + AssetCache.shared());
+            if (heatmap != null) {
+                try {
+                    history.writeOccupancyCsv(heatmap);
+                    System.out.println("Saved field occupancy to " + heatmap);
+                } catch (IOException e) {
+                    System.err.println("Failed to save field occupancy: " + e.getMessage());
+                }
+            }
+            if (keyboard != null) {
+                System.out.println("Key-to-tick latency: " + keyboard.getInputLatency());
+            }
+            if (recorder != null) {
+                try {
+                    recorder.close();
+                    System.out.println("Recorded " + recorder.getTicks() + " ticks");
+                } catch (IOException e) {
+                    System.err.println("Failed to finish recording: " + e.getMessage());
+                }
+            }
+        }));
+    }
+
+    /**
+     * Joins a practice server and drives its seat from the keyboard or a
+     * gamepad, drawing the server's robots as they arrive. The server runs
+     * the physics; this process only sends input and renders.
+     */
+    private static void runClient(String address, JFrame frame, Background background, Alliance alliance,
+                                  RenderMode renderMode, int fpsCap, String gamepad) throws IOException {
+        int colon = address.lastIndexOf(':');
+        String host = colon >= 0 ? address.substring(0, colon) : address;
+        int port = colon >= 0 ? Integer.parseInt(address.substring(colon + 1)) : NetProtocol.DEFAULT_PORT;
+        NetClient client = NetClient.connect(host, port, LinkConditioner.NONE);
+        World world = client.getWorld();
+        System.out.println("Joined " + address + " driving robot " + client.getSeat());
+
+        KeyboardController kb = null;
+        if (gamepad != null) {
+            GamepadSource source = JInputGamepadSource.findFirst();
+            if (source == null) {
+                System.err.println("No gamepad found");
+                System.exit(1);
+            }
+            GamepadController pad = new GamepadController(source, 500, 0.05, 0.3);
+            pad.start();
+            client.setController(pad);
+        } else {
+            kb = new KeyboardController(world.getRobot(client.getSeat()));
+            frame.addKeyListener(kb);
+            client.setController(kb);
+        }
+
+        FieldView view;
+        if (renderMode.isActive()) {
+            FieldCanvas canvas = new FieldCanvas(world, background, alliance, renderMode, fpsCap);
+            frame.add(canvas);
+            view = canvas;
+        } else {
+            FieldPanel panel = new FieldPanel(world, background, alliance);
+            frame.add(panel);
+            view = panel;
+        }
+        frame.setVisible(true);
+        client.start();
+        view.startRendering(client.getSnapshot(), client.getStats());
+
+        frame.setTitle(frame.getTitle() + "  [" + address + ", robot " + client.getSeat() + "]");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            view.stopRendering();
+            client.stop();
+            System.out.println("Client " + client);
+        }));
+    }
+
+    /**
+     * Builds the default practice robot.
+     * @return the driven robot, at the field's first starting pose for the
+     *         alliance, or the field center if it lists none
+     */
+    private static SimBot buildRobot(FieldDefinition field, Alliance alliance) {
+        double[] start = field != null && field.getStartCount(alliance) > 0
+                ? field.getStartPose(alliance, 0)
+                : new double[]{0, 0, Math.PI / 2};
+        return new SimBotBuilder()
+                .setStartPose(start[0], start[1], start[2])
+                .setConstraints(60, 60, Math.PI, Math.PI)
+                .setDimensions(17.25, 17.25)
+                .build();
+    }
+
+    /**
+     * A loop out from the robot's start and back, laid out relative to where
+     * it starts, bending toward the field center so it stays clear of the walls.
+     */
+    private static TrajectoryBuilder demoAutonomous(SimBot bot) {
+        double x = bot.getX(), y = bot.getY(), h = bot.getHeading();
+        double cos = Math.cos(h), sin = Math.sin(h);
+        double side = -sin * -x + cos * -y >= 0 ? 1 : -1;   // +1 if the center is to the robot's left
+        return new TrajectoryBuilder(x, y, h)
+                .setConstraints(bot)
+                .splineTo(x + 16 * cos, y + 16 * sin, h)
+                .splineTo(x + 22 * cos - 16 * side * sin, y + 22 * sin + 16 * side * cos, h + side * Math.PI / 2)
+                .lineTo(x + 8 * cos - 22 * side * sin, y + 8 * sin + 22 * side * cos, h)
+                .lineTo(x, y, h);
+    }
+
+    /**
+     * Adds robots that loop a short course forever, spread around the field
+     * and alternating alliances, as partners, opponents or stress load.
+     */
+    static void addScriptedRobots(World world, int n, double dt) {
+        ScriptedController course = new ScriptedController(dt)
+                .hold(1, 0, 0, 1.0)
+                .hold(0, 1, 0.5, 1.0)
+                .hold(-1, 0, 0, 1.0)
+                .hold(0, -1, -0.5, 1.0)
+                .idle(0.5)
+                .looping();
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = 24 + 36 * ((i / 8) % 2);
+            SimBot bot = new SimBotBuilder()
+                    .setStartPose(radius * Math.cos(angle), radius * Math.sin(angle), angle + Math.PI / 2)
+                    .setConstraints(40 + 5 * (i % 5), 60, Math.PI, Math.PI)
+                    .setDimensions(17.25, 17.25)
+                    .build();
+            ScriptedController script = course.copy();
+            int index = world.addRobot(bot, script, i % 2 == 0 ? Alliance.BlUE : Alliance.RED,
+                                       DriveMode.ROBOT_CENTRIC);
+            world.setAutonomous(index, script);
+        }
+    }
+
+    /**
+     * Replays a recording headlessly and reports whether it reproduced exactly.
+     */
+    private static void verify(Path path) throws IOException {
+        RunRecording recording = RunRecording.open(path);
+        long start = System.nanoTime();
+        long mismatch = RunVerifier.firstMismatch(recording);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        if (mismatch < 0) {
+            System.out.printf("Replayed %d ticks (%.1f s) exactly in %.3f s (%.0fx real time)%n",
+                    recording.getTickCount(), recording.getDuration(), wallSeconds,
+                    recording.getDuration() / wallSeconds);
+        } else {
+            System.out.println("Replay diverged at tick " + mismatch);
+        }
     }
 }
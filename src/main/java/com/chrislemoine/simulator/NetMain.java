@@ -0,0 +1,147 @@
+package com.chrislemoine.simulator;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.Simulator;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.net.LinkConditioner;
+import com.chrislemoine.simulator.net.NetClient;
+import com.chrislemoine.simulator.net.NetProtocol;
+import com.chrislemoine.simulator.net.NetServer;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless entry point for shared practice. Needs no display.
+ * <p>{@code NetMain server [port] [seats] [bots]} runs the authoritative
+ * world: {@code seats} robots for remote drivers, who join with
+ * {@code Main --connect host:port}, plus {@code bots} scripted ones. Traffic
+ * per seat and tick timing are printed every five seconds.</p>
+ * <p>{@code NetMain loopback [clients] [loss] [latencyMs] [jitterMs] [seconds]}
+ * runs a server and that many scripted clients in one process over
+ * loopback, with loss, latency and jitter applied to every datagram in both
+ * directions, and prints bandwidth, tick timing and what each client saw.</p>
+ */
+public class NetMain {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mode = args.length > 0 ? args[0] : "loopback";
+        if (mode.equals("server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : NetProtocol.DEFAULT_PORT;
+            int seats = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+            int bots = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+            serve(port, seats, bots);
+        } else if (mode.equals("loopback")) {
+            int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+            double loss = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+            double latency = args.length > 3 ? Double.parseDouble(args[3]) : 40;
+            double jitter = args.length > 4 ? Double.parseDouble(args[4]) : 10;
+            double seconds = args.length > 5 ? Double.parseDouble(args[5]) : 10;
+            loopback(clients, new LinkConditioner(loss, latency, jitter, 1), seconds);
+        } else {
+            System.err.println("Usage: NetMain server [port] [seats] [bots] | "
+                    + "loopback [clients] [loss] [latencyMs] [jitterMs] [seconds]");
+        }
+    }
+
+    private static void serve(int port, int seats, int bots) throws IOException, InterruptedException {
+        int tickHz = Simulator.DEFAULT_TICK_HZ;
+        World world = buildWorld(seats, bots, tickHz);
+        Simulator sim = new Simulator(world, null, tickHz);
+        Telemetry telemetry = new Telemetry();
+        sim.setTelemetry(telemetry);
+        NetServer server = new NetServer(world, seats, tickHz, NetServer.DEFAULT_SEND_HZ, LinkConditioner.NONE);
+        sim.setTickListener(server);
+        server.start(port);
+        sim.start();
+        System.out.println("Serving " + seats + " seats on port " + server.getPort());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            sim.stop();
+            System.out.println("Physics loop: " + sim.getStats());
+            System.out.println(server);
+        }));
+        while (true) {
+            Thread.sleep(5000);
+            System.out.print(server.report());
+            System.out.printf("tick p50 %.1f us, p99 %.1f us; %s%n",
+                    telemetry.getTickTime().getValueAtPercentile(50) / 1e3,
+                    telemetry.getTickTime().getValueAtPercentile(99) / 1e3, server);
+        }
+    }
+
+    private static void loopback(int clients, LinkConditioner link, double seconds)
+            throws IOException, InterruptedException {
+        int tickHz = Simulator.DEFAULT_TICK_HZ;
+        World world = buildWorld(clients, 0, tickHz);
+        Simulator sim = new Simulator(world, null, tickHz);
+        Telemetry telemetry = new Telemetry();
+        sim.setTelemetry(telemetry);
+        NetServer server = new NetServer(world, clients, tickHz, NetServer.DEFAULT_SEND_HZ, link);
+        sim.setTickListener(server);
+        server.start(0);
+        sim.start();
+
+        // Each client drives its own loop, started at a different point so they spread out
+        List<NetClient> joined = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            NetClient client = NetClient.connect("localhost", server.getPort(), link);
+            ScriptedController course = new ScriptedController(1.0 / tickHz)
+                    .idle(0.25 * i)
+                    .hold(1, 0, 0, 1.0)
+                    .hold(0, 1, 0.5, 1.0)
+                    .hold(-1, 0, 0, 1.0)
+                    .hold(0, -1, -0.5, 1.0)
+                    .looping();
+            client.setController(course);
+            client.start();
+            joined.add(client);
+        }
+        Thread.sleep(1000);
+        server.report();   // drop the joining second from the rates
+        telemetry.resetHistograms();
+
+        Thread.sleep((long) (seconds * 1000));
+        String traffic = server.report();
+        String summary = server.toString();
+        for (NetClient client : joined) client.stop();
+        server.stop();
+        sim.stop();
+
+        System.out.printf("%d clients over loopback with %s, %.0f s%n", clients, link, seconds);
+        System.out.print(traffic);
+        System.out.printf("Server tick: p50 %.1f us, p99 %.1f us, max %.1f us; physics loop %s%n",
+                telemetry.getTickTime().getValueAtPercentile(50) / 1e3,
+                telemetry.getTickTime().getValueAtPercentile(99) / 1e3,
+                telemetry.getTickTime().getMax() / 1e3, sim.getStats());
+        System.out.println("Server: " + summary);
+        for (NetClient client : joined) System.out.println("Client " + client);
+    }
+
+    /**
+     * Builds the shared field: a row of robots for the seats, alternating
+     * alliances, and scripted robots around the middle.
+     */
+    private static World buildWorld(int seats, int bots, int tickHz) {
+        World world = new World();
+        world.setCollisionWorld(CollisionWorld.forField());
+        for (int i = 0; i < seats; i++) {
+            double x = -60 + 120.0 * (i + 0.5) / seats;
+            boolean red = i % 2 == 0;
+            world.addRobot(new SimBotBuilder()
+                                   .setStartPose(x, red ? -48 : 48, red ? Math.PI / 2 : -Math.PI / 2)
+                                   .setConstraints(60, 60, Math.PI, Math.PI)
+                                   .setDimensions(17.25, 17.25)
+                                   .build(),
+                           null, red ? Alliance.RED : Alliance.BlUE, DriveMode.ROBOT_CENTRIC);
+        }
+        Main.addScriptedRobots(world, bots, 1.0 / tickHz);
+        return world;
+    }
+}
@@ -0,0 +1,167 @@
+package com.chrislemoine.simulator;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.BatchEngine;
+import com.chrislemoine.simulator.core.BatchJob;
+import com.chrislemoine.simulator.core.BatchResult;
+import com.chrislemoine.simulator.core.MecanumDriveModel;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.Simulator;
+import com.chrislemoine.simulator.field.FieldCatalog;
+import com.chrislemoine.simulator.field.FieldDefinition;
+import com.chrislemoine.simulator.input.ReplayController;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.input.TrajectoryController;
+import com.chrislemoine.simulator.record.RunRecording;
+import com.chrislemoine.simulator.trajectory.Trajectory;
+import com.chrislemoine.simulator.trajectory.TrajectoryBuilder;
+import com.chrislemoine.simulator.tune.ConstraintSet;
+import com.chrislemoine.simulator.tune.ConstraintTuner;
+import com.chrislemoine.simulator.tune.Course;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Headless entry point: searches drivetrain constraints for the fastest
+ * clean drive of a course and prints the best configurations as CSV.
+ * Needs no display.
+ * <p>Usage: {@code TuneMain [trajectory|script|<run.ftcrun>] [rounds] [gridPoints] [contactPenalty]}.</p>
+ * <p>The trajectory course is a lap round the submersible on the default
+ * field, profiled for each configuration's own limits. The script course is
+ * BatchMain's stick script, scored on stopping at the field center. A
+ * recording is replayed stick for stick and scored on reaching where it
+ * originally ended, against whatever it was driven among.</p>
+ * <p>Every course is driven by the per-wheel mecanum model, so limits beyond
+ * what the motors can deliver cost time in following error instead of
+ * always winning. Each round's convergence is logged to stderr as it
+ * finishes.</p>
+ */
+public class TuneMain {
+    /** Configurations printed at the end. */
+    private static final int TOP = 5;
+
+    // Search bounds: maxVel, maxAccel, maxAngVel, maxAngAccel
+    private static final ConstraintSet LOWER = new ConstraintSet(20, 20, 1, 1);
+    private static final ConstraintSet UPPER = new ConstraintSet(90, 300, 8, 30);
+
+    public static void main(String[] args) throws IOException {
+        String courseName = args.length > 0 ? args[0] : "trajectory";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int gridPoints = args.length > 2 ? Integer.parseInt(args[2]) : ConstraintTuner.DEFAULT_GRID_POINTS;
+        double penalty = args.length > 3 ? Double.parseDouble(args[3]) : ConstraintTuner.DEFAULT_CONTACT_PENALTY;
+
+        BatchEngine engine;
+        Course course;
+        if (courseName.equals("trajectory")) {
+            engine = new BatchEngine(Simulator.DEFAULT_TICK_HZ);
+            course = trajectoryCourse(engine);
+        } else if (courseName.equals("script")) {
+            engine = new BatchEngine(Simulator.DEFAULT_TICK_HZ);
+            course = scriptCourse(engine);
+        } else {
+            RunRecording recording = RunRecording.open(Paths.get(courseName));
+            engine = new BatchEngine(recording.getTickHz());
+            course = recordedCourse(recording);
+        }
+
+        ConstraintTuner tuner = new ConstraintTuner(engine, course, LOWER, UPPER, gridPoints)
+                .setContactPenalty(penalty);
+        System.err.printf("Tuning %s: up to %d rounds of %d^%d, %.1f s per contact second%n",
+                courseName, rounds, gridPoints, ConstraintSet.DIMENSIONS, penalty);
+        for (int i = 0; i < rounds && !tuner.isConverged(); i++) {
+            ConstraintTuner.Round round = tuner.step();
+            ConstraintTuner.Evaluation best = round.getBest();
+            System.err.printf("round %d: %d new, %d memo hits, %.2f s (%.1f evals/s/core, %.0fx real time); "
+                            + "round best %.3f, best %.3f %s; span +/-%.1f %.0f %.2f %.2f%n",
+                    round.getIndex(), round.getEvaluated(), round.getMemoHits(), round.getWallSeconds(),
+                    round.getEvaluationsPerCoreSecond(), round.getSimSeconds() / round.getWallSeconds(),
+                    round.getRoundBest().getCost(), best.getCost(), best.getConstraints(),
+                    round.getHalfSpan(0), round.getHalfSpan(1), round.getHalfSpan(2), round.getHalfSpan(3));
+        }
+        engine.shutdown();
+
+        System.out.println("rank,maxVel,maxAccel,maxAngVel,maxAngAccel,cost,timeToTarget,wallContacts,pathLength");
+        int rank = 1;
+        for (ConstraintTuner.Evaluation e : tuner.getBest(TOP)) {
+            ConstraintSet c = e.getConstraints();
+            BatchResult r = e.getResult();
+            System.out.printf("%d,%.1f,%.0f,%.2f,%.2f,%.3f,%.3f,%d,%.1f%n", rank++,
+                    c.getMaxVel(), c.getMaxAccel(), c.getMaxAngVel(), c.getMaxAngAccel(),
+                    e.getCost(), r.getTimeToTarget(), r.getWallContacts(), r.getPathLength());
+        }
+        System.err.printf("%d rounds, %d runs, %d memo hits in %.2f wall s (%.1f evals/s/core) on %d threads%n",
+                tuner.getRounds(), tuner.getEvaluations(), tuner.getMemoHits(), tuner.getEvaluationSeconds(),
+                tuner.getEvaluationsPerCoreSecond(), engine.getParallelism());
+    }
+
+    /** A lap round the submersible, clockwise from the red wall. */
+    private static Course trajectoryCourse(BatchEngine engine) throws IOException {
+        FieldDefinition field = FieldCatalog.shared().getDefault().load();
+        return c -> {
+            // Compiled directly: every configuration is new, so the disk cache would only fill up
+            Trajectory trajectory = new TrajectoryBuilder(12, -63, Math.PI / 2)
+                    .setConstraints(c.getMaxVel(), c.getMaxAccel(), c.getMaxAngVel(), c.getMaxAngAccel())
+                    .splineTo(42, -20, Math.PI / 2)
+                    .lineTo(42, 20, Math.PI / 2)
+                    .splineTo(0, 44, Math.PI)
+                    .splineTo(-42, 20, -Math.PI / 2)
+                    .lineTo(-42, -20, -Math.PI / 2)
+                    .build();
+            return new BatchJob(c.toString(),
+                    () -> robot(c).setStartPose(12, -63, Math.PI / 2).build(),
+                    bot -> new TrajectoryController(trajectory, bot, engine.getDt()))
+                    .setDuration(trajectory.getDuration() + 3.0)
+                    .setTarget(-42, -20, 2.0)
+                    .setStopAtTarget(true)
+                    .setCollisions(field::createCollisionWorld);
+        };
+    }
+
+    /** BatchMain's stick script, ending at the field center. */
+    private static Course scriptCourse(BatchEngine engine) {
+        ScriptedController script = new ScriptedController(engine.getDt())
+                .hold(1, 0, 0, 1.5)
+                .hold(0, 1, 0, 1.0)
+                .hold(0, 0, -1, 0.5)
+                .idle(2.0);
+        // Not stopped at the target: running on into the wall must cost
+        return c -> new BatchJob(c.toString(),
+                () -> robot(c).setStartPose(0, -48, Math.PI / 2).build(),
+                bot -> script.copy())
+                .setDuration(script.getDuration())
+                .setTarget(0, 0, 3.0)
+                .setWalls(true);
+    }
+
+    /** The recorded sticks replayed, ending where the original run did. */
+    private static Course recordedCourse(RunRecording recording) throws IOException {
+        long last = recording.getTickCount() - 1;
+        double endX = recording.getX(last), endY = recording.getY(last);
+        boolean walls = recording.createCollisionWorld() != null;   // fails now if the field is missing
+        return c -> {
+            BatchJob job = new BatchJob(c.toString(),
+                    () -> c.applyTo(recording.botBuilder()).setDriveModel(new MecanumDriveModel()).build(),
+                    bot -> new ReplayController(recording))
+                    .setDuration(recording.getDuration() + 1.0)
+                    .setTarget(endX, endY, 2.0)
+                    .setStopAtTarget(true);
+            return walls ? job.setCollisions(() -> collisions(recording)) : job;
+        };
+    }
+
+    private static SimBotBuilder robot(ConstraintSet c) {
+        return c.applyTo(new SimBotBuilder())
+                .setDimensions(17.25, 17.25)
+                .setDriveModel(new MecanumDriveModel());
+    }
+
+    private static CollisionWorld collisions(RunRecording recording) {
+        try {
+            return recording.createCollisionWorld();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.chrislemoine.simulator.collision;
+
+import com.chrislemoine.simulator.core.Restorable;
+import com.chrislemoine.simulator.core.SimBot;
+
+import java.util.Arrays;
+
+/**
+ * Keeps robots out of the field walls, field structures and each other.
+ * <p> - Static obstacles (perimeter walls, structures) are oriented boxes indexed once in a {@link UniformGrid}</p>
+ * <p> - Robots are re-indexed in a second grid every {@link #resolve()}, so pair checks scale with local density, not N^2</p>
+ * <p> - Overlaps are found with a separating-axis test and pushed apart along the
+ *       axis of least penetration; velocity into the contact is removed so robots slide</p>
+ * <p>Call {@link #resolve()} once per physics tick, after the robots update. It
+ * does not allocate once the bodies and obstacles have been added.</p>
+ */
+public class CollisionWorld implements Restorable {
+    /** Half the side of the FTC field (inches). */
+    public static final double FIELD_HALF_SIZE = 72.0;
+    /** Default broad-phase cell size (inches), a bit larger than an 18" robot. */
+    public static final double DEFAULT_CELL_SIZE = 24.0;
+
+    private static final double WALL_THICKNESS = 12.0;
+
+    private final double halfSize;
+    private final UniformGrid bodyGrid;
+    private final UniformGrid obstacleGrid;
+
+    private SimBot[] bodies = new SimBot[4];
+    private OrientedBox[] bodyBoxes = new OrientedBox[4];
+    private long[] contactCounts = new long[4];
+    // Each body's bounds corner when the grid was built; pushes move the boxes, not these
+    private double[] gridMinX = new double[4], gridMinY = new double[4];
+    private int bodyCount = 0;
+
+    private OrientedBox[] obstacles = new OrientedBox[8];
+    private int obstacleCount = 0;
+    private boolean obstaclesDirty = false;
+
+    private final OrientedBox.Contact contact = new OrientedBox.Contact();
+    private long contacts = 0;
+
+    /**
+     * @param halfSize half the side of the square area indexed (inches)
+     * @param cellSize broad-phase cell side (inches)
+     */
+    public CollisionWorld(double halfSize, double cellSize) {
+        this.halfSize     = halfSize;
+        this.bodyGrid     = new UniformGrid(halfSize, cellSize);
+        this.obstacleGrid = new UniformGrid(halfSize, cellSize);
+    }
+
+    /**
+     * @return an empty world sized to the 144" field, with the perimeter walls in place
+     */
+    public static CollisionWorld forField() {
+        CollisionWorld world = new CollisionWorld(FIELD_HALF_SIZE, DEFAULT_CELL_SIZE);
+        world.addPerimeterWalls();
+        return world;
+    }
+
+    /**
+     * Adds four wall boxes just outside the field edge. They are thick so a fast
+     * robot can't tunnel through in one tick.
+     */
+    public void addPerimeterWalls() {
+        double span = 2 * (halfSize + WALL_THICKNESS);
+        double offset = halfSize + WALL_THICKNESS / 2;
+        addObstacle( offset, 0, WALL_THICKNESS, span, 0);
+        addObstacle(-offset, 0, WALL_THICKNESS, span, 0);
+        addObstacle(0,  offset, span, WALL_THICKNESS, 0);
+        addObstacle(0, -offset, span, WALL_THICKNESS, 0);
+    }
+
+    /**
+     * Adds a fixed field structure.
+     * @param cx     center X (inches)
+     * @param cy     center Y (inches)
+     * @param width  size along its rotated X axis (inches)
+     * @param length size along its rotated Y axis (inches)
+     * @param angle  rotation (radians)
+     */
+    public void addObstacle(double cx, double cy, double width, double length, double angle) {
+        if (obstacleCount == obstacles.length) obstacles = Arrays.copyOf(obstacles, obstacleCount * 2);
+        obstacles[obstacleCount++] = new OrientedBox().set(cx, cy, width, length, angle);
+        obstaclesDirty = true;
+    }
+
+    /**
+     * Registers a robot to be collided.
+     * @param bot the robot
+     * @return its body index
+     */
+    public int addBody(SimBot bot) {
+        if (bodyCount == bodies.length) {
+            int capacity = bodyCount * 2;
+            bodies        = Arrays.copyOf(bodies, capacity);
+            bodyBoxes     = Arrays.copyOf(bodyBoxes, capacity);
+            contactCounts = Arrays.copyOf(contactCounts, capacity);
+            gridMinX      = Arrays.copyOf(gridMinX, capacity);
+            gridMinY      = Arrays.copyOf(gridMinY, capacity);
+        }
+        bodies[bodyCount] = bot;
+        bodyBoxes[bodyCount] = new OrientedBox().setFrom(bot);
+        return bodyCount++;
+    }
+
+    /** @return number of robots registered */
+    public int getBodyCount() { return bodyCount; }
+
+    /** @return number of static obstacles, walls included */
+    public int getObstacleCount() { return obstacleCount; }
+
+    /** @return contacts resolved involving the given robot */
+    public long getContactCount(int body) { return contactCounts[body]; }
+
+    /** @return contacts resolved since creation */
+    public long getContactCount() { return contacts; }
+
+    /** Contact counts are the only state; one total plus one per robot. */
+    @Override
+    public int stateSize() { return 1 + bodyCount; }
+
+    @Override
+    public void saveState(double[] out, int offset) {
+        out[offset] = contacts;
+        for (int i = 0; i < bodyCount; i++) out[offset + 1 + i] = contactCounts[i];
+    }
+
+    @Override
+    public void restoreState(double[] in, int offset) {
+        contacts = (long) in[offset];
+        for (int i = 0; i < bodyCount; i++) contactCounts[i] = (long) in[offset + 1 + i];
+    }
+
+    /**
+     * Finds and resolves every overlap. Robots are first pushed out of each
+     * other, then out of obstacles, so walls always get the last word.
+     */
+    public void resolve() {
+        if (obstaclesDirty) {
+            obstacleGrid.build(obstacles, obstacleCount);
+            obstaclesDirty = false;
+        }
+
+        final int n = bodyCount;
+        for (int i = 0; i < n; i++) bodyBoxes[i].setFrom(bodies[i]);
+
+        if (n > 1) resolveBodies();
+        for (int i = 0; i < n; i++) resolveObstacles(i);
+    }
+
+    private void resolveBodies() {
+        bodyGrid.build(bodyBoxes, bodyCount);
+        for (int i = 0; i < bodyCount; i++) {
+            gridMinX[i] = bodyBoxes[i].minX;
+            gridMinY[i] = bodyBoxes[i].minY;
+        }
+        int cells = bodyGrid.getCellCount();
+        for (int cell = 0; cell < cells; cell++) {
+            int start = bodyGrid.cellStart(cell), end = bodyGrid.cellEnd(cell);
+            for (int p = start; p < end; p++) {
+                int i = bodyGrid.entry(p);
+                OrientedBox a = bodyBoxes[i];
+                for (int q = p + 1; q < end; q++) {
+                    int j = bodyGrid.entry(q);
+                    OrientedBox b = bodyBoxes[j];
+                    if (!a.boundsOverlap(b)
+                            || !ownsPair(bodyGrid, cell, gridMinX[i], gridMinY[i], gridMinX[j], gridMinY[j])) continue;
+                    if (!a.intersects(b, contact)) continue;
+
+                    // Split the push evenly; the normal points from a to b
+                    double half = contact.depth / 2;
+                    bodies[i].applyContact(-contact.nx, -contact.ny, half);
+                    bodies[j].applyContact(contact.nx, contact.ny, half);
+                    a.setFrom(bodies[i]);
+                    b.setFrom(bodies[j]);
+                    touch(i);
+                    touch(j);
+                }
+            }
+        }
+    }
+
+    private void resolveObstacles(int i) {
+        if (obstacleCount == 0) return;
+        OrientedBox box = bodyBoxes[i];
+        int cols = obstacleGrid.getCols();
+        double minX = box.minX, minY = box.minY;
+        int c0 = obstacleGrid.col(minX), c1 = obstacleGrid.col(box.maxX);
+        int r0 = obstacleGrid.row(minY), r1 = obstacleGrid.row(box.maxY);
+
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int p = obstacleGrid.cellStart(cell), end = obstacleGrid.cellEnd(cell); p < end; p++) {
+                    OrientedBox o = obstacles[obstacleGrid.entry(p)];
+                    if (!o.boundsOverlap(box) || !ownsPair(obstacleGrid, cell, o.minX, o.minY, minX, minY)) continue;
+                    if (!o.intersects(box, contact)) continue;
+
+                    bodies[i].applyContact(contact.nx, contact.ny, contact.depth);
+                    box.setFrom(bodies[i]);
+                    touch(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * A pair sharing several cells is tested only in the cell holding the corner
+     * where their bounds start to overlap, so each pair is resolved once.
+     * <p>The corners are the bounds the cells were chosen from, not the boxes as
+     * pushed since, so the owner can't move mid-pass. A pair that only overlaps
+     * after another contact pushed one of them is left for the next tick.</p>
+     */
+    private static boolean ownsPair(UniformGrid grid, int cell, double aMinX, double aMinY, double bMinX, double bMinY) {
+        return grid.cellAt(Math.max(aMinX, bMinX), Math.max(aMinY, bMinY)) == cell;
+    }
+
+    private void touch(int i) {
+        contactCounts[i]++;
+        contacts++;
+    }
+}
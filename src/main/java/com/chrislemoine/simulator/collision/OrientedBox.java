@@ -0,0 +1,104 @@
+package com.chrislemoine.simulator.collision;
+
+import com.chrislemoine.simulator.core.SimBot;
+
+/**
+ * Mutable oriented bounding box in field inches, reused across ticks.
+ * <p>The box's local X axis is the heading direction. As in the renderer, a
+ * robot's width spans its local X axis and its length spans local Y.</p>
+ */
+public final class OrientedBox {
+    double cx, cy;     // center (inches)
+    double hx, hy;     // half extents along local X and Y (inches)
+    double ux, uy;     // local X axis as a unit vector; local Y is (-uy, ux)
+
+    // Axis-aligned bounds, refreshed by every set
+    double minX, minY, maxX, maxY;
+
+    /**
+     * @param cx     center X (inches)
+     * @param cy     center Y (inches)
+     * @param width  size along the local X axis (inches)
+     * @param length size along the local Y axis (inches)
+     * @param angle  rotation of the local X axis (radians)
+     * @return this box
+     */
+    public OrientedBox set(double cx, double cy, double width, double length, double angle) {
+        return set(cx, cy, width, length, Math.cos(angle), Math.sin(angle));
+    }
+
+    /**
+     * Fits the box to a robot's current footprint, reusing its cached heading trig.
+     * @param bot the robot
+     * @return this box
+     */
+    public OrientedBox setFrom(SimBot bot) {
+        return set(bot.getX(), bot.getY(), bot.getWidth(), bot.getLength(),
+                   bot.getCosHeading(), bot.getSinHeading());
+    }
+
+    private OrientedBox set(double cx, double cy, double width, double length, double cos, double sin) {
+        this.cx = cx;
+        this.cy = cy;
+        this.hx = width / 2;
+        this.hy = length / 2;
+        this.ux = cos;
+        this.uy = sin;
+
+        double ex = extentAlong(1, 0);
+        double ey = extentAlong(0, 1);
+        minX = cx - ex;
+        maxX = cx + ex;
+        minY = cy - ey;
+        maxY = cy + ey;
+        return this;
+    }
+
+    /**
+     * @param ax unit axis X
+     * @param ay unit axis Y
+     * @return half the box's projected length on the axis
+     */
+    double extentAlong(double ax, double ay) {
+        return hx * Math.abs(ux * ax + uy * ay) + hy * Math.abs(-uy * ax + ux * ay);
+    }
+
+    /** @return true if the axis-aligned bounds of the two boxes overlap */
+    boolean boundsOverlap(OrientedBox o) {
+        return minX < o.maxX && o.minX < maxX && minY < o.maxY && o.minY < maxY;
+    }
+
+    /**
+     * Separating-axis test against another box.
+     * @param o       the other box
+     * @param contact receives the minimum-penetration normal, pointing from this box toward o
+     * @return true if the boxes overlap
+     */
+    boolean intersects(OrientedBox o, Contact contact) {
+        double dx = o.cx - cx;
+        double dy = o.cy - cy;
+        contact.depth = Double.MAX_VALUE;
+        return testAxis(o, dx, dy, ux, uy, contact)
+            && testAxis(o, dx, dy, -uy, ux, contact)
+            && testAxis(o, dx, dy, o.ux, o.uy, contact)
+            && testAxis(o, dx, dy, -o.uy, o.ux, contact);
+    }
+
+    private boolean testAxis(OrientedBox o, double dx, double dy, double ax, double ay, Contact contact) {
+        double dist = dx * ax + dy * ay;
+        double overlap = extentAlong(ax, ay) + o.extentAlong(ax, ay) - Math.abs(dist);
+        if (overlap <= 0) return false;
+        if (overlap < contact.depth) {
+            double sign = dist < 0 ? -1 : 1;
+            contact.nx = ax * sign;
+            contact.ny = ay * sign;
+            contact.depth = overlap;
+        }
+        return true;
+    }
+
+    /** Minimum-penetration result of a box test; reused, never allocated per tick. */
+    static final class Contact {
+        double nx, ny, depth;
+    }
+}
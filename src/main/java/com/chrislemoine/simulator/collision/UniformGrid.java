@@ -0,0 +1,98 @@
+package com.chrislemoine.simulator.collision;
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid broad phase over the field.
+ * <p>Each build counting-sorts box indices into cells by their axis-aligned
+ * bounds, so a cell's occupants are one contiguous run of {@link #entry(int)}.
+ * Boxes only need a narrow-phase test against boxes sharing a cell. Storage is
+ * flat int[]s that are reused, and only grow when more boxes are added.</p>
+ */
+final class UniformGrid {
+    private final double originX, originY;
+    private final double cellSize;
+    private final int cols, rows;
+
+    private final int[] cellStart;   // cells + 1 prefix sums; cell c is [cellStart[c], cellStart[c + 1])
+    private final int[] cursor;      // per-cell write position during a build
+    private int[] entries = new int[16];
+
+    /**
+     * @param halfSize half the side of the square area covered (inches); boxes outside are clamped to the edge cells
+     * @param cellSize cell side (inches); at least the largest box keeps each box in at most four cells
+     */
+    UniformGrid(double halfSize, double cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        this.originX  = -halfSize;
+        this.originY  = -halfSize;
+        this.cellSize = cellSize;
+        this.cols     = Math.max(1, (int) Math.ceil(2 * halfSize / cellSize));
+        this.rows     = cols;
+        this.cellStart = new int[cols * rows + 1];
+        this.cursor    = new int[cols * rows];
+    }
+
+    int getCellCount() { return cols * rows; }
+    int getCols()      { return cols; }
+
+    int cellStart(int cell) { return cellStart[cell]; }
+    int cellEnd(int cell)   { return cellStart[cell + 1]; }
+    int entry(int k)        { return entries[k]; }
+
+    /**
+     * @return the cell containing a point, clamped to the grid
+     */
+    int cellAt(double x, double y) {
+        return row(y) * cols + col(x);
+    }
+
+    /**
+     * Rebuilds the cell lists.
+     * @param boxes the boxes to index
+     * @param n     number of boxes in use
+     */
+    void build(OrientedBox[] boxes, int n) {
+        int cells = cols * rows;
+        Arrays.fill(cellStart, 0);
+
+        // Pass 1: count occupants per cell, shifted by one for the prefix sum
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            OrientedBox b = boxes[i];
+            int c0 = col(b.minX), c1 = col(b.maxX);
+            int r0 = row(b.minY), r1 = row(b.maxY);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * cols + c + 1]++;
+                }
+            }
+            total += (c1 - c0 + 1) * (r1 - r0 + 1);
+        }
+        for (int c = 0; c < cells; c++) cellStart[c + 1] += cellStart[c];
+        if (entries.length < total) entries = new int[Math.max(total, entries.length * 2)];
+
+        // Pass 2: scatter indices; each cell stays sorted by box index
+        System.arraycopy(cellStart, 0, cursor, 0, cells);
+        for (int i = 0; i < n; i++) {
+            OrientedBox b = boxes[i];
+            int c0 = col(b.minX), c1 = col(b.maxX);
+            int r0 = row(b.minY), r1 = row(b.maxY);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    entries[cursor[r * cols + c]++] = i;
+                }
+            }
+        }
+    }
+
+    int col(double x) {
+        int c = (int) Math.floor((x - originX) / cellSize);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    int row(double y) {
+        int r = (int) Math.floor((y - originY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+}
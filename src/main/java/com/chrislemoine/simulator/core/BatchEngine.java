@@ -0,0 +1,219 @@
+package com.chrislemoine.simulator.core;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.input.DriveController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Headless engine that runs many independent simulations as fast as the CPU
+ * allows, with no window, panel or keyboard involved.
+ * <p>Jobs are split recursively across a work-stealing {@link ForkJoinPool};
+ * each job owns its robot and controller, so workers share nothing.</p>
+ * <p>{@link #explore} instead forks one {@link WorldSnapshot} into many
+ * what-if continuations. Each task builds one world and restores the
+ * snapshot into it for every branch it runs, so a branch costs a restore
+ * and its ticks, not a world.</p>
+ */
+public class BatchEngine {
+    /** Jobs per leaf task; small enough to balance uneven run lengths. */
+    private static final int LEAF_SIZE = 4;
+
+    private final int tickHz;
+    private final double dt;
+    private final ForkJoinPool pool;
+
+    /**
+     * Uses every available core.
+     * @param tickHz physics rate each job is stepped at (Hz)
+     */
+    public BatchEngine(int tickHz) {
+        this(tickHz, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param tickHz      physics rate each job is stepped at (Hz)
+     * @param parallelism number of worker threads
+     */
+    public BatchEngine(int tickHz, int parallelism) {
+        if (tickHz <= 0) throw new IllegalArgumentException("tickHz must be positive: " + tickHz);
+        this.tickHz = tickHz;
+        this.dt     = 1.0 / tickHz;
+        this.pool   = new ForkJoinPool(parallelism);
+    }
+
+    /** @return physics rate jobs are stepped at (Hz) */
+    public int getTickHz() { return tickHz; }
+
+    /** @return fixed step each job advances by (seconds) */
+    public double getDt() { return dt; }
+
+    /** @return number of worker threads */
+    public int getParallelism() { return pool.getParallelism(); }
+
+    /**
+     * Runs every job and waits for them all to finish.
+     * @param jobs the runs to execute
+     * @return one result per job, in the same order
+     */
+    public List<BatchResult> run(List<BatchJob> jobs) {
+        BatchResult[] results = new BatchResult[jobs.size()];
+        pool.invoke(new Slice(jobs, results, 0, jobs.size()));
+        return Arrays.asList(results);
+    }
+
+    /** Stops the worker threads once queued work drains. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Steps one job to completion on the calling thread.
+     * @param job the run to execute
+     * @return its result
+     */
+    public BatchResult runOne(BatchJob job) {
+        SimBot bot = job.createBot();
+        DriveController controller = job.createController(bot);
+        CollisionWorld walls = null;
+        if (job.hasWalls()) {
+            walls = job.createCollisionWorld();
+            walls.addBody(bot);
+        }
+
+        long maxTicks = Math.round(job.getDuration() * tickHz);
+        double tolSq = job.getTolerance() * job.getTolerance();
+        double timeToTarget = Double.NaN;
+        double pathLength = 0;
+
+        double lastX = bot.getX(), lastY = bot.getY();
+        long tick = 0;
+        while (tick < maxTicks) {
+            controller.poll();
+            bot.drive(controller.getAxial(), controller.getLateral(), controller.getYaw());
+            bot.update(dt);
+            if (walls != null) walls.resolve();
+            tick++;
+
+            double x = bot.getX(), y = bot.getY();
+            pathLength += Math.hypot(x - lastX, y - lastY);
+            lastX = x;
+            lastY = y;
+
+            if (job.hasTarget() && Double.isNaN(timeToTarget)) {
+                double dx = x - job.getTargetX(), dy = y - job.getTargetY();
+                if (dx * dx + dy * dy <= tolSq) {
+                    timeToTarget = tick * dt;
+                    if (job.isStopAtTarget()) break;
+                }
+            }
+        }
+
+        return new BatchResult(job.getName(), bot.getX(), bot.getY(), bot.getHeading(),
+                               timeToTarget, pathLength, tick * dt,
+                               walls != null ? walls.getContactCount() : 0);
+    }
+
+    /**
+     * Runs many continuations of one state and waits for them all to finish.
+     * Every branch starts from the snapshot, is changed by {@code setup} (say,
+     * a different controller for one robot), runs for the same simulated time,
+     * and is summed up by {@code outcome}.
+     * @param worlds   builds a world like the one the snapshot came from; called once per task
+     * @param from     state every branch starts from
+     * @param branches number of branches
+     * @param seconds  simulated time each branch runs for
+     * @param setup    changes the restored world for a branch, given the world and branch index
+     * @param outcome  reads a branch's result from its world once run
+     * @return one outcome per branch, in branch order
+     */
+    public <T> List<T> explore(Supplier<World> worlds, WorldSnapshot from, int branches, double seconds,
+                               ObjIntConsumer<World> setup, Function<World, T> outcome) {
+        if (branches < 0) throw new IllegalArgumentException("branches must not be negative: " + branches);
+        @SuppressWarnings("unchecked")
+        T[] results = (T[]) new Object[branches];
+        long ticks = Math.round(seconds * tickHz);
+        int leaf = Math.max(1, branches / (8 * pool.getParallelism()));
+        pool.invoke(new Branches<>(worlds, from, ticks, setup, outcome, results, leaf, 0, branches));
+        return Arrays.asList(results);
+    }
+
+    /** Fork-join task covering branches [from, to), all run in one world. */
+    private final class Branches<T> extends RecursiveAction {
+        private final Supplier<World> worlds;
+        private final WorldSnapshot start;
+        private final long ticks;
+        private final ObjIntConsumer<World> setup;
+        private final Function<World, T> outcome;
+        private final T[] results;
+        private final int leaf, from, to;
+
+        Branches(Supplier<World> worlds, WorldSnapshot start, long ticks, ObjIntConsumer<World> setup,
+                 Function<World, T> outcome, T[] results, int leaf, int from, int to) {
+            this.worlds  = worlds;
+            this.start   = start;
+            this.ticks   = ticks;
+            this.setup   = setup;
+            this.outcome = outcome;
+            this.results = results;
+            this.leaf    = leaf;
+            this.from    = from;
+            this.to      = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leaf) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Branches<>(worlds, start, ticks, setup, outcome, results, leaf, from, mid),
+                          new Branches<>(worlds, start, ticks, setup, outcome, results, leaf, mid, to));
+                return;
+            }
+            if (from == to) return;
+
+            // Setup may swap controllers, which changes the layout; put the originals back before each restore
+            World world = worlds.get();
+            DriveController[] controllers = new DriveController[world.size()];
+            for (int r = 0; r < controllers.length; r++) controllers[r] = world.getController(r);
+
+            for (int i = from; i < to; i++) {
+                for (int r = 0; r < controllers.length; r++) world.setController(r, controllers[r]);
+                world.restore(start);
+                setup.accept(world, i);
+                for (long t = 0; t < ticks; t++) world.step(dt);
+                results[i] = outcome.apply(world);
+            }
+        }
+    }
+
+    /** Fork-join task covering jobs [from, to). */
+    private final class Slice extends RecursiveAction {
+        private final List<BatchJob> jobs;
+        private final BatchResult[] results;
+        private final int from, to;
+
+        Slice(List<BatchJob> jobs, BatchResult[] results, int from, int to) {
+            this.jobs    = jobs;
+            this.results = results;
+            this.from    = from;
+            this.to      = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) results[i] = runOne(jobs.get(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(jobs, results, from, mid),
+                      new Slice(jobs, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.chrislemoine.simulator.core;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.input.DriveController;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One headless simulation run: a robot configuration, the controller that
+ * drives it, how long to run, and optionally a target point to time.
+ * <p>Both factories are invoked once per run, on the worker thread that
+ * executes it, so each run gets its own robot and controller state.</p>
+ */
+public class BatchJob {
+    private final String name;
+    private final Supplier<SimBot> botFactory;
+    private final Function<SimBot, DriveController> controllerFactory;
+
+    private double seconds = 30.0;
+    private boolean hasTarget = false;
+    private double targetX, targetY, tolerance;
+    private boolean stopAtTarget = false;
+    private boolean walls = false;
+    private Supplier<CollisionWorld> collisions = CollisionWorld::forField;
+
+    /**
+     * @param name              label reported with the result
+     * @param botFactory        builds a fresh robot for the run
+     * @param controllerFactory builds a fresh controller for that robot
+     */
+    public BatchJob(String name, Supplier<SimBot> botFactory,
+                    Function<SimBot, DriveController> controllerFactory) {
+        this.name              = name;
+        this.botFactory        = botFactory;
+        this.controllerFactory = controllerFactory;
+    }
+
+    /**
+     * Sets the simulated run length.
+     * @param seconds simulated time to run (seconds)
+     * @return this job for chaining
+     */
+    public BatchJob setDuration(double seconds) {
+        this.seconds = seconds;
+        return this;
+    }
+
+    /**
+     * Records the first time the robot comes within tolerance of a point.
+     * @param x         target X (inches)
+     * @param y         target Y (inches)
+     * @param tolerance capture radius (inches)
+     * @return this job for chaining
+     */
+    public BatchJob setTarget(double x, double y, double tolerance) {
+        this.hasTarget = true;
+        this.targetX   = x;
+        this.targetY   = y;
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Ends the run as soon as the target is reached instead of running the full duration.
+     * @return this job for chaining
+     */
+    public BatchJob setStopAtTarget(boolean stopAtTarget) {
+        this.stopAtTarget = stopAtTarget;
+        return this;
+    }
+
+    /**
+     * Keeps the robot inside the field walls, counting every wall contact.
+     * @return this job for chaining
+     */
+    public BatchJob setWalls(boolean walls) {
+        this.walls = walls;
+        return this;
+    }
+
+    /**
+     * Keeps the robot inside the walls and clear of the structures of a
+     * particular field, counting every contact.
+     * @param collisions builds a fresh collision world with no robots, once per run
+     * @return this job for chaining
+     */
+    public BatchJob setCollisions(Supplier<CollisionWorld> collisions) {
+        this.collisions = collisions;
+        this.walls      = true;
+        return this;
+    }
+
+    public String getName()            { return name; }
+    public double getDuration()        { return seconds; }
+    public boolean hasTarget()         { return hasTarget; }
+    public double getTargetX()         { return targetX; }
+    public double getTargetY()         { return targetY; }
+    public double getTolerance()       { return tolerance; }
+    public boolean isStopAtTarget()    { return stopAtTarget; }
+    public boolean hasWalls()          { return walls; }
+
+    SimBot createBot()                                { return botFactory.get(); }
+    DriveController createController(SimBot bot)      { return controllerFactory.apply(bot); }
+    CollisionWorld createCollisionWorld()             { return collisions.get(); }
+}
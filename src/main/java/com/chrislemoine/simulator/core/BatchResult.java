@@ -0,0 +1,54 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Outcome of one {@link BatchJob}.
+ */
+public class BatchResult {
+    /** Column names matching {@link #toCsv()}. */
+    public static final String CSV_HEADER =
+            "name,finalX,finalY,finalHeading,timeToTarget,pathLength,simSeconds,wallContacts";
+
+    private final String name;
+    private final double finalX, finalY, finalHeading;
+    private final double timeToTarget;   // seconds, NaN if never reached
+    private final double pathLength;     // inches travelled
+    private final double simSeconds;     // simulated time actually run
+    private final long wallContacts;     // wall contacts resolved, 0 without walls
+
+    public BatchResult(String name, double finalX, double finalY, double finalHeading,
+                       double timeToTarget, double pathLength, double simSeconds, long wallContacts) {
+        this.name         = name;
+        this.finalX       = finalX;
+        this.finalY       = finalY;
+        this.finalHeading = finalHeading;
+        this.timeToTarget = timeToTarget;
+        this.pathLength   = pathLength;
+        this.simSeconds   = simSeconds;
+        this.wallContacts = wallContacts;
+    }
+
+    public String getName()          { return name; }
+    public double getFinalX()        { return finalX; }
+    public double getFinalY()        { return finalY; }
+    public double getFinalHeading()  { return finalHeading; }
+    public double getPathLength()    { return pathLength; }
+    public double getSimSeconds()    { return simSeconds; }
+    public long getWallContacts()    { return wallContacts; }
+
+    /** @return seconds until the target was first reached, or NaN if it never was */
+    public double getTimeToTarget()  { return timeToTarget; }
+
+    /** @return true if the job had a target and the robot reached it */
+    public boolean reachedTarget()   { return !Double.isNaN(timeToTarget); }
+
+    /** @return this result as one CSV row */
+    public String toCsv() {
+        return String.format("%s,%.3f,%.3f,%.4f,%.3f,%.3f,%.3f,%d",
+                name, finalX, finalY, finalHeading, timeToTarget, pathLength, simSeconds, wallContacts);
+    }
+
+    @Override
+    public String toString() {
+        return toCsv();
+    }
+}
@@ -0,0 +1,38 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * How a drivetrain turns target velocities into actual body velocities.
+ * <p>A model only advances the robot's twist (strafe, forward and angular
+ * velocity, all in the robot frame); {@link SimBot} then hands the twist at
+ * the start and end of the step to its {@link Integrator} to move the pose.</p>
+ * <p>Models with state of their own beyond the twist override the
+ * {@link Restorable} methods so snapshots capture it.</p>
+ */
+public interface DriveModel extends Restorable {
+    int VEL_X = 0;     // strafe velocity, positive right (inches/sec)
+    int VEL_Y = 1;     // forward velocity (inches/sec)
+    int ANG_VEL = 2;   // angular velocity, positive counterclockwise (rad/sec)
+
+    /**
+     * Advances the twist by one step toward the robot's targets.
+     * @param bot   the robot, for its targets, constraints and footprint
+     * @param dt    time step (seconds)
+     * @param twist current twist, indexed by VEL_X, VEL_Y, ANG_VEL; updated in place
+     */
+    void advance(SimBot bot, double dt, double[] twist);
+
+    /**
+     * @return a model with the same parameters and fresh state, for another robot;
+     *         stateless models may return themselves
+     */
+    default DriveModel copy() { return this; }
+
+    @Override
+    default int stateSize() { return 0; }
+
+    @Override
+    default void saveState(double[] out, int offset) {}
+
+    @Override
+    default void restoreState(double[] in, int offset) {}
+}
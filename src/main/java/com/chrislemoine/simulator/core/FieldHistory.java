@@ -0,0 +1,160 @@
+package com.chrislemoine.simulator.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Practice history for every robot in a world: a decimated {@link PoseTrail}
+ * per robot and a field occupancy grid counting the ticks robots spent in
+ * each square inch. The grid is centered on the field and covers it,
+ * rounded up to whole inches.
+ * <p>Recorded by the physics thread after every tick, at a cost of a few
+ * arithmetic operations per robot, and read by the renderer for the trail
+ * and heatmap overlays. Memory is fixed when the world is attached,
+ * however long a session runs.</p>
+ */
+public class FieldHistory {
+    /** Points kept per robot trail. */
+    public static final int DEFAULT_TRAIL_CAPACITY = 8192;
+
+    /** Side of the field recorded unless one is given (inches). */
+    public static final double DEFAULT_FIELD_SIZE = 144.0;
+
+    /** Most occupancy cells across the field, so a mistyped size can't exhaust memory. */
+    public static final int MAX_GRID_SIZE = 1024;
+
+    private final int trailCapacity;
+    private final int gridSize;
+    private final double halfGrid;
+    private PoseTrail[] trails = new PoseTrail[0];
+    private final int[] occupancy;
+    private volatile int occupancyMax = 0;
+
+    private volatile boolean clearRequested = false;
+    private volatile int generation = 0;
+
+    public FieldHistory() {
+        this(DEFAULT_TRAIL_CAPACITY);
+    }
+
+    /**
+     * @param trailCapacity points kept per robot trail
+     */
+    public FieldHistory(int trailCapacity) {
+        this(trailCapacity, DEFAULT_FIELD_SIZE);
+    }
+
+    /**
+     * @param trailCapacity points kept per robot trail
+     * @param fieldSize     side of the field (inches)
+     * @throws IllegalArgumentException if the field needs more than {@link #MAX_GRID_SIZE} cells across
+     */
+    public FieldHistory(int trailCapacity, double fieldSize) {
+        if (!(fieldSize > 0 && fieldSize <= MAX_GRID_SIZE)) {
+            throw new IllegalArgumentException("Field size out of range for the occupancy grid: " + fieldSize);
+        }
+        this.trailCapacity = trailCapacity;
+        this.gridSize = (int) Math.ceil(fieldSize);
+        this.halfGrid = gridSize / 2.0;
+        this.occupancy = new int[gridSize * gridSize];
+    }
+
+    /**
+     * Creates a trail for every robot in the world. Call before the simulation starts.
+     * @param world the world whose robots are recorded
+     */
+    public void attach(World world) {
+        PoseTrail[] created = new PoseTrail[world.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = i < trails.length ? trails[i] : new PoseTrail(trailCapacity);
+        }
+        trails = created;
+    }
+
+    /**
+     * Adds every robot's current pose. Physics thread only.
+     * @param world the world that was just stepped
+     */
+    public void record(World world) {
+        if (clearRequested) {
+            clearRequested = false;
+            for (PoseTrail trail : trails) trail.clear();
+            java.util.Arrays.fill(occupancy, 0);
+            occupancyMax = 0;
+            generation++;
+        }
+
+        int max = occupancyMax;
+        for (int i = 0, n = Math.min(trails.length, world.size()); i < n; i++) {
+            SimBot bot = world.getRobot(i);
+            double x = bot.getX(), y = bot.getY();
+            trails[i].record(x, y, bot.getHeading());
+
+            int col = (int) Math.floor(x + halfGrid);
+            int row = (int) Math.floor(y + halfGrid);
+            if (col >= 0 && col < gridSize && row >= 0 && row < gridSize) {
+                int count = ++occupancy[row * gridSize + col];
+                if (count > max) max = count;
+            }
+        }
+        occupancyMax = max;
+    }
+
+    /** Asks the physics thread to wipe the trails and heatmap before its next record. Any thread. */
+    public void clear() {
+        clearRequested = true;
+    }
+
+    /**
+     * Breaks every trail where it is, so a robot put back to an earlier state
+     * is not drawn jumping there. The heatmap is kept. Physics thread only.
+     */
+    public void cut() {
+        for (PoseTrail trail : trails) trail.cut();
+    }
+
+    /** @return a number that changes every time the history is cleared */
+    public int getGeneration() { return generation; }
+
+    /** @return number of robot trails */
+    public int getTrailCount() { return trails.length; }
+
+    /** @return robot i's trail */
+    public PoseTrail getTrail(int i) { return trails[i]; }
+
+    /** @return occupancy cells across the field, and down it: its side rounded up to whole inches */
+    public int getGridSize() { return gridSize; }
+
+    /**
+     * Ticks spent in one square inch. Read without locking, so a concurrent
+     * tick may or may not be included.
+     * @param col column from the grid's -X edge, in [0, {@link #getGridSize()})
+     * @param row row from the grid's -Y edge, in [0, {@link #getGridSize()})
+     */
+    public int getOccupancy(int col, int row) { return occupancy[row * gridSize + col]; }
+
+    /** @return the largest occupancy count of any cell */
+    public int getMaxOccupancy() { return occupancyMax; }
+
+    /**
+     * Writes the occupancy grid as CSV for review after practice: one line
+     * per row of the field, +Y edge first, so it reads like the field from the Red side.
+     * @param path output file
+     */
+    public void writeOccupancyCsv(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            StringBuilder line = new StringBuilder(gridSize * 4);
+            for (int row = gridSize - 1; row >= 0; row--) {
+                line.setLength(0);
+                for (int col = 0; col < gridSize; col++) {
+                    if (col > 0) line.append(',');
+                    line.append(getOccupancy(col, row));
+                }
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+    }
+}
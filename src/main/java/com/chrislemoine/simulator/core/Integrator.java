@@ -0,0 +1,116 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * How {@link SimBot} moves its pose through one step, given the robot-frame
+ * twist at the start and end of the step.
+ * <p>Strafe is positive to the robot's right and heading is counterclockwise,
+ * so a twist (vx, vy, w) moves the field pose at
+ * (vy cos h + vx sin h, vy sin h - vx cos h, w).</p>
+ */
+public enum Integrator {
+    /** Start-of-step twist and heading; first order. */
+    EULER {
+        @Override
+        void integrate(double[] pose, double cos, double sin,
+                       double vx0, double vy0, double w0,
+                       double vx1, double vy1, double w1, double dt) {
+            double forward = vy0 * dt;
+            double strafe  = vx0 * dt;
+            pose[X] += forward * cos + strafe * sin;
+            pose[Y] += forward * sin - strafe * cos;
+            pose[H] += w0 * dt;
+        }
+    },
+
+    /** End-of-step twist at the start-of-step heading; first order, the default and what recordings assume. */
+    SEMI_IMPLICIT {
+        @Override
+        void integrate(double[] pose, double cos, double sin,
+                       double vx0, double vy0, double w0,
+                       double vx1, double vy1, double w1, double dt) {
+            double forward = vy1 * dt;
+            double strafe  = vx1 * dt;
+            pose[X] += forward * cos + strafe * sin;
+            pose[Y] += forward * sin - strafe * cos;
+            pose[H] += w1 * dt;
+        }
+    },
+
+    /** Classic fourth-order Runge-Kutta, with the twist varying linearly across the step. */
+    RK4 {
+        @Override
+        void integrate(double[] pose, double cos, double sin,
+                       double vx0, double vy0, double w0,
+                       double vx1, double vy1, double w1, double dt) {
+            double vxm = (vx0 + vx1) / 2, vym = (vy0 + vy1) / 2, wm = (w0 + w1) / 2;
+            double h0 = pose[H];
+
+            // k1 at the start, reusing the cached trig
+            double k1x = vy0 * cos + vx0 * sin;
+            double k1y = vy0 * sin - vx0 * cos;
+
+            // k2 and k3 at the midpoint; heading only depends on time, so they share trig
+            double hm = h0 + w0 * dt / 2;
+            double cm = Math.cos(hm), sm = Math.sin(hm);
+            double k2x = vym * cm + vxm * sm;
+            double k2y = vym * sm - vxm * cm;
+            double hm3 = h0 + wm * dt / 2;
+            double c3 = Math.cos(hm3), s3 = Math.sin(hm3);
+            double k3x = vym * c3 + vxm * s3;
+            double k3y = vym * s3 - vxm * c3;
+
+            // k4 at the end
+            double h1 = h0 + wm * dt;
+            double c1 = Math.cos(h1), s1 = Math.sin(h1);
+            double k4x = vy1 * c1 + vx1 * s1;
+            double k4y = vy1 * s1 - vx1 * c1;
+
+            pose[X] += dt / 6 * (k1x + 2 * k2x + 2 * k3x + k4x);
+            pose[Y] += dt / 6 * (k1y + 2 * k2y + 2 * k3y + k4y);
+            pose[H]  = h0 + dt / 6 * (w0 + 4 * wm + w1);
+        }
+    },
+
+    /**
+     * Exact motion for the step's average twist held constant: the SE(2)
+     * exponential, an arc. Exact for the heading whenever angular velocity
+     * changes linearly, as it does under a ramp.
+     */
+    POSE_EXPONENTIAL {
+        @Override
+        void integrate(double[] pose, double cos, double sin,
+                       double vx0, double vy0, double w0,
+                       double vx1, double vy1, double w1, double dt) {
+            double vx = (vx0 + vx1) / 2, vy = (vy0 + vy1) / 2;
+            double d = (w0 + w1) / 2 * dt;
+            double a, b;   // sin(d)/d and (1 - cos(d))/d, by series near zero
+            if (Math.abs(d) < 1e-4) {
+                a = 1 - d * d / 6;
+                b = d / 2 - d * d * d / 24;
+            } else {
+                a = Math.sin(d) / d;
+                b = (1 - Math.cos(d)) / d;
+            }
+
+            // Displacement in the start-of-step robot frame (forward, left)
+            double forward = (vy * a + vx * b) * dt;
+            double left    = (vy * b - vx * a) * dt;
+            pose[X] += forward * cos - left * sin;
+            pose[Y] += forward * sin + left * cos;
+            pose[H] += d;
+        }
+    };
+
+    static final int X = 0, Y = 1, H = 2;
+
+    /**
+     * Advances the pose by one step. The heading is left unwrapped.
+     * @param pose x, y, heading; updated in place
+     * @param cos  cosine of the start-of-step heading
+     * @param sin  sine of the start-of-step heading
+     * @param dt   time step (seconds)
+     */
+    abstract void integrate(double[] pose, double cos, double sin,
+                            double vx0, double vy0, double w0,
+                            double vx1, double vy1, double w1, double dt);
+}
@@ -0,0 +1,113 @@
+package com.chrislemoine.simulator.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ * <p>Values (nanoseconds) are bucketed by power of two, and each power of two
+ * is split into 32 linear sub-buckets, so any recorded value is reported
+ * within about 3% across the whole range from 1 ns to hours. Recording is a
+ * couple of atomic increments with no allocation, and may happen on any
+ * thread while others read percentiles.</p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Adds one sample.
+     * @param nanos latency (nanoseconds); negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+        total.addAndGet(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    /** Discards all samples. Not atomic with respect to concurrent recording. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /** @return number of samples recorded */
+    public long getCount() { return count.get(); }
+
+    /** @return largest sample (nanoseconds) */
+    public long getMax() { return max.get(); }
+
+    /** @return mean sample (nanoseconds), or 0 if empty */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * @param percentile in [0, 100]
+     * @return upper bound of the bucket holding that percentile (nanoseconds), or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Copies the raw bucket counts, e.g. for export.
+     * @param out receives one count per bucket; must hold {@link #getBucketCount()} values
+     */
+    public void copyCounts(long[] out) {
+        for (int i = 0; i < BUCKETS; i++) out[i] = counts.get(i);
+    }
+
+    /** @return number of buckets */
+    public static int getBucketCount() { return BUCKETS; }
+
+    /** @return smallest value (nanoseconds) that falls in the given bucket */
+    public static long lowerBound(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return sub << shift;
+    }
+
+    /** @return largest value (nanoseconds) that falls in the given bucket */
+    public static long upperBound(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    private static int indexOf(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        int sub = (int) (v >>> shift);   // in [SUB_COUNT, 2 * SUB_COUNT)
+        return (shift + 1) * SUB_COUNT + (sub - SUB_COUNT);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                getCount(), getMean() / 1e3,
+                getValueAtPercentile(50) / 1e3, getValueAtPercentile(90) / 1e3,
+                getValueAtPercentile(99) / 1e3, getMax() / 1e3);
+    }
+}
@@ -0,0 +1,116 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Running statistics for the fixed-timestep simulation loop.
+ * <p> - Drift: simulated time minus wall time since the loop started.</p>
+ * <p> - Jitter: deviation of each tick's wall-clock spacing from the nominal period.</p>
+ * <p> - Dropped time: backlog discarded when the loop fell too far behind to catch up.</p>
+ *
+ * Written by the simulation thread, readable from any thread.
+ */
+public class LoopStats {
+    private long periodNanos;
+
+    private long startNanos;
+    private long lastTickNanos;
+    private long ticks;
+    private long droppedNanos;
+
+    // Welford accumulators over tick spacing error (nanoseconds)
+    private double jitterMean, jitterM2;
+    private long maxJitterNanos;
+
+    /**
+     * @param periodNanos nominal tick period (nanoseconds)
+     */
+    public LoopStats(long periodNanos) {
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Clears all counters and changes the expected wall time between ticks,
+     * e.g. when the simulation clock is sped up or slowed down.
+     * @param startNanos  System.nanoTime() the loop is considered to start at
+     * @param periodNanos expected wall time between ticks (nanoseconds)
+     */
+    public synchronized void reset(long startNanos, long periodNanos) {
+        this.periodNanos = periodNanos;
+        reset(startNanos);
+    }
+
+    /** Clears all counters; the loop is considered to start at startNanos. */
+    public synchronized void reset(long startNanos) {
+        this.startNanos     = startNanos;
+        this.lastTickNanos  = 0;
+        this.ticks          = 0;
+        this.droppedNanos   = 0;
+        this.jitterMean     = 0;
+        this.jitterM2       = 0;
+        this.maxJitterNanos = 0;
+    }
+
+    /**
+     * Records one physics tick.
+     * @param nowNanos System.nanoTime() at which the tick ran
+     */
+    public synchronized void recordTick(long nowNanos) {
+        if (lastTickNanos != 0) {
+            long error = (nowNanos - lastTickNanos) - periodNanos;
+            long n = ticks;   // intervals seen so far, including this one
+            double delta = error - jitterMean;
+            jitterMean += delta / n;
+            jitterM2   += delta * (error - jitterMean);
+            maxJitterNanos = Math.max(maxJitterNanos, Math.abs(error));
+        }
+        lastTickNanos = nowNanos;
+        ticks++;
+    }
+
+    /**
+     * Records backlog the loop gave up on to avoid a catch-up spiral.
+     * @param nanos discarded wall time (nanoseconds)
+     */
+    public synchronized void recordDropped(long nanos) {
+        droppedNanos += nanos;
+    }
+
+    /** @return number of ticks executed */
+    public synchronized long getTicks() { return ticks; }
+
+    /** @return simulated seconds minus wall seconds since start; negative means behind */
+    public synchronized double getDriftSeconds() {
+        if (lastTickNanos == 0) return 0;
+        double simSeconds  = ticks * (periodNanos / 1e9);
+        double wallSeconds = (lastTickNanos - startNanos) / 1e9;
+        return simSeconds - wallSeconds;
+    }
+
+    /** @return mean tick-spacing error (microseconds) */
+    public synchronized double getMeanJitterMicros() { return jitterMean / 1e3; }
+
+    /** @return standard deviation of tick-spacing error (microseconds) */
+    public synchronized double getStdDevJitterMicros() {
+        return ticks > 2 ? Math.sqrt(jitterM2 / (ticks - 2)) / 1e3 : 0;
+    }
+
+    /** @return largest absolute tick-spacing error (microseconds) */
+    public synchronized double getMaxJitterMicros() { return maxJitterNanos / 1e3; }
+
+    /** @return total backlog discarded (seconds) */
+    public synchronized double getDroppedSeconds() { return droppedNanos / 1e9; }
+
+    /** @return measured tick rate over the whole run (Hz) */
+    public synchronized double getTickRateHz() {
+        if (lastTickNanos == 0 || lastTickNanos == startNanos) return 0;
+        return ticks / ((lastTickNanos - startNanos) / 1e9);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "ticks=%d rate=%.1fHz drift=%.3fms jitter(mean=%.1fus sd=%.1fus max=%.1fus) dropped=%.3fs",
+                ticks, getTickRateHz(), getDriftSeconds() * 1e3,
+                getMeanJitterMicros(), getStdDevJitterMicros(), getMaxJitterMicros(),
+                getDroppedSeconds());
+    }
+}
@@ -0,0 +1,88 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * The 2:30 FTC match clock: 30 s autonomous, an 8 s transition while
+ * drivers pick up their controllers, then 2:00 driver-controlled, the last
+ * 30 s of which is endgame.
+ * <p>The clock counts simulated time in whole nanoseconds, advanced by the
+ * physics tick, so phase changes land on the same tick every run and a
+ * paused or sped-up simulation keeps match time consistent. It is written by
+ * the physics thread only and may be read from any thread.</p>
+ */
+public class MatchClock implements Restorable {
+    public static final double AUTONOMOUS_SECONDS = 30.0;
+    public static final double TRANSITION_SECONDS = 8.0;
+    public static final double TELEOP_SECONDS     = 120.0;
+    public static final double ENDGAME_SECONDS    = 30.0;
+
+    private static final long AUTONOMOUS_END = nanos(AUTONOMOUS_SECONDS);
+    private static final long TRANSITION_END = AUTONOMOUS_END + nanos(TRANSITION_SECONDS);
+    private static final long TELEOP_END     = TRANSITION_END + nanos(TELEOP_SECONDS);
+
+    private volatile long elapsedNanos = 0;
+
+    /** Puts the clock back to the start of autonomous. */
+    public void reset() {
+        elapsedNanos = 0;
+    }
+
+    @Override
+    public int stateSize() { return 1; }
+
+    @Override
+    public void saveState(double[] out, int offset) { out[offset] = elapsedNanos; }
+
+    @Override
+    public void restoreState(double[] in, int offset) { elapsedNanos = (long) in[offset]; }
+
+    /**
+     * Advances match time by one tick. Called from the physics thread only.
+     * @param dt time step (seconds)
+     */
+    public void advance(double dt) {
+        if (elapsedNanos < TELEOP_END) elapsedNanos += Math.round(dt * 1e9);
+    }
+
+    /** @return the period the match is in */
+    public MatchPhase getPhase() {
+        long t = elapsedNanos;
+        if (t < AUTONOMOUS_END) return MatchPhase.AUTONOMOUS;
+        if (t < TRANSITION_END) return MatchPhase.TRANSITION;
+        if (t < TELEOP_END)     return MatchPhase.TELEOP;
+        return MatchPhase.FINISHED;
+    }
+
+    /** @return true during the last 30 s of driver control */
+    public boolean isEndgame() {
+        long t = elapsedNanos;
+        return t < TELEOP_END && t >= TELEOP_END - nanos(ENDGAME_SECONDS);
+    }
+
+    /** @return simulated time since the match started, transition included (seconds) */
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /** @return time left in the current phase (seconds); 0 once finished */
+    public double getPhaseRemaining() {
+        long t = elapsedNanos;
+        long end = t < AUTONOMOUS_END ? AUTONOMOUS_END
+                 : t < TRANSITION_END ? TRANSITION_END
+                 : TELEOP_END;
+        return Math.max(0, end - t) / 1e9;
+    }
+
+    /**
+     * @return the match clock as a driver sees it, e.g. "1:23 TELEOP"
+     */
+    @Override
+    public String toString() {
+        int seconds = (int) Math.ceil(getPhaseRemaining());
+        return String.format("%d:%02d %s%s", seconds / 60, seconds % 60, getPhase(),
+                             isEndgame() ? " (endgame)" : "");
+    }
+
+    private static long nanos(double seconds) {
+        return Math.round(seconds * 1e9);
+    }
+}
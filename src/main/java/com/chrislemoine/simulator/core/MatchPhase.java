@@ -0,0 +1,12 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Periods of an FTC match, in order. Robots only take driver input in
+ * TELEOP and only run their autonomous controller in AUTONOMOUS.
+ */
+public enum MatchPhase {
+    AUTONOMOUS,
+    TRANSITION,
+    TELEOP,
+    FINISHED
+}
@@ -0,0 +1,250 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Per-wheel mecanum drivetrain with DC motor torque curves, wheel friction
+ * and battery voltage sag.
+ * <p>Each step, the target twist is mapped to open-loop power for the four
+ * wheels, the same way typical FTC drive code does it. Each motor then makes
+ * torque along a linear torque/speed curve at the battery's present voltage.
+ * Wheel friction is subtracted, and the four wheel forces are summed into a
+ * body force and torque. The battery sags with the current drawn on the
+ * previous sub-step.</p>
+ * <p>The dynamics are sub-stepped at {@value #MAX_SUBSTEP} s or finer, so a
+ * coarse physics tick stays stable. The model keeps per-robot state; give each
+ * robot its own instance ({@link SimBotBuilder} copies it for you).</p>
+ * <p>Defaults are a 15 kg robot on 96 mm wheels driven by 312 RPM motors,
+ * which is about 60 inches/sec flat out.</p>
+ */
+public class MecanumDriveModel implements DriveModel {
+    public static final int FRONT_LEFT = 0, FRONT_RIGHT = 1, BACK_LEFT = 2, BACK_RIGHT = 3;
+
+    private static final double METERS_PER_INCH = 0.0254;
+    private static final double MAX_SUBSTEP = 0.002;   // seconds, well under the motor time constant
+    private static final double WHEEL_INSET = 0.8;     // wheel contact patch, as a fraction of the half footprint
+    private static final double STICTION_SPEED = 1e-3; // m/s below which a wheel counts as stopped
+
+    // Wheel sign per body axis, ordered FL, FR, BL, BR
+    private static final double[] STRAFE_SIGN = { 1, -1, -1,  1 };
+    private static final double[] TURN_SIGN   = {-1,  1, -1,  1 };
+
+    // --- parameters (SI) ---
+    private double massKg            = 15.0;
+    private double wheelRadius       = 0.048;                   // m
+    private double freeSpeed         = 312 * 2 * Math.PI / 60;  // motor free speed at nominal voltage (rad/sec)
+    private double stallTorque       = 2.38;                    // per motor at nominal voltage (N*m)
+    private double stallCurrent      = 9.2;                     // per motor (A)
+    private double nominalVoltage    = 12.0;                    // V
+    private double openVoltage       = 13.0;                    // battery with no load (V)
+    private double batteryResistance = 0.05;                    // battery plus wiring (ohm)
+    private double coulombFriction   = 3.0;                     // per wheel (N)
+    private double viscousFriction   = 2.0;                     // per wheel (N per m/s)
+
+    // --- state ---
+    private final double[] power = new double[4];
+    private final double[] wheelSpeed = new double[4];   // inches/sec
+    private double current = 0.0;                        // total draw (A)
+    private double voltage = openVoltage;                // battery terminal voltage (V)
+
+    /**
+     * @param kg robot mass (kg)
+     * @return this model for chaining
+     */
+    public MecanumDriveModel setMass(double kg) {
+        this.massKg = positive(kg, "mass");
+        return this;
+    }
+
+    /**
+     * @param inches wheel diameter (inches)
+     * @return this model for chaining
+     */
+    public MecanumDriveModel setWheelDiameter(double inches) {
+        this.wheelRadius = positive(inches, "wheel diameter") * METERS_PER_INCH / 2;
+        return this;
+    }
+
+    /**
+     * Sets the motor curve, as geared at the wheel.
+     * @param freeRpm        free speed at the nominal voltage (RPM)
+     * @param stallTorque    stall torque at the nominal voltage (N*m)
+     * @param stallCurrent   stall current (A)
+     * @param nominalVoltage voltage the curve is rated at (V)
+     * @return this model for chaining
+     */
+    public MecanumDriveModel setMotor(double freeRpm, double stallTorque, double stallCurrent,
+                                      double nominalVoltage) {
+        this.freeSpeed      = positive(freeRpm, "free speed") * 2 * Math.PI / 60;
+        this.stallTorque    = positive(stallTorque, "stall torque");
+        this.stallCurrent   = positive(stallCurrent, "stall current");
+        this.nominalVoltage = positive(nominalVoltage, "nominal voltage");
+        return this;
+    }
+
+    /**
+     * @param openVoltage battery voltage with no load (V)
+     * @param resistance  battery internal plus wiring resistance (ohm); 0 disables sag
+     * @return this model for chaining
+     */
+    public MecanumDriveModel setBattery(double openVoltage, double resistance) {
+        if (resistance < 0) throw new IllegalArgumentException("resistance must not be negative: " + resistance);
+        this.openVoltage       = positive(openVoltage, "open voltage");
+        this.batteryResistance = resistance;
+        this.voltage           = openVoltage;
+        return this;
+    }
+
+    /**
+     * @param coulomb rolling resistance per wheel (N)
+     * @param viscous speed-proportional drag per wheel (N per m/s)
+     * @return this model for chaining
+     */
+    public MecanumDriveModel setFriction(double coulomb, double viscous) {
+        if (coulomb < 0 || viscous < 0) throw new IllegalArgumentException("friction must not be negative");
+        this.coulombFriction = coulomb;
+        this.viscousFriction = viscous;
+        return this;
+    }
+
+    /**
+     * @param wheel FRONT_LEFT, FRONT_RIGHT, BACK_LEFT or BACK_RIGHT
+     * @return the wheel's surface speed at the end of the last step (inches/sec)
+     */
+    public double getWheelVelocity(int wheel) { return wheelSpeed[wheel]; }
+
+    /**
+     * Surface speed a wheel must have for the robot to move as it is, assuming
+     * no slip: what an encoder on that wheel would measure.
+     * @param bot   the robot
+     * @param wheel FRONT_LEFT, FRONT_RIGHT, BACK_LEFT or BACK_RIGHT
+     * @return forward surface speed of the wheel (inches/sec)
+     */
+    public static double wheelVelocity(SimBot bot, int wheel) {
+        double k = (bot.getWidth() + bot.getLength()) / 2 * WHEEL_INSET;
+        return wheel(wheel, bot.getVelX(), bot.getVelY(), bot.getAngVel(), k);
+    }
+
+    /**
+     * Mecanum forward kinematics, the inverse of the mixing this model and
+     * typical drive code use: recovers axial, lateral and yaw from four wheel powers.
+     * @param power wheel powers ordered FL, FR, BL, BR, each positive driving its wheel forward
+     * @param out   receives axial, lateral, yaw
+     */
+    public static void mix(double[] power, double[] out) {
+        double axial = 0, lateral = 0, yaw = 0;
+        for (int i = 0; i < 4; i++) {
+            axial   += power[i];
+            lateral += STRAFE_SIGN[i] * power[i];
+            yaw     += TURN_SIGN[i] * power[i];
+        }
+        out[0] = axial / 4;
+        out[1] = lateral / 4;
+        out[2] = yaw / 4;
+    }
+
+    /** @return battery terminal voltage during the last step (V) */
+    public double getBatteryVoltage() { return voltage; }
+
+    /** @return total motor current during the last step (A) */
+    public double getCurrentDraw() { return current; }
+
+    @Override
+    public void advance(SimBot bot, double dt, double[] twist) {
+        double k = (bot.getWidth() + bot.getLength()) / 2 * WHEEL_INSET;   // inches
+        double kMeters = k * METERS_PER_INCH;
+        double inertia = massKg * (square(bot.getWidth()) + square(bot.getLength()))
+                * METERS_PER_INCH * METERS_PER_INCH / 12;
+
+        // Open-loop power from the target twist, scaled down together if any wheel saturates
+        double freeSurface = freeSpeed * wheelRadius / METERS_PER_INCH;   // inches/sec
+        double maxPower = 1.0;
+        for (int i = 0; i < 4; i++) {
+            power[i] = wheel(i, bot.getTargetVelX(), bot.getTargetVelY(), bot.getTargetAngVel(), k) / freeSurface;
+            maxPower = Math.max(maxPower, Math.abs(power[i]));
+        }
+        for (int i = 0; i < 4; i++) power[i] /= maxPower;
+
+        int steps = (int) Math.ceil(dt / MAX_SUBSTEP);
+        double h = dt / steps;
+        for (int s = 0; s < steps; s++) {
+            double vx = twist[VEL_X], vy = twist[VEL_Y], w = twist[ANG_VEL];
+            double volts = openVoltage - batteryResistance * current;
+            double fx = 0, fy = 0, torque = 0, amps = 0;
+
+            for (int i = 0; i < 4; i++) {
+                double v = wheel(i, vx, vy, w, k) * METERS_PER_INCH;   // m/s
+                double load = power[i] * volts / nominalVoltage - v / wheelRadius / freeSpeed;
+                double force = stallTorque * load / wheelRadius - viscousFriction * v;
+
+                // Rolling resistance opposes motion; a stopped wheel only resists up to its limit
+                if (Math.abs(v) > STICTION_SPEED) {
+                    force -= Math.copySign(coulombFriction, v);
+                } else {
+                    force = Math.abs(force) <= coulombFriction ? 0 : force - Math.copySign(coulombFriction, force);
+                }
+
+                amps += Math.abs(stallCurrent * load);
+                fx += STRAFE_SIGN[i] * force;
+                fy += force;
+                torque += TURN_SIGN[i] * force;
+                wheelSpeed[i] = v / METERS_PER_INCH;
+            }
+            current = amps;
+            voltage = volts;
+
+            twist[VEL_X]   += fx / massKg / METERS_PER_INCH * h;
+            twist[VEL_Y]   += fy / massKg / METERS_PER_INCH * h;
+            twist[ANG_VEL] += torque * kMeters / inertia * h;
+        }
+    }
+
+    @Override
+    public int stateSize() { return 6; }
+
+    @Override
+    public void saveState(double[] out, int offset) {
+        System.arraycopy(wheelSpeed, 0, out, offset, 4);
+        out[offset + 4] = current;
+        out[offset + 5] = voltage;
+    }
+
+    @Override
+    public void restoreState(double[] in, int offset) {
+        System.arraycopy(in, offset, wheelSpeed, 0, 4);
+        current = in[offset + 4];
+        voltage = in[offset + 5];
+    }
+
+    @Override
+    public MecanumDriveModel copy() {
+        MecanumDriveModel m = new MecanumDriveModel();
+        m.massKg            = massKg;
+        m.wheelRadius       = wheelRadius;
+        m.freeSpeed         = freeSpeed;
+        m.stallTorque       = stallTorque;
+        m.stallCurrent      = stallCurrent;
+        m.nominalVoltage    = nominalVoltage;
+        m.openVoltage       = openVoltage;
+        m.batteryResistance = batteryResistance;
+        m.coulombFriction   = coulombFriction;
+        m.viscousFriction   = viscousFriction;
+        m.voltage           = openVoltage;
+        return m;
+    }
+
+    /**
+     * Mecanum inverse kinematics: surface speed of one wheel for a body twist.
+     * @param k sum of the half track width and half wheelbase (inches)
+     */
+    private static double wheel(int i, double vx, double vy, double w, double k) {
+        return vy + STRAFE_SIGN[i] * vx + TURN_SIGN[i] * k * w;
+    }
+
+    private static double square(double v) {
+        return v * v;
+    }
+
+    private static double positive(double v, String name) {
+        if (!(v > 0)) throw new IllegalArgumentException(name + " must be positive: " + v);
+        return v;
+    }
+}
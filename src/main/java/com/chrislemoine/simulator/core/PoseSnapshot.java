@@ -0,0 +1,127 @@
+package com.chrislemoine.simulator.core;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Hand-off point between the simulation thread and the renderer.
+ * <p>The simulation thread publishes every robot's pose before and after each
+ * tick; the renderer samples them at display rate and blends the two poses by
+ * how far wall time has advanced into the current tick. Poses live in flat
+ * arrays, three doubles per robot, and publishing uses a sequence lock, so
+ * neither side allocates or blocks.</p>
+ */
+public class PoseSnapshot {
+    private volatile long seq = 0;                // odd while a write is in progress
+
+    private double[] prev = new double[3];        // poses before the last tick: x, y, heading per robot
+    private double[] cur = new double[3];         // poses after the last tick
+    private double[] readBuffer = new double[3];  // reader's copy of cur, so blending happens outside the retry loop
+    private int robots = 0;
+    private long tickNanos;                       // System.nanoTime() of the last publish
+    private long periodNanos = 1;                 // nominal tick period
+
+    /**
+     * Sizes the snapshot to the world and seeds both poses so the first frame
+     * renders before any tick has run. Call before the render thread starts.
+     */
+    public void reset(World world, long periodNanos) {
+        beginWrite();
+        int n = world.size();
+        if (prev.length < 3 * n) {
+            prev       = new double[3 * n];
+            cur        = new double[3 * n];
+            readBuffer = new double[3 * n];
+        }
+        this.robots = n;
+        copyPoses(world, cur);
+        System.arraycopy(cur, 0, prev, 0, 3 * n);
+        this.periodNanos = Math.max(1, periodNanos);
+        this.tickNanos   = System.nanoTime();
+        endWrite();
+    }
+
+    /**
+     * Changes how long each published tick is blended over, to match the
+     * wall time between ticks when the clock is scaled.
+     * @param periodNanos wall time between ticks (nanoseconds); tiny values just show the latest poses
+     */
+    public void setPeriodNanos(long periodNanos) {
+        beginWrite();
+        this.periodNanos = Math.max(1, periodNanos);
+        endWrite();
+    }
+
+    /** @return number of robots published */
+    public int getRobotCount() { return robots; }
+
+    /**
+     * Records the poses produced by a tick. Called from the simulation thread only.
+     * @param world     the world that was just stepped
+     * @param tickNanos System.nanoTime() at which the tick ran
+     */
+    public void publish(World world, long tickNanos) {
+        beginWrite();
+        double[] swap = prev;
+        prev = cur;
+        cur  = swap;
+        copyPoses(world, cur);
+        this.tickNanos = tickNanos;
+        endWrite();
+    }
+
+    /**
+     * Samples every robot's interpolated pose for rendering. Call from one
+     * render thread at a time.
+     * @param nowNanos System.nanoTime() of the frame being drawn
+     * @param out      receives {x, y, heading} per robot; must hold 3 * {@link #getRobotCount()} values
+     */
+    public void sample(long nowNanos, double[] out) {
+        double[] end = readBuffer;
+        long s, t, p;
+        int n;
+        do {
+            s = seq;
+            n = robots;
+            System.arraycopy(prev, 0, out, 0, 3 * n);
+            System.arraycopy(cur, 0, end, 0, 3 * n);
+            t = tickNanos;
+            p = periodNanos;
+            VarHandle.loadLoadFence();
+        } while ((s & 1) != 0 || s != seq);
+
+        double alpha = clamp01((double) (nowNanos - t) / p);
+        for (int i = 0; i < 3 * n; i += 3) {
+            out[i]     += (end[i] - out[i]) * alpha;
+            out[i + 1] += (end[i + 1] - out[i + 1]) * alpha;
+            out[i + 2] += angleDelta(out[i + 2], end[i + 2]) * alpha;
+        }
+    }
+
+    private static void copyPoses(World world, double[] out) {
+        for (int i = 0, n = world.size(); i < n; i++) {
+            SimBot bot = world.getRobot(i);
+            out[3 * i]     = bot.getX();
+            out[3 * i + 1] = bot.getY();
+            out[3 * i + 2] = bot.getHeading();
+        }
+    }
+
+    private void beginWrite() {
+        seq++;
+        VarHandle.storeStoreFence();
+    }
+
+    private void endWrite() {
+        seq++;
+    }
+
+    /** Shortest signed rotation from a to b, so blending never spins the long way round. */
+    private static double angleDelta(double a, double b) {
+        double d = b - a;
+        return Math.atan2(Math.sin(d), Math.cos(d));
+    }
+
+    private static double clamp01(double v) {
+        return Math.max(0.0, Math.min(1.0, v));
+    }
+}
@@ -0,0 +1,128 @@
+package com.chrislemoine.simulator.core;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Where one robot has been: a fixed-capacity ring of decimated poses.
+ * <p>Poses arrive every tick but only some are kept. A new point is added
+ * once the robot has moved at least {@link #MIN_SPACING} from the last one
+ * and either its direction of travel or its heading has turned past a
+ * tolerance, or it has gone {@link #MAX_SPACING} in a straight line. Long
+ * straight runs cost a few points, and curves keep enough to look smooth.
+ * Once full, the oldest points are overwritten.</p>
+ * <p>One thread records; any thread may read. Points are addressed by a
+ * running index, so readers can tell what is new since they last looked
+ * and whether anything they wanted has already been overwritten.</p>
+ * <p>A point with NaN coordinates is a break: the robot jumped, and the
+ * trail carries on from the next point without joining the two.</p>
+ */
+public class PoseTrail {
+    public static final double MIN_SPACING = 0.5;                   // inches
+    public static final double MAX_SPACING = 6.0;                   // inches
+    public static final double TURN_TOLERANCE = Math.toRadians(4);  // radians
+
+    private final int mask;
+    private final float[] xs, ys, headings;
+    private volatile long written = 0;   // points ever added
+    private volatile long start = 0;     // first point since the last clear
+
+    // Last kept point and the direction of travel into it
+    private boolean hasLast = false;
+    private double lastX, lastY, lastHeading, lastDirection = Double.NaN;
+
+    /**
+     * @param capacity points kept; rounded up to a power of two
+     */
+    public PoseTrail(int capacity) {
+        if (capacity <= 1) throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask     = size - 1;
+        this.xs       = new float[size];
+        this.ys       = new float[size];
+        this.headings = new float[size];
+    }
+
+    /**
+     * Offers the robot's latest pose, keeping it only if it adds detail. Recording thread only.
+     * @param x       X position (inches)
+     * @param y       Y position (inches)
+     * @param heading heading (radians)
+     */
+    public void record(double x, double y, double heading) {
+        if (hasLast) {
+            double dx = x - lastX, dy = y - lastY;
+            double distSq = dx * dx + dy * dy;
+            if (distSq < MIN_SPACING * MIN_SPACING) return;
+
+            double direction = Math.atan2(dy, dx);
+            boolean turned = Double.isNaN(lastDirection)
+                    || Math.abs(SimBot.normalizeAngle(direction - lastDirection)) > TURN_TOLERANCE
+                    || Math.abs(SimBot.normalizeAngle(heading - lastHeading)) > TURN_TOLERANCE;
+            if (!turned && distSq < MAX_SPACING * MAX_SPACING) return;
+            lastDirection = direction;
+        }
+
+        int slot = (int) (written & mask);
+        xs[slot]       = (float) x;
+        ys[slot]       = (float) y;
+        headings[slot] = (float) heading;
+        written = written + 1;
+
+        hasLast = true;
+        lastX = x;
+        lastY = y;
+        lastHeading = heading;
+    }
+
+    /**
+     * Forgets every point, so the next one starts a new trail. Recording thread only.
+     */
+    public void clear() {
+        start = written;
+        hasLast = false;
+        lastDirection = Double.NaN;
+    }
+
+    /**
+     * Ends the current stroke, e.g. because the robot was put back to an
+     * earlier state, so the next point is not joined to the last. Recording thread only.
+     */
+    public void cut() {
+        if (!hasLast) return;
+        int slot = (int) (written & mask);
+        xs[slot]       = Float.NaN;
+        ys[slot]       = Float.NaN;
+        headings[slot] = Float.NaN;
+        written = written + 1;
+        hasLast = false;
+        lastDirection = Double.NaN;
+    }
+
+    /** @return index one past the newest point */
+    public long getWritten() { return written; }
+
+    /** @return index of the oldest point still held */
+    public long getOldest() { return Math.max(start, written - mask); }
+
+    /** @return number of points the ring holds */
+    public int getCapacity() { return mask + 1; }
+
+    /**
+     * Copies points [from, to) as x, y, heading triples; breaks come out as NaN.
+     * @param from first index, at least {@link #getOldest()}
+     * @param to   index one past the last, at most {@link #getWritten()}
+     * @param out  receives three floats per point
+     * @return false if some of them were overwritten during the copy and must not be used
+     */
+    public boolean copy(long from, long to, float[] out) {
+        for (long i = from; i < to; i++) {
+            int slot = (int) (i & mask);
+            int o = (int) (i - from) * 3;
+            out[o]     = xs[slot];
+            out[o + 1] = ys[slot];
+            out[o + 2] = headings[slot];
+        }
+        VarHandle.loadLoadFence();
+        return from >= getOldest();
+    }
+}
@@ -0,0 +1,27 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Default drive model: each velocity ramps toward its target at no more than
+ * the robot's max acceleration. Cheap, stateless, and what recordings and
+ * {@link SimBotArray} assume.
+ */
+public final class RampDriveModel implements DriveModel {
+    /** Shared instance; the model holds no state. */
+    public static final RampDriveModel INSTANCE = new RampDriveModel();
+
+    private RampDriveModel() {}
+
+    @Override
+    public void advance(SimBot bot, double dt, double[] twist) {
+        double maxDV = bot.getMaxAccel() * dt;
+        twist[VEL_X] += clamp(bot.getTargetVelX() - twist[VEL_X], -maxDV, maxDV);
+        twist[VEL_Y] += clamp(bot.getTargetVelY() - twist[VEL_Y], -maxDV, maxDV);
+
+        double maxDA = bot.getMaxAngAccel() * dt;
+        twist[ANG_VEL] += clamp(bot.getTargetAngVel() - twist[ANG_VEL], -maxDA, maxDA);
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
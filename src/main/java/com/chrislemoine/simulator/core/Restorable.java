@@ -0,0 +1,27 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Something with simulation state that a {@link WorldSnapshot} can capture
+ * and put back: a robot, a stateful drive model, or a controller that
+ * advances with simulated time.
+ * <p>State is a fixed number of doubles, written to and read from a flat
+ * array at an offset, so saving and restoring never allocate. Live human
+ * input such as a keyboard or gamepad has nothing to restore and does not
+ * implement this.</p>
+ */
+public interface Restorable {
+    /** @return number of doubles {@link #saveState} writes; fixed for the life of the object */
+    int stateSize();
+
+    /**
+     * @param out    destination
+     * @param offset where to start writing {@link #stateSize()} values
+     */
+    void saveState(double[] out, int offset);
+
+    /**
+     * @param in     values written by {@link #saveState} on an object of the same kind
+     * @param offset where they start
+     */
+    void restoreState(double[] in, int offset);
+}
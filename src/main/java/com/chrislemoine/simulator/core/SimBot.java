@@ -2,9 +2,15 @@ package com.chrislemoine.simulator.core;
 
 /**
  * Core data model representing the robot's pose and physical constraints.
- * Coordinates and dimensions are in inches; heading is in radians.
+ * Coordinates and dimensions are in inches; heading is in radians, kept in (-pi, pi].
+ * <p>Each update, the {@link DriveModel} advances the velocities toward their
+ * targets and the {@link Integrator} moves the pose. The defaults, a
+ * {@link RampDriveModel} with {@link Integrator#SEMI_IMPLICIT}, are cheap
+ * and are what recordings replay with.</p>
+ * <p>Its saved state is the pose, current and target velocities, and the
+ * drive model's own state.</p>
  */
-public class SimBot {
+public class SimBot implements Restorable {
     private double x, y, heading;          // Pose: inches, inches, radians
     private double maxVel, maxAccel;       // Linear limits (inches/sec, inches/sec^2)
     private double maxAngVel, maxAngAccel; // Angular limits (rad/sec, rad/sec^2)
@@ -15,6 +21,15 @@ public class SimBot {
     private double targetVelX = 0.0, targetVelY = 0.0; // desired linear velocities
     private double angVel = 0.0;                       // current angular velocity
     private double targetAngVel = 0.0;                 // desired angular velocity
+    private double driveAxial, driveLateral, driveYaw; // last robot-frame input to drive()
+
+    // sin/cos of the current heading, computed once whenever heading changes
+    private double cosH, sinH;
+
+    private final DriveModel driveModel;
+    private final Integrator integrator;
+    private final double[] twist = new double[3];   // scratch for the drive model
+    private final double[] pose = new double[3];    // scratch for the integrator
 
     /**
      * @param x           initial X position (inches)
@@ -31,15 +46,31 @@ public class SimBot {
                   double maxVel, double maxAccel,
                   double maxAngVel, double maxAngAccel,
                   double width, double length) {
+        this(x, y, heading, maxVel, maxAccel, maxAngVel, maxAngAccel, width, length,
+             RampDriveModel.INSTANCE, Integrator.SEMI_IMPLICIT);
+    }
+
+    /**
+     * @param driveModel advances velocities toward their targets; owned by this robot
+     * @param integrator moves the pose each step
+     */
+    public SimBot(double x, double y, double heading,
+                  double maxVel, double maxAccel,
+                  double maxAngVel, double maxAngAccel,
+                  double width, double length,
+                  DriveModel driveModel, Integrator integrator) {
         this.x           = x;
         this.y           = y;
-        this.heading     = heading;
+        this.heading     = normalizeAngle(heading);
         this.maxVel      = maxVel;
         this.maxAccel    = maxAccel;
         this.maxAngVel   = maxAngVel;
         this.maxAngAccel = maxAngAccel;
         this.width       = width;
         this.length      = length;
+        this.driveModel  = driveModel;
+        this.integrator  = integrator;
+        updateTrig();
     }
 
     // Pose getters
@@ -57,6 +88,26 @@ public class SimBot {
     public double getWidth()       { return width; }
     public double getLength()      { return length; }
 
+    // Velocity getters (robot frame)
+    public double getVelX()        { return velX; }
+    public double getVelY()        { return velY; }
+    public double getAngVel()      { return angVel; }
+    public double getTargetVelX()  { return targetVelX; }
+    public double getTargetVelY()  { return targetVelY; }
+    public double getTargetAngVel(){ return targetAngVel; }
+
+    // Input last passed to drive(), in the robot frame, after any field-centric rotation
+    public double getDriveAxial()   { return driveAxial; }
+    public double getDriveLateral() { return driveLateral; }
+    public double getDriveYaw()     { return driveYaw; }
+
+    public DriveModel getDriveModel() { return driveModel; }
+    public Integrator getIntegrator() { return integrator; }
+
+    // Cached trig of the current heading
+    public double getCosHeading()  { return cosH; }
+    public double getSinHeading()  { return sinH; }
+
     /**
      * Sets desired linear velocity.
      * @param vx strafe velocity (inches/sec)
@@ -76,29 +127,90 @@ public class SimBot {
     }
 
     /**
-     * Updates the robot's dynamic state and pose with ramping
+     * Converts normalized driver input into target velocities.
+     * @param axial   forward/backward input in [-1, 1]
+     * @param lateral right/left input in [-1, 1]
+     * @param yaw     counterclockwise/clockwise input in [-1, 1]
+     */
+    public void drive(double axial, double lateral, double yaw) {
+        this.driveAxial   = axial;
+        this.driveLateral = lateral;
+        this.driveYaw     = yaw;
+        setTargetVel(lateral * maxVel, axial * maxVel);
+        setTargetAngVel(yaw * maxAngVel);
+    }
+
+    /**
+     * Converts normalized driver input, given relative to the field, into
+     * target velocities: the input vector is rotated by the current heading
+     * so "forward" means the same field direction whichever way the robot faces.
+     * @param axial         input along the field's +Y (as seen by the driver) in [-1, 1]
+     * @param lateral       input along the field's +X (as seen by the driver) in [-1, 1]
+     * @param yaw           counterclockwise/clockwise input in [-1, 1]
+     * @param driverHeading rotation of the driver's view of the field, e.g. pi when it is shown flipped (radians)
+     */
+    public void driveFieldCentric(double axial, double lateral, double yaw, double driverHeading) {
+        double fieldX = lateral;
+        double fieldY = axial;
+        if (driverHeading != 0) {
+            double c = Math.cos(driverHeading), s = Math.sin(driverHeading);
+            fieldX = lateral * c - axial * s;
+            fieldY = lateral * s + axial * c;
+        }
+
+        // Field frame to robot frame, using the inverse of the pose integration below
+        double forward = fieldX * cosH + fieldY * sinH;
+        double strafe  = fieldX * sinH - fieldY * cosH;
+        drive(forward, strafe, yaw);
+    }
+
+    /**
+     * Updates the robot's dynamic state through the drive model, then its pose through the integrator.
      * @param dt time step (seconds)
      */
     public void update (double dt) {
-        double dvx = targetVelX - velX;
-        double maxDV = maxAccel * dt;
-        velX += clamp(dvx, -maxDV, maxDV);
+        double vx0 = velX, vy0 = velY, w0 = angVel;
+        twist[DriveModel.VEL_X]   = velX;
+        twist[DriveModel.VEL_Y]   = velY;
+        twist[DriveModel.ANG_VEL] = angVel;
+        driveModel.advance(this, dt, twist);
+        velX   = twist[DriveModel.VEL_X];
+        velY   = twist[DriveModel.VEL_Y];
+        angVel = twist[DriveModel.ANG_VEL];
 
-        double dvy = targetVelY - velY;
-        velY += clamp(dvy, -maxDV, maxDV);
+        pose[Integrator.X] = x;
+        pose[Integrator.Y] = y;
+        pose[Integrator.H] = heading;
+        integrator.integrate(pose, cosH, sinH, vx0, vy0, w0, velX, velY, angVel, dt);
+        x = pose[Integrator.X];
+        y = pose[Integrator.Y];
 
-        double dav = targetAngVel - angVel;
-        double maxDA = maxAngAccel * dt;
-        angVel += clamp(dav, -maxDA, maxDA);
+        heading = normalizeAngle(pose[Integrator.H]);
+        updateTrig();
+    }
 
-        double forward = velY * dt;
-        double strafe = velX * dt;
-        double cosH = Math.cos(heading);
-        double sinH = Math.sin(heading);
-        x += forward * cosH + strafe * sinH;
-        y += forward * sinH - strafe *cosH;
+    /**
+     * Wraps an angle into (-pi, pi] so precision doesn't degrade over long sessions.
+     * @param angle any angle (radians)
+     * @return the equivalent angle in (-pi, pi]
+     */
+    public static double normalizeAngle(double angle) {
+        // One step per tick never turns more than a fraction of a revolution
+        if (angle > Math.PI) {
+            angle -= 2 * Math.PI;
+        } else if (angle <= -Math.PI) {
+            angle += 2 * Math.PI;
+        }
+        if (angle > Math.PI || angle <= -Math.PI) {
+            angle = Math.IEEEremainder(angle, 2 * Math.PI);
+            if (angle <= -Math.PI) angle += 2 * Math.PI;
+        }
+        return angle;
+    }
 
-        heading += angVel * dt;
+    private void updateTrig() {
+        cosH = Math.cos(heading);
+        sinH = Math.sin(heading);
     }
 
     /**
@@ -108,12 +220,68 @@ public class SimBot {
         return Math.max(min, Math.min(max, v));
     }
 
+    /**
+     * Resolves a contact: moves the robot out of penetration and removes any
+     * velocity heading into the surface, so it slides along it instead.
+     * @param nx    contact normal X, unit length, pointing away from the surface
+     * @param ny    contact normal Y
+     * @param depth penetration depth to push out by (inches)
+     */
+    public void applyContact(double nx, double ny, double depth) {
+        x += nx * depth;
+        y += ny * depth;
+
+        // Robot-frame velocity to field frame, same rotation as the pose integration
+        double vfx = velY * cosH + velX * sinH;
+        double vfy = velY * sinH - velX * cosH;
+        double vn = vfx * nx + vfy * ny;
+        if (vn < 0) {
+            vfx -= vn * nx;
+            vfy -= vn * ny;
+            velY = vfx * cosH + vfy * sinH;
+            velX = vfx * sinH - vfy * cosH;
+        }
+    }
+
+    @Override
+    public int stateSize() { return 9 + driveModel.stateSize(); }
+
+    @Override
+    public void saveState(double[] out, int o) {
+        out[o]     = x;
+        out[o + 1] = y;
+        out[o + 2] = heading;
+        out[o + 3] = velX;
+        out[o + 4] = velY;
+        out[o + 5] = angVel;
+        out[o + 6] = targetVelX;
+        out[o + 7] = targetVelY;
+        out[o + 8] = targetAngVel;
+        driveModel.saveState(out, o + 9);
+    }
+
+    @Override
+    public void restoreState(double[] in, int o) {
+        x            = in[o];
+        y            = in[o + 1];
+        heading      = in[o + 2];
+        velX         = in[o + 3];
+        velY         = in[o + 4];
+        angVel       = in[o + 5];
+        targetVelX   = in[o + 6];
+        targetVelY   = in[o + 7];
+        targetAngVel = in[o + 8];
+        driveModel.restoreState(in, o + 9);
+        updateTrig();
+    }
+
     /**
      * Directly set the robot's pose.
      */
     public void setPose(double x, double y, double heading) {
         this.x       = x;
         this.y       = y;
-        this.heading = heading;
+        this.heading = normalizeAngle(heading);
+        updateTrig();
     }
 }
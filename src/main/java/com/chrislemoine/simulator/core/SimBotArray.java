@@ -0,0 +1,152 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Structure-of-arrays state for many robots, stepped together.
+ * <p>Each state variable lives in its own contiguous double[], indexed by
+ * robot. {@link #update(double)} walks the arrays in two passes: a branch-free
+ * velocity ramp that the JIT can vectorize, then pose integration, which needs
+ * sin/cos per robot. Neither pass allocates.</p>
+ * <p>The arithmetic matches {@link SimBot#update(double)} with the default
+ * {@link RampDriveModel} and {@link Integrator#SEMI_IMPLICIT} step for step, so
+ * a robot stepped here ends up where the same robot stepped alone would. Use
+ * {@link #syncTo(int, SimBot)} to copy a pose into a SimBot for rendering.</p>
+ */
+public class SimBotArray {
+    private int count = 0;
+
+    // --- pose ---
+    private double[] x, y, heading;
+
+    // --- dynamic state ---
+    private double[] velX, velY, angVel;
+    private double[] targetVelX, targetVelY, targetAngVel;
+
+    // --- constraints and footprint ---
+    private double[] maxVel, maxAccel, maxAngVel, maxAngAccel;
+    private double[] width, length;
+
+    /**
+     * @param capacity initial number of robots to reserve space for
+     */
+    public SimBotArray(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /** @return number of robots held */
+    public int size() { return count; }
+
+    /**
+     * Copies a robot's current pose, constraints and footprint into the next slot.
+     * Velocities start at rest.
+     * @param bot the robot to copy
+     * @return the new robot's index
+     */
+    public int add(SimBot bot) {
+        if (count == x.length) allocate(x.length * 2);
+        int i = count++;
+        x[i]           = bot.getX();
+        y[i]           = bot.getY();
+        heading[i]     = bot.getHeading();
+        maxVel[i]      = bot.getMaxVel();
+        maxAccel[i]    = bot.getMaxAccel();
+        maxAngVel[i]   = bot.getMaxAngVel();
+        maxAngAccel[i] = bot.getMaxAngAccel();
+        width[i]       = bot.getWidth();
+        length[i]      = bot.getLength();
+        return i;
+    }
+
+    // Pose getters
+    public double getX(int i)       { return x[i]; }
+    public double getY(int i)       { return y[i]; }
+    public double getHeading(int i) { return heading[i]; }
+
+    // Dimension getters
+    public double getWidth(int i)   { return width[i]; }
+    public double getLength(int i)  { return length[i]; }
+
+    /**
+     * Converts normalized driver input into target velocities for one robot.
+     * Same mapping as {@link SimBot#drive(double, double, double)}.
+     */
+    public void drive(int i, double axial, double lateral, double yaw) {
+        double v = maxVel[i], av = maxAngVel[i];
+        targetVelX[i]   = clamp(lateral * v, -v, v);
+        targetVelY[i]   = clamp(axial * v, -v, v);
+        targetAngVel[i] = clamp(yaw * av, -av, av);
+    }
+
+    /**
+     * Directly set one robot's pose.
+     */
+    public void setPose(int i, double x, double y, double heading) {
+        this.x[i]       = x;
+        this.y[i]       = y;
+        this.heading[i] = SimBot.normalizeAngle(heading);
+    }
+
+    /**
+     * Copies one robot's pose into a SimBot, e.g. so the renderer can draw it.
+     */
+    public void syncTo(int i, SimBot bot) {
+        bot.setPose(x[i], y[i], heading[i]);
+    }
+
+    /**
+     * Advances every robot by one step with acceleration ramping.
+     * @param dt time step (seconds)
+     */
+    public void update(double dt) {
+        final int n = count;
+
+        // Pass 1: velocity ramp, straight-line min/max arithmetic only
+        for (int i = 0; i < n; i++) {
+            double maxDV = maxAccel[i] * dt;
+            velX[i] += clamp(targetVelX[i] - velX[i], -maxDV, maxDV);
+            velY[i] += clamp(targetVelY[i] - velY[i], -maxDV, maxDV);
+
+            double maxDA = maxAngAccel[i] * dt;
+            angVel[i] += clamp(targetAngVel[i] - angVel[i], -maxDA, maxDA);
+        }
+
+        // Pass 2: pose integration in the field frame
+        for (int i = 0; i < n; i++) {
+            double forward = velY[i] * dt;
+            double strafe  = velX[i] * dt;
+            double h = heading[i];
+            double cosH = Math.cos(h);
+            double sinH = Math.sin(h);
+            x[i] += forward * cosH + strafe * sinH;
+            y[i] += forward * sinH - strafe * cosH;
+            heading[i] = SimBot.normalizeAngle(h + angVel[i] * dt);
+        }
+    }
+
+    private void allocate(int capacity) {
+        x            = grow(x, capacity);
+        y            = grow(y, capacity);
+        heading      = grow(heading, capacity);
+        velX         = grow(velX, capacity);
+        velY         = grow(velY, capacity);
+        angVel       = grow(angVel, capacity);
+        targetVelX   = grow(targetVelX, capacity);
+        targetVelY   = grow(targetVelY, capacity);
+        targetAngVel = grow(targetAngVel, capacity);
+        maxVel       = grow(maxVel, capacity);
+        maxAccel     = grow(maxAccel, capacity);
+        maxAngVel    = grow(maxAngVel, capacity);
+        maxAngAccel  = grow(maxAngAccel, capacity);
+        width        = grow(width, capacity);
+        length       = grow(length, capacity);
+    }
+
+    private static double[] grow(double[] old, int capacity) {
+        double[] next = new double[capacity];
+        if (old != null) System.arraycopy(old, 0, next, 0, old.length);
+        return next;
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -9,6 +9,8 @@ public class SimBotBuilder {
     private double maxVel = 60, maxAccel = 60;
     private double maxAngVel = Math.PI, maxAngAccel = Math.PI;
     private double width = 17.25, length= 17.25;
+    private DriveModel driveModel = RampDriveModel.INSTANCE;
+    private Integrator integrator = Integrator.SEMI_IMPLICIT;
 
     /**
      * Sets the initial pose of the robot.
@@ -53,6 +55,26 @@ public class SimBotBuilder {
         return this;
     }
 
+    /**
+     * Sets how velocities respond to the targets. Each built robot gets its own copy.
+     * @param driveModel e.g. a {@link MecanumDriveModel}; defaults to {@link RampDriveModel}
+     * @return this builder for chaining
+     */
+    public SimBotBuilder setDriveModel(DriveModel driveModel) {
+        this.driveModel = driveModel;
+        return this;
+    }
+
+    /**
+     * Sets how the pose is advanced each step.
+     * @param integrator defaults to {@link Integrator#SEMI_IMPLICIT}
+     * @return this builder for chaining
+     */
+    public SimBotBuilder setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+        return this;
+    }
+
     /**
      * Builds a SimBot instance with the configured parameters.
      * @return a new SimBot
@@ -61,6 +83,7 @@ public class SimBotBuilder {
         return new SimBot(x, y, heading,
                           maxVel, maxAccel,
                           maxAngVel, maxAngAccel,
-                          width, length);
+                          width, length,
+                          driveModel.copy(), integrator);
     }
 }
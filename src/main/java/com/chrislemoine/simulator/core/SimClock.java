@@ -0,0 +1,164 @@
+package com.chrislemoine.simulator.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How fast simulated time runs against wall time.
+ * <p> - Real time: one simulated second per wall second.</p>
+ * <p> - Scaled: anywhere from {@link #MIN_SCALE}x slow motion to {@link #MAX_SCALE}x.</p>
+ * <p> - Paused: nothing advances except single steps on request, for debugging.</p>
+ * <p> - Unlimited: ticks back to back, as fast as the machine allows.</p>
+ * <p>Physics always advances in the same fixed step, so every mode runs
+ * the same simulation and only the pacing differs. Settings may be changed
+ * from any thread, typically the EDT on a hotkey; the {@link Simulator}
+ * picks them up before its next tick and reports back how much simulated
+ * time it ran, from which throughput is measured.</p>
+ */
+public class SimClock {
+    public static final double MIN_SCALE = 0.25;
+    public static final double MAX_SCALE = 10.0;
+
+    /** Speeds {@link #faster()} and {@link #slower()} step through. */
+    private static final double[] SCALE_STEPS = {0.25, 0.5, 1, 2, 4, 10};
+
+    /** Wall time over which throughput is averaged (nanoseconds). */
+    private static final long WINDOW_NANOS = 500_000_000L;
+
+    private volatile double scale = 1.0;
+    private volatile boolean paused = false;
+    private volatile boolean unlimited = false;
+    private final AtomicInteger pendingSteps = new AtomicInteger();
+    private final AtomicInteger changes = new AtomicInteger();
+
+    // Written by the physics thread only
+    private volatile long simNanos = 0;
+    private volatile double throughput = 0;
+    private long startWallNanos = 0, windowWallNanos = 0, windowSimNanos = 0;
+    private volatile long lastWallNanos = 0;
+
+    /**
+     * Runs at a fixed multiple of real time, leaving unlimited mode.
+     * @param scale simulated seconds per wall second, in [{@link #MIN_SCALE}, {@link #MAX_SCALE}]
+     * @return this clock for chaining
+     */
+    public SimClock setScale(double scale) {
+        if (!(scale >= MIN_SCALE && scale <= MAX_SCALE)) {
+            throw new IllegalArgumentException("scale must be in [" + MIN_SCALE + ", " + MAX_SCALE + "]: " + scale);
+        }
+        this.scale = scale;
+        this.unlimited = false;
+        changes.incrementAndGet();
+        return this;
+    }
+
+    /** Steps up to the next faster preset speed, leaving unlimited mode. */
+    public void faster() {
+        for (double s : SCALE_STEPS) {
+            if (s > scale + 1e-9) {
+                setScale(s);
+                return;
+            }
+        }
+        setScale(MAX_SCALE);
+    }
+
+    /** Steps down to the next slower preset speed, leaving unlimited mode. */
+    public void slower() {
+        for (int i = SCALE_STEPS.length - 1; i >= 0; i--) {
+            if (SCALE_STEPS[i] < scale - 1e-9) {
+                setScale(SCALE_STEPS[i]);
+                return;
+            }
+        }
+        setScale(MIN_SCALE);
+    }
+
+    /**
+     * @param unlimited true to tick as fast as possible; false to go back to the set scale
+     * @return this clock for chaining
+     */
+    public SimClock setUnlimited(boolean unlimited) {
+        this.unlimited = unlimited;
+        changes.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * @param paused true to stop simulated time until resumed or stepped
+     * @return this clock for chaining
+     */
+    public SimClock setPaused(boolean paused) {
+        this.paused = paused;
+        pendingSteps.set(0);
+        changes.incrementAndGet();
+        return this;
+    }
+
+    public void togglePause() { setPaused(!paused); }
+
+    /** Runs exactly one more tick, if paused. */
+    public void step() {
+        if (paused) pendingSteps.incrementAndGet();
+    }
+
+    public double getScale()     { return scale; }
+    public boolean isPaused()    { return paused; }
+    public boolean isUnlimited() { return unlimited; }
+
+    /** @return a number that changes whenever scale, pause or unlimited mode is set */
+    public int getChanges() { return changes.get(); }
+
+    /** @return single steps requested since last taken, now cleared. Physics thread only. */
+    int takeSteps() { return pendingSteps.getAndSet(0); }
+
+    /**
+     * Starts measuring throughput. Physics thread only.
+     * @param wallNanos System.nanoTime() at which the loop started
+     */
+    void start(long wallNanos) {
+        startWallNanos = windowWallNanos = lastWallNanos = wallNanos;
+        windowSimNanos = simNanos;
+    }
+
+    /**
+     * Accounts for simulated time just run. Physics thread only.
+     * @param simStepNanos simulated time advanced (nanoseconds)
+     * @param wallNanos    System.nanoTime() after running it
+     */
+    void advance(long simStepNanos, long wallNanos) {
+        long sim = simNanos + simStepNanos;
+        simNanos = sim;
+        lastWallNanos = wallNanos;
+        long wall = wallNanos - windowWallNanos;
+        if (wall >= WINDOW_NANOS) {
+            throughput = (double) (sim - windowSimNanos) / wall;
+            windowWallNanos = wallNanos;
+            windowSimNanos  = sim;
+        }
+    }
+
+    /** @return simulated time since the simulation started (seconds) */
+    public double getSimSeconds() { return simNanos / 1e9; }
+
+    /** @return simulated seconds per wall second over the last half second or so */
+    public double getThroughput() { return throughput; }
+
+    /** @return simulated seconds per wall second since the simulation started */
+    public double getAverageThroughput() {
+        long wall = lastWallNanos - startWallNanos;
+        return wall > 0 ? (double) simNanos / wall : 0;
+    }
+
+    /** @return e.g. "real time", "0.25x", "paused" or "unlimited" */
+    public String getModeName() {
+        if (paused) return "paused";
+        if (unlimited) return "unlimited";
+        return scale == 1.0 ? "real time" : String.format("%sx", scale == Math.rint(scale) ? (long) scale : scale);
+    }
+
+    /** @return e.g. "unlimited, 41.3 sim s/s, 612.5 s simulated" */
+    @Override
+    public String toString() {
+        return String.format("%s, %.2f sim s/s, %.1f s simulated", getModeName(), getThroughput(), getSimSeconds());
+    }
+}
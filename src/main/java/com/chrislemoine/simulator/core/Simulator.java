@@ -1,52 +1,313 @@
 package com.chrislemoine.simulator.core;
 
-import javax.swing.Timer;
+import com.chrislemoine.simulator.record.RunRecorder;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+import com.chrislemoine.simulator.ui.FieldView;
 
-import com.chrislemoine.simulator.input.KeyboardController;
-import com.chrislemoine.simulator.ui.DriveMode;
-import com.chrislemoine.simulator.ui.FieldPanel;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Manages the update-render loop at ~60 Hz.
+ * Runs the physics on a dedicated thread at a fixed tick rate, independent
+ * of however the field view schedules its frames.
+ * <p>Physics advances in fixed steps of 1/tickHz seconds, driven by an
+ * accumulator on System.nanoTime() scaled by the {@link SimClock}, so
+ * simulated time tracks (scaled) wall time no matter how long painting or
+ * garbage collection takes. Each tick steps the whole {@link World}; the
+ * view renders interpolated poses for every robot from a {@link PoseSnapshot}.</p>
+ * <p>Paused, the loop only runs requested single steps. Unlimited, it runs
+ * ticks back to back and publishes poses once per short batch, so the view
+ * simply shows the latest state and skips everything in between.</p>
+ * <p>{@link #getStats()} covers the paced modes only and restarts whenever
+ * the clock changes.</p>
+ * <p>The world's state at start is kept, along with one checkpoint that
+ * can be saved at any moment. Putting the world back to either is asked
+ * for from any thread and carried out by the physics thread between ticks,
+ * in place, without allocating.</p>
  */
 public class Simulator {
-    private final SimBot bot;
-    private final FieldPanel panel;
-    private final KeyboardController controller;
-    private final DriveMode driveMode;
+    /** Default physics rate (Hz). */
+    public static final int DEFAULT_TICK_HZ = 200;
+
+    /** Longest wall-clock gap the loop will try to catch up on before dropping time. */
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    /** Wall time per batch of unlimited ticks, between publishing poses and checking the clock. */
+    private static final long BATCH_NANOS = 4_000_000L;
+
+    /** How often a paused loop checks for steps and resumption. */
+    private static final long PAUSE_POLL_NANOS = 5_000_000L;
+
+    private final World world;
+    private final FieldView view;
+
+    private final int tickHz;
+    private final long periodNanos;
+    private final double dt;
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+    private final LoopStats stats;
+    private final SimClock clock = new SimClock();
+
+    // World state at start and at the last checkpoint; physics thread only once started
+    private WorldSnapshot startState, checkpoint;
+    private volatile boolean saveRequested, restoreRequested, resetRequested;
+
+    private volatile boolean running = false;
+    private Thread simThread;
+    private RunRecorder recorder;
+    private Telemetry telemetry;
+    private FieldHistory history;
+    private TickListener listener;
+
+    /**
+     * @param world the robots to step each tick
+     * @param view  the field view to start rendering, or null to run headless
+     */
+    public Simulator(World world, FieldView view) {
+        this(world, view, DEFAULT_TICK_HZ);
+    }
+
+    /**
+     * @param world  the robots to step each tick
+     * @param view   the field view to start rendering, or null to run headless
+     * @param tickHz physics rate (Hz), e.g. 200, 500 or 1000
+     */
+    public Simulator(World world, FieldView view, int tickHz) {
+        if (tickHz <= 0) throw new IllegalArgumentException("tickHz must be positive: " + tickHz);
+        this.world       = world;
+        this.view        = view;
+        this.tickHz      = tickHz;
+        this.periodNanos = 1_000_000_000L / tickHz;
+        this.dt          = 1.0 / tickHz;
+        this.stats       = new LoopStats(periodNanos);
+    }
+
+    /** @return physics rate (Hz) */
+    public int getTickHz() { return tickHz; }
+
+    /** @return drift and jitter statistics for the physics loop */
+    public LoopStats getStats() { return stats; }
+
+    /** @return controls for pausing, stepping and changing the speed of simulated time */
+    public SimClock getClock() { return clock; }
+
+    /** @return the robots being stepped */
+    public World getWorld() { return world; }
+
+    /**
+     * Records the first robot's applied input and resulting pose every tick. Must be set before {@link #start()};
+     * the caller closes the recorder after {@link #stop()}.
+     * @param recorder destination for the run, or null to stop recording
+     */
+    public void setRecorder(RunRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Times every tick, samples robot updates and frame paints, and records
+     * every robot's pose each tick. Must be set before {@link #start()}.
+     * @param telemetry where to record, or null for none
+     */
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Records every robot's trail and field occupancy each tick, and hands
+     * them to the view for its overlays. Must be set before {@link #start()}.
+     * @param history where to record, or null for none
+     */
+    public void setHistory(FieldHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Calls back after every tick, on the physics thread. Must be set before {@link #start()}.
+     * @param listener what to tell, or null for nothing
+     */
+    public void setTickListener(TickListener listener) {
+        this.listener = listener;
+    }
+
+    /** Asks the physics thread to save the world's state as the checkpoint before its next tick. Any thread. */
+    public void saveCheckpoint() {
+        saveRequested = true;
+    }
 
     /**
-     * @param bot   the robot model to update each frame
-     * @param panel the panel to repaint each frame
+     * Asks the physics thread to put the world back to the last checkpoint, or
+     * to the start if none has been saved, before its next tick. Any thread.
      */
-    public Simulator(SimBot bot, FieldPanel panel, KeyboardController controller, DriveMode driveMode) {
-        this.bot   = bot;
-        this.panel = panel;
-        this.controller = controller;
-        this.driveMode = driveMode;
+    public void restoreCheckpoint() {
+        restoreRequested = true;
+    }
+
+    /** Asks the physics thread to put the world back to how it started before its next tick. Any thread. */
+    public void resetToStart() {
+        resetRequested = true;
     }
 
     /**
-     * Starts the Swing timer that ticks every 16 ms.
+     * Starts the physics thread and tells the view to begin rendering.
      */
     public void start() {
-        new Timer(16, e -> {
-            double dt = 0.016;   // seconds
-            controller.poll();
-
-            double maxV = bot.getMaxVel();
-            double maxA = bot.getMaxAngVel();
-
-            bot.setTargetVel(
-                    controller.getLateral() * maxV,
-                    controller.getAxial()   * maxV
-            );
-            bot.setTargetAngVel(
-                    controller.getYaw() * maxA
-            );
-
-            bot.update(dt);
-            panel.repaint();
-        }).start();
-    }
-}
\ No newline at end of file
+        if (running) return;
+        running = true;
+
+        startState = world.snapshot();
+        checkpoint = startState.copy();
+
+        snapshot.reset(world, periodNanos);
+        if (telemetry != null) telemetry.attach(world);
+        world.setTelemetry(telemetry);
+        if (history != null) history.attach(world);
+        if (view != null) {
+            view.setTelemetry(telemetry);
+            view.setHistory(history);
+        }
+
+        simThread = new Thread(this::runLoop, "simulator-physics");
+        simThread.setDaemon(true);
+        simThread.setPriority(Thread.MAX_PRIORITY);
+        simThread.start();
+
+        if (view != null) view.startRendering(snapshot, stats);
+    }
+
+    /**
+     * Stops rendering and the physics thread, waiting for the current tick to finish.
+     */
+    public void stop() {
+        running = false;
+        if (view != null) view.stopRendering();
+        if (simThread != null) {
+            LockSupport.unpark(simThread);
+            try {
+                simThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Fixed-timestep loop: accumulate elapsed wall time times the clock scale,
+     * run as many whole ticks as it covers, then park until the next tick is due.
+     */
+    private void runLoop() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        int clockChanges = clock.getChanges();
+        double scale = clock.getScale();
+        stats.reset(previous, periodNanos);
+        clock.start(previous);
+
+        while (running) {
+            long now = System.nanoTime();
+            long frame = now - previous;
+            previous = now;
+
+            // New speed or mode: start pacing and statistics afresh from here
+            if (clock.getChanges() != clockChanges) {
+                clockChanges = clock.getChanges();
+                scale = clock.getScale();
+                long wallPeriod = clock.isUnlimited() ? 1 : (long) (periodNanos / scale);
+                snapshot.setPeriodNanos(wallPeriod);
+                stats.reset(now, wallPeriod);
+                accumulator = 0;
+                frame = 0;
+            }
+
+            if (saveRequested || restoreRequested || resetRequested) {
+                applyStateRequests();
+                accumulator = 0;
+            }
+
+            if (clock.isPaused()) {
+                int steps = clock.takeSteps();
+                for (int i = 0; i < steps; i++) tick();
+                if (steps > 0) snapshot.publish(world, System.nanoTime());
+                clock.advance(steps * periodNanos, System.nanoTime());
+                LockSupport.parkNanos(PAUSE_POLL_NANOS);
+                continue;
+            }
+
+            if (clock.isUnlimited()) {
+                long ticks = 0, end;
+                do {
+                    tick();
+                    ticks++;
+                    end = System.nanoTime();
+                } while (end - now < BATCH_NANOS);
+                snapshot.publish(world, end);
+                clock.advance(ticks * periodNanos, end);
+                continue;
+            }
+
+            // Don't spiral trying to replay a long stall; drop the excess instead
+            if (frame > MAX_FRAME_NANOS) {
+                stats.recordDropped(frame - MAX_FRAME_NANOS);
+                frame = MAX_FRAME_NANOS;
+            }
+            accumulator += (long) (frame * scale);
+
+            while (accumulator >= periodNanos) {
+                tick();
+                long tickNanos = System.nanoTime();
+                snapshot.publish(world, tickNanos);
+                stats.recordTick(tickNanos);
+                clock.advance(periodNanos, tickNanos);
+                accumulator -= periodNanos;
+            }
+
+            LockSupport.parkNanos((long) ((periodNanos - accumulator) / scale));
+        }
+    }
+
+    /**
+     * Saves or restores world state as asked. A restore breaks the trails and
+     * publishes the restored poses as both interpolation ends, so the view
+     * shows the jump at once instead of sliding across the field. Physics thread only.
+     */
+    private void applyStateRequests() {
+        if (saveRequested) {
+            saveRequested = false;
+            world.save(checkpoint);
+        }
+        boolean reset = resetRequested, restore = restoreRequested;
+        resetRequested = restoreRequested = false;
+        if (!reset && !restore) return;
+        if (recorder != null) {
+            System.err.println("Cannot rewind while recording a run");
+            return;
+        }
+
+        world.restore(reset ? startState : checkpoint);
+        if (history != null) history.cut();
+        long now = System.nanoTime();
+        snapshot.publish(world, now);
+        snapshot.publish(world, now);
+    }
+
+    /**
+     * Advances every robot by one fixed step using the latest controller input.
+     */
+    private void tick() {
+        Telemetry telemetry = this.telemetry;
+        long start = telemetry != null ? System.nanoTime() : 0;
+        world.step(dt);
+        if (telemetry != null) telemetry.recordTick(world, start, System.nanoTime());
+        if (history != null) history.record(world);
+        if (listener != null) listener.onTick(world, System.nanoTime());
+
+        if (recorder != null) {
+            try {
+                recorder.record(world.getAppliedAxial(0), world.getAppliedLateral(0),
+                                world.getAppliedYaw(0), world.getRobot(0));
+            } catch (IOException e) {
+                System.err.println("Recording stopped: " + e.getMessage());
+                recorder = null;
+            }
+        }
+    }
+}
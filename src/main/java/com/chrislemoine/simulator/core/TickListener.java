@@ -0,0 +1,16 @@
+package com.chrislemoine.simulator.core;
+
+/**
+ * Something the {@link Simulator} tells after every tick, on the physics
+ * thread, e.g. to capture state for a network server.
+ * <p>Runs inside the tick, so implementations must be quick, must not block
+ * and should not allocate; hand anything slow to another thread.</p>
+ */
+@FunctionalInterface
+public interface TickListener {
+    /**
+     * @param world     the world just stepped
+     * @param tickNanos System.nanoTime() at the end of the step
+     */
+    void onTick(World world, long tickNanos);
+}
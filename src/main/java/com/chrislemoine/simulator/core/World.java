@@ -0,0 +1,311 @@
+package com.chrislemoine.simulator.core;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.input.DriveController;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+
+import java.util.Arrays;
+
+/**
+ * Everything stepped together in one physics tick: N robots, each with its
+ * own alliance, drive mode and controllers, plus optional collisions and an
+ * optional match clock.
+ * <p>Robots are held in parallel arrays indexed by robot, filled before the
+ * simulation starts. {@link #step(double)} polls every controller, drives and
+ * updates every robot, resolves contacts once for the whole field, then
+ * advances the clock. Nothing is allocated per tick.</p>
+ * <p>Without a match clock every robot takes its driver controller's input
+ * all the time (free practice). With one, robots run their autonomous
+ * controller during AUTONOMOUS, hold still in TRANSITION and after the match,
+ * and take driver input in TELEOP.</p>
+ * <p>The whole simulation state can be captured into a {@link WorldSnapshot}
+ * and put back later, into this world or one built the same way, without
+ * allocating.</p>
+ */
+public class World implements Restorable {
+    private SimBot[] bots = new SimBot[4];
+    private DriveController[] controllers = new DriveController[4];
+    private DriveController[] autoControllers = new DriveController[4];
+    private Alliance[] alliances = new Alliance[4];
+    private DriveMode[] driveModes = new DriveMode[4];
+    private double[] inputs = new double[4 * 3];   // axial, lateral, yaw applied per robot last tick
+    private int count = 0;
+
+    private CollisionWorld collisions;
+    private MatchClock clock;
+    private volatile double driverHeading = 0.0;
+
+    private Telemetry telemetry;
+    private long ticks = 0;
+
+    /**
+     * Adds a robot. Must be called before the simulation starts.
+     * @param bot        the robot model
+     * @param controller driver input, or null for a robot that never moves on its own
+     * @param alliance   which alliance it plays for
+     * @param driveMode  how the driver's input is interpreted
+     * @return the robot's index
+     */
+    public int addRobot(SimBot bot, DriveController controller, Alliance alliance, DriveMode driveMode) {
+        if (count == bots.length) {
+            int capacity = count * 2;
+            bots            = Arrays.copyOf(bots, capacity);
+            controllers     = Arrays.copyOf(controllers, capacity);
+            autoControllers = Arrays.copyOf(autoControllers, capacity);
+            alliances       = Arrays.copyOf(alliances, capacity);
+            driveModes      = Arrays.copyOf(driveModes, capacity);
+            inputs          = Arrays.copyOf(inputs, capacity * 3);
+        }
+        bots[count]        = bot;
+        controllers[count] = controller;
+        alliances[count]   = alliance;
+        driveModes[count]  = driveMode;
+        if (collisions != null) collisions.addBody(bot);
+        return count++;
+    }
+
+    /**
+     * Sets the controller a robot runs during the autonomous period.
+     * @param robot      robot index
+     * @param controller scripted or trajectory controller, or null to sit still
+     */
+    public void setAutonomous(int robot, DriveController controller) {
+        autoControllers[robot] = controller;
+    }
+
+    /**
+     * Replaces a robot's driver controller, e.g. to try a different input
+     * from a restored state. Call from the thread that steps the world.
+     * @param robot      robot index
+     * @param controller driver input, or null for none
+     */
+    public void setController(int robot, DriveController controller) {
+        controllers[robot] = controller;
+    }
+
+    /**
+     * Resolves contacts between robots, walls and field structures after every
+     * update. Robots already added are registered with it.
+     * @param collisions the world to use, or null for none
+     */
+    public void setCollisionWorld(CollisionWorld collisions) {
+        this.collisions = collisions;
+        if (collisions != null) {
+            for (int i = collisions.getBodyCount(); i < count; i++) collisions.addBody(bots[i]);
+        }
+    }
+
+    /**
+     * Runs the match periods. Must be set before the simulation starts.
+     * @param clock the match clock, or null for free practice
+     */
+    public void setMatchClock(MatchClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets how the driver's view is rotated relative to the field, so field-centric
+     * "forward" matches "up" on screen. Use pi when the field is drawn flipped for Blue.
+     * @param radians rotation of the driver's view (radians)
+     */
+    public void setDriverHeading(double radians) {
+        this.driverHeading = radians;
+    }
+
+    /**
+     * Times one robot's update per step, in rotation, so the clock is read
+     * twice per step however many robots there are.
+     * @param telemetry where to record, or null for none
+     */
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /** @return number of robots */
+    public int size() { return count; }
+
+    public SimBot getRobot(int i)                 { return bots[i]; }
+    public DriveController getController(int i)   { return controllers[i]; }
+    public Alliance getAlliance(int i)            { return alliances[i]; }
+    public DriveMode getDriveMode(int i)          { return driveModes[i]; }
+    public CollisionWorld getCollisionWorld()     { return collisions; }
+    public MatchClock getMatchClock()             { return clock; }
+
+    /** @return steps run since the world was built, or as of the last restored snapshot */
+    public long getTicks()                        { return ticks; }
+
+    // Input actually applied to a robot on the last tick, in its own frame: field-centric
+    // input is stored as rotated, so replaying it robot-centric reproduces the run
+    public double getAppliedAxial(int i)          { return inputs[3 * i]; }
+    public double getAppliedLateral(int i)        { return inputs[3 * i + 1]; }
+    public double getAppliedYaw(int i)            { return inputs[3 * i + 2]; }
+
+    /**
+     * Advances every robot by one fixed step.
+     * @param dt time step (seconds)
+     */
+    public void step(double dt) {
+        MatchPhase phase = clock != null ? clock.getPhase() : MatchPhase.TELEOP;
+        double heading = driverHeading;
+        int timed = telemetry != null && count > 0 ? (int) (ticks % count) : -1;
+        ticks++;
+
+        for (int i = 0; i < count; i++) {
+            DriveController c = phase == MatchPhase.TELEOP     ? controllers[i]
+                              : phase == MatchPhase.AUTONOMOUS ? autoControllers[i]
+                              : null;
+            double axial = 0, lateral = 0, yaw = 0;
+            if (c != null) {
+                c.poll();
+                axial   = c.getAxial();
+                lateral = c.getLateral();
+                yaw     = c.getYaw();
+            }
+
+            SimBot bot = bots[i];
+            if (driveModes[i] == DriveMode.FIELD_CENTRIC && c == controllers[i]) {
+                bot.driveFieldCentric(axial, lateral, yaw, heading);
+            } else {
+                bot.drive(axial, lateral, yaw);
+            }
+            if (i == timed) {
+                long start = System.nanoTime();
+                bot.update(dt);
+                telemetry.recordUpdate(System.nanoTime() - start);
+            } else {
+                bot.update(dt);
+            }
+
+            inputs[3 * i]     = bot.getDriveAxial();
+            inputs[3 * i + 1] = bot.getDriveLateral();
+            inputs[3 * i + 2] = bot.getDriveYaw();
+        }
+
+        if (collisions != null) collisions.resolve();
+        if (clock != null) clock.advance(dt);
+    }
+
+    /** @return a new snapshot of the current state; the only call here that allocates */
+    public WorldSnapshot snapshot() {
+        WorldSnapshot snapshot = new WorldSnapshot(stateSize());
+        save(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Captures the current state over an existing snapshot. Call from the
+     * thread that steps the world, between steps.
+     * @param into a snapshot taken from this world, or one built the same way
+     */
+    public void save(WorldSnapshot into) {
+        if (into.data().length != stateSize()) {
+            throw new IllegalArgumentException("Snapshot does not match this world's layout");
+        }
+        saveState(into.data(), 0);
+    }
+
+    /**
+     * Puts the world back to a snapshot's state. Call from the thread that
+     * steps the world, between steps.
+     * @param from a snapshot taken from this world, or one built the same way
+     * @throws IllegalArgumentException if it came from a world built differently
+     */
+    public void restore(WorldSnapshot from) {
+        double[] data = from.data();
+        if (data[WorldSnapshot.H_VERSION] != WorldSnapshot.VERSION
+                || data[WorldSnapshot.H_ROBOTS] != count
+                || data[WorldSnapshot.H_LAYOUT] != layout()
+                || data.length != stateSize()) {
+            throw new IllegalArgumentException("Snapshot does not match this world's layout");
+        }
+        restoreState(data, 0);
+    }
+
+    @Override
+    public int stateSize() {
+        int size = WorldSnapshot.HEADER;
+        for (int i = 0; i < count; i++) {
+            size += bots[i].stateSize() + 3 + sizeOf(controllers[i]) + sizeOf(autoControllers[i]);
+        }
+        if (collisions != null) size += collisions.stateSize();
+        if (clock != null) size += clock.stateSize();
+        return size;
+    }
+
+    @Override
+    public void saveState(double[] out, int o) {
+        out[o + WorldSnapshot.H_VERSION] = WorldSnapshot.VERSION;
+        out[o + WorldSnapshot.H_ROBOTS]  = count;
+        out[o + WorldSnapshot.H_LAYOUT]  = layout();
+        out[o + WorldSnapshot.H_TICKS]   = ticks;
+        o += WorldSnapshot.HEADER;
+        for (int i = 0; i < count; i++) {
+            bots[i].saveState(out, o);
+            o += bots[i].stateSize();
+            System.arraycopy(inputs, 3 * i, out, o, 3);
+            o += 3;
+            o += save(controllers[i], out, o);
+            o += save(autoControllers[i], out, o);
+        }
+        if (collisions != null) {
+            collisions.saveState(out, o);
+            o += collisions.stateSize();
+        }
+        if (clock != null) clock.saveState(out, o);
+    }
+
+    @Override
+    public void restoreState(double[] in, int o) {
+        ticks = (long) in[o + WorldSnapshot.H_TICKS];
+        o += WorldSnapshot.HEADER;
+        for (int i = 0; i < count; i++) {
+            bots[i].restoreState(in, o);
+            o += bots[i].stateSize();
+            System.arraycopy(in, o, inputs, 3 * i, 3);
+            o += 3;
+            o += restore(controllers[i], in, o);
+            o += restore(autoControllers[i], in, o);
+        }
+        if (collisions != null) {
+            collisions.restoreState(in, o);
+            o += collisions.stateSize();
+        }
+        if (clock != null) clock.restoreState(in, o);
+    }
+
+    /**
+     * A fingerprint of what is saved where, so a snapshot is never restored
+     * into a world whose robots, models or controllers are arranged differently.
+     */
+    private double layout() {
+        int hash = count;
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + bots[i].stateSize();
+            hash = 31 * hash + sizeOf(controllers[i]);
+            hash = 31 * hash + sizeOf(autoControllers[i]);
+        }
+        hash = 31 * hash + (collisions != null ? collisions.stateSize() : -1);
+        hash = 31 * hash + (clock != null ? clock.stateSize() : -1);
+        return hash;
+    }
+
+    private static int sizeOf(DriveController c) {
+        return c instanceof Restorable ? ((Restorable) c).stateSize() : 0;
+    }
+
+    private static int save(DriveController c, double[] out, int o) {
+        if (!(c instanceof Restorable)) return 0;
+        Restorable r = (Restorable) c;
+        r.saveState(out, o);
+        return r.stateSize();
+    }
+
+    private static int restore(DriveController c, double[] in, int o) {
+        if (!(c instanceof Restorable)) return 0;
+        Restorable r = (Restorable) c;
+        r.restoreState(in, o);
+        return r.stateSize();
+    }
+}
@@ -0,0 +1,99 @@
+package com.chrislemoine.simulator.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The complete simulation state of a {@link World} at one tick, as one flat
+ * array of doubles: every robot's pose, velocities and targets, drive model
+ * state, last applied input and controller state, plus contact counts, the
+ * match clock and the tick count.
+ * <p>{@link World#save} and {@link World#restore} copy straight into and
+ * out of the array, so once a snapshot exists, taking and restoring state
+ * never allocates. A snapshot restores into the world it came from or any
+ * world built the same way, which is how one state is branched into many
+ * independent continuations. Restoring into a differently built world is
+ * refused.</p>
+ * <p>Serialized, a snapshot is an 8-byte header and the doubles in
+ * little-endian order: a few hundred bytes for a handful of robots.</p>
+ */
+public final class WorldSnapshot {
+    /** Layout version; bumped whenever what is saved changes. */
+    public static final int VERSION = 1;
+
+    static final int MAGIC = 0x53575446;   // "FTWS" read little-endian
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Header, in the data itself so it travels with every copy
+    static final int H_VERSION = 0, H_ROBOTS = 1, H_LAYOUT = 2, H_TICKS = 3;
+    static final int HEADER = 4;
+
+    private final double[] data;
+
+    WorldSnapshot(int size) {
+        this.data = new double[size];
+    }
+
+    private WorldSnapshot(double[] data) {
+        this.data = data;
+    }
+
+    double[] data() { return data; }
+
+    /** @return number of robots the snapshot holds */
+    public int getRobotCount() { return (int) data[H_ROBOTS]; }
+
+    /** @return ticks the world had run when the snapshot was taken */
+    public long getTicks() { return (long) data[H_TICKS]; }
+
+    /** @return an independent copy, e.g. to keep before saving over this one */
+    public WorldSnapshot copy() {
+        return new WorldSnapshot(data.clone());
+    }
+
+    /** @return bytes {@link #toBytes()} produces */
+    public int byteSize() {
+        return 8 + Double.BYTES * data.length;
+    }
+
+    /** @return magic and length, then every value, little-endian */
+    public byte[] toBytes() {
+        ByteBuffer out = ByteBuffer.allocate(byteSize()).order(ORDER);
+        out.putInt(MAGIC);
+        out.putInt(data.length);
+        out.asDoubleBuffer().put(data);
+        return out.array();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #toBytes()}.
+     * @param bytes serialized snapshot
+     * @return the snapshot
+     * @throws IllegalArgumentException if the bytes are not a snapshot of this version
+     */
+    public static WorldSnapshot fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ORDER);
+        if (bytes.length < 8 || in.getInt() != MAGIC) throw new IllegalArgumentException("Not a world snapshot");
+        int length = in.getInt();
+        if (length < HEADER || in.remaining() != (long) length * Double.BYTES) {
+            throw new IllegalArgumentException("Truncated world snapshot");
+        }
+        double[] data = new double[length];
+        in.asDoubleBuffer().get(data);
+        if (data[H_VERSION] != VERSION) {
+            throw new IllegalArgumentException("Unsupported world snapshot version " + (int) data[H_VERSION]);
+        }
+        return new WorldSnapshot(data);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WorldSnapshot && Arrays.equals(data, ((WorldSnapshot) o).data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+}
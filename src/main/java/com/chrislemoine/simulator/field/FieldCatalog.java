@@ -0,0 +1,291 @@
+package com.chrislemoine.simulator.field;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every field definition available: the built-in seasons, listed in the
+ * {@code /fields/index.txt} resource, plus any {@code .field} files in a
+ * user directory, which replace built-in ones of the same id.
+ * <p>Discovery only reads names and seasons, so listing many seasons costs
+ * next to nothing. A definition is loaded the first time it is asked for,
+ * then kept. Loading reads the source's bytes and looks for an already
+ * parsed binary copy on disk, keyed by a hash of those bytes and the format
+ * version, and only parses the text if there is none; editing a file, or a
+ * new format, simply misses. Cache files are written to a temporary name
+ * and moved into place, so concurrent runs never see a partial file.</p>
+ * <p>Safe to share between threads.</p>
+ */
+public class FieldCatalog {
+    /** Classpath resource listing the built-in definitions: file, season, name per line. */
+    public static final String INDEX = "/fields/index.txt";
+
+    /** Id of the field used when none is chosen. */
+    public static final String DEFAULT_ID = "season-2024-intothedeep";
+
+    private static final String EXTENSION = ".field";
+    private static final String CACHE_EXTENSION = ".ftcfield";
+
+    private static volatile FieldCatalog shared;
+
+    private final Path cacheDirectory;
+    private final List<Entry> entries;
+    private final AtomicLong parses = new AtomicLong(), diskHits = new AtomicLong(), loadNanos = new AtomicLong();
+
+    /** A definition that has been found but perhaps not yet loaded. */
+    public final class Entry {
+        private final String id;
+        private final String name;
+        private final int season;
+        private final String resource;   // classpath source, or null
+        private final Path file;         // user source, or null
+        private FieldDefinition definition;
+
+        private Entry(String id, String name, int season, String resource, Path file) {
+            this.id       = id;
+            this.name     = name;
+            this.season   = season;
+            this.resource = resource;
+            this.file     = file;
+        }
+
+        public String getId()   { return id; }
+        public String getName() { return name; }
+        public int getSeason()  { return season; }
+
+        /** @return true if this comes from the user directory rather than the built-in seasons */
+        public boolean isUserDefined() { return file != null; }
+
+        /** @return true if {@link #load()} would return at once */
+        public synchronized boolean isLoaded() { return definition != null; }
+
+        /**
+         * Loads the definition the first time, from the binary cache if it can.
+         * @return the definition
+         * @throws IOException if the source cannot be read
+         * @throws IllegalArgumentException if the source is not a valid definition
+         */
+        public synchronized FieldDefinition load() throws IOException {
+            if (definition == null) definition = FieldCatalog.this.load(this);
+            return definition;
+        }
+
+        /** @return e.g. "2024 Into The Deep" */
+        @Override
+        public String toString() {
+            return season > 0 ? season + " " + name : name;
+        }
+    }
+
+    /**
+     * Finds the built-in definitions and those in a user directory.
+     * @param userDirectory  where user {@code .field} files are; need not exist
+     * @param cacheDirectory where parsed definitions are stored; created on first write
+     */
+    public FieldCatalog(Path userDirectory, Path cacheDirectory) throws IOException {
+        this.cacheDirectory = cacheDirectory;
+        Map<String, Entry> found = new LinkedHashMap<>();
+        readIndex(found);
+        if (userDirectory != null && Files.isDirectory(userDirectory)) readDirectory(userDirectory, found);
+
+        List<Entry> list = new ArrayList<>(found.values());
+        // Newest season first; fields not tied to a season last
+        list.sort(Comparator.comparingInt((Entry e) -> e.season == 0 ? Integer.MIN_VALUE : e.season).reversed());
+        this.entries = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return the catalog of built-in seasons and {@code ~/.ftcsim/fields},
+     *         cached in {@code ~/.ftcsim/field-cache}; discovered on first use
+     */
+    public static FieldCatalog shared() throws IOException {
+        FieldCatalog catalog = shared;
+        if (catalog == null) {
+            synchronized (FieldCatalog.class) {
+                catalog = shared;
+                if (catalog == null) {
+                    Path home = Paths.get(System.getProperty("user.home"), ".ftcsim");
+                    shared = catalog = new FieldCatalog(home.resolve("fields"), home.resolve("field-cache"));
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /** @return every definition, newest season first */
+    public List<Entry> getEntries() { return entries; }
+
+    /** @return the definition with this id, or null */
+    public Entry find(String id) {
+        for (Entry e : entries) if (e.id.equals(id)) return e;
+        return null;
+    }
+
+    /** @return {@link #DEFAULT_ID} if present, else the first definition */
+    public Entry getDefault() {
+        Entry e = find(DEFAULT_ID);
+        return e != null ? e : entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Finds the field a recording was driven on. Loads definitions until one matches.
+     * @param geometryHash {@link FieldDefinition#getGeometryHash()} of the field wanted
+     * @return a definition with that collision geometry, or null if none has it
+     */
+    public FieldDefinition findByGeometry(int geometryHash) {
+        for (Entry e : entries) {
+            try {
+                FieldDefinition field = e.load();
+                if (field.getGeometryHash() == geometryHash) return field;
+            } catch (IOException | IllegalArgumentException ex) {
+                System.err.println("Skipping field " + e.id + ": " + ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    // Loading statistics since construction
+    public long getParses()          { return parses.get(); }
+    public long getDiskHits()        { return diskHits.get(); }
+    public double getLoadSeconds()   { return loadNanos.get() / 1e9; }
+
+    /** @return e.g. "7 fields, 1 parsed, 2 loaded from cache (0.4 ms)" */
+    @Override
+    public String toString() {
+        return String.format("%d fields, %d parsed, %d loaded from cache (%.1f ms)",
+                entries.size(), getParses(), getDiskHits(), getLoadSeconds() * 1e3);
+    }
+
+    private void readIndex(Map<String, Entry> found) throws IOException {
+        InputStream in = FieldCatalog.class.getResourceAsStream(INDEX);
+        if (in == null) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            for (int number = 1; (line = reader.readLine()) != null; number++) {
+                String content = line.replaceFirst("#.*", "").trim();
+                if (content.isEmpty()) continue;
+                String[] words = content.split("\\s+", 3);
+                if (words.length != 3 || !words[0].endsWith(EXTENSION)) {
+                    throw new IOException(INDEX + ":" + number + ": expected <file>.field <season> <name>");
+                }
+                String id = words[0].substring(0, words[0].length() - EXTENSION.length());
+                int season;
+                try {
+                    season = Integer.parseInt(words[1]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(INDEX + ":" + number + ": not a season: " + words[1]);
+                }
+                found.put(id, new Entry(id, words[2], season, "/fields/" + words[0], null));
+            }
+        }
+    }
+
+    private void readDirectory(Path directory, Map<String, Entry> found) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String id = fileName.substring(0, fileName.length() - EXTENSION.length());
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    FieldFormat.Header header = FieldFormat.readHeader(reader, id);
+                    found.put(id, new Entry(id, header.name, header.season, null, file));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Skipping field " + file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private FieldDefinition load(Entry entry) throws IOException {
+        long start = System.nanoTime();
+        byte[] source;
+        if (entry.resource != null) {
+            try (InputStream in = FieldCatalog.class.getResourceAsStream(entry.resource)) {
+                if (in == null) throw new IOException("No such resource: " + entry.resource);
+                source = in.readAllBytes();
+            }
+        } else {
+            source = Files.readAllBytes(entry.file);
+        }
+        Path base = entry.file != null ? entry.file.toAbsolutePath().getParent() : null;
+        Path cached = cacheDirectory.resolve(key(source, base) + CACHE_EXTENSION);
+
+        FieldDefinition field = read(entry.id, cached);
+        if (field != null) {
+            diskHits.incrementAndGet();
+        } else {
+            field = FieldFormat.parse(entry.id, new String(source, StandardCharsets.UTF_8), base);
+            parses.incrementAndGet();
+            store(cached, FieldFormat.write(field));
+        }
+        loadNanos.addAndGet(System.nanoTime() - start);
+        return field;
+    }
+
+    private static FieldDefinition read(String id, Path file) {
+        try {
+            return FieldFormat.read(id, ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read cached field " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void store(Path file, byte[] bytes) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not cache field " + file + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /** SHA-256 of the source, where its relative paths point and the binary version, as 32 hex digits. */
+    private static String key(byte[] source, Path base) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((byte) FieldFormat.VERSION);
+            digest.update((byte) (FieldFormat.VERSION >> 8));
+            if (base != null) digest.update(base.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(source), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+}
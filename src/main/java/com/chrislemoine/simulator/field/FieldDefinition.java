@@ -0,0 +1,133 @@
+package com.chrislemoine.simulator.field;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.Background;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One season's field: its size, the structures robots collide with, where
+ * each alliance starts, and the background images it can be drawn with.
+ * <p>Definitions are data, written as {@code .field} files (see
+ * {@link FieldFormat}) and found through a {@link FieldCatalog}. They are
+ * immutable once built.</p>
+ * <p>Coordinates follow the simulator's: inches from the field center, +Y
+ * away from the Red side as the background images are drawn, angles
+ * counterclockwise from +X.</p>
+ */
+public final class FieldDefinition {
+    /** Side of a standard FTC field (inches). */
+    public static final double DEFAULT_SIZE = 144.0;
+
+    private final String id;
+    private final String name;
+    private final int season;
+    private final double size;
+    private final String[] obstacleNames;
+    private final double[] obstacles;      // cx, cy, width, length, angle per obstacle
+    private final double[][] starts;       // per alliance: x, y, heading per start
+    private final List<Background> backgrounds;
+
+    FieldDefinition(String id, String name, int season, double size, String[] obstacleNames,
+                    double[] obstacles, double[][] starts, List<Background> backgrounds) {
+        if (!(size > 0)) throw new IllegalArgumentException("Field size must be positive: " + size);
+        if (backgrounds.isEmpty()) throw new IllegalArgumentException("Field " + id + " has no backgrounds");
+        this.id            = id;
+        this.name          = name;
+        this.season        = season;
+        this.size          = size;
+        this.obstacleNames = obstacleNames;
+        this.obstacles     = obstacles;
+        this.starts        = starts;
+        this.backgrounds   = Collections.unmodifiableList(backgrounds);
+    }
+
+    /** @return the definition's identifier, its file name without extension */
+    public String getId() { return id; }
+
+    /** @return display name, e.g. "Into The Deep" */
+    public String getName() { return name; }
+
+    /** @return the year the season starts, e.g. 2024; 0 for fields not tied to a season */
+    public int getSeason() { return season; }
+
+    /** @return side of the square field (inches) */
+    public double getSize() { return size; }
+
+    /** @return the images this field can be drawn with; the first is the default */
+    public List<Background> getBackgrounds() { return backgrounds; }
+
+    /** @return number of fixed structures, not counting the perimeter walls */
+    public int getObstacleCount() { return obstacleNames.length; }
+
+    /** @return an obstacle's name, e.g. "submersible" */
+    public String getObstacleName(int i) { return obstacleNames[i]; }
+
+    /** @return an obstacle as center X, center Y, width, length (inches) and angle (radians) */
+    public double[] getObstacle(int i) {
+        return Arrays.copyOfRange(obstacles, 5 * i, 5 * i + 5);
+    }
+
+    /** @return number of starting poses the field lists for an alliance */
+    public int getStartCount(Alliance alliance) {
+        return starts[alliance.ordinal()].length / 3;
+    }
+
+    /**
+     * @param alliance the alliance starting
+     * @param i        which of its starting poses
+     * @return X, Y (inches) and heading (radians)
+     */
+    public double[] getStartPose(Alliance alliance, int i) {
+        return Arrays.copyOfRange(starts[alliance.ordinal()], 3 * i, 3 * i + 3);
+    }
+
+    /**
+     * @return a collision world the size of this field, with its perimeter
+     *         walls and every obstacle in place and no robots yet
+     */
+    public CollisionWorld createCollisionWorld() {
+        CollisionWorld world = new CollisionWorld(size / 2, CollisionWorld.DEFAULT_CELL_SIZE);
+        world.addPerimeterWalls();
+        for (int o = 0; o < obstacles.length; o += 5) {
+            world.addObstacle(obstacles[o], obstacles[o + 1], obstacles[o + 2], obstacles[o + 3], obstacles[o + 4]);
+        }
+        return world;
+    }
+
+    /**
+     * Identifies the collision geometry, so a recording can find the field it
+     * was driven on again. Backgrounds, names and start poses don't count.
+     * @return 0 for the bare 144" perimeter, {@link CollisionWorld#forField()};
+     *         otherwise a CRC of the size and obstacles
+     */
+    public int getGeometryHash() {
+        if (size == DEFAULT_SIZE && obstacles.length == 0) return 0;
+        CRC32 crc = new CRC32();
+        update(crc, size);
+        for (double d : obstacles) update(crc, d);
+        int hash = (int) crc.getValue();
+        return hash != 0 ? hash : 1;
+    }
+
+    double[] obstacleData() { return obstacles; }
+
+    String[] obstacleNameData() { return obstacleNames; }
+
+    double[][] startData() { return starts; }
+
+    /** @return e.g. "2024 Into The Deep" */
+    @Override
+    public String toString() {
+        return season > 0 ? season + " " + name : name;
+    }
+
+    private static void update(CRC32 crc, double d) {
+        long bits = Double.doubleToLongBits(d);
+        for (int i = 0; i < 8; i++) crc.update((int) (bits >>> (8 * i)));
+    }
+}
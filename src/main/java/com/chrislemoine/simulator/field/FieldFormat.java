@@ -0,0 +1,292 @@
+package com.chrislemoine.simulator.field;
+
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.Background;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes field definitions, in two forms.
+ * <p>The {@code .field} text form is what people write, one directive per
+ * line, {@code #} to the end of a line a comment:</p>
+ * <pre>
+ * name       Into The Deep                  display name; must come first
+ * season     2024                           optional
+ * size       144                            field side (inches), default 144
+ * background &lt;path&gt; &lt;display name&gt;        one or more; the first is the default
+ * obstacle   &lt;name&gt; cx cy width length [angle]   inches, angle in degrees
+ * start      red|blue x y heading           inches, heading in degrees
+ * </pre>
+ * <p>Background paths starting with / are classpath resources; others are
+ * files, relative to the definition's directory.</p>
+ * <p>The binary form is the same definition already parsed, which the
+ * {@link FieldCatalog} caches on disk. All values little-endian:</p>
+ * <pre>
+ * magic int 'FTCF', version short, reserved short, season int, size double, name
+ * backgrounds short count, then name and path each
+ * obstacles   short count, then name, cx, cy, width, length, angle (radians) each
+ * starts      per alliance, short count, then x, y, heading (radians) each
+ * </pre>
+ * <p>Strings are a short byte count then UTF-8.</p>
+ */
+final class FieldFormat {
+    static final int MAGIC = 0x46435446;   // "FTCF" read little-endian
+    static final short VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** The name and season, all a catalog needs to list a definition. */
+    static final class Header {
+        final String name;
+        final int season;
+
+        Header(String name, int season) {
+            this.name   = name;
+            this.season = season;
+        }
+    }
+
+    private FieldFormat() {}
+
+    /**
+     * Reads only the name and season, stopping at the first other directive.
+     * @param text a {@code .field} definition, or at least its first lines
+     * @param id   the definition's identifier, for errors
+     * @return name and season
+     * @throws IllegalArgumentException if the name doesn't come first
+     */
+    static Header readHeader(BufferedReader text, String id) throws IOException {
+        String name = null;
+        int season = 0;
+        String line;
+        for (int number = 1; (line = text.readLine()) != null; number++) {
+            String[] words = words(line);
+            if (words.length == 0) continue;
+            if (words[0].equals("name")) {
+                name = rest(line, 1);
+            } else if (words[0].equals("season")) {
+                season = (int) number(words, 1, id, number);
+            } else {
+                break;
+            }
+        }
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException(id + ": no name before other directives");
+        return new Header(name, season);
+    }
+
+    /**
+     * @param id   the definition's identifier, for errors and the result
+     * @param text a whole {@code .field} definition
+     * @param base directory relative background paths are in, or null if there are none
+     * @return the definition
+     * @throws IllegalArgumentException naming the line of the first error
+     */
+    static FieldDefinition parse(String id, String text, Path base) {
+        String name = null;
+        int season = 0;
+        double size = FieldDefinition.DEFAULT_SIZE;
+        List<Background> backgrounds = new ArrayList<>();
+        List<String> obstacleNames = new ArrayList<>();
+        List<Double> obstacles = new ArrayList<>();
+        List<List<Double>> starts = new ArrayList<>();
+        for (int a = 0; a < Alliance.values().length; a++) starts.add(new ArrayList<>());
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            String line;
+            for (int number = 1; (line = reader.readLine()) != null; number++) {
+                String[] words = words(line);
+                if (words.length == 0) continue;
+                switch (words[0]) {
+                    case "name":
+                        name = rest(line, 1);
+                        break;
+                    case "season":
+                        season = (int) number(words, 1, id, number);
+                        break;
+                    case "size":
+                        size = number(words, 1, id, number);
+                        break;
+                    case "background": {
+                        if (words.length < 3) throw error(id, number, "expected background <path> <name>");
+                        String path = words[1];
+                        if (!path.startsWith("/")) {
+                            if (base == null) throw error(id, number, "built-in fields need classpath paths");
+                            path = base.resolve(path).toAbsolutePath().toString();
+                        }
+                        backgrounds.add(new Background(rest(line, 2), path));
+                        break;
+                    }
+                    case "obstacle":
+                        if (words.length != 6 && words.length != 7) {
+                            throw error(id, number, "expected obstacle <name> cx cy width length [angle]");
+                        }
+                        obstacleNames.add(words[1]);
+                        for (int w = 2; w < 6; w++) obstacles.add(number(words, w, id, number));
+                        obstacles.add(words.length == 7 ? Math.toRadians(number(words, 6, id, number)) : 0.0);
+                        break;
+                    case "start": {
+                        if (words.length != 5) throw error(id, number, "expected start red|blue x y heading");
+                        List<Double> list = starts.get(alliance(words[1], id, number).ordinal());
+                        list.add(number(words, 2, id, number));
+                        list.add(number(words, 3, id, number));
+                        list.add(Math.toRadians(number(words, 4, id, number)));
+                        break;
+                    }
+                    default:
+                        throw error(id, number, "unknown directive " + words[0]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Reading a string cannot fail", e);
+        }
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException(id + ": no name");
+
+        double[][] startData = new double[starts.size()][];
+        for (int a = 0; a < startData.length; a++) startData[a] = toArray(starts.get(a));
+        return new FieldDefinition(id, name, season, size, obstacleNames.toArray(new String[0]),
+                                   toArray(obstacles), startData, backgrounds);
+    }
+
+    /** @return the definition in binary form */
+    static byte[] write(FieldDefinition field) {
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(utf8(field.getName()));
+        for (Background b : field.getBackgrounds()) {
+            strings.add(utf8(b.getName()));
+            strings.add(utf8(b.getPath()));
+        }
+        for (String s : field.obstacleNameData()) strings.add(utf8(s));
+        double[][] starts = field.startData();
+        double[] obstacles = field.obstacleData();
+
+        int bytes = 4 + 2 + 2 + 4 + 8 + 2 + 2 + Double.BYTES * obstacles.length + 2 * starts.length;
+        for (byte[] s : strings) bytes += 2 + s.length;
+        for (double[] s : starts) bytes += Double.BYTES * s.length;
+
+        ByteBuffer out = ByteBuffer.allocate(bytes).order(ORDER);
+        out.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+        out.putInt(field.getSeason()).putDouble(field.getSize());
+        int s = 0;
+        put(out, strings.get(s++));
+        out.putShort((short) field.getBackgrounds().size());
+        for (int i = 0; i < field.getBackgrounds().size(); i++) {
+            put(out, strings.get(s++));
+            put(out, strings.get(s++));
+        }
+        out.putShort((short) field.getObstacleCount());
+        for (int i = 0; i < field.getObstacleCount(); i++) {
+            put(out, strings.get(s++));
+            for (int k = 0; k < 5; k++) out.putDouble(obstacles[5 * i + k]);
+        }
+        for (double[] start : starts) {
+            out.putShort((short) (start.length / 3));
+            for (double d : start) out.putDouble(d);
+        }
+        return out.array();
+    }
+
+    /**
+     * @param id   the definition's identifier
+     * @param data a definition in binary form
+     * @return the definition
+     * @throws IllegalArgumentException if the data is not a definition this version can read
+     */
+    static FieldDefinition read(String id, ByteBuffer data) {
+        data.order(ORDER);
+        try {
+            if (data.getInt() != MAGIC) throw new IllegalArgumentException(id + ": not a binary field definition");
+            short version = data.getShort();
+            if (version != VERSION) throw new IllegalArgumentException(id + ": unsupported version " + version);
+            data.getShort();
+            int season = data.getInt();
+            double size = data.getDouble();
+            String name = string(data);
+
+            List<Background> backgrounds = new ArrayList<>();
+            for (int i = data.getShort(); i > 0; i--) backgrounds.add(new Background(string(data), string(data)));
+
+            int obstacleCount = data.getShort();
+            String[] obstacleNames = new String[obstacleCount];
+            double[] obstacles = new double[5 * obstacleCount];
+            for (int i = 0; i < obstacleCount; i++) {
+                obstacleNames[i] = string(data);
+                for (int k = 0; k < 5; k++) obstacles[5 * i + k] = data.getDouble();
+            }
+
+            double[][] starts = new double[Alliance.values().length][];
+            for (int a = 0; a < starts.length; a++) {
+                starts[a] = new double[3 * data.getShort()];
+                for (int k = 0; k < starts[a].length; k++) starts[a][k] = data.getDouble();
+            }
+            return new FieldDefinition(id, name, season, size, obstacleNames, obstacles, starts, backgrounds);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(id + ": truncated binary field definition");
+        }
+    }
+
+    private static String[] words(String line) {
+        int hash = line.indexOf('#');
+        String content = (hash >= 0 ? line.substring(0, hash) : line).trim();
+        return content.isEmpty() ? new String[0] : content.split("\\s+");
+    }
+
+    /** @return the line from its n-th word on, comment removed */
+    private static String rest(String line, int n) {
+        int hash = line.indexOf('#');
+        String[] parts = (hash >= 0 ? line.substring(0, hash) : line).trim().split("\\s+", n + 1);
+        return parts.length > n ? parts[n] : "";
+    }
+
+    private static double number(String[] words, int i, String id, int line) {
+        if (i >= words.length) throw error(id, line, "missing number after " + words[i - 1]);
+        try {
+            double value = Double.parseDouble(words[i]);
+            if (!Double.isFinite(value)) throw error(id, line, "not a finite number: " + words[i]);
+            return value;
+        } catch (NumberFormatException e) {
+            throw error(id, line, "not a number: " + words[i]);
+        }
+    }
+
+    private static Alliance alliance(String word, String id, int line) {
+        switch (word.toLowerCase()) {
+            case "red": return Alliance.RED;
+            case "blue": return Alliance.BlUE;
+            default: throw error(id, line, "expected red or blue, not " + word);
+        }
+    }
+
+    private static IllegalArgumentException error(String id, int line, String message) {
+        return new IllegalArgumentException(id + ":" + line + ": " + message);
+    }
+
+    private static double[] toArray(List<Double> list) {
+        double[] array = new double[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        return array;
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("String too long: " + s);
+        return bytes;
+    }
+
+    private static void put(ByteBuffer out, byte[] s) {
+        out.putShort((short) s.length).put(s);
+    }
+
+    private static String string(ByteBuffer data) {
+        byte[] bytes = new byte[data.getShort()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,18 @@
+package com.chrislemoine.simulator.hardware;
+
+/**
+ * Driver sticks as OpMode code reads them, with the FTC SDK's conventions:
+ * pushing a stick up reads negative Y, and right on the right stick turns
+ * clockwise. Refreshed by the {@link OpModeRunner} at the start of every loop.
+ */
+public class Gamepad {
+    public double leftStickX, leftStickY, rightStickX, rightStickY;
+
+    /** Fills the sticks from this simulator's drive input convention. */
+    void set(double axial, double lateral, double yaw) {
+        leftStickX  = lateral;
+        leftStickY  = -axial;
+        rightStickX = -yaw;
+        rightStickY = 0;
+    }
+}
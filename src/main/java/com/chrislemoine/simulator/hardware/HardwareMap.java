@@ -0,0 +1,37 @@
+package com.chrislemoine.simulator.hardware;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Looks up simulated devices by name, the way OpMode code finds its hardware.
+ */
+public class HardwareMap {
+    private final Map<String, Object> devices = new LinkedHashMap<>();
+
+    void put(String name, Object device) {
+        devices.put(name, device);
+    }
+
+    /**
+     * @param type device class, e.g. {@code SimMotor.class}
+     * @param name device name, e.g. {@link SimHardware#FRONT_LEFT}
+     * @return the device
+     * @throws IllegalArgumentException if there is no such device of that type
+     */
+    public <T> T get(Class<T> type, String name) {
+        Object device = devices.get(name);
+        if (!type.isInstance(device)) {
+            throw new IllegalArgumentException("No " + type.getSimpleName() + " named \"" + name
+                    + "\"; devices are " + devices.keySet());
+        }
+        return type.cast(device);
+    }
+
+    /** @return every device name */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(devices.keySet());
+    }
+}
@@ -0,0 +1,51 @@
+package com.chrislemoine.simulator.hardware;
+
+/**
+ * User robot code, in the shape of an FTC linear OpMode: one method that
+ * runs start to finish, checking {@link #opModeIsActive()} as it goes.
+ * <p>Every call to {@link #opModeIsActive()} or {@link #idle()} ends one
+ * loop: it waits out the rest of the loop period if the code is ahead of
+ * the runner's loop rate, then refreshes the sensor readings and
+ * {@link #gamepad1}.</p>
+ */
+public abstract class LinearOpMode extends OpMode {
+    /**
+     * The whole OpMode. Should return soon after {@link #opModeIsActive()} turns false.
+     * @throws InterruptedException if the runner gives up waiting for it to stop
+     */
+    public abstract void runOpMode() throws InterruptedException;
+
+    /** Not used by linear OpModes. */
+    @Override
+    public final void loop() {}
+
+    /** Waits for the start signal. The runner starts straight after init, so this only ends the first loop. */
+    protected void waitForStart() {
+        runner.endLoop();
+    }
+
+    /** @return true until stop is requested; ends one loop */
+    protected boolean opModeIsActive() {
+        runner.endLoop();
+        return !runner.isStopRequested();
+    }
+
+    /** @return true once stop is requested */
+    protected boolean isStopRequested() {
+        return runner.isStopRequested();
+    }
+
+    /** Ends one loop without doing anything else. */
+    protected void idle() {
+        runner.endLoop();
+    }
+
+    /**
+     * Waits for an amount of simulated time, looping at the runner's rate, or until stop is requested.
+     * @param millis simulated time to wait (milliseconds)
+     */
+    protected void sleep(long millis) {
+        double until = getRuntime() + millis / 1000.0;
+        while (getRuntime() < until && !isStopRequested()) runner.endLoop();
+    }
+}
@@ -0,0 +1,37 @@
+package com.chrislemoine.simulator.hardware;
+
+/**
+ * User robot code, in the shape of an FTC iterative OpMode.
+ * <p>The {@link OpModeRunner} calls {@link #init()} once, {@link #start()}
+ * once, then {@link #loop()} repeatedly at up to its loop rate until
+ * stopped, and finally {@link #stop()}, all on the OpMode's own thread.
+ * Sensor readings and {@link #gamepad1} are refreshed before every call,
+ * and stay the same throughout it.</p>
+ * <p>Subclasses need a public no-argument constructor to be loaded from a jar.</p>
+ */
+public abstract class OpMode {
+    /** The robot's simulated devices. */
+    protected HardwareMap hardwareMap;
+
+    /** The driver's sticks. */
+    protected Gamepad gamepad1;
+
+    OpModeRunner runner;
+
+    /** Called once before start, e.g. to look up and configure devices. */
+    public void init() {}
+
+    /** Called once when the OpMode starts running. */
+    public void start() {}
+
+    /** Called repeatedly while running. */
+    public abstract void loop();
+
+    /** Called once after the last loop. Motors are stopped afterwards regardless. */
+    public void stop() {}
+
+    /** @return simulated time since the OpMode started (seconds) */
+    public double getRuntime() {
+        return runner.getRuntime();
+    }
+}
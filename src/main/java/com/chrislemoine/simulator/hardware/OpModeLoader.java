@@ -0,0 +1,126 @@
+package com.chrislemoine.simulator.hardware;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Finds and creates {@link OpMode}s, from user jars or the classpath.
+ * <p>An OpMode spec is one of:</p>
+ * <p> - {@code robot.jar}: the only OpMode in the jar,</p>
+ * <p> - {@code robot.jar:TeleOp}: the OpMode in the jar with that simple or fully qualified name,</p>
+ * <p> - {@code com.team.TeleOp}: a class already on the classpath.</p>
+ */
+public final class OpModeLoader {
+    private OpModeLoader() {}
+
+    /**
+     * @param spec jar, jar and class, or class name
+     * @return a new instance of the OpMode the spec names
+     * @throws IOException if the jar cannot be read
+     * @throws IllegalArgumentException if the spec names no single usable OpMode
+     */
+    public static OpMode load(String spec) throws IOException {
+        int colon = spec.lastIndexOf(':');
+        String jar = spec, className = null;
+        if (colon > 0 && spec.substring(0, colon).endsWith(".jar")) {
+            jar       = spec.substring(0, colon);
+            className = spec.substring(colon + 1);
+        }
+        if (!jar.endsWith(".jar")) {
+            return instantiate(forName(spec, OpModeLoader.class.getClassLoader()));
+        }
+
+        List<Class<? extends OpMode>> found = scan(Paths.get(jar));
+        List<Class<? extends OpMode>> matches = new ArrayList<>();
+        for (Class<? extends OpMode> c : found) {
+            if (className == null || c.getName().equals(className) || c.getSimpleName().equals(className)) {
+                matches.add(c);
+            }
+        }
+        if (matches.size() != 1) {
+            throw new IllegalArgumentException((matches.isEmpty() ? "No OpMode" : "Several OpModes")
+                    + (className == null ? "" : " named " + className) + " in " + jar
+                    + "; it contains " + names(found));
+        }
+        return instantiate(matches.get(0));
+    }
+
+    /**
+     * Loads every class in a jar and keeps the OpModes that can be created:
+     * public, concrete and with a public no-argument constructor.
+     * @param jar the jar; its classes may refer to this simulator's classes
+     * @return the OpMode classes, in jar order
+     * @throws IOException if the jar cannot be read
+     */
+    public static List<Class<? extends OpMode>> scan(Path jar) throws IOException {
+        if (!Files.isRegularFile(jar)) throw new IOException("No such jar: " + jar);
+        // Left open: OpMode classes load the rest of their code lazily
+        URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()},
+                OpModeLoader.class.getClassLoader());
+        List<Class<? extends OpMode>> found = new ArrayList<>();
+        try (JarFile file = new JarFile(jar.toFile())) {
+            for (Enumeration<JarEntry> e = file.entries(); e.hasMoreElements(); ) {
+                String entry = e.nextElement().getName();
+                if (!entry.endsWith(".class") || entry.contains("$") || entry.endsWith("module-info.class")) continue;
+                String name = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+                Class<?> c;
+                try {
+                    c = Class.forName(name, false, loader);
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    System.err.println("Skipping " + name + ": " + ex);
+                    continue;
+                }
+                if (isUsable(c)) found.add(c.asSubclass(OpMode.class));
+            }
+        }
+        return found;
+    }
+
+    private static Class<? extends OpMode> forName(String name, ClassLoader loader) {
+        Class<?> c;
+        try {
+            c = Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("No class " + name + " on the classpath");
+        }
+        if (!isUsable(c)) {
+            throw new IllegalArgumentException(name + " is not a public, concrete OpMode with a public no-argument constructor");
+        }
+        return c.asSubclass(OpMode.class);
+    }
+
+    private static boolean isUsable(Class<?> c) {
+        if (!OpMode.class.isAssignableFrom(c)) return false;
+        int mods = c.getModifiers();
+        if (!Modifier.isPublic(mods) || Modifier.isAbstract(mods)) return false;
+        try {
+            return Modifier.isPublic(c.getConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static OpMode instantiate(Class<? extends OpMode> c) {
+        try {
+            return c.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create " + c.getName() + ": " + e, e);
+        }
+    }
+
+    private static List<String> names(List<Class<? extends OpMode>> classes) {
+        List<String> names = new ArrayList<>();
+        for (Class<?> c : classes) names.add(c.getName());
+        return names;
+    }
+}
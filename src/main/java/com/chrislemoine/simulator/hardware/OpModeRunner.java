@@ -0,0 +1,187 @@
+package com.chrislemoine.simulator.hardware;
+
+import com.chrislemoine.simulator.core.LatencyHistogram;
+import com.chrislemoine.simulator.input.DriveController;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs an {@link OpMode} on its own thread against {@link SimHardware},
+ * at up to a maximum loop rate, and keeps statistics on its loops.
+ * <p>The OpMode never touches the physics thread: it sees sensor readings
+ * through the hardware's lock-free snapshot and sets motor powers that the
+ * next physics tick picks up, so a slow or spinning OpMode cannot hold up
+ * the simulation. Each loop:</p>
+ * <p> - waits out the rest of the loop period if the OpMode is ahead of the
+ * maximum rate, or counts an overrun if it is behind,</p>
+ * <p> - refreshes the sensor readings, counting a stale read if no physics
+ * tick has happened since the last loop, and the gamepad from the driver,</p>
+ * <p> - runs the OpMode's code, timing it.</p>
+ */
+public class OpModeRunner {
+    public static final double DEFAULT_MAX_LOOP_HZ = 200;
+
+    private static final long STOP_TIMEOUT_MS = 1000;
+
+    private final OpMode opMode;
+    private final SimHardware hardware;
+    private final DriveController driver;
+    private final long periodNanos;
+    private final String name;
+    private final Gamepad gamepad = new Gamepad();
+    private final LatencyHistogram loopTime = new LatencyHistogram();
+    private final LatencyHistogram period = new LatencyHistogram();
+    private Thread thread;
+
+    private volatile boolean stopRequested = false;
+    private volatile boolean finished = false;
+
+    // OpMode thread only, apart from the counters' reads
+    private volatile long loops = 0, overruns = 0, staleReads = 0;
+    private long loopStart = 0;
+    private double startTime = 0;
+
+    /**
+     * @param opMode     the user code to run
+     * @param hardware   the hardware it drives; should be installed as the robot's controller
+     * @param driver     source of the gamepad sticks, polled on the OpMode's thread; may be null
+     * @param maxLoopHz  most loops per second, or 0 for no limit
+     */
+    public OpModeRunner(OpMode opMode, SimHardware hardware, DriveController driver, double maxLoopHz) {
+        if (maxLoopHz < 0) throw new IllegalArgumentException("maxLoopHz must not be negative: " + maxLoopHz);
+        this.opMode      = opMode;
+        this.hardware    = hardware;
+        this.driver      = driver;
+        this.periodNanos = maxLoopHz > 0 ? Math.round(1e9 / maxLoopHz) : 0;
+        this.name        = opMode.getClass().getSimpleName();
+        opMode.hardwareMap = hardware.getHardwareMap();
+        opMode.gamepad1    = gamepad;
+        opMode.runner      = this;
+    }
+
+    /** Starts the OpMode's thread: init, then start straight away. */
+    public synchronized void start() {
+        if (thread != null) throw new IllegalStateException("already started");
+        thread = new Thread(this::run, "opmode-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks the OpMode to stop and waits for it, interrupting it if it does
+     * not stop in time. Motors are stopped either way.
+     */
+    public void stop() {
+        stopRequested = true;
+        Thread t;
+        synchronized (this) { t = thread; }
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(STOP_TIMEOUT_MS);
+                if (t.isAlive()) {
+                    t.interrupt();
+                    t.join(STOP_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (t.isAlive()) System.err.println("OpMode " + name + " did not stop; abandoning its thread");
+        }
+        hardware.stopMotors();
+    }
+
+    /** @return true once stop has been asked for */
+    public boolean isStopRequested() { return stopRequested; }
+
+    /** @return true once the OpMode has returned, failed or been abandoned */
+    public boolean isFinished() { return finished; }
+
+    /** @return time the OpMode's code takes per loop, excluding the runner's waiting */
+    public LatencyHistogram getLoopTime() { return loopTime; }
+
+    /** @return time from the start of one loop to the start of the next */
+    public LatencyHistogram getPeriod() { return period; }
+
+    /** @return loops run */
+    public long getLoops() { return loops; }
+
+    /** @return loops that started late because the one before ran past the loop period */
+    public long getOverruns() { return overruns; }
+
+    /** @return loops that saw the same readings as the loop before */
+    public long getStaleReads() { return staleReads; }
+
+    /** @return simulated time since the OpMode started (seconds); OpMode thread only */
+    double getRuntime() {
+        return hardware.getReadingTime() - startTime;
+    }
+
+    /**
+     * Ends the current loop and begins the next: records the loop's time,
+     * waits for the next loop slot and refreshes the inputs. OpMode thread only.
+     */
+    void endLoop() {
+        long now = System.nanoTime();
+        loopTime.record(now - loopStart);
+        if (periodNanos > 0) {
+            long next = loopStart + periodNanos;
+            if (now > next) {
+                overruns++;
+            } else {
+                while (now < next && !stopRequested) {
+                    LockSupport.parkNanos(next - now);
+                    now = System.nanoTime();
+                }
+            }
+        }
+        period.record(now - loopStart);
+        loops++;
+        refresh(now);
+    }
+
+    @Override
+    public String toString() {
+        double seconds = period.getCount() * period.getMean() / 1e9;
+        return String.format("%s: %d loops at %.0f Hz, %d overruns, %.0f%% stale reads, loop %s",
+                name, loops, seconds > 0 ? period.getCount() / seconds : 0, overruns,
+                loops > 0 ? 100.0 * staleReads / loops : 0, loopTime);
+    }
+
+    private void run() {
+        try {
+            refresh(System.nanoTime());
+            opMode.init();
+            endLoop();
+            startTime = hardware.getReadingTime();
+            if (opMode instanceof LinearOpMode) {
+                ((LinearOpMode) opMode).runOpMode();
+            } else {
+                opMode.start();
+                while (true) {
+                    endLoop();
+                    if (stopRequested) break;
+                    opMode.loop();
+                }
+                opMode.stop();
+            }
+        } catch (InterruptedException e) {
+            // Stopped while waiting
+        } catch (Throwable t) {
+            System.err.println("OpMode " + name + " failed:");
+            t.printStackTrace();
+        } finally {
+            hardware.stopMotors();
+            finished = true;
+        }
+    }
+
+    private void refresh(long now) {
+        if (!hardware.refresh()) staleReads++;
+        if (driver != null) {
+            driver.poll();
+            gamepad.set(driver.getAxial(), driver.getLateral(), driver.getYaw());
+        }
+        loopStart = now;
+    }
+}
@@ -0,0 +1,44 @@
+package com.chrislemoine.simulator.hardware;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Hand-off point for sensor readings between the physics thread and user
+ * code: a sequence lock over a fixed array of doubles.
+ * <p>The physics thread publishes a complete set of readings once per tick
+ * and never waits. A reader copies the whole set and retries only if a
+ * publish overlapped the copy, so it always sees readings from one tick,
+ * and however tight its loop, it cannot hold the physics thread up.</p>
+ */
+final class SensorSnapshot {
+    private final double[] data;
+    private volatile long seq = 0;   // odd while a publish is in progress
+
+    SensorSnapshot(int size) {
+        this.data = new double[size];
+    }
+
+    /** Publishes a new set of readings. Physics thread only. */
+    void publish(double[] readings) {
+        long s = seq;
+        seq = s + 1;
+        VarHandle.storeStoreFence();
+        System.arraycopy(readings, 0, data, 0, data.length);
+        seq = s + 2;
+    }
+
+    /**
+     * Copies the latest complete set of readings. Any one thread at a time.
+     * @param out receives the readings
+     * @return number of publishes so far, to tell whether anything is new
+     */
+    long read(double[] out) {
+        long s;
+        do {
+            s = seq;
+            System.arraycopy(data, 0, out, 0, data.length);
+            VarHandle.loadLoadFence();
+        } while ((s & 1) != 0 || s != seq);
+        return s >> 1;
+    }
+}
@@ -0,0 +1,216 @@
+package com.chrislemoine.simulator.hardware;
+
+import com.chrislemoine.simulator.core.MecanumDriveModel;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.input.DriveController;
+
+import java.util.Random;
+
+/**
+ * Simulated robot hardware for user code: four drive motors with encoders
+ * and an IMU, all derived from a {@link SimBot}'s state.
+ * <p>Install it as the robot's controller in the {@link com.chrislemoine.simulator.core.World}.
+ * Every physics tick, {@link #poll()} then:</p>
+ * <p> - advances each wheel's encoder by its no-slip surface speed,</p>
+ * <p> - takes new encoder and IMU readings if each is due at its own update
+ * rate, with optional Gaussian noise and IMU drift, and publishes every
+ * reading to a {@link SensorSnapshot} in one go,</p>
+ * <p> - mixes the powers user code last set on the motors back into axial,
+ * lateral and yaw input for the robot.</p>
+ * <p>User code reaches the devices through {@link #getHardwareMap()}, under
+ * the names {@link #FRONT_LEFT}, {@link #FRONT_RIGHT}, {@link #BACK_LEFT},
+ * {@link #BACK_RIGHT} and {@link #IMU}. As on a real robot, the right-hand
+ * motors are mounted mirrored: drive code has to reverse them.</p>
+ * <p>Defaults are goBILDA 312 RPM motors (537.7 ticks per revolution) on
+ * 96 mm wheels, encoders read every tick and the IMU at 100 Hz, noise-free.</p>
+ */
+public class SimHardware implements DriveController {
+    public static final String FRONT_LEFT = "frontLeft", FRONT_RIGHT = "frontRight";
+    public static final String BACK_LEFT = "backLeft", BACK_RIGHT = "backRight";
+    public static final String IMU = "imu";
+
+    // Snapshot layout
+    static final int TIME = 0, POSITION = 1, VELOCITY = 5, HEADING = 9, ANG_VEL = 10;
+    static final int SIZE = 11;
+
+    // Raw motor power drives the wheel forward on the left, backward on the mirrored right
+    private static final double[] MOUNTING = {1, -1, 1, -1};
+
+    private final SimBot bot;
+    private final double dt;
+    private final double startHeading;
+    private final SensorSnapshot snapshot = new SensorSnapshot(SIZE);
+    private final double[] cache = new double[SIZE];   // user code's copy, read by the devices
+    private final SimMotor[] motors = new SimMotor[4];
+    private final HardwareMap hardwareMap = new HardwareMap();
+
+    // Configuration
+    private double ticksPerInch = 537.7 / (Math.PI * 96 / 25.4);
+    private int encoderEvery = 1, imuEvery = 1;
+    private double encoderNoise = 0, imuNoise = 0, imuDrift = 0;
+    private final Random random;
+
+    private long readCount = -1;   // user code's thread only
+
+    // Physics thread only
+    private final double[] readings = new double[SIZE];
+    private final double[] encoderTicks = new double[4];
+    private final double[] wheelPower = new double[4];
+    private final double[] mixed = new double[3];
+    private double imuBias = 0;
+    private long tick = 0;
+    private double axial, lateral, yaw;
+
+    /**
+     * @param bot the robot whose state the sensors read and the motors drive
+     * @param dt  physics step it is polled at (seconds)
+     */
+    public SimHardware(SimBot bot, double dt) {
+        this(bot, dt, 0);
+    }
+
+    /**
+     * @param bot  the robot whose state the sensors read and the motors drive
+     * @param dt   physics step it is polled at (seconds)
+     * @param seed random seed for sensor noise, so runs are repeatable
+     */
+    public SimHardware(SimBot bot, double dt, long seed) {
+        if (dt <= 0) throw new IllegalArgumentException("dt must be positive: " + dt);
+        this.bot          = bot;
+        this.dt           = dt;
+        this.startHeading = bot.getHeading();
+        this.random       = new Random(seed);
+        setImuRate(100);
+        String[] names = {FRONT_LEFT, FRONT_RIGHT, BACK_LEFT, BACK_RIGHT};
+        for (int i = 0; i < 4; i++) {
+            motors[i] = new SimMotor(cache, i);
+            hardwareMap.put(names[i], motors[i]);
+        }
+        hardwareMap.put(IMU, new SimImu(cache));
+        snapshot.publish(readings);
+    }
+
+    /** @return the devices, for user code */
+    public HardwareMap getHardwareMap() { return hardwareMap; }
+
+    /**
+     * @param ticksPerRev   encoder counts per wheel revolution
+     * @param wheelDiameter wheel diameter (inches)
+     * @return this hardware for chaining
+     */
+    public SimHardware setEncoder(double ticksPerRev, double wheelDiameter) {
+        if (ticksPerRev <= 0 || wheelDiameter <= 0) {
+            throw new IllegalArgumentException("ticksPerRev and wheelDiameter must be positive");
+        }
+        this.ticksPerInch = ticksPerRev / (Math.PI * wheelDiameter);
+        return this;
+    }
+
+    /**
+     * @param hz how often encoders are read; at most the physics rate
+     * @return this hardware for chaining
+     */
+    public SimHardware setEncoderRate(double hz) {
+        this.encoderEvery = every(hz, "encoder rate");
+        return this;
+    }
+
+    /**
+     * @param hz how often the IMU is read; at most the physics rate
+     * @return this hardware for chaining
+     */
+    public SimHardware setImuRate(double hz) {
+        this.imuEvery = every(hz, "IMU rate");
+        return this;
+    }
+
+    /**
+     * @param ticks standard deviation added to each encoder position and velocity reading (ticks)
+     * @return this hardware for chaining
+     */
+    public SimHardware setEncoderNoise(double ticks) {
+        if (ticks < 0) throw new IllegalArgumentException("noise must not be negative: " + ticks);
+        this.encoderNoise = ticks;
+        return this;
+    }
+
+    /**
+     * @param stdDev       standard deviation added to each heading reading (radians)
+     * @param driftPerSec  rate the heading bias wanders off at (radians per second)
+     * @return this hardware for chaining
+     */
+    public SimHardware setImuNoise(double stdDev, double driftPerSec) {
+        if (stdDev < 0) throw new IllegalArgumentException("noise must not be negative: " + stdDev);
+        this.imuNoise = stdDev;
+        this.imuDrift = driftPerSec;
+        return this;
+    }
+
+    /** Reads the sensors and takes the motor powers. Physics thread only, once per tick. */
+    @Override
+    public void poll() {
+        for (int i = 0; i < 4; i++) {
+            encoderTicks[i] += MOUNTING[i] * MecanumDriveModel.wheelVelocity(bot, i) * ticksPerInch * dt;
+        }
+        imuBias += imuDrift * dt;
+
+        // Sensors show the state the last step left, each refreshed at its own rate
+        readings[TIME] = tick * dt;
+        if (tick % encoderEvery == 0) {
+            for (int i = 0; i < 4; i++) {
+                double velocity = MOUNTING[i] * MecanumDriveModel.wheelVelocity(bot, i) * ticksPerInch;
+                readings[POSITION + i] = encoderTicks[i] + noise(encoderNoise);
+                readings[VELOCITY + i] = velocity + noise(encoderNoise);
+            }
+        }
+        if (tick % imuEvery == 0) {
+            readings[HEADING] = SimBot.normalizeAngle(bot.getHeading() - startHeading + imuBias + noise(imuNoise));
+            readings[ANG_VEL] = bot.getAngVel() + noise(imuNoise);
+        }
+        snapshot.publish(readings);
+        tick++;
+
+        for (int i = 0; i < 4; i++) wheelPower[i] = MOUNTING[i] * motors[i].getPowerSet();
+        MecanumDriveModel.mix(wheelPower, mixed);
+        axial   = clamp(mixed[0]);
+        lateral = clamp(mixed[1]);
+        yaw     = clamp(mixed[2]);
+    }
+
+    @Override public double getAxial()   { return axial; }
+    @Override public double getLateral() { return lateral; }
+    @Override public double getYaw()     { return yaw; }
+
+    /** Stops every motor. Any thread. */
+    public void stopMotors() {
+        for (SimMotor motor : motors) motor.setPower(0);
+    }
+
+    /**
+     * Copies the latest readings into the devices' caches, where user code
+     * reads them. User code's thread only, once per loop.
+     * @return false if no physics tick has published since the last refresh
+     */
+    boolean refresh() {
+        long count = snapshot.read(cache);
+        boolean fresh = count != readCount;
+        readCount = count;
+        return fresh;
+    }
+
+    /** @return simulated time of the readings last refreshed (seconds); user code's thread */
+    double getReadingTime() { return cache[TIME]; }
+
+    private int every(double hz, String name) {
+        if (!(hz > 0)) throw new IllegalArgumentException(name + " must be positive: " + hz);
+        return Math.max(1, (int) Math.round(1 / (hz * dt)));
+    }
+
+    private double noise(double stdDev) {
+        return stdDev > 0 ? random.nextGaussian() * stdDev : 0;
+    }
+
+    private static double clamp(double v) {
+        return Math.max(-1, Math.min(1, v));
+    }
+}
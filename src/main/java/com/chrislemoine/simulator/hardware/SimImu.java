@@ -0,0 +1,32 @@
+package com.chrislemoine.simulator.hardware;
+
+import com.chrislemoine.simulator.core.SimBot;
+
+/**
+ * A yaw-only IMU, as user code sees it. Readings come from the copy taken
+ * at the start of the current loop and are relative to the robot's heading
+ * when the hardware was created, or when {@link #resetYaw()} was last called.
+ */
+public class SimImu {
+    private final double[] cache;
+    private double zero = 0;   // user code's thread only
+
+    SimImu(double[] cache) {
+        this.cache = cache;
+    }
+
+    /** @return heading, counterclockwise positive, in (-pi, pi] (radians) */
+    public double getHeading() {
+        return SimBot.normalizeAngle(cache[SimHardware.HEADING] - zero);
+    }
+
+    /** @return turn rate, counterclockwise positive (radians/sec) */
+    public double getAngularVelocity() {
+        return cache[SimHardware.ANG_VEL];
+    }
+
+    /** Makes the current heading read zero. */
+    public void resetYaw() {
+        zero = cache[SimHardware.HEADING];
+    }
+}
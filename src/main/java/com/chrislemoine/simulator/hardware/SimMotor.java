@@ -0,0 +1,71 @@
+package com.chrislemoine.simulator.hardware;
+
+/**
+ * A drive motor with an encoder, as user code sees it.
+ * <p>Power may be set from any thread and takes effect on the next physics
+ * tick. Encoder readings come from the copy taken at the start of the
+ * current loop, so every read within one loop agrees.</p>
+ * <p>Direction, encoder resets and the readings themselves are all local
+ * to user code's thread, as they would be in a motor controller's driver.</p>
+ */
+public class SimMotor {
+    public enum Direction { FORWARD, REVERSE }
+
+    private final double[] cache;
+    private final int index;
+    private volatile double power = 0;           // as the hardware sees it, direction applied
+
+    // User code's thread only
+    private Direction direction = Direction.FORWARD;
+    private double requested = 0;
+    private double zero = 0;
+
+    SimMotor(double[] cache, int index) {
+        this.cache = cache;
+        this.index = index;
+    }
+
+    /**
+     * @param power fraction of full voltage, clipped to [-1, 1]
+     */
+    public void setPower(double power) {
+        this.requested = Math.max(-1, Math.min(1, power));
+        this.power = direction == Direction.REVERSE ? -requested : requested;
+    }
+
+    /** @return the power last set */
+    public double getPower() { return requested; }
+
+    /**
+     * Reverses which way positive power turns the motor, and which way its encoder counts.
+     * @param direction FORWARD or REVERSE
+     */
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+        setPower(requested);
+    }
+
+    public Direction getDirection() { return direction; }
+
+    /** @return encoder position since the last reset (ticks) */
+    public int getCurrentPosition() {
+        return (int) Math.round(sign() * (cache[SimHardware.POSITION + index] - zero));
+    }
+
+    /** @return encoder velocity (ticks per second) */
+    public double getVelocity() {
+        return sign() * cache[SimHardware.VELOCITY + index];
+    }
+
+    /** Makes the current encoder position read zero. */
+    public void resetEncoder() {
+        zero = cache[SimHardware.POSITION + index];
+    }
+
+    /** @return power as the hardware applies it; physics thread */
+    double getPowerSet() { return power; }
+
+    private double sign() {
+        return direction == Direction.REVERSE ? -1 : 1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.chrislemoine.simulator.hardware.sample;
+
+import com.chrislemoine.simulator.hardware.OpMode;
+import com.chrislemoine.simulator.hardware.SimHardware;
+import com.chrislemoine.simulator.hardware.SimMotor;
+
+/**
+ * Robot-centric mecanum driving from the left stick and right stick X,
+ * written the way a team would write it for a real robot.
+ */
+public class SampleMecanumTeleOp extends OpMode {
+    private SimMotor frontLeft, frontRight, backLeft, backRight;
+
+    @Override
+    public void init() {
+        frontLeft  = hardwareMap.get(SimMotor.class, SimHardware.FRONT_LEFT);
+        frontRight = hardwareMap.get(SimMotor.class, SimHardware.FRONT_RIGHT);
+        backLeft   = hardwareMap.get(SimMotor.class, SimHardware.BACK_LEFT);
+        backRight  = hardwareMap.get(SimMotor.class, SimHardware.BACK_RIGHT);
+        frontRight.setDirection(SimMotor.Direction.REVERSE);
+        backRight.setDirection(SimMotor.Direction.REVERSE);
+    }
+
+    @Override
+    public void loop() {
+        double y  = -gamepad1.leftStickY;
+        double x  = gamepad1.leftStickX;
+        double rx = gamepad1.rightStickX;
+        double scale = Math.max(Math.abs(y) + Math.abs(x) + Math.abs(rx), 1);
+        frontLeft.setPower((y + x + rx) / scale);
+        backLeft.setPower((y - x + rx) / scale);
+        frontRight.setPower((y - x - rx) / scale);
+        backRight.setPower((y + x - rx) / scale);
+    }
+}
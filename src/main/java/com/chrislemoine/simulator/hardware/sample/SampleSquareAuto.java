@@ -0,0 +1,83 @@
+package com.chrislemoine.simulator.hardware.sample;
+
+import com.chrislemoine.simulator.hardware.LinearOpMode;
+import com.chrislemoine.simulator.hardware.SimHardware;
+import com.chrislemoine.simulator.hardware.SimImu;
+import com.chrislemoine.simulator.hardware.SimMotor;
+
+/**
+ * Drives a 24-inch square by dead reckoning: encoders for distance, the IMU
+ * for holding heading on the straights and for the 90-degree turns.
+ */
+public class SampleSquareAuto extends LinearOpMode {
+    private static final double TICKS_PER_INCH = 537.7 / (Math.PI * 96 / 25.4);
+    private static final double SIDE = 24;
+    private static final double DRIVE_POWER = 0.6, TURN_POWER = 0.5, MIN_POWER = 0.08;
+    private static final double DISTANCE_GAIN = 0.04, HEADING_GAIN = 2.0, TURN_GAIN = 0.8;
+    private static final double DISTANCE_TOLERANCE = 0.25, TURN_TOLERANCE = Math.toRadians(1);
+
+    private SimMotor[] motors;
+    private SimImu imu;
+
+    @Override
+    public void runOpMode() {
+        motors = new SimMotor[]{
+                hardwareMap.get(SimMotor.class, SimHardware.FRONT_LEFT),
+                hardwareMap.get(SimMotor.class, SimHardware.FRONT_RIGHT),
+                hardwareMap.get(SimMotor.class, SimHardware.BACK_LEFT),
+                hardwareMap.get(SimMotor.class, SimHardware.BACK_RIGHT)};
+        motors[1].setDirection(SimMotor.Direction.REVERSE);
+        motors[3].setDirection(SimMotor.Direction.REVERSE);
+        imu = hardwareMap.get(SimImu.class, SimHardware.IMU);
+        imu.resetYaw();
+
+        waitForStart();
+        double heading = 0;
+        for (int side = 0; side < 4 && opModeIsActive(); side++) {
+            drive(SIDE, heading);
+            heading = heading + Math.PI / 2;
+            turnTo(heading);
+        }
+        setPower(0, 0);
+    }
+
+    private void drive(double inches, double heading) {
+        for (SimMotor motor : motors) motor.resetEncoder();
+        double remaining = inches;
+        while (opModeIsActive() && remaining > DISTANCE_TOLERANCE) {
+            // Slow down on the way in, so the robot stops on the mark instead of coasting past
+            setPower(Math.max(MIN_POWER, Math.min(DRIVE_POWER, DISTANCE_GAIN * remaining)),
+                     HEADING_GAIN * error(heading));
+            remaining = inches - averagePosition() / TICKS_PER_INCH;
+        }
+        setPower(0, 0);
+    }
+
+    private void turnTo(double heading) {
+        while (opModeIsActive() && Math.abs(error(heading)) > TURN_TOLERANCE) {
+            double turn = TURN_GAIN * error(heading);
+            double magnitude = Math.max(MIN_POWER, Math.min(TURN_POWER, Math.abs(turn)));
+            setPower(0, Math.copySign(magnitude, turn));
+        }
+        setPower(0, 0);
+    }
+
+    /** @return counterclockwise turn needed to face the heading, in (-pi, pi] */
+    private double error(double heading) {
+        return Math.IEEEremainder(heading - imu.getHeading(), 2 * Math.PI);
+    }
+
+    private double averagePosition() {
+        double sum = 0;
+        for (SimMotor motor : motors) sum += motor.getCurrentPosition();
+        return sum / motors.length;
+    }
+
+    /** @param turn counterclockwise positive */
+    private void setPower(double forward, double turn) {
+        motors[0].setPower(forward - turn);
+        motors[2].setPower(forward - turn);
+        motors[1].setPower(forward + turn);
+        motors[3].setPower(forward + turn);
+    }
+}
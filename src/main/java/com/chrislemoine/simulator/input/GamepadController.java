@@ -0,0 +1,162 @@
+package com.chrislemoine.simulator.input;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gamepad controller: left stick translates, right stick X rotates.
+ * <p>The device is sampled on its own thread at a fixed rate, independent of
+ * the physics tick. Each sample is shaped with a deadband and an expo curve,
+ * quantized to 16 bits per axis and packed with a sequence number into one
+ * volatile long. That slot has a single writer and a single reader and needs
+ * no lock or retry, so {@link #poll()} is wait-free and never stalls the
+ * simulation tick, however slow the device is.</p>
+ */
+public class GamepadController implements DriveController {
+    private static final double QUANTUM = 32767.0;
+
+    private final GamepadSource source;
+    private final int rateHz;
+    private final double deadband;
+    private final double expo;
+
+    // Latest shaped sample: [seq:16][leftX:16][leftY:16][rightX:16], 0 = nothing yet
+    private volatile long latest = 0;
+    private volatile long samples = 0;
+    private volatile boolean connected = false;
+
+    private volatile boolean running = false;
+    private Thread pollThread;
+
+    // Raw inputs in [-1, 1]
+    private double axial = 0, lateral = 0, yaw = 0;
+
+    /**
+     * @param source   the device to sample
+     * @param rateHz   sampling rate (Hz), e.g. 250 to 1000
+     * @param deadband stick travel treated as zero, in [0, 1)
+     * @param expo     blend toward a cubic response, in [0, 1]; 0 = linear
+     */
+    public GamepadController(GamepadSource source, int rateHz, double deadband, double expo) {
+        if (rateHz <= 0) throw new IllegalArgumentException("rateHz must be positive: " + rateHz);
+        if (deadband < 0 || deadband >= 1) throw new IllegalArgumentException("deadband must be in [0, 1): " + deadband);
+        if (expo < 0 || expo > 1) throw new IllegalArgumentException("expo must be in [0, 1]: " + expo);
+        this.source   = source;
+        this.rateHz   = rateHz;
+        this.deadband = deadband;
+        this.expo     = expo;
+    }
+
+    /**
+     * Starts the polling thread.
+     */
+    public void start() {
+        if (running) return;
+        running = true;
+        pollThread = new Thread(this::pollLoop, "gamepad-poll");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    /**
+     * Stops the polling thread; later polls report centered sticks.
+     */
+    public void stop() {
+        running = false;
+        if (pollThread != null) {
+            LockSupport.unpark(pollThread);
+            try {
+                pollThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        latest = 0;
+    }
+
+    /** @return the device being sampled */
+    public GamepadSource getSource() { return source; }
+
+    /** @return true if the last device read succeeded */
+    public boolean isConnected() { return connected; }
+
+    /** @return device samples taken so far */
+    public long getSampleCount() { return samples; }
+
+    /**
+     * Samples the device at a fixed rate, parking between samples.
+     */
+    private void pollLoop() {
+        long period = 1_000_000_000L / rateHz;
+        double[] axes = new double[GamepadSource.AXES];
+        long seq = 0;
+        long next = System.nanoTime();
+
+        while (running) {
+            connected = source.read(axes);
+            if (connected) {
+                seq = (seq + 1) & 0xFFFF;
+                if (seq == 0) seq = 1;   // keep 0 meaning "no sample"
+                latest = pack(seq,
+                              shape(axes[GamepadSource.LEFT_X]),
+                              shape(axes[GamepadSource.LEFT_Y]),
+                              shape(axes[GamepadSource.RIGHT_X]));
+            } else {
+                latest = 0;
+            }
+            samples++;
+
+            next += period;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (-wait > period) {
+                next = System.nanoTime();   // device read stalled; don't burst to catch up
+            }
+        }
+    }
+
+    /**
+     * Applies the deadband, rescaled so output still reaches full range, then the expo curve.
+     */
+    private double shape(double v) {
+        v = Math.max(-1.0, Math.min(1.0, v));
+        double mag = Math.abs(v);
+        if (mag <= deadband) return 0.0;
+        double scaled = Math.copySign((mag - deadband) / (1.0 - deadband), v);
+        return (1.0 - expo) * scaled + expo * scaled * scaled * scaled;
+    }
+
+    private static long pack(long seq, double a, double b, double c) {
+        return (seq << 48)
+                | ((quantize(a) & 0xFFFFL) << 32)
+                | ((quantize(b) & 0xFFFFL) << 16)
+                |  (quantize(c) & 0xFFFFL);
+    }
+
+    private static long quantize(double v) {
+        return Math.round(v * QUANTUM);
+    }
+
+    private static double unpack(long word, int shift) {
+        return (short) (word >>> shift) / QUANTUM;
+    }
+
+    @Override
+    public void poll() {
+        long word = latest;
+        if (word == 0) {
+            axial = lateral = yaw = 0;
+            return;
+        }
+        lateral = unpack(word, 32);
+        axial   = unpack(word, 16);
+        yaw     = -unpack(word, 0);   // stick right turns clockwise
+    }
+
+    @Override
+    public double getAxial()  { return axial; }
+    @Override
+    public double getLateral(){ return lateral; }
+    @Override
+    public double getYaw()    { return yaw; }
+}
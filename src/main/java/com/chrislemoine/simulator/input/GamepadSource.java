@@ -0,0 +1,26 @@
+package com.chrislemoine.simulator.input;
+
+/**
+ * A device that can be sampled for stick positions, such as a USB gamepad
+ * or a scripted stand-in for testing without hardware.
+ */
+public interface GamepadSource {
+    /** Index of the left stick X axis in a sample: +1 = right. */
+    int LEFT_X = 0;
+    /** Index of the left stick Y axis in a sample: +1 = pushed away from the driver. */
+    int LEFT_Y = 1;
+    /** Index of the right stick X axis in a sample: +1 = right. */
+    int RIGHT_X = 2;
+    /** Number of axes in a sample. */
+    int AXES = 3;
+
+    /**
+     * Samples the device. Called repeatedly from the polling thread only.
+     * @param axes receives {@link #AXES} values in [-1, 1]
+     * @return false if the device is unavailable, in which case axes are undefined
+     */
+    boolean read(double[] axes);
+
+    /** @return a human-readable device name */
+    String getName();
+}
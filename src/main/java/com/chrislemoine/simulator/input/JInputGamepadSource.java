@@ -0,0 +1,87 @@
+package com.chrislemoine.simulator.input;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads the first gamepad or joystick JInput can see.
+ * <p>JInput is an optional dependency (see the README), so it is reached
+ * through reflection; without the jars on the classpath {@link #findFirst()}
+ * simply returns null.</p>
+ */
+public class JInputGamepadSource implements GamepadSource {
+    private final Object controller;
+    private final String name;
+    private final Method poll;
+    private final Method pollData;
+    private final Object leftX, leftY, rightX;   // JInput Component instances, or null if absent
+
+    private JInputGamepadSource(Object controller, Object leftX, Object leftY, Object rightX,
+                                Method poll, Method pollData) {
+        this.controller = controller;
+        this.name       = String.valueOf(controller);
+        this.leftX      = leftX;
+        this.leftY      = leftY;
+        this.rightX     = rightX;
+        this.poll       = poll;
+        this.pollData   = pollData;
+    }
+
+    /**
+     * @return a source for the first attached gamepad or stick, or null if JInput
+     *         is not on the classpath or no such device is attached
+     */
+    public static JInputGamepadSource findFirst() {
+        try {
+            Class<?> envClass        = Class.forName("net.java.games.input.ControllerEnvironment");
+            Class<?> controllerClass = Class.forName("net.java.games.input.Controller");
+            Class<?> componentClass  = Class.forName("net.java.games.input.Component");
+            Class<?> identifierClass = Class.forName("net.java.games.input.Component$Identifier");
+            Class<?> axisClass       = Class.forName("net.java.games.input.Component$Identifier$Axis");
+
+            Object env = envClass.getMethod("getDefaultEnvironment").invoke(null);
+            Object[] controllers = (Object[]) envClass.getMethod("getControllers").invoke(env);
+            Method getType      = controllerClass.getMethod("getType");
+            Method getComponent = controllerClass.getMethod("getComponent", identifierClass);
+
+            for (Object c : controllers) {
+                String type = String.valueOf(getType.invoke(c));
+                if (!type.equals("Gamepad") && !type.equals("Stick")) continue;
+
+                Object lx = getComponent.invoke(c, axisClass.getField("X").get(null));
+                Object ly = getComponent.invoke(c, axisClass.getField("Y").get(null));
+                // Right stick X is RX on most pads, Z on some older ones
+                Object rx = getComponent.invoke(c, axisClass.getField("RX").get(null));
+                if (rx == null) rx = getComponent.invoke(c, axisClass.getField("Z").get(null));
+
+                return new JInputGamepadSource(c, lx, ly, rx,
+                        controllerClass.getMethod("poll"),
+                        componentClass.getMethod("getPollData"));
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Gamepad support unavailable: " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean read(double[] axes) {
+        try {
+            if (!(Boolean) poll.invoke(controller)) return false;
+            axes[LEFT_X]  = axis(leftX);
+            axes[LEFT_Y]  = -axis(leftY);   // JInput reports stick-forward as negative
+            axes[RIGHT_X] = axis(rightX);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private double axis(Object component) throws ReflectiveOperationException {
+        return component == null ? 0.0 : (Float) pollData.invoke(component);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
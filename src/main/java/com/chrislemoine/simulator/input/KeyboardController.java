@@ -1,20 +1,46 @@
 package com.chrislemoine.simulator.input;
 
+import com.chrislemoine.simulator.core.LatencyHistogram;
 import com.chrislemoine.simulator.core.SimBot;
 
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.EnumMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntBinaryOperator;
 
 /**
  * Keyboard-based controller mapping WASD for translation and QE for rotation.
+ * <p>Key state is a bitmask (one bit per {@link Key}) written by the AWT event
+ * thread and read by the physics thread without locks or boxing. A press that
+ * is released again before the next tick is latched, so it still drives
+ * exactly one tick instead of being lost.</p>
+ * <p>Every key transition is also pushed, with its System.nanoTime()
+ * timestamp, onto a single-producer/single-consumer ring. {@link #poll()}
+ * drains it and records how long each transition waited for the tick that
+ * applies it; the update that consumes the input runs right after the poll.</p>
  */
 public class KeyboardController extends KeyAdapter implements DriveController {
+    private static final int QUEUE_CAPACITY = 256;   // power of two
+    private static final int QUEUE_MASK = QUEUE_CAPACITY - 1;
+
+    // Non-capturing mask updates, so key events don't allocate
+    private static final IntBinaryOperator SET_BIT   = (mask, bit) -> mask | bit;
+    private static final IntBinaryOperator CLEAR_BIT = (mask, bit) -> mask & ~bit;
+
     private final SimBot robot;
 
-    // Track key status
-    private final Map<Key, Boolean> keys = new EnumMap<>(Key.class);
+    // Track key status: bit (1 << Key.ordinal()) set while held / since pressed
+    private final AtomicInteger held = new AtomicInteger();
+    private final AtomicInteger latched = new AtomicInteger();
+
+    // Timestamped transitions, EDT -> physics thread
+    private final long[] eventNanos = new long[QUEUE_CAPACITY];
+    private final AtomicLong queueHead = new AtomicLong();   // next slot to read (consumer)
+    private final AtomicLong queueTail = new AtomicLong();   // next slot to write (producer)
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
 
     // Raw inputs in [-1, 1]
     private double rawAxial = 0, rawLateral = 0, rawYaw = 0;
@@ -23,7 +49,6 @@ public class KeyboardController extends KeyAdapter implements DriveController {
 
     public KeyboardController(SimBot robot) {
         this.robot = robot;
-        for (Key k : Key.values()) keys.put(k, false);
     }
 
     @Override
@@ -38,20 +63,79 @@ public class KeyboardController extends KeyAdapter implements DriveController {
 
     private void mapKey(int code, boolean pressed) {
         switch (code) {
-            case KeyEvent.VK_W: keys.put(Key.FORWARD, pressed); break;
-            case KeyEvent.VK_S: keys.put(Key.BACKWARD, pressed); break;
-            case KeyEvent.VK_A: keys.put(Key.LEFT, pressed); break;
-            case KeyEvent.VK_D: keys.put(Key.RIGHT, pressed); break;
-            case KeyEvent.VK_Q: keys.put(Key.COUNTERCLOCKWISE, pressed); break;
-            case KeyEvent.VK_E: keys.put(Key.CLOCKWISE, pressed); break;
+            case KeyEvent.VK_W: setKey(Key.FORWARD, pressed); break;
+            case KeyEvent.VK_S: setKey(Key.BACKWARD, pressed); break;
+            case KeyEvent.VK_A: setKey(Key.LEFT, pressed); break;
+            case KeyEvent.VK_D: setKey(Key.RIGHT, pressed); break;
+            case KeyEvent.VK_Q: setKey(Key.COUNTERCLOCKWISE, pressed); break;
+            case KeyEvent.VK_E: setKey(Key.CLOCKWISE, pressed); break;
         }
     }
 
+    /**
+     * Applies a key transition. Auto-repeat presses of a key already held are ignored.
+     */
+    private void setKey(Key key, boolean pressed) {
+        int bit = 1 << key.ordinal();
+        int before = held.getAndAccumulate(bit, pressed ? SET_BIT : CLEAR_BIT);
+        if (((before & bit) != 0) == pressed) return;
+
+        if (pressed) latched.getAndAccumulate(bit, SET_BIT);
+        enqueue(System.nanoTime());
+    }
+
+    /** Producer side of the event ring; called on the AWT event thread only. */
+    private void enqueue(long nanos) {
+        long tail = queueTail.get();
+        if (tail - queueHead.get() >= QUEUE_CAPACITY) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        eventNanos[(int) (tail & QUEUE_MASK)] = nanos;
+        queueTail.lazySet(tail + 1);   // publishes the slot write
+    }
+
+    /** Consumer side of the event ring: records each pending event's wait. */
+    private void drainEvents(long nowNanos) {
+        long head = queueHead.get();
+        long tail = queueTail.get();
+        while (head < tail) {
+            inputLatency.record(nowNanos - eventNanos[(int) (head & QUEUE_MASK)]);
+            head++;
+        }
+        queueHead.lazySet(head);
+    }
+
+    /**
+     * @param key the key to test
+     * @return true while the key is held down
+     */
+    public boolean isHeld(Key key) {
+        return (held.get() & (1 << key.ordinal())) != 0;
+    }
+
+    /** @return distribution of key event to applied-tick latency (nanoseconds) */
+    public LatencyHistogram getInputLatency() { return inputLatency; }
+
+    /** @return transitions discarded because the event ring was full */
+    public long getDroppedEvents() { return droppedEvents.get(); }
+
     @Override
     public void poll() {
-        rawAxial    = (keys.get(Key.FORWARD) ? 1 : 0) + (keys.get(Key.BACKWARD) ? -1 : 0);
-        rawLateral  = (keys.get(Key.RIGHT) ? 1 : 0) + (keys.get(Key.LEFT) ? -1 : 0);
-        rawYaw      = (keys.get(Key.COUNTERCLOCKWISE) ? 1 : 0) + (keys.get(Key.CLOCKWISE) ? -1 : 0);
+        // Drain first: every drained event updated the masks before it was queued,
+        // so the keys read below are guaranteed to include it
+        drainEvents(System.nanoTime());
+
+        // Keys held now, plus any tapped and released since the last poll
+        int keys = held.get() | latched.getAndSet(0);
+
+        rawAxial    = bit(keys, Key.FORWARD) - bit(keys, Key.BACKWARD);
+        rawLateral  = bit(keys, Key.RIGHT) - bit(keys, Key.LEFT);
+        rawYaw      = bit(keys, Key.COUNTERCLOCKWISE) - bit(keys, Key.CLOCKWISE);
+    }
+
+    private static int bit(int keys, Key key) {
+        return (keys >>> key.ordinal()) & 1;
     }
 
     @Override
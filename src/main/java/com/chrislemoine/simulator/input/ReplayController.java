@@ -0,0 +1,71 @@
+package com.chrislemoine.simulator.input;
+
+import com.chrislemoine.simulator.core.Restorable;
+import com.chrislemoine.simulator.record.RunRecording;
+
+/**
+ * Plays back the stick inputs of a recorded run, one recorded tick per poll.
+ * <p>Stepped at the recording's tick rate against a robot built by
+ * {@link RunRecording#createBot()}, it reproduces the original run exactly,
+ * whether in real time or headlessly as fast as the CPU allows.</p>
+ */
+public class ReplayController implements DriveController, Restorable {
+    private final RunRecording recording;
+    private long tick = -1;
+
+    // Outputs in [-1, 1]
+    private double axial = 0, lateral = 0, yaw = 0;
+
+    /**
+     * @param recording the run to play back
+     */
+    public ReplayController(RunRecording recording) {
+        this.recording = recording;
+    }
+
+    /** @return index of the tick whose input is current, or -1 before the first poll */
+    public long getTick() { return tick; }
+
+    /** @return true once every recorded tick has been played */
+    public boolean isFinished() {
+        return tick >= recording.getTickCount() - 1;
+    }
+
+    @Override
+    public void poll() {
+        if (tick + 1 < recording.getTickCount()) {
+            tick++;
+            axial   = recording.getAxial(tick);
+            lateral = recording.getLateral(tick);
+            yaw     = recording.getYaw(tick);
+        } else {
+            axial = lateral = yaw = 0;
+        }
+    }
+
+    @Override
+    public int stateSize() { return 4; }
+
+    @Override
+    public void saveState(double[] out, int o) {
+        out[o]     = tick;
+        out[o + 1] = axial;
+        out[o + 2] = lateral;
+        out[o + 3] = yaw;
+    }
+
+    @Override
+    public void restoreState(double[] in, int o) {
+        tick    = (long) in[o];
+        axial   = in[o + 1];
+        lateral = in[o + 2];
+        yaw     = in[o + 3];
+    }
+
+    @Override
+    public double getAxial()  { return axial; }
+    @Override
+    public double getLateral(){ return lateral; }
+    @Override
+    public double getYaw()    { return yaw; }
+}
@@ -0,0 +1,147 @@
+package com.chrislemoine.simulator.input;
+
+import com.chrislemoine.simulator.core.Restorable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a fixed sequence of timed stick commands, advancing by one
+ * simulation step per poll. Useful for headless runs where no driver exists.
+ * <p>Scripts are built fluently and can be reused: {@link #copy()} returns a
+ * fresh controller at the start of the same script. A looping script starts
+ * over once it has played out, for robots that should keep moving.</p>
+ */
+public class ScriptedController implements DriveController, Restorable {
+    private final double dt;
+    private final List<Segment> segments;
+    private boolean looping = false;
+
+    // Playback position
+    private int index = 0;
+    private double elapsed = 0;   // seconds into the current segment
+
+    // Outputs in [-1, 1]
+    private double axial = 0, lateral = 0, yaw = 0;
+
+    /** One constant command held for a duration. */
+    private static final class Segment {
+        final double axial, lateral, yaw, seconds;
+
+        Segment(double axial, double lateral, double yaw, double seconds) {
+            this.axial   = axial;
+            this.lateral = lateral;
+            this.yaw     = yaw;
+            this.seconds = seconds;
+        }
+    }
+
+    /**
+     * @param dt simulation step each poll represents (seconds)
+     */
+    public ScriptedController(double dt) {
+        this(dt, new ArrayList<>());
+    }
+
+    private ScriptedController(double dt, List<Segment> segments) {
+        if (dt <= 0) throw new IllegalArgumentException("dt must be positive: " + dt);
+        this.dt       = dt;
+        this.segments = segments;
+    }
+
+    /**
+     * Appends a command held for the given time.
+     * @param axial   forward/backward input in [-1, 1]
+     * @param lateral right/left input in [-1, 1]
+     * @param yaw     rotation input in [-1, 1]
+     * @param seconds how long to hold it (seconds)
+     * @return this controller for chaining
+     */
+    public ScriptedController hold(double axial, double lateral, double yaw, double seconds) {
+        segments.add(new Segment(axial, lateral, yaw, seconds));
+        return this;
+    }
+
+    /**
+     * Appends a period of no input.
+     * @param seconds how long to idle (seconds)
+     * @return this controller for chaining
+     */
+    public ScriptedController idle(double seconds) {
+        return hold(0, 0, 0, seconds);
+    }
+
+    /**
+     * Restarts the script whenever it finishes.
+     * @return this controller for chaining
+     */
+    public ScriptedController looping() {
+        this.looping = true;
+        return this;
+    }
+
+    /** @return total script length (seconds) */
+    public double getDuration() {
+        double total = 0;
+        for (Segment s : segments) total += s.seconds;
+        return total;
+    }
+
+    /** @return true once every segment has played out; never for a looping script */
+    public boolean isFinished() {
+        return index >= segments.size();
+    }
+
+    /** @return a new controller at the start of this script, sharing its segments */
+    public ScriptedController copy() {
+        ScriptedController c = new ScriptedController(dt, segments);
+        c.looping = looping;
+        return c;
+    }
+
+    @Override
+    public void poll() {
+        while (index < segments.size() && elapsed >= segments.get(index).seconds) {
+            elapsed -= segments.get(index).seconds;
+            index++;
+            if (looping && index == segments.size() && getDuration() > 0) index = 0;
+        }
+        if (index < segments.size()) {
+            Segment s = segments.get(index);
+            axial   = s.axial;
+            lateral = s.lateral;
+            yaw     = s.yaw;
+            elapsed += dt;
+        } else {
+            axial = lateral = yaw = 0;
+        }
+    }
+
+    @Override
+    public int stateSize() { return 5; }
+
+    @Override
+    public void saveState(double[] out, int o) {
+        out[o]     = index;
+        out[o + 1] = elapsed;
+        out[o + 2] = axial;
+        out[o + 3] = lateral;
+        out[o + 4] = yaw;
+    }
+
+    @Override
+    public void restoreState(double[] in, int o) {
+        index   = (int) in[o];
+        elapsed = in[o + 1];
+        axial   = in[o + 2];
+        lateral = in[o + 3];
+        yaw     = in[o + 4];
+    }
+
+    @Override
+    public double getAxial()  { return axial; }
+    @Override
+    public double getLateral(){ return lateral; }
+    @Override
+    public double getYaw()    { return yaw; }
+}
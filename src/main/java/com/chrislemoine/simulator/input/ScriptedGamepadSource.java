@@ -0,0 +1,102 @@
+package com.chrislemoine.simulator.input;
+
+import com.chrislemoine.simulator.core.SimClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic gamepad that plays back scripted stick traces, for running the
+ * gamepad path on machines with no controller attached.
+ * <p>Stick positions are keyframed in seconds since the first read and
+ * linearly interpolated between keyframes; after the last one the trace
+ * holds, or loops if requested.</p>
+ * <p>The trace plays in wall time unless given a {@link SimClock}, in which
+ * case it follows simulated time and speeds up, slows down or pauses with it.</p>
+ */
+public class ScriptedGamepadSource implements GamepadSource {
+    private final List<double[]> keys = new ArrayList<>();   // {seconds, leftX, leftY, rightX}
+    private boolean loop = false;
+    private long startNanos = -1;
+    private volatile SimClock clock;
+    private double startSeconds = -1;
+
+    /**
+     * Adds a keyframe. Keyframes must be added in increasing time order.
+     * @param seconds time since the first read (seconds)
+     * @param leftX   left stick X in [-1, 1]
+     * @param leftY   left stick Y in [-1, 1]
+     * @param rightX  right stick X in [-1, 1]
+     * @return this source for chaining
+     */
+    public ScriptedGamepadSource at(double seconds, double leftX, double leftY, double rightX) {
+        if (!keys.isEmpty() && seconds < keys.get(keys.size() - 1)[0]) {
+            throw new IllegalArgumentException("Keyframes must be in time order: " + seconds);
+        }
+        keys.add(new double[] { seconds, leftX, leftY, rightX });
+        return this;
+    }
+
+    /**
+     * Restarts the trace from the beginning after the last keyframe.
+     * @return this source for chaining
+     */
+    public ScriptedGamepadSource looping() {
+        this.loop = true;
+        return this;
+    }
+
+    /**
+     * Plays the trace in simulated time.
+     * @param clock the simulation's clock, or null for wall time
+     * @return this source for chaining
+     */
+    public ScriptedGamepadSource setClock(SimClock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    @Override
+    public boolean read(double[] axes) {
+        if (keys.isEmpty()) return false;
+        SimClock clock = this.clock;
+        if (clock != null) {
+            double now = clock.getSimSeconds();
+            if (startSeconds < 0) startSeconds = now;
+            sample(now - startSeconds, axes);
+            return true;
+        }
+        long now = System.nanoTime();
+        if (startNanos < 0) startNanos = now;
+        sample((now - startNanos) / 1e9, axes);
+        return true;
+    }
+
+    /**
+     * Evaluates the trace at a given time.
+     * @param seconds time since the trace started (seconds)
+     * @param axes    receives {@link #AXES} values
+     */
+    public void sample(double seconds, double[] axes) {
+        double end = keys.get(keys.size() - 1)[0];
+        double t = loop && end > 0 ? seconds % end : seconds;
+
+        double[] prev = keys.get(0);
+        for (double[] next : keys) {
+            if (next[0] >= t) {
+                double span = next[0] - prev[0];
+                double f = span > 0 ? (t - prev[0]) / span : 1.0;
+                f = Math.max(0.0, Math.min(1.0, f));
+                for (int i = 0; i < AXES; i++) axes[i] = prev[i + 1] + (next[i + 1] - prev[i + 1]) * f;
+                return;
+            }
+            prev = next;
+        }
+        for (int i = 0; i < AXES; i++) axes[i] = prev[i + 1];
+    }
+
+    @Override
+    public String getName() {
+        return "Scripted gamepad (" + keys.size() + " keyframes)";
+    }
+}
@@ -0,0 +1,120 @@
+package com.chrislemoine.simulator.input;
+
+import com.chrislemoine.simulator.core.Restorable;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.trajectory.Trajectory;
+
+/**
+ * Follows a compiled {@link Trajectory}, advancing by one simulation step per poll.
+ * <p>Each poll looks up the reference pose for the current time and the
+ * reference velocity for the end of the step, which is what the robot's
+ * drive model will be ramping toward. Velocity is fed forward and pose error
+ * corrected proportionally, then the field-frame command is turned into
+ * robot-centric stick input scaled by the robot's own limits. Add the robot
+ * to a World as ROBOT_CENTRIC, or run it as an autonomous controller.</p>
+ * <p>Once the trajectory has played out the controller keeps holding its
+ * final pose. Polling never allocates.</p>
+ */
+public class TrajectoryController implements DriveController, Restorable {
+    /** Default pose correction: inches/sec of command per inch of error. */
+    public static final double DEFAULT_POSITION_GAIN = 4.0;
+    /** Default heading correction: rad/sec of command per radian of error. */
+    public static final double DEFAULT_HEADING_GAIN = 4.0;
+
+    private final Trajectory trajectory;
+    private final SimBot bot;
+    private final double dt;
+    private double positionGain = DEFAULT_POSITION_GAIN;
+    private double headingGain  = DEFAULT_HEADING_GAIN;
+
+    private final double[] reference = new double[Trajectory.SAMPLE_SIZE];
+    private final double[] feedforward = new double[Trajectory.SAMPLE_SIZE];
+    private double time = 0;   // seconds into the trajectory
+
+    // Outputs in [-1, 1]
+    private double axial = 0, lateral = 0, yaw = 0;
+
+    /**
+     * @param trajectory the path to follow, starting at the robot's current pose
+     * @param bot        the robot being driven; read for its pose and limits
+     * @param dt         simulation step each poll represents (seconds)
+     */
+    public TrajectoryController(Trajectory trajectory, SimBot bot, double dt) {
+        if (dt <= 0) throw new IllegalArgumentException("dt must be positive: " + dt);
+        this.trajectory = trajectory;
+        this.bot        = bot;
+        this.dt         = dt;
+    }
+
+    /**
+     * Sets how hard pose error is corrected. Zero gains give pure feedforward.
+     * @param position inches/sec of command per inch of error
+     * @param heading  rad/sec of command per radian of error
+     * @return this controller for chaining
+     */
+    public TrajectoryController setGains(double position, double heading) {
+        this.positionGain = position;
+        this.headingGain  = heading;
+        return this;
+    }
+
+    public Trajectory getTrajectory() { return trajectory; }
+
+    /** @return time into the trajectory (seconds) */
+    public double getTime() { return time; }
+
+    /** @return true once the whole trajectory has played out */
+    public boolean isFinished() { return time >= trajectory.getDuration(); }
+
+    @Override
+    public void poll() {
+        trajectory.sample(time, reference);
+        trajectory.sample(time + dt, feedforward);
+        time += dt;
+
+        double ex = reference[Trajectory.X] - bot.getX();
+        double ey = reference[Trajectory.Y] - bot.getY();
+        double eh = SimBot.normalizeAngle(reference[Trajectory.HEADING] - bot.getHeading());
+        double fieldX = feedforward[Trajectory.VEL_X] + positionGain * ex;
+        double fieldY = feedforward[Trajectory.VEL_Y] + positionGain * ey;
+        double turn   = feedforward[Trajectory.ANG_VEL] + headingGain * eh;
+
+        // Field frame to robot frame, as SimBot.driveFieldCentric does
+        double cos = bot.getCosHeading(), sin = bot.getSinHeading();
+        double forward = fieldX * cos + fieldY * sin;
+        double strafe  = fieldX * sin - fieldY * cos;
+        axial   = clamp(forward / bot.getMaxVel());
+        lateral = clamp(strafe / bot.getMaxVel());
+        yaw     = clamp(turn / bot.getMaxAngVel());
+    }
+
+    @Override
+    public int stateSize() { return 4; }
+
+    @Override
+    public void saveState(double[] out, int o) {
+        out[o]     = time;
+        out[o + 1] = axial;
+        out[o + 2] = lateral;
+        out[o + 3] = yaw;
+    }
+
+    @Override
+    public void restoreState(double[] in, int o) {
+        time    = in[o];
+        axial   = in[o + 1];
+        lateral = in[o + 2];
+        yaw     = in[o + 3];
+    }
+
+    @Override
+    public double getAxial()  { return axial; }
+    @Override
+    public double getLateral(){ return lateral; }
+    @Override
+    public double getYaw()    { return yaw; }
+
+    private static double clamp(double v) {
+        return Math.max(-1.0, Math.min(1.0, v));
+    }
+}
@@ -0,0 +1,129 @@
+package com.chrislemoine.simulator.net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a fast loopback link behave like a poor network, for testing:
+ * outgoing datagrams are dropped at random and the rest are held back by a
+ * fixed latency plus random jitter before being sent.
+ * <p>With no loss and no latency, datagrams go straight out on the calling
+ * thread. Otherwise each one is copied and handed to a daemon thread that
+ * sends it when due, so jitter can reorder packets just as a real network
+ * does. The random source is seeded, so a test run is repeatable.</p>
+ */
+public class LinkConditioner {
+    /** A link that sends everything at once. */
+    public static final LinkConditioner NONE = new LinkConditioner(0, 0, 0, 0);
+
+    private final double loss;
+    private final long latencyNanos, jitterNanos;
+    private final Random random;
+    private final DelayQueue<Pending> queue = new DelayQueue<>();
+    private Thread sender;
+
+    /**
+     * @param loss      fraction of datagrams dropped, in [0, 1)
+     * @param latencyMs one-way delay added to every datagram (milliseconds)
+     * @param jitterMs  further random delay of up to this much (milliseconds)
+     * @param seed      random seed, so runs are repeatable
+     */
+    public LinkConditioner(double loss, double latencyMs, double jitterMs, long seed) {
+        if (!(loss >= 0 && loss < 1)) throw new IllegalArgumentException("loss must be in [0, 1): " + loss);
+        if (latencyMs < 0 || jitterMs < 0) {
+            throw new IllegalArgumentException("latency and jitter must not be negative");
+        }
+        this.loss         = loss;
+        this.latencyNanos = (long) (latencyMs * 1e6);
+        this.jitterNanos  = (long) (jitterMs * 1e6);
+        this.random       = new Random(seed);
+    }
+
+    /** @return true if datagrams are sent untouched */
+    public boolean isPerfect() {
+        return loss == 0 && latencyNanos == 0 && jitterNanos == 0;
+    }
+
+    /**
+     * Sends a datagram through the simulated link.
+     * @param channel where to send it from
+     * @param packet  its contents, from position to limit; consumed
+     * @param target  where to send it
+     */
+    public void send(DatagramChannel channel, ByteBuffer packet, SocketAddress target) throws IOException {
+        if (isPerfect()) {
+            channel.send(packet, target);
+            return;
+        }
+
+        long delay;
+        synchronized (random) {
+            if (random.nextDouble() < loss) {
+                packet.position(packet.limit());
+                return;
+            }
+            delay = latencyNanos + (jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0);
+        }
+        ByteBuffer copy = ByteBuffer.allocate(packet.remaining());
+        copy.put(packet).flip();
+        queue.add(new Pending(channel, copy, target, System.nanoTime() + delay));
+        startSender();
+    }
+
+    private synchronized void startSender() {
+        if (sender != null) return;
+        sender = new Thread(this::drain, "net-link-delay");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    private void drain() {
+        while (true) {
+            try {
+                Pending p = queue.take();
+                p.channel.send(p.packet, p.target);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // The channel was closed or the target went away; the datagram is lost, as on a real link
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.0f%% loss, %.0f ms latency, %.0f ms jitter",
+                loss * 100, latencyNanos / 1e6, jitterNanos / 1e6);
+    }
+
+    /** A datagram waiting for its simulated delay to pass. */
+    private static final class Pending implements Delayed {
+        final DatagramChannel channel;
+        final ByteBuffer packet;
+        final SocketAddress target;
+        final long dueNanos;
+
+        Pending(DatagramChannel channel, ByteBuffer packet, SocketAddress target, long dueNanos) {
+            this.channel  = channel;
+            this.packet   = packet;
+            this.target   = target;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Pending) other).dueNanos);
+        }
+    }
+}
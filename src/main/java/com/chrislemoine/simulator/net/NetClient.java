@@ -0,0 +1,383 @@
+package com.chrislemoine.simulator.net;
+
+import com.chrislemoine.simulator.core.LoopStats;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.input.DriveController;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives one seat on a {@link NetServer} and mirrors the server's world for
+ * rendering.
+ * <p>One daemon thread runs at the server's tick rate. Each tick it:</p>
+ * <p> - decodes every state packet that has arrived into a ring of frames,</p>
+ * <p> - polls the local controller and sends its input when it changes, and
+ * at the server's send rate regardless, acknowledging the newest frame,</p>
+ * <p> - places the mirror robots where the server had them a short
+ * interpolation delay ago, between the two frames either side of that
+ * moment, and publishes them to a {@link PoseSnapshot} for the view.</p>
+ * <p>The delay lets a packet or two go missing without a hitch. If frames
+ * stop arriving altogether, robots are carried forward on their last
+ * velocities for up to {@link #MAX_EXTRAPOLATION_SECONDS}, then held.</p>
+ */
+public class NetClient {
+    /** Default interpolation delay: a few state packets, plus jitter. */
+    public static final double DEFAULT_DELAY_SECONDS = 0.1;
+
+    /** Longest a robot is carried forward on its last velocity when frames stop arriving. */
+    public static final double MAX_EXTRAPOLATION_SECONDS = 0.25;
+
+    /** Frames kept, matching the server's ring. */
+    private static final int RING = 64;
+
+    private final int seat, token, tickHz, sendHz, robots;
+    private final long periodNanos;
+    private final World world;
+    private final Socket socket;
+    private final DatagramChannel udp;
+    private final LinkConditioner link;
+    private final SocketAddress server;
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+    private final LoopStats stats;
+
+    // Frame ring: frame n in slot n % RING, quantized as on the wire; client thread only
+    private final int[] frames;
+    private final int[] slotFrames = new int[RING];
+    private final int[] slotTicks = new int[RING];
+    private int newest = -1;
+
+    // Estimate of when the server ran tick 0, on this machine's clock
+    private boolean synced = false;
+    private long serverStartNanos;
+
+    private volatile DriveController controller;
+    private volatile double delaySeconds = DEFAULT_DELAY_SECONDS;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    // Statistics: written by the client thread
+    private volatile long packets, bytes, keyframes, unusable, extrapolatedTicks, heldTicks, firstFrame = -1;
+    private volatile int newestFrame = -1;
+
+    private NetClient(Socket socket, DatagramChannel udp, SocketAddress server, LinkConditioner link,
+                      int seat, int token, int tickHz, int sendHz, World world) {
+        this.socket      = socket;
+        this.udp         = udp;
+        this.server      = server;
+        this.link        = link;
+        this.seat        = seat;
+        this.token       = token;
+        this.tickHz      = tickHz;
+        this.sendHz      = sendHz;
+        this.world       = world;
+        this.robots      = world.size();
+        this.periodNanos = 1_000_000_000L / tickHz;
+        this.stats       = new LoopStats(periodNanos);
+        this.frames      = new int[RING * robots * NetProtocol.FIELDS];
+        java.util.Arrays.fill(slotFrames, -1);
+    }
+
+    /**
+     * Joins a server and builds the mirror world from what it reports.
+     * @param host server name or address
+     * @param port server port
+     * @param link conditions outgoing datagrams, or {@link LinkConditioner#NONE}
+     * @return a client holding a seat, ready to {@link #start()}
+     * @throws IOException if the server cannot be reached, is full or speaks another version
+     */
+    public static NetClient connect(String host, int port, LinkConditioner link) throws IOException {
+        Socket socket = new Socket(host, port);
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(5000);
+            ByteBuffer hello = ByteBuffer.allocate(NetProtocol.HELLO_BYTES).order(NetProtocol.ORDER);
+            hello.putInt(NetProtocol.MAGIC).putShort(NetProtocol.VERSION);
+            socket.getOutputStream().write(hello.array());
+            socket.getOutputStream().flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            ByteBuffer header = ByteBuffer.allocate(NetProtocol.WELCOME_HEADER_BYTES).order(NetProtocol.ORDER);
+            in.readFully(header.array());
+            if (header.getInt() != NetProtocol.MAGIC || header.getShort() != NetProtocol.VERSION) {
+                throw new IOException("Not a simulator server, or another version");
+            }
+            byte status = header.get();
+            if (status == NetProtocol.FULL) throw new IOException("Server is full");
+            if (status != NetProtocol.OK) throw new IOException("Server refused this version");
+            int token = header.getInt(), seat = header.getShort();
+            int tickHz = header.getShort(), sendHz = header.getShort(), robots = header.getShort();
+
+            ByteBuffer body = ByteBuffer.allocate(robots * NetProtocol.WELCOME_ROBOT_BYTES).order(NetProtocol.ORDER);
+            in.readFully(body.array());
+            World world = new World();
+            for (int i = 0; i < robots; i++) {
+                Alliance alliance = Alliance.values()[body.get()];
+                float width = body.getFloat(), length = body.getFloat();
+                world.addRobot(new SimBotBuilder().setDimensions(width, length).build(),
+                               null, alliance, DriveMode.ROBOT_CENTRIC);
+            }
+            socket.setSoTimeout(0);
+
+            InetSocketAddress server = new InetSocketAddress(socket.getInetAddress(), port);
+            DatagramChannel udp = DatagramChannel.open().connect(server);
+            udp.configureBlocking(false);
+            return new NetClient(socket, udp, server, link, seat, token, tickHz, sendHz, world);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /** @return mirror of the server's robots, positioned for rendering */
+    public World getWorld() { return world; }
+
+    /** @return index of the robot this client drives */
+    public int getSeat() { return seat; }
+
+    /** @return the server's physics rate (Hz) */
+    public int getTickHz() { return tickHz; }
+
+    /** @return interpolated poses for the view */
+    public PoseSnapshot getSnapshot() { return snapshot; }
+
+    /** @return statistics for the client loop */
+    public LoopStats getStats() { return stats; }
+
+    /**
+     * @param controller local input sent to the server, or null to send none
+     */
+    public void setController(DriveController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * @param seconds how far behind the newest state robots are drawn; more
+     *                rides out worse networks, less feels more immediate
+     */
+    public void setInterpolationDelay(double seconds) {
+        if (seconds < 0) throw new IllegalArgumentException("delay must not be negative: " + seconds);
+        this.delaySeconds = seconds;
+    }
+
+    /** Starts the client thread. */
+    public void start() {
+        if (running) return;
+        running = true;
+        snapshot.reset(world, periodNanos);
+        thread = new Thread(this::runLoop, "net-client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Leaves the server and stops the client thread. */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            udp.close();
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Error leaving server: " + e.getMessage());
+        }
+    }
+
+    /** @return fraction of state packets sent that never arrived, estimated from frame numbers */
+    public double getLoss() {
+        long expected = newestFrame - firstFrame + 1;
+        return firstFrame < 0 || expected <= 0 ? 0 : Math.max(0, 1 - (double) packets / expected);
+    }
+
+    /** @return e.g. "seat 2: 5012 packets, 58 B each, 3% lost, 12 unusable, 4 keyframes, 0.3% extrapolated" */
+    @Override
+    public String toString() {
+        long ticks = stats.getTicks();
+        return String.format("seat %d: %d packets, %d B each, %.1f%% lost, %d unusable, %d keyframes, "
+                        + "%.1f%% of ticks extrapolated, %.1f%% held",
+                seat, packets, packets > 0 ? bytes / packets : 0, getLoss() * 100, unusable, keyframes,
+                ticks > 0 ? 100.0 * extrapolatedTicks / ticks : 0, ticks > 0 ? 100.0 * heldTicks / ticks : 0);
+    }
+
+    private void runLoop() {
+        ByteBuffer in = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET).order(NetProtocol.ORDER);
+        ByteBuffer out = ByteBuffer.allocateDirect(NetProtocol.INPUT_BYTES).order(NetProtocol.ORDER);
+        int ticksPerSend = Math.max(1, tickHz / sendHz);
+        int seq = 0, lastInput = -1;
+        long tick = 0;
+        long next = System.nanoTime();
+        stats.reset(next, periodNanos);
+
+        while (running) {
+            long now = System.nanoTime();
+            try {
+                while (true) {
+                    in.clear();
+                    if (udp.receive(in) == null) break;
+                    in.flip();
+                    try {
+                        decode(in, now);
+                    } catch (BufferUnderflowException | IllegalArgumentException e) {
+                        unusable++;   // truncated or malformed; drop it and carry on
+                    }
+                }
+
+                DriveController c = controller;
+                if (c != null) {
+                    c.poll();
+                    byte axial = NetProtocol.quantizeStick(c.getAxial());
+                    byte lateral = NetProtocol.quantizeStick(c.getLateral());
+                    byte yaw = NetProtocol.quantizeStick(c.getYaw());
+                    int input = (axial & 0xFF) << 16 | (lateral & 0xFF) << 8 | (yaw & 0xFF);
+                    if (input != lastInput || tick % ticksPerSend == 0) {
+                        lastInput = input;
+                        out.clear();
+                        out.put(NetProtocol.INPUT).putInt(token).putInt(++seq).putInt(newest)
+                           .put(axial).put(lateral).put(yaw);
+                        out.flip();
+                        link.send(udp, out, server);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) System.err.println("Lost connection to server: " + e.getMessage());
+                running = false;
+                return;
+            }
+
+            render(now);
+            snapshot.publish(world, now);
+            stats.recordTick(now);
+            tick++;
+
+            // Fixed rate; after a long stall, start afresh rather than race to catch up
+            next += periodNanos;
+            long wait = next - System.nanoTime();
+            if (wait < -250_000_000L) next = System.nanoTime();
+            else if (wait > 0) LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * Decodes one state packet into the ring, if its base frame is still held.
+     * @throws BufferUnderflowException if the packet is truncated
+     * @throws IllegalArgumentException if it holds a malformed varint
+     */
+    private void decode(ByteBuffer in, long now) {
+        if (in.remaining() < NetProtocol.STATE_HEADER_BYTES || in.get() != NetProtocol.STATE) return;
+        int frame = in.getInt(), base = in.getInt(), serverTick = in.getInt();
+        if (in.getShort() != robots) return;
+        packets++;
+        bytes += NetProtocol.STATE_HEADER_BYTES + in.remaining();
+        if (firstFrame < 0) firstFrame = frame;
+
+        int slot = frame & (RING - 1);
+        int stride = robots * NetProtocol.FIELDS;
+        boolean keyframe = base == NetProtocol.KEYFRAME;
+        if (slotFrames[slot] == frame || (newest >= 0 && newest - frame >= RING - 1)
+                || (!keyframe && slotFrames[base & (RING - 1)] != base)) {
+            unusable++;   // duplicate, too old, or its base is gone
+            return;
+        }
+        // The slot is written in place, so it holds no usable frame until the read completes
+        slotFrames[slot] = -1;
+        NetProtocol.readRobots(in, keyframe ? null : frames, keyframe ? 0 : (base & (RING - 1)) * stride,
+                               robots, frames, slot * stride);
+        slotFrames[slot] = frame;
+        slotTicks[slot]  = serverTick;
+        if (keyframe) keyframes++;
+        if (frame > newest) {
+            newest = frame;
+            newestFrame = frame;
+        }
+
+        // Track the earliest the server could have run tick 0: the fastest packet
+        // sets it, and it creeps later so a lasting rise in latency is followed
+        long start = now - serverTick * periodNanos;
+        if (!synced || start < serverStartNanos) {
+            serverStartNanos = start;
+            synced = true;
+        } else {
+            serverStartNanos += (start - serverStartNanos) >> 6;
+        }
+    }
+
+    /** Places the mirror robots at the server's state one interpolation delay ago. */
+    private void render(long now) {
+        if (!synced) return;
+        double renderTick = (double) (now - serverStartNanos) / periodNanos - delaySeconds * tickHz;
+
+        // The held frames either side of the render time
+        int before = -1, after = -1;
+        for (int s = 0; s < RING; s++) {
+            if (slotFrames[s] < 0 || newest - slotFrames[s] >= RING) continue;
+            int t = slotTicks[s];
+            if (t <= renderTick) {
+                if (before < 0 || t > slotTicks[before]) before = s;
+            } else if (after < 0 || t < slotTicks[after]) {
+                after = s;
+            }
+        }
+
+        int stride = robots * NetProtocol.FIELDS;
+        if (before >= 0 && after >= 0) {
+            double a = (renderTick - slotTicks[before]) / (slotTicks[after] - slotTicks[before]);
+            for (int r = 0; r < robots; r++) {
+                int p = before * stride + r * NetProtocol.FIELDS, q = after * stride + r * NetProtocol.FIELDS;
+                double x = lerp(frames[p + NetProtocol.X], frames[q + NetProtocol.X], a) / NetProtocol.POSITION_SCALE;
+                double y = lerp(frames[p + NetProtocol.Y], frames[q + NetProtocol.Y], a) / NetProtocol.POSITION_SCALE;
+                int turn = (short) (frames[q + NetProtocol.HEADING] - frames[p + NetProtocol.HEADING]);
+                double heading = (frames[p + NetProtocol.HEADING] + turn * a) / NetProtocol.HEADING_SCALE;
+                world.getRobot(r).setPose(x, y, heading);
+            }
+        } else if (before >= 0) {
+            // Nothing newer yet: carry on at the last velocities, for a while
+            double seconds = (renderTick - slotTicks[before]) / tickHz;
+            if (seconds > MAX_EXTRAPOLATION_SECONDS) {
+                seconds = MAX_EXTRAPOLATION_SECONDS;
+                heldTicks++;
+            } else {
+                extrapolatedTicks++;
+            }
+            for (int r = 0; r < robots; r++) {
+                int p = before * stride + r * NetProtocol.FIELDS;
+                SimBot bot = world.getRobot(r);
+                bot.setPose(frames[p + NetProtocol.X] / NetProtocol.POSITION_SCALE
+                                    + seconds * frames[p + NetProtocol.VEL_X] / NetProtocol.VELOCITY_SCALE,
+                            frames[p + NetProtocol.Y] / NetProtocol.POSITION_SCALE
+                                    + seconds * frames[p + NetProtocol.VEL_Y] / NetProtocol.VELOCITY_SCALE,
+                            frames[p + NetProtocol.HEADING] / NetProtocol.HEADING_SCALE
+                                    + seconds * frames[p + NetProtocol.ANG_VEL] / NetProtocol.ANG_VEL_SCALE);
+            }
+        } else if (after >= 0) {
+            // Only frames from after the render time, e.g. just after joining: show the oldest
+            for (int r = 0; r < robots; r++) {
+                int q = after * stride + r * NetProtocol.FIELDS;
+                world.getRobot(r).setPose(frames[q + NetProtocol.X] / NetProtocol.POSITION_SCALE,
+                                          frames[q + NetProtocol.Y] / NetProtocol.POSITION_SCALE,
+                                          frames[q + NetProtocol.HEADING] / NetProtocol.HEADING_SCALE);
+            }
+        }
+    }
+
+    private static double lerp(int a, int b, double t) {
+        return a + (b - a) * t;
+    }
+}
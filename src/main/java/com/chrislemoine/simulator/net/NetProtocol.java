@@ -0,0 +1,158 @@
+package com.chrislemoine.simulator.net;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Wire format shared by {@link NetServer} and {@link NetClient}.
+ * <p>All values are little-endian. A client joins over TCP and then
+ * exchanges UDP datagrams with the same port on the server:</p>
+ * <pre>
+ * HELLO    (TCP, client)  magic int, version short
+ * WELCOME  (TCP, server)  magic int, version short, status byte, token int, seat short,
+ *                         tickHz short, sendHz short, robots short,
+ *                         per robot: alliance byte, width float, length float
+ * INPUT    (UDP, client)  type byte, token int, seq int, ack int, axial/lateral/yaw byte x3
+ * STATE    (UDP, server)  type byte, frame int, base int, tick int, robots short,
+ *                         per robot: change mask byte, then a zigzag varint per changed field
+ * </pre>
+ * <p>A state frame carries every robot's pose and field-frame velocity quantized to
+ * integers ({@link #FIELDS} per robot). Each is sent as the difference from
+ * a frame the client has acknowledged, {@code base}, or from zero when
+ * base is {@link #KEYFRAME}. Robots standing still cost one byte; robots
+ * driving, a handful. The TCP connection stays open for the session and
+ * closing it frees the seat.</p>
+ */
+public final class NetProtocol {
+    public static final int MAGIC = 0x4E435446;   // "FTCN" read little-endian
+    public static final short VERSION = 1;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Port used when none is given, for both TCP and UDP. */
+    public static final int DEFAULT_PORT = 7420;
+
+    // WELCOME status
+    static final byte OK = 0, FULL = 1, BAD_VERSION = 2;
+
+    // UDP packet types
+    static final byte INPUT = 1, STATE = 2;
+
+    /** Base frame of a state packet that is sent whole rather than as a difference. */
+    static final int KEYFRAME = -1;
+
+    static final int HELLO_BYTES = 6;
+    static final int WELCOME_HEADER_BYTES = 19;
+    static final int WELCOME_ROBOT_BYTES = 9;
+    static final int INPUT_BYTES = 16;
+    static final int STATE_HEADER_BYTES = 15;
+
+    /** Largest datagram either side sends or accepts. */
+    static final int MAX_PACKET = 1400;
+
+    // Quantized fields per robot, in packet order
+    static final int X = 0, Y = 1, HEADING = 2, VEL_X = 3, VEL_Y = 4, ANG_VEL = 5;
+    static final int FIELDS = 6;
+
+    /** Position step: 1/256 inch. */
+    static final double POSITION_SCALE = 256;
+    /** Heading step: a full turn in 16 bits, about 0.0055 degrees. */
+    static final double HEADING_SCALE = 65536 / (2 * Math.PI);
+    /** Linear velocity step: 1/16 inch per second. */
+    static final double VELOCITY_SCALE = 16;
+    /** Angular velocity step: 1/256 radian per second. */
+    static final double ANG_VEL_SCALE = 256;
+    /** Stick step: 1/127 of full deflection. */
+    static final double STICK_SCALE = 127;
+
+    private NetProtocol() {}
+
+    /** Quantizes a robot's pose and velocity into {@link #FIELDS} integers at out[o]. */
+    static void quantize(double x, double y, double heading, double velX, double velY, double angVel,
+                         int[] out, int o) {
+        out[o + X]       = (int) Math.round(x * POSITION_SCALE);
+        out[o + Y]       = (int) Math.round(y * POSITION_SCALE);
+        out[o + HEADING] = (int) Math.round(heading * HEADING_SCALE) & 0xFFFF;
+        out[o + VEL_X]   = (int) Math.round(velX * VELOCITY_SCALE);
+        out[o + VEL_Y]   = (int) Math.round(velY * VELOCITY_SCALE);
+        out[o + ANG_VEL] = (int) Math.round(angVel * ANG_VEL_SCALE);
+    }
+
+    /** @return a stick value in [-1, 1] as a signed byte */
+    static byte quantizeStick(double value) {
+        return (byte) Math.round(Math.max(-1, Math.min(1, value)) * STICK_SCALE);
+    }
+
+    /**
+     * Writes the robots of one frame, each field as the difference from the base frame.
+     * @param cur    quantized fields of the frame being sent
+     * @param co     offset of its first robot
+     * @param base   quantized fields of the base frame, or null for a keyframe
+     * @param bo     offset of the base's first robot
+     * @param robots number of robots
+     * @param out    destination; must have room for {@link #maxStateBytes}
+     */
+    static void writeRobots(int[] cur, int co, int[] base, int bo, int robots, ByteBuffer out) {
+        for (int r = 0; r < robots; r++) {
+            int maskAt = out.position();
+            out.put((byte) 0);
+            int mask = 0;
+            for (int f = 0; f < FIELDS; f++) {
+                int value = cur[co + r * FIELDS + f];
+                int delta = base != null ? value - base[bo + r * FIELDS + f] : value;
+                if (f == HEADING) delta = (short) delta;   // headings wrap; send the short way round
+                if (delta != 0) {
+                    mask |= 1 << f;
+                    putVarint(out, (delta << 1) ^ (delta >> 31));
+                }
+            }
+            out.put(maskAt, (byte) mask);
+        }
+    }
+
+    /**
+     * Reads the robots of one frame written by {@link #writeRobots}.
+     * @param in     positioned after the state header
+     * @param base   quantized fields of the base frame, or null for a keyframe
+     * @param bo     offset of the base's first robot
+     * @param robots number of robots
+     * @param out    receives the frame's quantized fields
+     * @param oo     offset of its first robot
+     */
+    static void readRobots(ByteBuffer in, int[] base, int bo, int robots, int[] out, int oo) {
+        for (int r = 0; r < robots; r++) {
+            int mask = in.get();
+            for (int f = 0; f < FIELDS; f++) {
+                int delta = 0;
+                if ((mask & (1 << f)) != 0) {
+                    int zigzag = getVarint(in);
+                    delta = (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                int value = (base != null ? base[bo + r * FIELDS + f] : 0) + delta;
+                out[oo + r * FIELDS + f] = f == HEADING ? value & 0xFFFF : value;
+            }
+        }
+    }
+
+    /** @return the largest state packet for this many robots */
+    static int maxStateBytes(int robots) {
+        return STATE_HEADER_BYTES + robots * (1 + FIELDS * 5);
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,422 @@
+package com.chrislemoine.simulator.net;
+
+import com.chrislemoine.simulator.core.LatencyHistogram;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.TickListener;
+import com.chrislemoine.simulator.core.World;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves an authoritative {@link World} to remote drivers.
+ * <p>The first {@code seats} robots are driven over the network, one client
+ * each; any others keep whatever controllers they were given. Clients join
+ * over TCP, then send their stick input and receive world state over UDP
+ * on the same port, in the layout described by {@link NetProtocol}.</p>
+ * <p> - Capture: as a {@link TickListener}, every few ticks the physics
+ * thread quantizes every robot into the next slot of a ring of frames and
+ * wakes the sender. Nothing else happens on the physics thread, and nothing
+ * there allocates.</p>
+ * <p> - Send: a daemon thread encodes the newest frame for each client as
+ * the difference from the last frame that client acknowledged, or whole if
+ * that frame has left the ring, and sends it.</p>
+ * <p> - Receive: a daemon thread applies the newest input from each client
+ * and records its acknowledgements. Late or duplicate input is ignored.</p>
+ */
+public class NetServer implements TickListener {
+    /** Default state packets per second to each client. */
+    public static final int DEFAULT_SEND_HZ = 50;
+
+    /** Frames kept as possible bases for differences; 1.28 s at 50 Hz. */
+    private static final int RING = 64;
+
+    /** Acknowledged frames this close to being overwritten are not used as bases. */
+    private static final int ACK_MARGIN = 4;
+
+    private final World world;
+    private final int seats, robots, tickHz, sendHz, ticksPerSend;
+    private final LinkConditioner link;
+    private final RemoteController[] controllers;
+    private final Seat[] seatStates;
+
+    // Frame ring, written by the physics thread: frame n is in slot n % RING
+    private final int[] frames;
+    private final int[] frameTicks = new int[RING];
+    private volatile int published = -1;
+    private long ticks = 0;
+
+    private final LatencyHistogram captureTime = new LatencyHistogram();
+    private final LatencyHistogram sendTime = new LatencyHistogram();
+
+    private volatile boolean running = false;
+    private ServerSocket tcp;
+    private DatagramChannel udp;
+    private Thread sendThread, receiveThread, acceptThread;
+
+    // Guarded by this
+    private long reportNanos;
+
+    /**
+     * Installs a network controller on each seat's robot.
+     * @param world  the authoritative world, stepped by a {@link com.chrislemoine.simulator.core.Simulator}
+     * @param seats  robots [0, seats) are driven by clients
+     * @param tickHz physics rate the world is stepped at (Hz)
+     * @param sendHz state packets per second to each client; must divide tickHz
+     * @param link   conditions outgoing datagrams, or {@link LinkConditioner#NONE}
+     */
+    public NetServer(World world, int seats, int tickHz, int sendHz, LinkConditioner link) {
+        if (seats < 1 || seats > world.size()) {
+            throw new IllegalArgumentException("seats must be in [1, " + world.size() + "]: " + seats);
+        }
+        if (sendHz <= 0 || tickHz % sendHz != 0) {
+            throw new IllegalArgumentException("sendHz must divide tickHz " + tickHz + ": " + sendHz);
+        }
+        if (NetProtocol.maxStateBytes(world.size()) > NetProtocol.MAX_PACKET) {
+            throw new IllegalArgumentException("Too many robots for one state packet: " + world.size());
+        }
+        this.world        = world;
+        this.seats        = seats;
+        this.robots       = world.size();
+        this.tickHz       = tickHz;
+        this.sendHz       = sendHz;
+        this.ticksPerSend = tickHz / sendHz;
+        this.link         = link;
+        this.frames       = new int[RING * robots * NetProtocol.FIELDS];
+        this.controllers  = new RemoteController[seats];
+        this.seatStates   = new Seat[seats];
+        for (int i = 0; i < seats; i++) {
+            controllers[i] = new RemoteController();
+            seatStates[i]  = new Seat();
+            world.setController(i, controllers[i]);
+        }
+    }
+
+    /**
+     * Starts accepting clients.
+     * @param port TCP and UDP port, or 0 for any free one
+     */
+    public void start(int port) throws IOException {
+        tcp = new ServerSocket(port);
+        udp = DatagramChannel.open().bind(new InetSocketAddress(tcp.getLocalPort()));
+        running = true;
+        synchronized (this) {
+            reportNanos = System.nanoTime();
+        }
+
+        sendThread    = daemon(this::sendLoop, "net-server-send");
+        receiveThread = daemon(this::receiveLoop, "net-server-receive");
+        acceptThread  = daemon(this::acceptLoop, "net-server-accept");
+    }
+
+    /** Disconnects every client and stops the server threads. */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(sendThread);
+        try {
+            if (tcp != null) tcp.close();
+            if (udp != null) udp.close();
+        } catch (IOException e) {
+            System.err.println("Error closing server: " + e.getMessage());
+        }
+        for (Seat seat : seatStates) seat.close();
+    }
+
+    /** @return the port clients connect to */
+    public int getPort() { return tcp.getLocalPort(); }
+
+    /** @return number of robots clients can drive */
+    public int getSeats() { return seats; }
+
+    /** @return number of seats taken */
+    public int getConnected() {
+        int n = 0;
+        for (Seat seat : seatStates) if (seat.token != 0) n++;
+        return n;
+    }
+
+    /** @return time the physics thread spends capturing each frame */
+    public LatencyHistogram getCaptureTime() { return captureTime; }
+
+    /** @return time to encode and send one frame to every client */
+    public LatencyHistogram getSendTime() { return sendTime; }
+
+    /**
+     * Captures a frame every {@code tickHz / sendHz} ticks. Physics thread only.
+     */
+    @Override
+    public void onTick(World world, long tickNanos) {
+        if (++ticks % ticksPerSend != 0) return;
+        int frame = published + 1;
+        int o = (frame & (RING - 1)) * robots * NetProtocol.FIELDS;
+        for (int i = 0; i < robots; i++) {
+            SimBot bot = world.getRobot(i);
+            double c = bot.getCosHeading(), s = bot.getSinHeading();
+            NetProtocol.quantize(bot.getX(), bot.getY(), bot.getHeading(),
+                                 bot.getVelY() * c + bot.getVelX() * s,   // robot frame to field frame
+                                 bot.getVelY() * s - bot.getVelX() * c,
+                                 bot.getAngVel(), frames, o + i * NetProtocol.FIELDS);
+        }
+        frameTicks[frame & (RING - 1)] = (int) ticks;   // our own count: never rewinds, unlike the world's
+        published = frame;
+        captureTime.record(System.nanoTime() - tickNanos);
+        LockSupport.unpark(sendThread);
+    }
+
+    /**
+     * @return one line per seat with its traffic since the last report, e.g.
+     *         "seat 0: 2.9 kB/s out (58 B/packet, 2 keyframes), 0.8 kB/s in"
+     */
+    public synchronized String report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - reportNanos) / 1e9);
+        reportNanos = now;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats; i++) {
+            Seat s = seatStates[i];
+            long bytesOut = s.bytesOut - s.reportedBytesOut, packetsOut = s.packetsOut - s.reportedPacketsOut;
+            long keyframes = s.keyframes - s.reportedKeyframes, bytesIn = s.bytesIn - s.reportedBytesIn;
+            s.reportedBytesOut   = s.bytesOut;
+            s.reportedPacketsOut = s.packetsOut;
+            s.reportedKeyframes  = s.keyframes;
+            s.reportedBytesIn    = s.bytesIn;
+            sb.append(String.format("seat %d: %s%.1f kB/s out (%d B/packet, %d keyframes), %.1f kB/s in%n",
+                    i, s.token != 0 ? "" : "(empty) ", bytesOut / seconds / 1e3,
+                    packetsOut > 0 ? bytesOut / packetsOut : 0, keyframes, bytesIn / seconds / 1e3));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d seats, %d Hz state, capture %s, send %s, link %s",
+                getConnected(), seats, sendHz, captureTime, sendTime, link);
+    }
+
+    /** Sends each new frame to every connected client. */
+    private void sendLoop() {
+        ByteBuffer out = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET).order(NetProtocol.ORDER);
+        int last = -1;
+        while (running) {
+            int frame = published;
+            if (frame == last) {
+                LockSupport.parkNanos(1_000_000_000L / sendHz);
+                continue;
+            }
+            last = frame;
+
+            long start = System.nanoTime();
+            for (Seat seat : seatStates) {
+                SocketAddress target = seat.address;
+                if (seat.token == 0 || target == null) continue;
+                int base = seat.ack;
+                boolean delta = base >= 0 && base <= frame && frame - base < RING - ACK_MARGIN;
+                encode(out, frame, delta ? base : NetProtocol.KEYFRAME);
+
+                // The physics thread may have lapped the ring while we read; never send a torn frame
+                VarHandle.loadLoadFence();
+                if (published - (delta ? base : frame) >= RING - 1) continue;
+
+                int bytes = out.remaining();
+                try {
+                    link.send(udp, out, target);
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Send to seat failed: " + e.getMessage());
+                    continue;
+                }
+                seat.bytesOut += bytes;
+                seat.packetsOut++;
+                if (!delta) seat.keyframes++;
+            }
+            sendTime.record(System.nanoTime() - start);
+        }
+    }
+
+    private void encode(ByteBuffer out, int frame, int base) {
+        int slot = frame & (RING - 1);
+        int stride = robots * NetProtocol.FIELDS;
+        out.clear();
+        out.put(NetProtocol.STATE);
+        out.putInt(frame);
+        out.putInt(base);
+        out.putInt(frameTicks[slot]);
+        out.putShort((short) robots);
+        boolean keyframe = base == NetProtocol.KEYFRAME;
+        NetProtocol.writeRobots(frames, slot * stride, keyframe ? null : frames,
+                                keyframe ? 0 : (base & (RING - 1)) * stride, robots, out);
+        out.flip();
+    }
+
+    /** Applies client input and acknowledgements as they arrive. */
+    private void receiveLoop() {
+        ByteBuffer in = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET).order(NetProtocol.ORDER);
+        while (running) {
+            SocketAddress from;
+            try {
+                in.clear();
+                from = udp.receive(in);
+            } catch (IOException e) {
+                if (running) System.err.println("Server receive failed: " + e.getMessage());
+                return;
+            }
+            in.flip();
+            if (in.remaining() < NetProtocol.INPUT_BYTES || in.get() != NetProtocol.INPUT) continue;
+            int token = in.getInt(), seq = in.getInt(), ack = in.getInt();
+            byte axial = in.get(), lateral = in.get(), yaw = in.get();
+
+            for (int i = 0; i < seats; i++) {
+                Seat seat = seatStates[i];
+                if (token == 0 || seat.token != token) continue;
+                seat.address = from;   // learnt from the first datagram, so NAT and any client port work
+                seat.bytesIn += NetProtocol.INPUT_BYTES;
+                if (seat.hasInput && seq - seat.seq <= 0) break;   // late or duplicate
+                seat.hasInput = true;
+                seat.seq = seq;
+                controllers[i].set(axial, lateral, yaw);
+                if ((seat.ack < 0 || ack - seat.ack > 0) && ack <= published) seat.ack = ack;
+                break;
+            }
+        }
+    }
+
+    /** Hands out seats to clients as they connect. */
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = tcp.accept();
+            } catch (IOException e) {
+                if (running) System.err.println("Server accept failed: " + e.getMessage());
+                return;
+            }
+            try {
+                join(socket);
+            } catch (IOException e) {
+                System.err.println("Client failed to join: " + e.getMessage());
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void join(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(5000);
+        ByteBuffer hello = ByteBuffer.allocate(NetProtocol.HELLO_BYTES).order(NetProtocol.ORDER);
+        new DataInputStream(socket.getInputStream()).readFully(hello.array());
+        boolean versionOk = hello.getInt() == NetProtocol.MAGIC && hello.getShort() == NetProtocol.VERSION;
+
+        int seatIndex = versionOk ? claimSeat(socket) : -1;
+        Seat seat = seatIndex >= 0 ? seatStates[seatIndex] : null;
+        ByteBuffer welcome = ByteBuffer.allocate(NetProtocol.WELCOME_HEADER_BYTES
+                + robots * NetProtocol.WELCOME_ROBOT_BYTES).order(NetProtocol.ORDER);
+        welcome.putInt(NetProtocol.MAGIC);
+        welcome.putShort(NetProtocol.VERSION);
+        welcome.put(!versionOk ? NetProtocol.BAD_VERSION : seat == null ? NetProtocol.FULL : NetProtocol.OK);
+        welcome.putInt(seat != null ? seat.token : 0);
+        welcome.putShort((short) seatIndex);
+        welcome.putShort((short) tickHz);
+        welcome.putShort((short) sendHz);
+        welcome.putShort((short) robots);
+        for (int i = 0; i < robots; i++) {
+            SimBot bot = world.getRobot(i);
+            welcome.put((byte) world.getAlliance(i).ordinal());
+            welcome.putFloat((float) bot.getWidth());
+            welcome.putFloat((float) bot.getLength());
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(welcome.array());
+        out.flush();
+        if (seat == null) {
+            socket.close();
+            return;
+        }
+
+        // The session lasts as long as the connection; a closed or broken one frees the seat
+        socket.setSoTimeout(0);
+        daemon(() -> {
+            try (InputStream in = socket.getInputStream()) {
+                while (in.read() >= 0) {
+                    // Nothing is expected after HELLO; read only to notice the close
+                }
+            } catch (IOException e) {
+                // Connection reset; treated as leaving
+            }
+            releaseSeat(seatIndex);
+        }, "net-session-" + seatIndex);
+    }
+
+    private synchronized int claimSeat(Socket socket) {
+        for (int i = 0; i < seats; i++) {
+            Seat seat = seatStates[i];
+            if (seat.token != 0) continue;
+            seat.socket   = socket;
+            seat.address  = null;
+            seat.ack      = -1;
+            seat.hasInput = false;
+            int token;
+            do token = ThreadLocalRandom.current().nextInt(); while (token == 0);
+            seat.token = token;
+            return i;
+        }
+        return -1;
+    }
+
+    private synchronized void releaseSeat(int i) {
+        Seat seat = seatStates[i];
+        seat.token   = 0;
+        seat.address = null;
+        closeQuietly(seat.socket);
+        seat.socket = null;
+        controllers[i].set((byte) 0, (byte) 0, (byte) 0);
+    }
+
+    private static Thread daemon(Runnable body, String name) {
+        Thread t = new Thread(body, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    /** One client's connection and traffic. */
+    private static final class Seat {
+        volatile int token;                 // 0 while the seat is free
+        volatile SocketAddress address;     // where to send state, once the client's first input arrives
+        volatile int ack = -1;              // newest frame the client has decoded
+        Socket socket;
+
+        // Receive thread only
+        boolean hasInput;
+        int seq;
+
+        // Written by one thread each, read by report()
+        volatile long bytesOut, packetsOut, keyframes, bytesIn;
+        long reportedBytesOut, reportedPacketsOut, reportedKeyframes, reportedBytesIn;
+
+        void close() {
+            closeQuietly(socket);
+        }
+    }
+}
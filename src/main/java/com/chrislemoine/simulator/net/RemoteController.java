@@ -0,0 +1,31 @@
+package com.chrislemoine.simulator.net;
+
+import com.chrislemoine.simulator.input.DriveController;
+
+/**
+ * Stick input from a network client, set by the server's receive thread and
+ * read by the physics thread.
+ * <p>The three quantized axes are packed into one volatile int, so a tick
+ * always sees all three from the same packet.</p>
+ */
+class RemoteController implements DriveController {
+    private volatile int packed = 0;
+    private double axial, lateral, yaw;
+
+    /** Stores the latest input. Any thread. */
+    void set(byte axial, byte lateral, byte yaw) {
+        packed = (axial & 0xFF) << 16 | (lateral & 0xFF) << 8 | (yaw & 0xFF);
+    }
+
+    @Override
+    public void poll() {
+        int p = packed;
+        axial   = (byte) (p >> 16) / NetProtocol.STICK_SCALE;
+        lateral = (byte) (p >> 8) / NetProtocol.STICK_SCALE;
+        yaw     = (byte) p / NetProtocol.STICK_SCALE;
+    }
+
+    @Override public double getAxial()   { return axial; }
+    @Override public double getLateral() { return lateral; }
+    @Override public double getYaw()     { return yaw; }
+}
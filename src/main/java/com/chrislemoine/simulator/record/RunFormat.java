@@ -0,0 +1,48 @@
+package com.chrislemoine.simulator.record;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of a recorded driving run ({@code .ftcrun}).
+ * <p>All values are little-endian. A fixed header describes the robot and
+ * tick rate, followed by one fixed-size record per physics tick:</p>
+ * <pre>
+ * header  magic      int     'FTCR'
+ *         version    short
+ *         flags      short   FLAG_WALLS if the run collided with the field walls
+ *         tickHz     int
+ *         field      int     geometry hash of the field's obstacles, 0 for the bare perimeter
+ *         tickCount  long    patched in when the recording is closed
+ *         x, y, heading                          double x3  start pose
+ *         maxVel, maxAccel, maxAngVel, maxAngAccel double x4
+ *         width, length                          double x2
+ * record  axial, lateral, yaw                    double x3  controller input for the tick
+ *         x, y, heading                          double x3  pose after the tick
+ * </pre>
+ * Inputs are stored at full precision so a replay feeds SimBot bit-identical
+ * values and lands on bit-identical poses.
+ */
+public final class RunFormat {
+    public static final int MAGIC = 0x52435446;   // "FTCR" read little-endian
+    public static final short VERSION = 1;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Header flag: the run was stepped with the perimeter walls in a CollisionWorld. */
+    public static final short FLAG_WALLS = 1;
+
+    static final int FLAGS_OFFSET       = 6;
+    static final int TICK_HZ_OFFSET     = 8;
+    static final int FIELD_OFFSET       = 12;
+    static final int TICK_COUNT_OFFSET  = 16;
+    static final int START_POSE_OFFSET  = 24;
+    static final int CONSTRAINTS_OFFSET = 48;
+    static final int DIMENSIONS_OFFSET  = 80;
+
+    /** Bytes before the first tick record. */
+    public static final int HEADER_BYTES = 96;
+
+    /** Bytes per tick record. */
+    public static final int RECORD_BYTES = 6 * Double.BYTES;
+
+    private RunFormat() {}
+}
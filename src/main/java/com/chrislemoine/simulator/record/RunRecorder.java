@@ -0,0 +1,129 @@
+package com.chrislemoine.simulator.record;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.field.FieldDefinition;
+import com.chrislemoine.simulator.input.DriveController;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a {@link RunFormat} recording, one record per physics tick.
+ * <p>Records are packed into a reused direct buffer and written to the
+ * {@link FileChannel} in large chunks, so {@link #record} never allocates and
+ * only touches the disk once every few thousand ticks. Call it from the
+ * physics thread only.</p>
+ */
+public class RunRecorder implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(RunFormat.ORDER);
+    private long ticks = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates (or truncates) the file and writes the header.
+     * @param path   output file
+     * @param bot    robot at its starting state; supplies pose, constraints and size
+     * @param tickHz physics rate the run is stepped at (Hz)
+     */
+    public RunRecorder(Path path, SimBot bot, int tickHz) throws IOException {
+        this(path, bot, tickHz, (short) 0);
+    }
+
+    /**
+     * Creates (or truncates) the file and writes the header.
+     * @param path   output file
+     * @param bot    robot at its starting state; supplies pose, constraints and size
+     * @param tickHz physics rate the run is stepped at (Hz)
+     * @param flags  {@link RunFormat} header flags, e.g. {@link RunFormat#FLAG_WALLS}
+     */
+    public RunRecorder(Path path, SimBot bot, int tickHz, short flags) throws IOException {
+        this(path, bot, tickHz, flags, 0);
+    }
+
+    /**
+     * Creates (or truncates) the file and writes the header.
+     * @param path      output file
+     * @param bot       robot at its starting state; supplies pose, constraints and size
+     * @param tickHz    physics rate the run is stepped at (Hz)
+     * @param flags     {@link RunFormat} header flags, e.g. {@link RunFormat#FLAG_WALLS}
+     * @param fieldHash {@link FieldDefinition#getGeometryHash()} of the field driven on,
+     *                  so replays collide with the same obstacles
+     */
+    public RunRecorder(Path path, SimBot bot, int tickHz, short flags, int fieldHash) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(RunFormat.MAGIC);
+        buffer.putShort(RunFormat.VERSION);
+        buffer.putShort(flags);
+        buffer.putInt(tickHz);
+        buffer.putInt(fieldHash);
+        buffer.putLong(0);   // tick count, patched on close
+        buffer.putDouble(bot.getX()).putDouble(bot.getY()).putDouble(bot.getHeading());
+        buffer.putDouble(bot.getMaxVel()).putDouble(bot.getMaxAccel());
+        buffer.putDouble(bot.getMaxAngVel()).putDouble(bot.getMaxAngAccel());
+        buffer.putDouble(bot.getWidth()).putDouble(bot.getLength());
+    }
+
+    /**
+     * Appends one tick: the input that was applied and the pose it produced.
+     * @param controller the controller polled this tick
+     * @param bot        the robot after its update
+     */
+    public void record(DriveController controller, SimBot bot) throws IOException {
+        record(controller.getAxial(), controller.getLateral(), controller.getYaw(), bot);
+    }
+
+    /**
+     * Appends one tick: the input that was applied and the pose it produced.
+     * Give the input as {@link SimBot#drive} received it, in the robot frame,
+     * so a field-centric run replays without knowing the driver's heading.
+     * @param axial   applied forward/backward input
+     * @param lateral applied right/left input
+     * @param yaw     applied rotation input
+     * @param bot     the robot after its update
+     */
+    public void record(double axial, double lateral, double yaw, SimBot bot) throws IOException {
+        if (buffer.remaining() < RunFormat.RECORD_BYTES) flush();
+        buffer.putDouble(axial)
+              .putDouble(lateral)
+              .putDouble(yaw)
+              .putDouble(bot.getX())
+              .putDouble(bot.getY())
+              .putDouble(bot.getHeading());
+        ticks++;
+    }
+
+    /** @return ticks recorded so far */
+    public long getTicks() { return ticks; }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Flushes buffered records, fills in the tick count and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            buffer.putLong(ticks).flip();
+            channel.write(buffer, RunFormat.TICK_COUNT_OFFSET);
+            buffer.clear();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
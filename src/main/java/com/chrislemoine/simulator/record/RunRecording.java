@@ -0,0 +1,121 @@
+package com.chrislemoine.simulator.record;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import com.chrislemoine.simulator.field.FieldCatalog;
+import com.chrislemoine.simulator.field.FieldDefinition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a {@link RunFormat} recording.
+ * <p>Ticks are read by absolute index straight out of the mapping, so any
+ * number of replays can share one instance without copying.</p>
+ */
+public class RunRecording {
+    private final ByteBuffer data;
+    private final int tickHz;
+    private final long tickCount;
+
+    private RunRecording(ByteBuffer data) throws IOException {
+        this.data = data.order(RunFormat.ORDER);
+        if (data.limit() < RunFormat.HEADER_BYTES || data.getInt(0) != RunFormat.MAGIC) {
+            throw new IOException("Not a run recording");
+        }
+        short version = data.getShort(4);
+        if (version != RunFormat.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        this.tickHz = data.getInt(RunFormat.TICK_HZ_OFFSET);
+
+        // A run that was never closed cleanly still has whole records on disk
+        long stored = data.getLong(RunFormat.TICK_COUNT_OFFSET);
+        long onDisk = (data.limit() - RunFormat.HEADER_BYTES) / RunFormat.RECORD_BYTES;
+        this.tickCount = stored > 0 ? Math.min(stored, onDisk) : onDisk;
+    }
+
+    /**
+     * Maps a recording file into memory.
+     * @param path the recording to open
+     * @return the mapped recording
+     */
+    public static RunRecording open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RunRecording(map);
+        }
+    }
+
+    /** @return physics rate the run was recorded at (Hz) */
+    public int getTickHz() { return tickHz; }
+
+    /** @return number of recorded ticks */
+    public long getTickCount() { return tickCount; }
+
+    /** @return true if the run was stepped with the perimeter walls */
+    public boolean hasWalls() { return (data.getShort(RunFormat.FLAGS_OFFSET) & RunFormat.FLAG_WALLS) != 0; }
+
+    /** @return {@link FieldDefinition#getGeometryHash()} of the field the run was driven on */
+    public int getFieldHash() { return data.getInt(RunFormat.FIELD_OFFSET); }
+
+    /**
+     * Rebuilds what the run collided with: the perimeter walls and, if it
+     * was driven on a field with obstacles, that field's, found by its hash.
+     * @return the collision world with no robots yet, or null if the run had no walls
+     * @throws IOException if the field it was driven on is not installed
+     */
+    public CollisionWorld createCollisionWorld() throws IOException {
+        if (!hasWalls()) return null;
+        int hash = getFieldHash();
+        if (hash == 0) return CollisionWorld.forField();
+        FieldDefinition field = FieldCatalog.shared().findByGeometry(hash);
+        if (field == null) {
+            throw new IOException(String.format("Recorded on a field that is not installed (geometry %08x)", hash));
+        }
+        return field.createCollisionWorld();
+    }
+
+    /** @return recorded length (seconds) */
+    public double getDuration() { return (double) tickCount / tickHz; }
+
+    /**
+     * @return a new robot with the recorded starting pose, constraints and size
+     */
+    public SimBot createBot() {
+        return botBuilder().build();
+    }
+
+    /**
+     * @return a builder set up with the recorded starting pose, constraints
+     *         and size, to change before building, e.g. to try other constraints
+     */
+    public SimBotBuilder botBuilder() {
+        int p = RunFormat.START_POSE_OFFSET;
+        int c = RunFormat.CONSTRAINTS_OFFSET;
+        int d = RunFormat.DIMENSIONS_OFFSET;
+        return new SimBotBuilder()
+                .setStartPose(data.getDouble(p), data.getDouble(p + 8), data.getDouble(p + 16))
+                .setConstraints(data.getDouble(c), data.getDouble(c + 8),
+                                data.getDouble(c + 16), data.getDouble(c + 24))
+                .setDimensions(data.getDouble(d), data.getDouble(d + 8));
+    }
+
+    // Per-tick accessors; tick is in [0, getTickCount())
+    public double getAxial(long tick)   { return field(tick, 0); }
+    public double getLateral(long tick) { return field(tick, 1); }
+    public double getYaw(long tick)     { return field(tick, 2); }
+    public double getX(long tick)       { return field(tick, 3); }
+    public double getY(long tick)       { return field(tick, 4); }
+    public double getHeading(long tick) { return field(tick, 5); }
+
+    private double field(long tick, int index) {
+        long offset = RunFormat.HEADER_BYTES + tick * RunFormat.RECORD_BYTES + (long) index * Double.BYTES;
+        return data.getDouble((int) offset);
+    }
+}
@@ -0,0 +1,42 @@
+package com.chrislemoine.simulator.record;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.input.ReplayController;
+
+import java.io.IOException;
+
+/**
+ * Headless, as-fast-as-possible replay of a recording that checks every
+ * recomputed pose against the recorded one.
+ */
+public final class RunVerifier {
+    private RunVerifier() {}
+
+    /**
+     * Replays the whole run and compares poses bit for bit.
+     * @param recording the run to replay
+     * @return the index of the first tick whose pose differs, or -1 if the replay matched exactly
+     * @throws IOException if the field the run was driven on is not installed
+     */
+    public static long firstMismatch(RunRecording recording) throws IOException {
+        SimBot bot = recording.createBot();
+        ReplayController replay = new ReplayController(recording);
+        double dt = 1.0 / recording.getTickHz();
+        CollisionWorld walls = recording.createCollisionWorld();
+        if (walls != null) walls.addBody(bot);
+
+        for (long t = 0; t < recording.getTickCount(); t++) {
+            replay.poll();
+            bot.drive(replay.getAxial(), replay.getLateral(), replay.getYaw());
+            bot.update(dt);
+            if (walls != null) walls.resolve();
+            if (bot.getX() != recording.getX(t)
+                    || bot.getY() != recording.getY(t)
+                    || bot.getHeading() != recording.getHeading(t)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,214 @@
+package com.chrislemoine.simulator.telemetry;
+
+import com.chrislemoine.simulator.core.LatencyHistogram;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.World;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime instrumentation for a running simulator: latency histograms for
+ * the physics tick, robot updates and frame paints, and a ring-buffer
+ * channel per robot holding its recent pose and velocity.
+ * <p>Everything is preallocated when the world is attached, so recording
+ * is a few array stores and atomic increments per tick and never allocates.
+ * Robot updates are timed for one robot per tick, in rotation, which keeps
+ * the clock reads per tick constant however many robots there are.</p>
+ * <p>Read it through the getters, over JMX ({@link #registerMBean()}) or
+ * over HTTP with a {@link TelemetryServer}.</p>
+ */
+public class Telemetry implements TelemetryMXBean {
+    /** Rows kept per channel: 10 s at the default 200 Hz tick. */
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    /** Columns of every robot channel; velocities are in the robot frame. */
+    public static final String[] ROBOT_COLUMNS = {"x", "y", "heading", "velX", "velY", "angVel"};
+
+    private static final String MBEAN_NAME = "com.chrislemoine.simulator:type=Telemetry";
+
+    private final int capacity;
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram tickTime   = new LatencyHistogram();
+    private final LatencyHistogram updateTime = new LatencyHistogram();
+    private final LatencyHistogram paintTime  = new LatencyHistogram();
+    private final AtomicLong paintedPixels = new AtomicLong(), targetPixels = new AtomicLong();
+
+    private volatile TelemetryChannel[] robots = new TelemetryChannel[0];
+    private volatile TelemetryChannel[] channels = new TelemetryChannel[0];
+
+    public Telemetry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity rows kept per channel
+     */
+    public Telemetry(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a channel for every robot in the world, named "robot0", "robot1", ...
+     * Call before the simulation starts.
+     * @param world the world whose robots are recorded each tick
+     */
+    public synchronized void attach(World world) {
+        TelemetryChannel[] created = new TelemetryChannel[world.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = i < robots.length ? robots[i] : addChannel("robot" + i, ROBOT_COLUMNS);
+        }
+        robots = created;
+    }
+
+    /**
+     * Adds a channel for any other signal, e.g. controller input.
+     * @param name    unique channel name
+     * @param columns one name per value in a row
+     * @return the channel, to be written from a single thread
+     */
+    public synchronized TelemetryChannel addChannel(String name, String... columns) {
+        if (getChannel(name) != null) throw new IllegalArgumentException("Duplicate channel: " + name);
+        TelemetryChannel channel = new TelemetryChannel(name, capacity, columns);
+        TelemetryChannel[] grown = Arrays.copyOf(channels, channels.length + 1);
+        grown[channels.length] = channel;
+        channels = grown;
+        return channel;
+    }
+
+    /** @return the named channel, or null */
+    public TelemetryChannel getChannel(String name) {
+        for (TelemetryChannel c : channels) {
+            if (c.getName().equals(name)) return c;
+        }
+        return null;
+    }
+
+    /** @return every channel, in the order added */
+    public TelemetryChannel[] getChannels() { return channels.clone(); }
+
+    public LatencyHistogram getTickTime()   { return tickTime; }
+    public LatencyHistogram getUpdateTime() { return updateTime; }
+    public LatencyHistogram getPaintTime()  { return paintTime; }
+
+    /** @return System.nanoTime() when this telemetry was created; channel times are relative to it */
+    public long getStartNanos() { return startNanos; }
+
+    /**
+     * Records one physics tick: its duration and every robot's state after it.
+     * Physics thread only.
+     * @param world      the world that was just stepped
+     * @param startNanos System.nanoTime() before the step
+     * @param endNanos   System.nanoTime() after the step
+     */
+    public void recordTick(World world, long startNanos, long endNanos) {
+        tickTime.record(endNanos - startNanos);
+        TelemetryChannel[] robotChannels = robots;
+        for (int i = 0, n = Math.min(robotChannels.length, world.size()); i < n; i++) {
+            SimBot bot = world.getRobot(i);
+            TelemetryChannel c = robotChannels[i];
+            c.put(0, bot.getX());
+            c.put(1, bot.getY());
+            c.put(2, bot.getHeading());
+            c.put(3, bot.getVelX());
+            c.put(4, bot.getVelY());
+            c.put(5, bot.getAngVel());
+            c.commit(endNanos);
+        }
+    }
+
+    /**
+     * @param nanos time one robot's update took (nanoseconds)
+     */
+    public void recordUpdate(long nanos) {
+        updateTime.record(nanos);
+    }
+
+    /**
+     * @param nanos time one frame took to paint (nanoseconds)
+     */
+    public void recordPaint(long nanos) {
+        paintTime.record(nanos);
+    }
+
+    /**
+     * Records how much of the target one frame filled, so partial repaints
+     * can be compared with whole ones.
+     * @param pixels pixels the frame drew
+     * @param target pixels in the whole target
+     */
+    public void recordPaintArea(long pixels, long target) {
+        paintedPixels.addAndGet(pixels);
+        targetPixels.addAndGet(target);
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, replacing any
+     * earlier one. Failures are reported and otherwise ignored.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("Could not register telemetry MBean: " + e.getMessage());
+        }
+    }
+
+    // TelemetryMXBean
+    @Override public long getTickCount()          { return tickTime.getCount(); }
+    @Override public double getTickMeanMicros()   { return tickTime.getMean() / 1e3; }
+    @Override public double getTickP99Micros()    { return tickTime.getValueAtPercentile(99) / 1e3; }
+    @Override public double getTickMaxMicros()    { return tickTime.getMax() / 1e3; }
+    @Override public long getUpdateCount()        { return updateTime.getCount(); }
+    @Override public double getUpdateMeanMicros() { return updateTime.getMean() / 1e3; }
+    @Override public double getUpdateP99Micros()  { return updateTime.getValueAtPercentile(99) / 1e3; }
+    @Override public double getUpdateMaxMicros()  { return updateTime.getMax() / 1e3; }
+    @Override public long getPaintCount()         { return paintTime.getCount(); }
+    @Override public double getPaintMeanMicros()  { return paintTime.getMean() / 1e3; }
+    @Override public double getPaintP99Micros()   { return paintTime.getValueAtPercentile(99) / 1e3; }
+    @Override public double getPaintMaxMicros()   { return paintTime.getMax() / 1e3; }
+
+    @Override
+    public double getPaintPixelsPerFrame() {
+        long frames = paintTime.getCount();
+        return frames > 0 ? (double) paintedPixels.get() / frames : 0;
+    }
+
+    @Override
+    public double getPaintAreaFraction() {
+        long target = targetPixels.get();
+        return target > 0 ? (double) paintedPixels.get() / target : 0;
+    }
+
+    @Override
+    public String[] getChannelNames() {
+        TelemetryChannel[] all = channels;
+        String[] names = new String[all.length];
+        for (int i = 0; i < all.length; i++) names[i] = all[i].getName();
+        return names;
+    }
+
+    @Override
+    public void resetHistograms() {
+        tickTime.reset();
+        updateTime.reset();
+        paintTime.reset();
+        paintedPixels.set(0);
+        targetPixels.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "tick: " + tickTime + "\nupdate: " + updateTime + "\npaint: " + paintTime
+                + String.format("\npaint area: %.0f pixels per frame, %.1f%% of the target",
+                                getPaintPixelsPerFrame(), getPaintAreaFraction() * 100);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chrislemoine.simulator.telemetry;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed-capacity ring buffer of timestamped rows, one column per value,
+ * for recording a signal every tick without allocating.
+ * <p>One thread writes: it fills the pending row with {@link #put} and
+ * publishes it with {@link #commit}. Any number of threads may read with
+ * {@link #copyLatest}, which never blocks the writer. Rows the writer has
+ * overwritten while the copy was running are detected and dropped.</p>
+ */
+public final class TelemetryChannel {
+    private final String name;
+    private final String[] columns;
+    private final int width;
+    private final int mask;            // capacity - 1; capacity is a power of two
+
+    private final long[] times;        // System.nanoTime() per row
+    private final double[] values;     // width values per row
+    private volatile long written = 0; // rows committed so far
+
+    /**
+     * @param name     channel name, e.g. "robot0"
+     * @param capacity rows kept; rounded up to a power of two
+     * @param columns  one name per value in a row
+     */
+    TelemetryChannel(String name, int capacity, String... columns) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        if (columns.length == 0) throw new IllegalArgumentException("Channel needs at least one column");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.name    = name;
+        this.columns = columns.clone();
+        this.width   = columns.length;
+        this.mask    = size - 1;
+        this.times   = new long[size];
+        this.values  = new double[size * width];
+    }
+
+    public String getName()       { return name; }
+    public int getWidth()         { return width; }
+    public int getCapacity()      { return mask + 1; }
+    public String getColumn(int i){ return columns[i]; }
+
+    /** @return rows committed since the channel was created, including ones since overwritten */
+    public long getWritten()      { return written; }
+
+    /**
+     * Sets one value of the pending row. Writer thread only.
+     * @param column column index
+     * @param value  the value
+     */
+    public void put(int column, double value) {
+        values[(int) (written & mask) * width + column] = value;
+    }
+
+    /**
+     * Publishes the pending row. Writer thread only.
+     * @param nanos System.nanoTime() the row was sampled at
+     */
+    public void commit(long nanos) {
+        times[(int) (written & mask)] = nanos;
+        written = written + 1;
+    }
+
+    /**
+     * Copies the most recent rows, oldest first.
+     * @param maxRows   most rows to copy
+     * @param timesOut  receives one timestamp per row; must hold maxRows values
+     * @param valuesOut receives {@link #getWidth()} values per row; must hold maxRows * width values
+     * @return number of rows copied
+     */
+    public int copyLatest(int maxRows, long[] timesOut, double[] valuesOut) {
+        long end = written;
+        long start = Math.max(0, end - Math.min(maxRows, mask + 1));
+        for (long r = start; r < end; r++) {
+            int slot = (int) (r & mask);
+            int out = (int) (r - start);
+            timesOut[out] = times[slot];
+            System.arraycopy(values, slot * width, valuesOut, out * width, width);
+        }
+
+        // The writer fills row `written` in place, so rows up to written - capacity may be torn
+        VarHandle.loadLoadFence();
+        long firstValid = Math.max(start, written - mask);
+        int skip = (int) Math.min(end - start, firstValid - start);
+        int rows = (int) (end - start) - skip;
+        if (skip > 0 && rows > 0) {
+            System.arraycopy(timesOut, skip, timesOut, 0, rows);
+            System.arraycopy(valuesOut, skip * width, valuesOut, 0, rows * width);
+        }
+        return Math.max(0, rows);
+    }
+}
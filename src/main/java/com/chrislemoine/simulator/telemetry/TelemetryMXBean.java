@@ -0,0 +1,34 @@
+package com.chrislemoine.simulator.telemetry;
+
+/**
+ * JMX view of {@link Telemetry}, registered as
+ * {@code com.chrislemoine.simulator:type=Telemetry} so JConsole or
+ * VisualVM can watch a running simulator. Times are in microseconds.
+ */
+public interface TelemetryMXBean {
+    long getTickCount();
+    double getTickMeanMicros();
+    double getTickP99Micros();
+    double getTickMaxMicros();
+
+    long getUpdateCount();
+    double getUpdateMeanMicros();
+    double getUpdateP99Micros();
+    double getUpdateMaxMicros();
+
+    long getPaintCount();
+    double getPaintMeanMicros();
+    double getPaintP99Micros();
+    double getPaintMaxMicros();
+
+    /** @return mean pixels drawn per frame; less than the target when only changed regions are repainted */
+    double getPaintPixelsPerFrame();
+
+    /** @return pixels drawn over pixels in the targets, across all frames */
+    double getPaintAreaFraction();
+
+    String[] getChannelNames();
+
+    /** Clears every histogram; channels keep their history. */
+    void resetHistograms();
+}
@@ -0,0 +1,186 @@
+package com.chrislemoine.simulator.telemetry;
+
+import com.chrislemoine.simulator.core.LatencyHistogram;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link Telemetry} over HTTP on the loopback interface, for a
+ * browser, a plotting script or curl while the simulator runs.
+ * <p> - {@code GET /telemetry}: JSON summary of every histogram and each channel's latest row.</p>
+ * <p> - {@code GET /telemetry/<channel>}: a channel's recent rows as JSON.</p>
+ * <p> - {@code GET /telemetry/<channel>.csv}: the same rows as CSV.</p>
+ * <p> - {@code ?rows=n} limits how many recent rows are returned.</p>
+ * Times are seconds since the telemetry was created; latencies are microseconds.
+ * Requests are handled on one daemon thread, away from physics and rendering.
+ */
+public class TelemetryServer {
+    private static final String PREFIX = "/telemetry";
+
+    private final Telemetry telemetry;
+    private final HttpServer server;
+
+    /**
+     * Binds the server; call {@link #start()} to begin serving.
+     * @param telemetry what to serve
+     * @param port      TCP port on 127.0.0.1, or 0 for any free port
+     */
+    public TelemetryServer(Telemetry telemetry, int port) throws IOException {
+        this.telemetry = telemetry;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PREFIX, this::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "telemetry-http");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /** @return the port actually bound */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            int rows = parseRows(exchange.getRequestURI().getQuery());
+            if (path.equals(PREFIX) || path.equals(PREFIX + "/")) {
+                send(exchange, 200, "application/json", summary());
+                return;
+            }
+
+            String name = path.substring(PREFIX.length() + 1);
+            boolean csv = name.endsWith(".csv");
+            if (csv) name = name.substring(0, name.length() - 4);
+            TelemetryChannel channel = telemetry.getChannel(name);
+            if (channel == null) {
+                send(exchange, 404, "text/plain", "No channel " + name + "\n");
+            } else {
+                send(exchange, 200, csv ? "text/csv" : "application/json", rows(channel, rows, csv));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String summary() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("{\"uptime\":").append(seconds(System.nanoTime()));
+        sb.append(",\"histograms\":{");
+        histogram(sb, "tick", telemetry.getTickTime()).append(',');
+        histogram(sb, "update", telemetry.getUpdateTime()).append(',');
+        histogram(sb, "paint", telemetry.getPaintTime());
+        sb.append("},\"paintArea\":{\"pixelsPerFrame\":").append(number(telemetry.getPaintPixelsPerFrame()))
+          .append(",\"fraction\":").append(number(telemetry.getPaintAreaFraction()));
+        sb.append("},\"channels\":{");
+
+        TelemetryChannel[] channels = telemetry.getChannels();
+        long[] time = new long[1];
+        for (int c = 0; c < channels.length; c++) {
+            TelemetryChannel channel = channels[c];
+            double[] row = new double[channel.getWidth()];
+            boolean any = channel.copyLatest(1, time, row) > 0;
+            if (c > 0) sb.append(',');
+            sb.append('"').append(channel.getName()).append("\":{\"rows\":").append(channel.getWritten());
+            if (any) {
+                sb.append(",\"time\":").append(seconds(time[0]));
+                for (int i = 0; i < row.length; i++) {
+                    sb.append(",\"").append(channel.getColumn(i)).append("\":").append(number(row[i]));
+                }
+            }
+            sb.append('}');
+        }
+        return sb.append("}}\n").toString();
+    }
+
+    private static StringBuilder histogram(StringBuilder sb, String name, LatencyHistogram h) {
+        return sb.append('"').append(name).append("\":{")
+                 .append("\"count\":").append(h.getCount())
+                 .append(",\"mean\":").append(number(h.getMean() / 1e3))
+                 .append(",\"p50\":").append(number(h.getValueAtPercentile(50) / 1e3))
+                 .append(",\"p90\":").append(number(h.getValueAtPercentile(90) / 1e3))
+                 .append(",\"p99\":").append(number(h.getValueAtPercentile(99) / 1e3))
+                 .append(",\"p999\":").append(number(h.getValueAtPercentile(99.9) / 1e3))
+                 .append(",\"max\":").append(number(h.getMax() / 1e3))
+                 .append('}');
+    }
+
+    private String rows(TelemetryChannel channel, int maxRows, boolean csv) {
+        int width = channel.getWidth();
+        int limit = Math.min(maxRows, channel.getCapacity());
+        long[] times = new long[limit];
+        double[] values = new double[limit * width];
+        int n = channel.copyLatest(limit, times, values);
+
+        StringBuilder sb = new StringBuilder(64 + n * width * 12);
+        if (csv) {
+            sb.append("time");
+            for (int i = 0; i < width; i++) sb.append(',').append(channel.getColumn(i));
+            sb.append('\n');
+            for (int r = 0; r < n; r++) {
+                sb.append(seconds(times[r]));
+                for (int i = 0; i < width; i++) sb.append(',').append(number(values[r * width + i]));
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        sb.append("{\"name\":\"").append(channel.getName()).append("\",\"columns\":[\"time\"");
+        for (int i = 0; i < width; i++) sb.append(",\"").append(channel.getColumn(i)).append('"');
+        sb.append("],\"rows\":[");
+        for (int r = 0; r < n; r++) {
+            if (r > 0) sb.append(',');
+            sb.append('[').append(seconds(times[r]));
+            for (int i = 0; i < width; i++) sb.append(',').append(number(values[r * width + i]));
+            sb.append(']');
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    private String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", (nanos - telemetry.getStartNanos()) / 1e9);
+    }
+
+    /** JSON has no NaN or infinity, so those become null. */
+    private static String number(double v) {
+        return Double.isFinite(v) ? String.format(Locale.ROOT, "%.6g", v) : "null";
+    }
+
+    private static int parseRows(String query) {
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("rows=")) {
+                    try {
+                        return Math.max(1, Integer.parseInt(param.substring(5)));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
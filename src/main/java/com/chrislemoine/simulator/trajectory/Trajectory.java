@@ -0,0 +1,168 @@
+package com.chrislemoine.simulator.trajectory;
+
+import com.chrislemoine.simulator.core.SimBot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A compiled, time-parameterized path, ready to be sampled every tick.
+ * <p>Two tables hold everything: the path resampled at even steps of arc
+ * length (pose, unit tangent and heading change per inch), and the motion
+ * profile resampled at even steps of time (distance travelled and speed).
+ * {@link #sample} indexes straight into both, so following a trajectory
+ * costs the same whatever its shape or length, and never allocates.</p>
+ * <p>Instances are immutable and may be shared between any number of
+ * controllers and threads.</p>
+ */
+public final class Trajectory {
+    // Indices into a sample, all in the field frame
+    public static final int X = 0, Y = 1, HEADING = 2, VEL_X = 3, VEL_Y = 4, ANG_VEL = 5;
+    public static final int SAMPLE_SIZE = 6;
+
+    /** Distance between arc-length table entries (inches). */
+    public static final double ARC_STEP = 0.25;
+
+    /** Time between profile table entries (seconds); one tick at 200 Hz. */
+    public static final double TIME_STEP = 0.005;
+
+    // On-disk layout, little-endian: header, then spec, arc table and time table as doubles
+    static final int MAGIC = 0x54435446;   // "FTCT" read little-endian
+    static final short VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int HEADER_BYTES = 40;    // magic, version, reserved, spec/arc/time counts, duration, length
+    private static final int ARC_COLUMNS = 6;
+
+    private final double[] spec;
+    private final double arcStep, duration, length;
+
+    // Arc-length table: index i is at distance i * arcStep
+    private final double[] x, y, heading;     // heading is unwrapped so neighbours interpolate
+    private final double[] tanX, tanY;        // unit tangent
+    private final double[] headingRate;       // heading change per inch
+
+    // Time table: index k is at time k * TIME_STEP
+    private final double[] distance, speed;
+
+    Trajectory(double[] spec, double arcStep, double duration,
+               double[] x, double[] y, double[] heading,
+               double[] tanX, double[] tanY, double[] headingRate,
+               double[] distance, double[] speed) {
+        this.spec        = spec;
+        this.arcStep     = arcStep;
+        this.duration    = duration;
+        this.length      = arcStep * (x.length - 1);
+        this.x           = x;
+        this.y           = y;
+        this.heading     = heading;
+        this.tanX        = tanX;
+        this.tanY        = tanY;
+        this.headingRate = headingRate;
+        this.distance    = distance;
+        this.speed       = speed;
+    }
+
+    /** @return time to drive the whole path (seconds) */
+    public double getDuration() { return duration; }
+
+    /** @return path length (inches) */
+    public double getLength() { return length; }
+
+    /** @return number of entries in the arc-length table */
+    public int getArcSamples() { return x.length; }
+
+    /** @return number of entries in the time table */
+    public int getTimeSamples() { return distance.length; }
+
+    /**
+     * Looks up where the robot should be, and how fast it should be moving, at a given time.
+     * Times before the start or after the end hold the first or last pose at rest.
+     * @param t   seconds since the trajectory started
+     * @param out receives {@link #X} through {@link #ANG_VEL}; must hold {@link #SAMPLE_SIZE} values
+     */
+    public void sample(double t, double[] out) {
+        double s, v;
+        if (t >= duration) {
+            s = length;
+            v = 0;
+        } else {
+            double f = Math.max(0, t) / TIME_STEP;
+            int k = Math.min((int) f, distance.length - 2);
+            double a = f - k;
+            s = distance[k] + (distance[k + 1] - distance[k]) * a;
+            v = speed[k] + (speed[k + 1] - speed[k]) * a;
+        }
+
+        double g = s / arcStep;
+        int i = Math.min((int) g, x.length - 2);
+        double b = g - i;
+        out[X]       = x[i] + (x[i + 1] - x[i]) * b;
+        out[Y]       = y[i] + (y[i + 1] - y[i]) * b;
+        out[HEADING] = SimBot.normalizeAngle(heading[i] + (heading[i + 1] - heading[i]) * b);
+        out[VEL_X]   = v * (tanX[i] + (tanX[i + 1] - tanX[i]) * b);
+        out[VEL_Y]   = v * (tanY[i] + (tanY[i + 1] - tanY[i]) * b);
+        out[ANG_VEL] = v * (headingRate[i] + (headingRate[i + 1] - headingRate[i]) * b);
+    }
+
+    /** @return true if this was compiled from exactly this path and constraints */
+    boolean matches(double[] spec) {
+        return Arrays.equals(this.spec, spec);
+    }
+
+    /** @return bytes {@link #write} needs */
+    int byteSize() {
+        return HEADER_BYTES + Double.BYTES * (spec.length + ARC_COLUMNS * x.length + 2 * distance.length);
+    }
+
+    /**
+     * Serializes the trajectory, spec included so a reader can check what it was compiled from.
+     * @param out buffer with at least {@link #byteSize()} bytes remaining, in {@link #ORDER}
+     */
+    void write(ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putShort((short) 0);
+        out.putInt(spec.length);
+        out.putInt(x.length);
+        out.putInt(distance.length);
+        out.putInt(0);
+        out.putDouble(duration);
+        out.putDouble(length);
+        for (double[] column : new double[][] {spec, x, y, heading, tanX, tanY, headingRate, distance, speed}) {
+            out.asDoubleBuffer().put(column);
+            out.position(out.position() + column.length * Double.BYTES);
+        }
+    }
+
+    /**
+     * Reads a trajectory written by {@link #write}.
+     * @param in buffer positioned at the header, in {@link #ORDER}
+     * @return the trajectory, or null if the data is not a trajectory of this version
+     */
+    static Trajectory read(ByteBuffer in) {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.getShort() != VERSION) return null;
+        in.getShort();
+        int specLength = in.getInt(), arcCount = in.getInt(), timeCount = in.getInt();
+        in.getInt();
+        double duration = in.getDouble();
+        double length = in.getDouble();
+        if (specLength < 0 || arcCount < 2 || timeCount < 2
+                || in.remaining() < (long) Double.BYTES * (specLength + ARC_COLUMNS * arcCount + 2 * timeCount)) {
+            return null;
+        }
+
+        double[] spec = column(in, specLength);
+        double[] x = column(in, arcCount), y = column(in, arcCount), heading = column(in, arcCount);
+        double[] tanX = column(in, arcCount), tanY = column(in, arcCount), rate = column(in, arcCount);
+        double[] distance = column(in, timeCount), speed = column(in, timeCount);
+        return new Trajectory(spec, length / (arcCount - 1), duration, x, y, heading, tanX, tanY, rate, distance, speed);
+    }
+
+    private static double[] column(ByteBuffer in, int n) {
+        double[] values = new double[n];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + n * Double.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,120 @@
+package com.chrislemoine.simulator.trajectory;
+
+import com.chrislemoine.simulator.core.SimBot;
+
+import java.util.Arrays;
+
+/**
+ * Fluent builder for autonomous paths: a start pose, then a chain of line
+ * and spline moves through waypoints, profiled against a robot's constraints.
+ * <p>The robot is holonomic, so the heading at each waypoint is independent
+ * of the direction of travel; it turns from one waypoint's heading to the
+ * next evenly along the distance between them. Splines pass through every
+ * waypoint with a smooth tangent, and meet line moves tangent to the line.</p>
+ * <p>A builder is just a description. {@link #build()} compiles it every
+ * time; {@link TrajectoryCache#get(TrajectoryBuilder)} compiles it once.</p>
+ */
+public class TrajectoryBuilder {
+    // Spec layout: constraints and start pose, then one record per move
+    static final int MAX_VEL = 0, MAX_ACCEL = 1, MAX_ANG_VEL = 2, MAX_ANG_ACCEL = 3;
+    static final int START_X = 4, START_Y = 5, START_HEADING = 6;
+    static final int HEADER = 7;
+    static final int MOVE_SIZE = 4;   // kind, x, y, heading
+    static final double LINE = 0, SPLINE = 1;
+
+    private double[] spec = new double[HEADER + 4 * MOVE_SIZE];
+    private int length = HEADER;
+
+    /**
+     * @param x       starting X position (inches)
+     * @param y       starting Y position (inches)
+     * @param heading starting heading (radians)
+     */
+    public TrajectoryBuilder(double x, double y, double heading) {
+        spec[MAX_VEL]       = 60;
+        spec[MAX_ACCEL]     = 60;
+        spec[MAX_ANG_VEL]   = Math.PI;
+        spec[MAX_ANG_ACCEL] = Math.PI;
+        spec[START_X]       = x;
+        spec[START_Y]       = y;
+        spec[START_HEADING] = heading;
+    }
+
+    /**
+     * Configures the limits the motion profile respects. Defaults match {@code SimBotBuilder}.
+     * @param maxVel      max linear velocity (inches/sec)
+     * @param maxAccel    max linear acceleration (inches/sec^2)
+     * @param maxAngVel   max angular velocity (rad/sec)
+     * @param maxAngAccel max angular acceleration (rad/sec^2)
+     * @return this builder for chaining
+     */
+    public TrajectoryBuilder setConstraints(double maxVel, double maxAccel,
+                                            double maxAngVel, double maxAngAccel) {
+        if (!(maxVel > 0 && maxAccel > 0 && maxAngVel > 0 && maxAngAccel > 0)) {
+            throw new IllegalArgumentException("Constraints must be positive");
+        }
+        spec[MAX_VEL]       = maxVel;
+        spec[MAX_ACCEL]     = maxAccel;
+        spec[MAX_ANG_VEL]   = maxAngVel;
+        spec[MAX_ANG_ACCEL] = maxAngAccel;
+        return this;
+    }
+
+    /**
+     * Profiles against a robot's own limits.
+     * @param bot the robot that will follow the trajectory
+     * @return this builder for chaining
+     */
+    public TrajectoryBuilder setConstraints(SimBot bot) {
+        return setConstraints(bot.getMaxVel(), bot.getMaxAccel(), bot.getMaxAngVel(), bot.getMaxAngAccel());
+    }
+
+    /**
+     * Appends a straight move.
+     * @param x       waypoint X (inches)
+     * @param y       waypoint Y (inches)
+     * @param heading heading on arrival (radians)
+     * @return this builder for chaining
+     */
+    public TrajectoryBuilder lineTo(double x, double y, double heading) {
+        return add(LINE, x, y, heading);
+    }
+
+    /**
+     * Appends a curved move that flows smoothly into the moves either side of it.
+     * @param x       waypoint X (inches)
+     * @param y       waypoint Y (inches)
+     * @param heading heading on arrival (radians)
+     * @return this builder for chaining
+     */
+    public TrajectoryBuilder splineTo(double x, double y, double heading) {
+        return add(SPLINE, x, y, heading);
+    }
+
+    /** @return number of moves appended so far */
+    public int getMoveCount() { return (length - HEADER) / MOVE_SIZE; }
+
+    /**
+     * Compiles the path into a trajectory, without consulting any cache.
+     * @return the compiled trajectory
+     * @throws IllegalArgumentException if there are no moves or a move has zero length
+     */
+    public Trajectory build() {
+        return TrajectoryGenerator.generate(spec());
+    }
+
+    /** @return a copy of the path and constraints, which is what a trajectory is keyed by */
+    double[] spec() {
+        return Arrays.copyOf(spec, length);
+    }
+
+    private TrajectoryBuilder add(double kind, double x, double y, double heading) {
+        if (length + MOVE_SIZE > spec.length) spec = Arrays.copyOf(spec, spec.length * 2);
+        spec[length]     = kind;
+        spec[length + 1] = x;
+        spec[length + 2] = y;
+        spec[length + 3] = heading;
+        length += MOVE_SIZE;
+        return this;
+    }
+}
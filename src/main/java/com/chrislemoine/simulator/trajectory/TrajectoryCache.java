@@ -0,0 +1,153 @@
+package com.chrislemoine.simulator.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles each distinct trajectory once, then keeps it in memory and on disk.
+ * <p>Trajectories are keyed by a hash of their path and constraints, together
+ * with the table resolution and file version, so changing any of them simply
+ * misses. Each file also carries the full spec it was compiled from and is
+ * only used if that matches exactly. Files are written to a temporary name
+ * and moved into place, so concurrent runs sharing a directory never see a
+ * partial file.</p>
+ * <p>Safe to share between threads: a batch of jobs asking for the same
+ * trajectory at once compiles or loads it once and all share the result.</p>
+ */
+public class TrajectoryCache {
+    private static final String EXTENSION = ".ftctraj";
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, Trajectory> memory = new ConcurrentHashMap<>();
+    private final AtomicLong memoryHits = new AtomicLong(), diskHits = new AtomicLong(), compiles = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+
+    /**
+     * @param directory where compiled trajectories are stored; created on first write
+     */
+    public TrajectoryCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** @return {@code ~/.ftcsim/trajectories} */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".ftcsim", "trajectories");
+    }
+
+    /**
+     * Returns the compiled trajectory for a path, compiling it only if neither
+     * memory nor disk has it.
+     * @param builder the path and constraints; not modified
+     * @return the compiled trajectory
+     */
+    public Trajectory get(TrajectoryBuilder builder) {
+        double[] spec = builder.spec();
+        String key = key(spec);
+        boolean[] found = {true};
+        Trajectory trajectory = memory.computeIfAbsent(key, k -> {
+            found[0] = false;
+            return loadOrCompile(k, spec);
+        });
+        if (!trajectory.matches(spec)) {
+            // Hash collision: correct, just not cached
+            return compile(spec);
+        }
+        if (found[0]) memoryHits.incrementAndGet();
+        return trajectory;
+    }
+
+    // Cache statistics since construction
+    public long getMemoryHits()        { return memoryHits.get(); }
+    public long getDiskHits()          { return diskHits.get(); }
+    public long getCompiles()          { return compiles.get(); }
+    public double getCompileSeconds()  { return compileNanos.get() / 1e9; }
+
+    /** @return e.g. "12 compiled (3.4 ms), 40 loaded from disk, 900 shared" */
+    @Override
+    public String toString() {
+        return String.format("%d compiled (%.1f ms), %d loaded from disk, %d shared",
+                getCompiles(), getCompileSeconds() * 1e3, getDiskHits(), getMemoryHits());
+    }
+
+    private Trajectory loadOrCompile(String key, double[] spec) {
+        Path file = directory.resolve(key + EXTENSION);
+        Trajectory trajectory = load(file);
+        if (trajectory != null && trajectory.matches(spec)) {
+            diskHits.incrementAndGet();
+            return trajectory;
+        }
+        trajectory = compile(spec);
+        store(file, trajectory);
+        return trajectory;
+    }
+
+    private Trajectory compile(double[] spec) {
+        long start = System.nanoTime();
+        Trajectory trajectory = TrajectoryGenerator.generate(spec);
+        compileNanos.addAndGet(System.nanoTime() - start);
+        compiles.incrementAndGet();
+        return trajectory;
+    }
+
+    private static Trajectory load(Path file) {
+        try {
+            return Trajectory.read(ByteBuffer.wrap(Files.readAllBytes(file)).order(Trajectory.ORDER));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read trajectory " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void store(Path file, Trajectory trajectory) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            ByteBuffer buffer = ByteBuffer.allocate(trajectory.byteSize()).order(Trajectory.ORDER);
+            trajectory.write(buffer);
+            buffer.flip();
+
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not cache trajectory " + file + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /** SHA-256 of the spec and everything else that shapes the compiled tables, as 32 hex digits. */
+    private static String key(double[] spec) {
+        ByteBuffer bytes = ByteBuffer.allocate(Double.BYTES * (spec.length + 3));
+        bytes.putDouble(Trajectory.VERSION);
+        bytes.putDouble(Trajectory.ARC_STEP);
+        bytes.putDouble(Trajectory.TIME_STEP);
+        for (double d : spec) bytes.putDouble(d);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.array());
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+}
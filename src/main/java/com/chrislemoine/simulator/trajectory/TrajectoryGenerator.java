@@ -0,0 +1,222 @@
+package com.chrislemoine.simulator.trajectory;
+
+import com.chrislemoine.simulator.core.SimBot;
+
+import static com.chrislemoine.simulator.trajectory.TrajectoryBuilder.*;
+
+/**
+ * Compiles a {@link TrajectoryBuilder} spec into a {@link Trajectory}.
+ * <p>Each move is a cubic Hermite curve between its waypoints. Arc length is
+ * measured per move with Gauss-Legendre quadrature over a fine parameter
+ * grid, then the whole path is resampled at even steps of distance. The
+ * motion profile is solved on that grid: a speed limit per entry from
+ * maxVel, curvature and heading rate, a forward pass under the acceleration
+ * limit, a backward pass for braking, and finally a resample at even steps
+ * of time.</p>
+ * <p>The drivetrain accelerates in the robot's own frame, so what limits
+ * speed through a curve is how fast the direction of travel turns relative
+ * to the robot: curvature minus heading rate. A robot turning to face along
+ * a curve can take it at full speed; one holding its heading cannot.</p>
+ * <p>Heading eases from one waypoint's value to the next with a smoothstep
+ * in distance, so the robot stops turning at every waypoint instead of
+ * snapping from one turn rate to another there.</p>
+ */
+final class TrajectoryGenerator {
+    private static final int SUBSTEPS = 64;   // parameter steps per move for arc-length measurement
+    private static final double[] GAUSS_NODES   = {-Math.sqrt(0.6), 0, Math.sqrt(0.6)};
+    private static final double[] GAUSS_WEIGHTS = {5.0 / 9, 8.0 / 9, 5.0 / 9};
+
+    private TrajectoryGenerator() {}
+
+    static Trajectory generate(double[] spec) {
+        int moves = (spec.length - HEADER) / MOVE_SIZE;
+        if (moves == 0) throw new IllegalArgumentException("Trajectory needs at least one move");
+
+        // Waypoints, with headings unwrapped so each move turns the short way
+        double[] px = new double[moves + 1], py = new double[moves + 1], ph = new double[moves + 1];
+        px[0] = spec[START_X];
+        py[0] = spec[START_Y];
+        ph[0] = spec[START_HEADING];
+        for (int m = 0; m < moves; m++) {
+            int o = HEADER + m * MOVE_SIZE;
+            px[m + 1] = spec[o + 1];
+            py[m + 1] = spec[o + 2];
+            ph[m + 1] = ph[m] + SimBot.normalizeAngle(spec[o + 3] - ph[m]);
+            if (Math.hypot(px[m + 1] - px[m], py[m + 1] - py[m]) < 1e-6) {
+                throw new IllegalArgumentException("Move " + m + " has zero length");
+            }
+        }
+
+        // Cubic coefficients per move: x(u) = ((ax u + bx) u + cx) u + dx, likewise y
+        double[] coef = new double[moves * 8];
+        for (int m = 0; m < moves; m++) {
+            double chord = Math.hypot(px[m + 1] - px[m], py[m + 1] - py[m]);
+            double[] t0 = tangent(spec, px, py, m, m, chord);
+            double[] t1 = tangent(spec, px, py, m + 1, m, chord);
+            hermite(coef, 8 * m,     px[m], px[m + 1], t0[0], t1[0]);
+            hermite(coef, 8 * m + 4, py[m], py[m + 1], t0[1], t1[1]);
+        }
+
+        // Cumulative arc length at every parameter substep
+        double[] substepS = new double[moves * SUBSTEPS + 1];
+        double[] moveStart = new double[moves + 1];
+        for (int m = 0; m < moves; m++) {
+            for (int j = 0; j < SUBSTEPS; j++) {
+                int n = m * SUBSTEPS + j;
+                substepS[n + 1] = substepS[n] + arcLength(coef, m, (double) j / SUBSTEPS, (double) (j + 1) / SUBSTEPS);
+            }
+            moveStart[m + 1] = substepS[(m + 1) * SUBSTEPS];
+        }
+        double length = moveStart[moves];
+
+        // Resample at even steps of distance
+        int arcCount = Math.max(3, (int) Math.ceil(length / Trajectory.ARC_STEP) + 1);
+        double ds = length / (arcCount - 1);
+        double[] x = new double[arcCount], y = new double[arcCount], heading = new double[arcCount];
+        double[] tanX = new double[arcCount], tanY = new double[arcCount];
+        double[] rate = new double[arcCount], rateChange = new double[arcCount], curvature = new double[arcCount];
+        int n = 0;
+        for (int i = 0; i < arcCount; i++) {
+            double s = i == arcCount - 1 ? length : i * ds;
+            while (n < moves * SUBSTEPS - 1 && substepS[n + 1] < s) n++;
+            int m = n / SUBSTEPS;
+            double span = substepS[n + 1] - substepS[n];
+            double frac = span > 0 ? (s - substepS[n]) / span : 0;
+            double u = (n - m * SUBSTEPS + Math.max(0, Math.min(1, frac))) / SUBSTEPS;
+
+            int cx = 8 * m, cy = cx + 4;
+            double dx = derivative(coef, cx, u), dy = derivative(coef, cy, u);
+            double ddx = second(coef, cx, u), ddy = second(coef, cy, u);
+            double speed = Math.hypot(dx, dy);
+            double moveLength = moveStart[m + 1] - moveStart[m];
+            double turn = ph[m + 1] - ph[m];
+            double tau = Math.max(0, Math.min(1, (s - moveStart[m]) / moveLength));
+
+            x[i]          = value(coef, cx, u);
+            y[i]          = value(coef, cy, u);
+            tanX[i]       = dx / speed;
+            tanY[i]       = dy / speed;
+            curvature[i]  = (dx * ddy - dy * ddx) / (speed * speed * speed);
+            heading[i]    = ph[m] + turn * tau * tau * (3 - 2 * tau);
+            rate[i]       = turn * 6 * tau * (1 - tau) / moveLength;
+            rateChange[i] = turn * (6 - 12 * tau) / (moveLength * moveLength);
+        }
+
+        double[] v = profile(spec, ds, curvature, rate, rateChange);
+
+        // Time at each arc entry, treating acceleration as constant between entries
+        double[] t = new double[arcCount];
+        for (int i = 0; i + 1 < arcCount; i++) t[i + 1] = t[i] + 2 * ds / (v[i] + v[i + 1]);
+        double duration = t[arcCount - 1];
+
+        // Resample at even steps of time
+        int timeCount = Math.max(2, (int) Math.ceil(duration / Trajectory.TIME_STEP) + 1);
+        double[] distance = new double[timeCount], speed = new double[timeCount];
+        int i = 0;
+        for (int k = 0; k < timeCount; k++) {
+            double tk = k * Trajectory.TIME_STEP;
+            if (tk >= duration) {
+                distance[k] = length;
+                continue;
+            }
+            while (i < arcCount - 2 && t[i + 1] <= tk) i++;
+            double tau = tk - t[i];
+            double accel = (v[i + 1] * v[i + 1] - v[i] * v[i]) / (2 * ds);
+            distance[k] = Math.min(i * ds + v[i] * tau + 0.5 * accel * tau * tau, (i + 1) * ds);
+            speed[k]    = Math.max(0, v[i] + accel * tau);
+        }
+
+        return new Trajectory(spec, ds, duration, x, y, heading, tanX, tanY, rate, distance, speed);
+    }
+
+    /**
+     * Speed at every arc entry: the limit from maxVel, relative curvature and
+     * heading rate, capped by accelerating from rest at the start and braking to rest at the end.
+     * Angular acceleration has two sources, speeding up along a turn and the
+     * turn rate itself changing, and each is given half of maxAngAccel.
+     */
+    private static double[] profile(double[] spec, double ds, double[] curvature,
+                                    double[] rate, double[] rateChange) {
+        int n = curvature.length;
+        double[] limit = new double[n], accel = new double[n], v = new double[n];
+        for (int i = 0; i < n; i++) {
+            double k = Math.abs(curvature[i] - rate[i]), r = Math.abs(rate[i]), dr = Math.abs(rateChange[i]);
+            limit[i] = spec[MAX_VEL];
+            accel[i] = spec[MAX_ACCEL];
+            if (k > 1e-9) limit[i] = Math.min(limit[i], Math.sqrt(spec[MAX_ACCEL] / k));
+            if (r > 1e-9) {
+                limit[i] = Math.min(limit[i], spec[MAX_ANG_VEL] / r);
+                accel[i] = Math.min(accel[i], 0.5 * spec[MAX_ANG_ACCEL] / r);
+            }
+            if (dr > 1e-9) limit[i] = Math.min(limit[i], Math.sqrt(0.5 * spec[MAX_ANG_ACCEL] / dr));
+        }
+
+        v[0] = 0;
+        for (int i = 0; i + 1 < n; i++) {
+            v[i + 1] = Math.min(limit[i + 1], Math.sqrt(v[i] * v[i] + 2 * accel[i] * ds));
+        }
+        v[n - 1] = 0;
+        for (int i = n - 2; i >= 0; i--) {
+            v[i] = Math.min(v[i], Math.sqrt(v[i + 1] * v[i + 1] + 2 * accel[i] * ds));
+        }
+        return v;
+    }
+
+    /**
+     * Tangent at waypoint w for move m, scaled to the move's chord. The ends
+     * of the path and both ends of a line point along the chord; where a
+     * spline meets a line it takes the line's direction; between two splines
+     * it points from the previous waypoint to the next.
+     */
+    private static double[] tangent(double[] spec, double[] px, double[] py, int w, int m, double chord) {
+        double dx, dy;
+        if (kind(spec, m) == LINE || w == 0 || w == px.length - 1) {
+            dx = px[m + 1] - px[m];
+            dy = py[m + 1] - py[m];
+        } else {
+            int other = w == m ? m - 1 : m + 1;   // the neighbouring move sharing waypoint w
+            if (kind(spec, other) == LINE) {
+                dx = px[other + 1] - px[other];
+                dy = py[other + 1] - py[other];
+            } else {
+                dx = px[w + 1] - px[w - 1];
+                dy = py[w + 1] - py[w - 1];
+            }
+        }
+        double scale = chord / Math.hypot(dx, dy);
+        return new double[] {dx * scale, dy * scale};
+    }
+
+    private static double kind(double[] spec, int move) {
+        return spec[HEADER + move * MOVE_SIZE];
+    }
+
+    private static void hermite(double[] coef, int o, double p0, double p1, double m0, double m1) {
+        coef[o]     = 2 * p0 + m0 - 2 * p1 + m1;
+        coef[o + 1] = -3 * p0 - 2 * m0 + 3 * p1 - m1;
+        coef[o + 2] = m0;
+        coef[o + 3] = p0;
+    }
+
+    private static double value(double[] c, int o, double u) {
+        return ((c[o] * u + c[o + 1]) * u + c[o + 2]) * u + c[o + 3];
+    }
+
+    private static double derivative(double[] c, int o, double u) {
+        return (3 * c[o] * u + 2 * c[o + 1]) * u + c[o + 2];
+    }
+
+    private static double second(double[] c, int o, double u) {
+        return 6 * c[o] * u + 2 * c[o + 1];
+    }
+
+    /** Length of move m between parameters u0 and u1, by 3-point Gauss-Legendre. */
+    private static double arcLength(double[] coef, int m, double u0, double u1) {
+        double half = 0.5 * (u1 - u0), mid = 0.5 * (u1 + u0), sum = 0;
+        for (int q = 0; q < GAUSS_NODES.length; q++) {
+            double u = mid + half * GAUSS_NODES[q];
+            sum += GAUSS_WEIGHTS[q] * Math.hypot(derivative(coef, 8 * m, u), derivative(coef, 8 * m + 4, u));
+        }
+        return sum * half;
+    }
+}
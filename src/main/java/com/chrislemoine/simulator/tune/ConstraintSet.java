@@ -0,0 +1,98 @@
+package com.chrislemoine.simulator.tune;
+
+import com.chrislemoine.simulator.core.SimBotBuilder;
+
+import java.util.Arrays;
+
+/**
+ * The four motion limits {@link SimBotBuilder#setConstraints} takes, as one
+ * immutable value, rounded to a fixed resolution per limit.
+ * <p>Rounding makes configurations that differ by less than anyone could
+ * feel on a robot equal, so the tuner's memo recognizes them and never
+ * simulates both.</p>
+ */
+public final class ConstraintSet {
+    /** Number of limits. */
+    public static final int DIMENSIONS = 4;
+
+    /** Index of each limit in {@link #get(int)} and {@link #toArray()}. */
+    public static final int MAX_VEL = 0, MAX_ACCEL = 1, MAX_ANG_VEL = 2, MAX_ANG_ACCEL = 3;
+
+    /** Short names, in index order. */
+    public static final String[] NAMES = {"maxVel", "maxAccel", "maxAngVel", "maxAngAccel"};
+
+    // Smallest step kept per limit: in/s, in/s^2, rad/s, rad/s^2
+    private static final double[] RESOLUTION = {0.5, 1.0, 0.05, 0.05};
+
+    private final double[] values;
+
+    /**
+     * @param maxVel      max linear velocity (inches/sec)
+     * @param maxAccel    max linear acceleration (inches/sec^2)
+     * @param maxAngVel   max angular velocity (rad/sec)
+     * @param maxAngAccel max angular acceleration (rad/sec^2)
+     */
+    public ConstraintSet(double maxVel, double maxAccel, double maxAngVel, double maxAngAccel) {
+        this(new double[]{maxVel, maxAccel, maxAngVel, maxAngAccel});
+    }
+
+    private ConstraintSet(double[] values) {
+        this.values = new double[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            double v = values[i];
+            if (!(v > 0) || Double.isInfinite(v)) {
+                throw new IllegalArgumentException(NAMES[i] + " must be positive and finite: " + v);
+            }
+            // At least one step, so a limit never rounds to zero
+            this.values[i] = Math.max(1, Math.round(v / RESOLUTION[i])) * RESOLUTION[i];
+        }
+    }
+
+    /**
+     * @param values the limits in index order
+     * @return the limits, rounded
+     */
+    public static ConstraintSet of(double[] values) {
+        if (values.length != DIMENSIONS) {
+            throw new IllegalArgumentException("Expected " + DIMENSIONS + " limits, not " + values.length);
+        }
+        return new ConstraintSet(values);
+    }
+
+    public double getMaxVel()      { return values[MAX_VEL]; }
+    public double getMaxAccel()    { return values[MAX_ACCEL]; }
+    public double getMaxAngVel()   { return values[MAX_ANG_VEL]; }
+    public double getMaxAngAccel() { return values[MAX_ANG_ACCEL]; }
+
+    /** @return the limit at an index, e.g. {@link #MAX_VEL} */
+    public double get(int i) { return values[i]; }
+
+    /** @return a copy of the limits in index order */
+    public double[] toArray() { return values.clone(); }
+
+    /** @return the smallest step kept for the limit at an index */
+    public static double getResolution(int i) { return RESOLUTION[i]; }
+
+    /**
+     * @param builder the robot to limit
+     * @return the builder, for chaining
+     */
+    public SimBotBuilder applyTo(SimBotBuilder builder) {
+        return builder.setConstraints(values[MAX_VEL], values[MAX_ACCEL], values[MAX_ANG_VEL], values[MAX_ANG_ACCEL]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ConstraintSet && Arrays.equals(values, ((ConstraintSet) o).values);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(values); }
+
+    /** @return e.g. "v62.5_a180_w4.20_aw12.00", the naming BatchMain uses */
+    @Override
+    public String toString() {
+        return String.format("v%.1f_a%.0f_w%.2f_aw%.2f",
+                values[MAX_VEL], values[MAX_ACCEL], values[MAX_ANG_VEL], values[MAX_ANG_ACCEL]);
+    }
+}
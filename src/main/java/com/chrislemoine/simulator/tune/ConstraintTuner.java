@@ -0,0 +1,278 @@
+package com.chrislemoine.simulator.tune;
+
+import com.chrislemoine.simulator.core.BatchEngine;
+import com.chrislemoine.simulator.core.BatchJob;
+import com.chrislemoine.simulator.core.BatchResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Searches robot constraints for the ones that drive a {@link Course}
+ * fastest, by grid search with refinement.
+ * <p>Each round lays a grid of {@code gridPoints} values per limit over the
+ * current search box and runs every configuration on it as one batch on the
+ * {@link BatchEngine}'s work-stealing pool. The next round's box is centered
+ * on the best configuration found so far and reaches one grid step either
+ * side of it, or half as far as the last box if that is less, so even a
+ * coarse grid refines. It stops shrinking at the resolution of
+ * {@link ConstraintSet}.</p>
+ * <p>Every result is memoized by configuration, so grid points shared
+ * between rounds (the best one, at least) are never simulated twice.</p>
+ * <p>The cost of a run is the time it took to reach the course's target,
+ * plus {@code contactPenalty} seconds for each second spent touching a wall
+ * or field structure. A run that never gets there costs its full length;
+ * that, and any run not stopped at the target, is also charged
+ * {@link #MISS_SECONDS_PER_INCH} for every inch it finished from it.</p>
+ * <p>Not thread-safe: call from one thread. The runs of a round are what
+ * run in parallel.</p>
+ */
+public class ConstraintTuner {
+    /** Values tried per limit each round, unless set otherwise. */
+    public static final int DEFAULT_GRID_POINTS = 5;
+
+    /** Seconds of cost per second in contact, unless set otherwise. */
+    public static final double DEFAULT_CONTACT_PENALTY = 10.0;
+
+    /** Seconds of cost per inch a run finished from its target, unless stopped there. */
+    public static final double MISS_SECONDS_PER_INCH = 0.1;
+
+    private static final int DIMENSIONS = ConstraintSet.DIMENSIONS;
+
+    // Largest fraction of a box's half-width the next round's may keep
+    private static final double MAX_SHRINK = 0.5;
+
+    private final BatchEngine engine;
+    private final Course course;
+    private final double[] lower, upper;
+    private final int gridPoints;
+    private double contactPenalty = DEFAULT_CONTACT_PENALTY;
+
+    private final Map<ConstraintSet, Evaluation> memo = new HashMap<>();
+    private final double[] center = new double[DIMENSIONS], halfSpan = new double[DIMENSIONS];
+    private Evaluation best;
+    private int rounds;
+    private long evaluations, memoHits;
+    private double evaluationSeconds;
+
+    /** One configuration's run and what it cost. */
+    public static final class Evaluation {
+        private final ConstraintSet constraints;
+        private final BatchResult result;
+        private final double cost;
+
+        Evaluation(ConstraintSet constraints, BatchResult result, double cost) {
+            this.constraints = constraints;
+            this.result      = result;
+            this.cost        = cost;
+        }
+
+        public ConstraintSet getConstraints() { return constraints; }
+        public BatchResult getResult()        { return result; }
+        public double getCost()               { return cost; }
+    }
+
+    /** What one round tried and found. */
+    public static final class Round {
+        private final int index;
+        private final int candidates, evaluated, memoHits;
+        private final double wallSeconds, simSeconds;
+        private final int parallelism;
+        private final Evaluation roundBest, best;
+        private final double[] halfSpan;
+
+        Round(int index, int candidates, int evaluated, int memoHits, double wallSeconds, double simSeconds,
+              int parallelism, Evaluation roundBest, Evaluation best, double[] halfSpan) {
+            this.index       = index;
+            this.candidates  = candidates;
+            this.evaluated   = evaluated;
+            this.memoHits    = memoHits;
+            this.wallSeconds = wallSeconds;
+            this.simSeconds  = simSeconds;
+            this.parallelism = parallelism;
+            this.roundBest   = roundBest;
+            this.best        = best;
+            this.halfSpan    = halfSpan;
+        }
+
+        /** @return 1 for the first round */
+        public int getIndex()           { return index; }
+        public int getCandidates()      { return candidates; }
+        public int getEvaluated()       { return evaluated; }
+        public int getMemoHits()        { return memoHits; }
+        public double getWallSeconds()  { return wallSeconds; }
+        public double getSimSeconds()   { return simSeconds; }
+
+        /** @return best configuration on this round's grid */
+        public Evaluation getRoundBest() { return roundBest; }
+
+        /** @return best configuration found so far */
+        public Evaluation getBest()     { return best; }
+
+        /** @return half the width of the box the round searched, per limit */
+        public double getHalfSpan(int i) { return halfSpan[i]; }
+
+        /** @return runs simulated per wall second per worker thread */
+        public double getEvaluationsPerCoreSecond() {
+            return wallSeconds > 0 ? evaluated / wallSeconds / parallelism : 0;
+        }
+    }
+
+    /**
+     * @param engine     runs each round's configurations in parallel
+     * @param course     the drive to score configurations on
+     * @param lower      smallest value of each limit to try
+     * @param upper      largest value of each limit to try
+     * @param gridPoints values tried per limit each round, at least 2
+     */
+    public ConstraintTuner(BatchEngine engine, Course course, ConstraintSet lower, ConstraintSet upper,
+                           int gridPoints) {
+        if (gridPoints < 2) throw new IllegalArgumentException("gridPoints must be at least 2: " + gridPoints);
+        this.engine     = engine;
+        this.course     = course;
+        this.lower      = lower.toArray();
+        this.upper      = upper.toArray();
+        this.gridPoints = gridPoints;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (this.lower[d] > this.upper[d]) {
+                throw new IllegalArgumentException(ConstraintSet.NAMES[d] + " range is empty: "
+                        + this.lower[d] + " > " + this.upper[d]);
+            }
+            center[d]   = (this.lower[d] + this.upper[d]) / 2;
+            halfSpan[d] = (this.upper[d] - this.lower[d]) / 2;
+        }
+    }
+
+    /**
+     * @param secondsPerSecond seconds of cost per second a run spends touching a wall or structure
+     * @return this tuner for chaining
+     */
+    public ConstraintTuner setContactPenalty(double secondsPerSecond) {
+        if (secondsPerSecond < 0) throw new IllegalArgumentException("Penalty must not be negative: " + secondsPerSecond);
+        this.contactPenalty = secondsPerSecond;
+        return this;
+    }
+
+    /**
+     * Runs one round: every configuration on the grid over the current box,
+     * then narrows the box around the best so far.
+     * @return what the round tried and found
+     */
+    public Round step() {
+        long start = System.nanoTime();
+
+        // One axis of grid values per limit, over the box clipped to the bounds
+        double[][] axes = new double[DIMENSIONS][gridPoints];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double lo = Math.max(lower[d], center[d] - halfSpan[d]);
+            double hi = Math.min(upper[d], center[d] + halfSpan[d]);
+            for (int k = 0; k < gridPoints; k++) axes[d][k] = lo + (hi - lo) * k / (gridPoints - 1);
+        }
+
+        // Rounding can merge neighboring grid points once the box gets small
+        Set<ConstraintSet> candidates = new LinkedHashSet<>();
+        double[] values = new double[DIMENSIONS];
+        for (int n = 0, total = (int) Math.pow(gridPoints, DIMENSIONS); n < total; n++) {
+            for (int d = 0, rest = n; d < DIMENSIONS; d++, rest /= gridPoints) values[d] = axes[d][rest % gridPoints];
+            candidates.add(ConstraintSet.of(values));
+        }
+
+        List<ConstraintSet> fresh = new ArrayList<>();
+        List<BatchJob> jobs = new ArrayList<>();
+        int hits = 0;
+        for (ConstraintSet c : candidates) {
+            if (memo.containsKey(c)) {
+                hits++;
+            } else {
+                fresh.add(c);
+                jobs.add(course.createJob(c));
+            }
+        }
+        List<BatchResult> results = engine.run(jobs);
+        double simSeconds = 0;
+        for (int i = 0; i < results.size(); i++) {
+            BatchResult r = results.get(i);
+            memo.put(fresh.get(i), new Evaluation(fresh.get(i), r, cost(jobs.get(i), r)));
+            simSeconds += r.getSimSeconds();
+        }
+
+        Evaluation roundBest = null;
+        for (ConstraintSet c : candidates) {
+            Evaluation e = memo.get(c);
+            if (roundBest == null || e.getCost() < roundBest.getCost()) roundBest = e;
+        }
+        if (best == null || roundBest.getCost() < best.getCost()) best = roundBest;
+
+        // Next box: one grid step either side of the best so far, and at most half as wide;
+        // a step alone would never shrink a grid of 3 points and would grow one of 2
+        double[] searched = halfSpan.clone();
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double step = (axes[d][gridPoints - 1] - axes[d][0]) / (gridPoints - 1);
+            center[d]   = best.getConstraints().get(d);
+            halfSpan[d] = Math.max(Math.min(step, MAX_SHRINK * searched[d]), ConstraintSet.getResolution(d));
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        rounds++;
+        evaluations += jobs.size();
+        memoHits += hits;
+        evaluationSeconds += seconds;
+        return new Round(rounds, candidates.size(), jobs.size(), hits, seconds, simSeconds,
+                         engine.getParallelism(), roundBest, best, searched);
+    }
+
+    /**
+     * @return true once the box is down to the limits' resolution, where
+     *         further rounds would only find configurations already tried
+     */
+    public boolean isConverged() {
+        if (rounds == 0) return false;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (halfSpan[d] > ConstraintSet.getResolution(d)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param job    the run, for its target
+     * @param result how it went
+     * @return seconds to the target, plus penalties
+     */
+    public double cost(BatchJob job, BatchResult result) {
+        double cost = result.reachedTarget() ? result.getTimeToTarget() : result.getSimSeconds();
+        if (!result.reachedTarget() || !job.isStopAtTarget()) {
+            cost += MISS_SECONDS_PER_INCH * Math.hypot(
+                    result.getFinalX() - job.getTargetX(), result.getFinalY() - job.getTargetY());
+        }
+        return cost + contactPenalty * result.getWallContacts() * engine.getDt();
+    }
+
+    /** @return the cheapest configuration so far, or null before the first round */
+    public Evaluation getBest() { return best; }
+
+    /**
+     * @param n how many
+     * @return the n cheapest configurations tried, cheapest first
+     */
+    public List<Evaluation> getBest(int n) {
+        List<Evaluation> all = new ArrayList<>(memo.values());
+        // Ties go to the one step() settled on
+        all.sort(Comparator.comparingDouble(Evaluation::getCost).thenComparing(e -> e != best));
+        return all.subList(0, Math.min(n, all.size()));
+    }
+
+    public int getRounds()                { return rounds; }
+    public long getEvaluations()          { return evaluations; }
+    public long getMemoHits()             { return memoHits; }
+    public double getEvaluationSeconds()  { return evaluationSeconds; }
+
+    /** @return runs simulated per wall second per worker thread, over every round */
+    public double getEvaluationsPerCoreSecond() {
+        return evaluationSeconds > 0 ? evaluations / evaluationSeconds / engine.getParallelism() : 0;
+    }
+}
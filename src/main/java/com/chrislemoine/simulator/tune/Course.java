@@ -0,0 +1,20 @@
+package com.chrislemoine.simulator.tune;
+
+import com.chrislemoine.simulator.core.BatchJob;
+
+/**
+ * A drive that robot constraints are scored on: a scripted stick sequence,
+ * a trajectory, or a recorded run, finishing at a target point.
+ * <p>The tuner calls {@link #createJob} once per configuration it tries and
+ * runs the jobs on a {@link com.chrislemoine.simulator.core.BatchEngine}, so
+ * a course must build a fresh, independent job every time.</p>
+ */
+@FunctionalInterface
+public interface Course {
+    /**
+     * @param constraints the limits to drive with
+     * @return a run of the course with a target set; walls or field
+     *         structures set if contacts should count against it
+     */
+    BatchJob createJob(ConstraintSet constraints);
+}
@@ -0,0 +1,262 @@
+package com.chrislemoine.simulator.ui;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes image resources once, off the calling thread, and keeps them
+ * ready to draw.
+ * <p> - Decoding runs on a small pool of daemon threads; callers get a
+ * {@link CompletableFuture} and never block unless they choose to.</p>
+ * <p> - Asking for an image that is already being decoded shares that
+ * decode instead of starting another.</p>
+ * <p> - Decoded images are converted to the screen's native pixel format,
+ * so drawing them never needs a per-pixel format conversion.</p>
+ * <p> - Images are kept least-recently-used first, evicted once their
+ * decoded size passes a byte budget. A field background is 4096x4096, or
+ * 64 MB decoded, so the budget matters.</p>
+ * <p> - Previews are decoded with subsampling, so a thumbnail costs a
+ * fraction of the time and almost none of the memory of the full image.</p>
+ * <p>Safe to share between threads. {@link #shared()} is the instance the
+ * settings dialog, window sizing and field views all use.</p>
+ */
+public class AssetCache {
+    /** Decoded bytes kept by {@link #shared()}: two full-size backgrounds and change. */
+    public static final long DEFAULT_MAX_BYTES = 160L << 20;
+
+    private static final AssetCache SHARED = new AssetCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final ExecutorService executor;
+
+    // Guarded by this
+    private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<BufferedImage>> loading = new HashMap<>();
+    private long bytes = 0;
+    private int hits = 0, decodes = 0, evictions = 0;
+    private long decodeNanos = 0;
+
+    /**
+     * @param maxBytes decoded bytes to keep before evicting the least recently used image
+     */
+    public AssetCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+        AtomicInteger threads = new AtomicInteger();
+        int size = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        this.executor = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "asset-loader-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** @return the cache shared by the whole application */
+    public static AssetCache shared() { return SHARED; }
+
+    /**
+     * Starts decoding a background at full size, or returns it if already decoded or underway.
+     * @param background the theme to load
+     * @return completes with the image, or exceptionally if it could not be read
+     */
+    public CompletableFuture<BufferedImage> load(Background background) {
+        return load(background.getPath());
+    }
+
+    /**
+     * Starts decoding a resource at full size, or returns it if already decoded or underway.
+     * @param path classpath resource, e.g. {@code /background/misc/field-grid-gray.jpg}, or image file
+     * @return completes with the image, or exceptionally if it could not be read
+     */
+    public CompletableFuture<BufferedImage> load(String path) {
+        return get(path, path, 0);
+    }
+
+    /**
+     * Starts decoding a small copy of a background for previews.
+     * @param background the theme to preview
+     * @param maxSize    longest side of the preview (pixels)
+     * @return completes with the preview, or exceptionally if it could not be read
+     */
+    public CompletableFuture<BufferedImage> loadPreview(Background background, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        String path = background.getPath();
+        return get(path + "@" + maxSize, path, maxSize);
+    }
+
+    /**
+     * Reads an image's dimensions from its header, without decoding any pixels.
+     * @param background the theme to measure
+     * @return width and height (pixels)
+     */
+    public static Dimension readSize(Background background) throws IOException {
+        try (ImageInputStream in = open(background.getPath())) {
+            ImageReader reader = readerFor(in, background.getPath());
+            try {
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** @return decoded bytes currently held */
+    public synchronized long getBytes() { return bytes; }
+
+    /** @return e.g. "3 decoded (1210 ms), 5 shared, 0 evicted, 129 MB held" */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d decoded (%d ms), %d shared, %d evicted, %d MB held",
+                decodes, decodeNanos / 1_000_000, hits, evictions, bytes >> 20);
+    }
+
+    private synchronized CompletableFuture<BufferedImage> get(String key, String path, int maxSize) {
+        BufferedImage image = images.get(key);
+        if (image != null) {
+            hits++;
+            return CompletableFuture.completedFuture(image);
+        }
+        CompletableFuture<BufferedImage> pending = loading.get(key);
+        if (pending != null) {
+            hits++;
+            return pending;
+        }
+
+        CompletableFuture<BufferedImage> future = CompletableFuture.supplyAsync(() -> decode(path, maxSize), executor);
+        loading.put(key, future);
+        future.whenComplete((decoded, error) -> finish(key, decoded));
+        return future;
+    }
+
+    /** Moves a finished decode into the cache and evicts down to the budget. */
+    private synchronized void finish(String key, BufferedImage image) {
+        loading.remove(key);
+        if (image == null) return;
+        images.put(key, image);
+        bytes += sizeOf(image);
+
+        // Never evict the image just added, even if it alone is over budget
+        Iterator<Map.Entry<String, BufferedImage>> eldest = images.entrySet().iterator();
+        while (bytes > maxBytes && images.size() > 1) {
+            bytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Decodes a resource, subsampling on read when only a small copy is
+     * wanted, and converts it to the screen's pixel format. Loader threads only.
+     */
+    private BufferedImage decode(String path, int maxSize) {
+        long start = System.nanoTime();
+        BufferedImage image;
+        try (ImageInputStream in = open(path)) {
+            ImageReader reader = readerFor(in, path);
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                int w = reader.getWidth(0), h = reader.getHeight(0);
+                int step = maxSize > 0 ? Math.max(1, Math.max(w, h) / maxSize) : 1;
+                param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + path + ": " + e.getMessage(), e);
+        }
+
+        // Subsampling gets within a factor of two; finish the job with a proper filter
+        double scale = maxSize > 0 ? Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight())) : 1.0;
+        image = toCompatible(image, (int) Math.round(image.getWidth() * scale), (int) Math.round(image.getHeight() * scale));
+
+        synchronized (this) {
+            decodes++;
+            decodeNanos += System.nanoTime() - start;
+        }
+        return image;
+    }
+
+    /** Opens a classpath resource, or failing that a file, e.g. a user field's own background. */
+    private static ImageInputStream open(String path) throws IOException {
+        InputStream stream = AssetCache.class.getResourceAsStream(path);
+        if (stream == null) {
+            Path file = Paths.get(path);
+            if (!Files.isRegularFile(file)) throw new IOException("No such resource or file: " + path);
+            stream = Files.newInputStream(file);
+        }
+        ImageInputStream in = ImageIO.createImageInputStream(stream);
+        if (in == null) {
+            stream.close();
+            throw new IOException("Cannot read: " + path);
+        }
+        return in;
+    }
+
+    private static ImageReader readerFor(ImageInputStream in, String path) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) throw new IOException("Not a supported image: " + path);
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    /**
+     * Copies an image into the default screen's native format (or a packed
+     * int format when headless) at the given size. Returns the source itself
+     * if it is already in that format and size.
+     */
+    private static BufferedImage toCompatible(BufferedImage src, int w, int h) {
+        int transparency = src.getColorModel().getTransparency();
+        BufferedImage dst;
+        if (GraphicsEnvironment.isHeadless()) {
+            int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+            if (src.getType() == type && src.getWidth() == w && src.getHeight() == h) return src;
+            dst = new BufferedImage(w, h, type);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            if (src.getColorModel().equals(gc.getColorModel(transparency))
+                    && src.getWidth() == w && src.getHeight() == h) {
+                return src;
+            }
+            dst = gc.createCompatibleImage(w, h, transparency);
+        }
+
+        Graphics2D g2 = dst.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setComposite(AlphaComposite.Src);
+            g2.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g2.dispose();
+        }
+        return dst;
+    }
+
+    /** @return bytes the image's pixels occupy; a 24-bit color model still stores 4 per pixel in an int */
+    private static long sizeOf(BufferedImage image) {
+        // Only reads the buffer's size, so the image stays eligible for acceleration
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+}
@@ -1,23 +1,49 @@
 package com.chrislemoine.simulator.ui;
 
+import java.util.Objects;
+
 /**
- * Available FTC field background themes.
- * Each constant maps to a PNG under /resources/background/.
+ * A field background image: a display name and where the image lives.
+ * <p>Built-in backgrounds are classpath resources under /background/;
+ * those listed by user field definitions may be files instead. Field
+ * definitions ({@link com.chrislemoine.simulator.field.FieldDefinition})
+ * list the backgrounds each field can be drawn with.</p>
  */
-public enum Background {
-    /** Last  */
-    FIELD_INTO_THE_DEEP_JUICE_DARK("season-2024-intothedeep/field-2024-juice-dark.png"),
+public final class Background {
+    /** The default Into The Deep field, dark theme. */
+    public static final Background FIELD_INTO_THE_DEEP_JUICE_DARK =
+            new Background("Juice Dark", "/background/season-2024-intothedeep/field-2024-juice-dark.png");
 
-    FIELD_INTO_THE_DEEP_JUICE_LIGHT("season-2024-intothedeep/field-2024-juice-light.png");
+    /** The default Into The Deep field, light theme. */
+    public static final Background FIELD_INTO_THE_DEEP_JUICE_LIGHT =
+            new Background("Juice Light", "/background/season-2024-intothedeep/field-2024-juice-light.png");
 
-    private final String filename;
+    private final String name;
+    private final String path;
 
-    Background(String filename) {
-        this.filename = filename;
+    /**
+     * @param name display name, e.g. "Juice Dark"
+     * @param path classpath resource, e.g. {@code /background/misc/field-grid-gray.jpg}, or image file
+     */
+    public Background(String name, String path) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.path = Objects.requireNonNull(path, "path");
     }
 
-    /** @return the file name in /background/ to load for this theme */
-    public String getFilename() {
-        return filename;
+    /** @return display name */
+    public String getName() { return name; }
+
+    /** @return the classpath resource or file to load, for {@link AssetCache} */
+    public String getPath() { return path; }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Background && ((Background) o).path.equals(path);
     }
+
+    @Override
+    public int hashCode() { return path.hashCode(); }
+
+    @Override
+    public String toString() { return name; }
 }
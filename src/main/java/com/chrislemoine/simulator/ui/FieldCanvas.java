@@ -0,0 +1,181 @@
+package com.chrislemoine.simulator.ui;
+
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.LoopStats;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.field.FieldDefinition;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Active-rendering alternative to {@link FieldPanel}: a dedicated render
+ * thread draws into a {@link BufferStrategy} and flips it, bypassing the
+ * Swing RepaintManager and the EDT entirely.
+ * <p>Frame pacing follows the {@link RenderMode}: a fixed FPS cap, uncapped,
+ * or paced to the display's refresh rate. An overlay shows frame time, the
+ * measured physics rate and dropped frames.</p>
+ */
+public class FieldCanvas extends Canvas implements FieldView {
+    private static final int FALLBACK_REFRESH_HZ = 60;
+
+    private final FieldRenderer renderer;
+    private final RenderMode mode;
+    private final int fpsCap;
+
+    private volatile boolean running = false;
+    private Thread renderThread;
+    private volatile LoopStats loopStats;
+
+    /**
+     * @param world            the robots to render
+     * @param backgroundChoice the selected background theme
+     * @param alliance         the alliance the field is viewed from (Red or Blue)
+     * @param mode             one of the active render modes
+     * @param fpsCap           frame rate limit for {@link RenderMode#ACTIVE_CAPPED} (frames/sec)
+     */
+    public FieldCanvas(World world, Background backgroundChoice, Alliance alliance,
+                       RenderMode mode, int fpsCap) {
+        this(world, backgroundChoice, alliance, FieldDefinition.DEFAULT_SIZE, mode, fpsCap);
+    }
+
+    /**
+     * @param world            the robots to render
+     * @param backgroundChoice the selected background theme
+     * @param alliance         the alliance the field is viewed from (Red or Blue)
+     * @param fieldSize        side of the field the background shows (inches)
+     * @param mode             one of the active render modes
+     * @param fpsCap           frame rate limit for {@link RenderMode#ACTIVE_CAPPED} (frames/sec)
+     */
+    public FieldCanvas(World world, Background backgroundChoice, Alliance alliance, double fieldSize,
+                       RenderMode mode, int fpsCap) {
+        if (!mode.isActive()) throw new IllegalArgumentException("Not an active render mode: " + mode);
+        if (mode == RenderMode.ACTIVE_CAPPED && fpsCap <= 0) {
+            throw new IllegalArgumentException("fpsCap must be positive: " + fpsCap);
+        }
+        this.renderer = new FieldRenderer(world, backgroundChoice, alliance, fieldSize);
+        this.mode     = mode;
+        this.fpsCap   = fpsCap;
+
+        // Frames are driven by the render thread; keep keyboard focus on the window
+        setIgnoreRepaint(true);
+        setFocusable(false);
+    }
+
+    /**
+     * Creates the buffer strategy and starts the render thread.
+     * The canvas must already be displayable (its window shown).
+     */
+    @Override
+    public void startRendering(PoseSnapshot snapshot, LoopStats stats) {
+        if (running) return;
+        renderer.setPoseSnapshot(snapshot);
+        loopStats = stats;
+
+        // Triple buffer when uncapped so drawing never waits on a flip
+        createBufferStrategy(mode == RenderMode.ACTIVE_UNCAPPED ? 3 : 2);
+
+        running = true;
+        renderThread = new Thread(this::renderLoop, "simulator-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    @Override
+    public void setTelemetry(Telemetry telemetry) {
+        renderer.setTelemetry(telemetry);
+    }
+
+    @Override
+    public void setHistory(FieldHistory history) {
+        renderer.setHistory(history);
+    }
+
+    @Override
+    public void setOverlayMode(OverlayMode mode) {
+        renderer.setOverlayMode(mode);
+    }
+
+    @Override
+    public OverlayMode getOverlayMode() { return renderer.getOverlayMode(); }
+
+    @Override
+    public CompletableFuture<Long> firstFrame() { return renderer.firstFrame(); }
+
+    @Override
+    public void stopRendering() {
+        running = false;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+            try {
+                renderThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** @return refresh rate of the screen this canvas is on, or 60 Hz if unknown */
+    private int displayRefreshHz() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            int hz = gc.getDevice().getDisplayMode().getRefreshRate();
+            if (hz != DisplayMode.REFRESH_RATE_UNKNOWN && hz > 0) return hz;
+        }
+        return FALLBACK_REFRESH_HZ;
+    }
+
+    /**
+     * Draws and flips frames until stopped, parking between frames when capped.
+     */
+    private void renderLoop() {
+        int refreshHz = displayRefreshHz();
+        long periodNanos;
+        switch (mode) {
+            case ACTIVE_CAPPED: periodNanos = 1_000_000_000L / fpsCap; break;
+            case ACTIVE_VSYNC:  periodNanos = 1_000_000_000L / refreshHz; break;
+            default:            periodNanos = 0; break;
+        }
+        // Uncapped frames are judged against the display refresh for the dropped count
+        FrameStats frameStats = new FrameStats(periodNanos > 0 ? periodNanos : 1_000_000_000L / refreshHz);
+        BufferStrategy strategy = getBufferStrategy();
+        Toolkit toolkit = Toolkit.getDefaultToolkit();
+
+        long nextFrame = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            frameStats.frame(now, loopStats);
+
+            // Standard BufferStrategy loop: redraw until the contents survive the flip
+            do {
+                do {
+                    Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        renderer.render(g2, getWidth(), getHeight(), getGraphicsConfiguration(), getBackground());
+                        frameStats.paint(g2);
+                    } finally {
+                        g2.dispose();
+                    }
+                } while (strategy.contentsRestored() && running);
+                strategy.show();
+            } while (strategy.contentsLost() && running);
+
+            // Push the flip out now rather than whenever the window system batches it
+            toolkit.sync();
+
+            if (periodNanos > 0) {
+                nextFrame += periodNanos;
+                long wait = nextFrame - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (-wait > periodNanos) {
+                    nextFrame = System.nanoTime();   // too far behind; don't burst to catch up
+                }
+            }
+        }
+    }
+}
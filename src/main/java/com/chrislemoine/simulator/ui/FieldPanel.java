@@ -1,154 +1,125 @@
 package com.chrislemoine.simulator.ui;
 
-import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.LoopStats;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.field.FieldDefinition;
+import com.chrislemoine.simulator.telemetry.Telemetry;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Swing panel responsible for rendering the FTC field and a basic robot
- * <p> - Draws a background image while preserving its aspect ratio.</p>
+ * Swing panel responsible for rendering the FTC field and every robot on it
+ * <p> - Draws a background image while preserving its aspect ratio, cached per panel size.</p>
  * <p> - flids the field 180 degrees for Blue alliance.</p>
- * <p> - Centers and scales the robot to the FTC 144" coordinate system.</p>
- * <p> - Renders the robot body in a custom semi-transparent red.</p>
- * <p> - Draws wheels in a darker red.</p>
+ * <p> - Centers and scales the robots to the field's coordinate system (144" for FTC).</p>
+ * <p> - Renders each robot body in a semi-transparent alliance color.</p>
+ * <p> - Draws wheels in a darker shade.</p>
  * <p> - Draws a direction marker and thin black outline.</p>
+ *
+ * Every 16 ms a Swing timer asks for a repaint of only what changed since
+ * the last frame, usually the boxes around each moving robot where it was
+ * and where it is now, rather than the whole panel; telemetry reports the
+ * pixels filled per frame. See {@link FieldCanvas} for the active-rendering
+ * alternative, which redraws everything.
  */
-public class FieldPanel extends JPanel {
-    private final SimBot robot;
-    private final Background backgroundChoice;
-    private final Alliance alliance;
-    private BufferedImage backgroundImage;
+public class FieldPanel extends JPanel implements FieldView {
+    private final FieldRenderer renderer;
+    private Timer repaintTimer;
 
     /**
-     * @param robot            the SimBot model to render
+     * @param world            the robots to render
      * @param backgroundChoice the selected background theme
-     * @param alliance         the selected alliance (Red or Blue)
+     * @param alliance         the alliance the field is viewed from (Red or Blue)
      */
-    public FieldPanel(SimBot robot, Background backgroundChoice, Alliance alliance) {
-        this.robot = robot;
-        this.backgroundChoice = backgroundChoice;
-        this.alliance = alliance;
-        loadBackgroundImage();
+    public FieldPanel(World world, Background backgroundChoice, Alliance alliance) {
+        this(world, backgroundChoice, alliance, FieldDefinition.DEFAULT_SIZE);
     }
 
     /**
-     * Loads the background image from resources or sets to null on failure.
+     * @param world            the robots to render
+     * @param backgroundChoice the selected background theme
+     * @param alliance         the alliance the field is viewed from (Red or Blue)
+     * @param fieldSize        side of the field the background shows (inches)
      */
-    private void loadBackgroundImage() {
-        try {
-            String path = "/background/" + backgroundChoice.getFilename();
-            backgroundImage = ImageIO.read(getClass().getResource(path));
-        } catch (Exception e) {
-            backgroundImage = null;
-            System.err.println("Failed to load background: " + backgroundChoice.getFilename());
-        }
+    public FieldPanel(World world, Background backgroundChoice, Alliance alliance, double fieldSize) {
+        this.renderer = new FieldRenderer(world, backgroundChoice, alliance, fieldSize);
     }
 
     /**
-     * Paints the background (aspect-ratio preserved) and the robot visuals.
+     * Renders from an interpolated pose snapshot instead of reading the robots' live fields.
+     * @param snapshot pose source written by the physics thread, or null to read the robots directly
      */
+    public void setPoseSnapshot(PoseSnapshot snapshot) {
+        renderer.setPoseSnapshot(snapshot);
+    }
+
     @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
+    public void setTelemetry(Telemetry telemetry) {
+        renderer.setTelemetry(telemetry);
+    }
 
-        // Save the original transform for restoration
-        AffineTransform orig = g2.getTransform();
+    @Override
+    public void setHistory(FieldHistory history) {
+        renderer.setHistory(history);
+    }
 
-        // Rotate background for Blue alliance
-        if (alliance == Alliance.BlUE) {
-            double pw = getWidth();
-            double ph = getHeight();
-            g2.rotate(Math.PI, pw / 2.0, ph / 2.0);
-        }
+    @Override
+    public void setOverlayMode(OverlayMode mode) {
+        renderer.setOverlayMode(mode);
+    }
 
-        // Draw the selected background image or fallback to grey
-        if (backgroundImage != null) {
-            int imgW = backgroundImage.getWidth();
-            int imgH = backgroundImage.getHeight();
-            double panelW = getWidth();
-            double panelH = getHeight();
-
-            double scaleX = panelW / imgW;
-            double scaleY = panelH / imgH;
-            double scaleImage = Math.min(scaleX, scaleY);
-
-            int drawW = (int)(imgW * scaleImage);
-            int drawH = (int)(imgH * scaleImage);
-            int x = (int)((panelW - drawW) / 2);
-            int y = (int)((panelH - drawH) / 2);
-
-            g2.drawImage(backgroundImage, x, y, drawW, drawH, null);
-        } else {
-            g2.setColor(Color.GRAY);
-            g2.fillRect(0, 0, getWidth(), getHeight());
-        }
+    @Override
+    public OverlayMode getOverlayMode() { return renderer.getOverlayMode(); }
 
-        // Enable antialiasing for smooth lines
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                            RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Transform to FTC coordinates (144" field)
-        double panelMin = Math.min(getWidth(), getHeight());
-        double scale = panelMin / 144.0;
-        g2.translate(getWidth() / 2.0, getHeight() / 2.0);
-        g2.scale(scale, -scale);
-
-        g2.translate(robot.getX(), robot.getY());
-        g2.rotate(robot.getHeading());
-
-        // Body
-        double w = robot.getWidth();
-        double h = robot.getLength();
-        if (alliance == Alliance.BlUE) {
-            Color bodyColor = new Color(46, 49, 146, 200);
-            g2.setColor(bodyColor);
-        } else if (alliance == Alliance.RED){
-            Color bodyColor = new Color(237, 28, 36, 200);
-            g2.setColor(bodyColor);
-        }
-        Rectangle2D.Double bodyRect = new Rectangle2D.Double(-w/2,-h/2, w, h);
-        g2.fill(bodyRect);
-
-        // Wheels
-        double wheelH = 2.0;
-        double wheelW = 4.0;
-
-        if (alliance == Alliance.BlUE) {
-            Color wheelColor = new Color(23, 25, 73, 200);
-            g2.setColor(wheelColor);
-        } else if (alliance == Alliance.RED) {
-            Color wheelColor = new Color(119, 13, 18, 200);
-            g2.setColor(wheelColor);
+    @Override
+    public CompletableFuture<Long> firstFrame() { return renderer.firstFrame(); }
+
+    /**
+     * Forces the cached background layer to be rebuilt on the next paint,
+     * e.g. after the theme or alliance changes.
+     */
+    public void invalidateBackground() {
+        renderer.invalidateBackground();
+    }
+
+    /**
+     * Starts the Swing timer that repaints every 16 ms.
+     */
+    @Override
+    public void startRendering(PoseSnapshot snapshot, LoopStats stats) {
+        setPoseSnapshot(snapshot);
+        if (repaintTimer == null) {
+            repaintTimer = new Timer(16, e -> {
+                Rectangle changed = prepareFrame();
+                if (!changed.isEmpty()) repaint(changed);
+            });
         }
+        repaintTimer.start();
+    }
 
-        // frontLeft
-        Rectangle2D.Double fl = new Rectangle2D.Double(w/2 - wheelW - 1, h/2 - wheelH - 1, wheelW, wheelH);
-        g2.fill(fl);
-        // frontRight
-        Rectangle2D.Double fr = new Rectangle2D.Double(w/2 - wheelW - 1, -h/2 + 1, wheelW, wheelH);
-        g2.fill(fr);
-        // rearLeft
-        Rectangle2D.Double rl = new Rectangle2D.Double(-w/2 + 1, h/2 - wheelH - 1, wheelW, wheelH);
-        g2.fill(rl);
-        // rearRight
-        Rectangle2D.Double rr = new Rectangle2D.Double(-w/2 + 1, -h/2 + 1, wheelW, wheelH);
-        g2.fill(rr);
-
-        // Direction Marker
-        double dirH = h / 3;
-        double dirW = w * 0.05;
-
-        Rectangle2D.Double dir = new Rectangle2D.Double(dirH / 2, -dirW / 2, dirH, dirW);
-        g2.fill(dir);
-
-        g2.setStroke(new BasicStroke((float)(1.0 / scale)));
-        g2.draw(bodyRect);
+    @Override
+    public void stopRendering() {
+        if (repaintTimer != null) repaintTimer.stop();
+    }
 
+    /**
+     * Samples the robots for the next frame.
+     * @return the part of the panel that frame changes, empty if none; reused by the next call
+     */
+    protected Rectangle prepareFrame() {
+        return renderer.prepare(getWidth(), getHeight(), getGraphicsConfiguration());
+    }
+
+    /**
+     * Paints the background (aspect-ratio preserved) and the robot visuals
+     * of the last prepared frame, within the clip Swing gives.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        renderer.paint((Graphics2D) g, getWidth(), getHeight(), getGraphicsConfiguration(), getBackground());
     }
 }
@@ -0,0 +1,383 @@
+package com.chrislemoine.simulator.ui;
+
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.MatchClock;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.World;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Draws the field and every robot in the world into any Graphics2D, in one
+ * pass, independent of the component that hosts it. Shared by {@link FieldPanel} (passive Swing
+ * painting) and {@link FieldCanvas} (active rendering).
+ * <p> - Draws a background image while preserving its aspect ratio, cached per target size.
+ *       The image decodes in the background; until it arrives, frames show the robots on a plain fill.</p>
+ * <p> - Flips the field 180 degrees for Blue alliance.</p>
+ * <p> - Centers and scales each robot to the field's coordinate system (144" for FTC), tinted by its alliance.</p>
+ * <p> - Overlays robot trails or an occupancy heatmap beneath the robots, if asked to.</p>
+ * <p> - Shows the match clock, if the world has one.</p>
+ * <p>A frame is composited from layers: the cached background, the history
+ * overlay, then the robots and clock drawn fresh. {@link #prepare} fixes
+ * the poses for the next frame and works out which pixels it changes: where
+ * each robot was drawn and where it will be, new trail segments, and the
+ * clock when its text changes. A host that repaints only that region gets a
+ * frame identical to a full one, since {@link #paint} honors the clip and
+ * skips robots outside it.</p>
+ * <p>Not thread-safe: each host draws from a single thread.</p>
+ */
+class FieldRenderer {
+    private static final Font CLOCK_FONT = new Font(Font.MONOSPACED, Font.BOLD, 18);
+    private static final int CLOCK_STRIP = 40;   // pixels, before the clock's real height is known
+
+    private final World world;
+    private final Background backgroundChoice;
+    private final Alliance alliance;
+    private final double fieldSize;
+    private final CompletableFuture<BufferedImage> backgroundLoad;
+    private BufferedImage backgroundImage;
+    private boolean backgroundSettled = false;   // decoded or failed; either way the layer is final
+    private final CompletableFuture<Long> firstFrame = new CompletableFuture<>();
+
+    // Background pre-scaled (and pre-rotated for Blue) to the target size; rebuilt on resize
+    private BufferedImage backgroundCache;
+    private GraphicsConfiguration cacheConfig;
+
+    // Interpolated pose source published by the physics thread; null = read the robots directly
+    private volatile PoseSnapshot poseSnapshot;
+    private volatile Telemetry telemetry;
+    private volatile FieldHistory history;
+    private final HistoryOverlay historyOverlay;
+    private double[] poses = new double[0];
+    private double[] shownPoses = new double[0];   // as of the previous frame
+    private boolean prepared;
+
+    // One painter per robot, built on first use since footprints can differ, and where each was last placed
+    private RobotPainter[] robotPainters = new RobotPainter[0];
+    private Rectangle[] robotBounds = new Rectangle[0];
+
+    // Region the prepared frame changes, and what the previous frame was prepared for
+    private final Rectangle dirty = new Rectangle();
+    private final Rectangle scratch = new Rectangle();
+    private final Rectangle clip = new Rectangle();
+    private int preparedW, preparedH;
+    private boolean fullRepaint = true;
+
+    // Clock text, rebuilt only when the displayed second or phase changes, and the strip it occupies
+    private String clockText = "";
+    private long clockKey = Long.MIN_VALUE;
+    private long preparedClockKey = Long.MIN_VALUE;
+    private int clockBottom = CLOCK_STRIP;
+
+    /**
+     * @param world            the robots to render
+     * @param backgroundChoice the selected background theme
+     * @param alliance         the alliance the field is viewed from (Red or Blue)
+     * @param fieldSize        side of the field the background shows (inches)
+     */
+    FieldRenderer(World world, Background backgroundChoice, Alliance alliance, double fieldSize) {
+        if (!(fieldSize > 0)) throw new IllegalArgumentException("fieldSize must be positive: " + fieldSize);
+        this.world = world;
+        this.backgroundChoice = backgroundChoice;
+        this.alliance = alliance;
+        this.fieldSize = fieldSize;
+        this.historyOverlay = new HistoryOverlay(world, alliance == Alliance.BlUE, fieldSize);
+        this.backgroundLoad = AssetCache.shared().load(backgroundChoice);
+    }
+
+    void setPoseSnapshot(PoseSnapshot snapshot) {
+        this.poseSnapshot = snapshot;
+    }
+
+    void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    void setHistory(FieldHistory history) {
+        this.history = history;
+    }
+
+    void setOverlayMode(OverlayMode mode) {
+        historyOverlay.setMode(mode);
+    }
+
+    OverlayMode getOverlayMode() { return historyOverlay.getMode(); }
+
+    /** Forces the cached background layer to be rebuilt, and the whole target redrawn, on the next frame. */
+    void invalidateBackground() {
+        backgroundCache = null;
+        fullRepaint = true;
+    }
+
+    /** @return completes with System.nanoTime() of the first frame drawn with the field background in place */
+    CompletableFuture<Long> firstFrame() { return firstFrame; }
+
+    /**
+     * Picks up the background image once its decode finishes, without waiting for it.
+     * @return true if the background just became final and the layer must be rebuilt
+     */
+    private boolean pollBackground() {
+        if (backgroundSettled || !backgroundLoad.isDone()) return false;
+        backgroundSettled = true;
+        backgroundCache = null;
+        try {
+            backgroundImage = backgroundLoad.join();
+        } catch (RuntimeException e) {
+            backgroundImage = null;
+            System.err.println("Failed to load background: " + backgroundChoice.getPath());
+        }
+        return true;
+    }
+
+    /**
+     * Draws one complete frame covering the whole target.
+     * @param g2   target graphics
+     * @param w    target width (pixels)
+     * @param h    target height (pixels)
+     * @param gc   configuration of the destination, or null if offscreen
+     * @param fill color behind the field image
+     */
+    void render(Graphics2D g2, int w, int h, GraphicsConfiguration gc, Color fill) {
+        prepare(w, h, gc);
+        paint(g2, w, h, gc, fill);
+    }
+
+    /**
+     * Fixes the poses the next {@link #paint} draws and works out which
+     * pixels differ from the frame before.
+     * @param w  target width (pixels)
+     * @param h  target height (pixels)
+     * @param gc configuration of the destination, or null if offscreen
+     * @return the region to redraw, in target pixels; empty if nothing changed.
+     *         Reused by the next call, so copy it to keep it.
+     */
+    Rectangle prepare(int w, int h, GraphicsConfiguration gc) {
+        dirty.setBounds(0, 0, 0, 0);
+        if (w <= 0 || h <= 0) return dirty;
+
+        int n = world.size();
+        if (robotPainters.length != n) createPainters(n);
+        samplePoses(n);
+        prepared = true;
+
+        // Robot coordinates are flipped along with the field for Blue alliance
+        boolean flipped = alliance == Alliance.BlUE;
+        for (int i = 0; i < n; i++) {
+            int p = 3 * i;
+            if (poses[p] == shownPoses[p] && poses[p + 1] == shownPoses[p + 1] && poses[p + 2] == shownPoses[p + 2]) {
+                continue;
+            }
+            robotPainters[i].bounds(w, h, flipped, poses[p], poses[p + 1], poses[p + 2], scratch);
+            union(dirty, robotBounds[i]);
+            union(dirty, scratch);
+            robotBounds[i].setBounds(scratch);
+            shownPoses[p]     = poses[p];
+            shownPoses[p + 1] = poses[p + 1];
+            shownPoses[p + 2] = poses[p + 2];
+        }
+        historyOverlay.update(w, h, gc, history, dirty);
+
+        MatchClock clock = world.getMatchClock();
+        long key = clock != null ? clockKey(clock) : Long.MIN_VALUE;
+        if (key != preparedClockKey) {
+            union(dirty, 0, 0, w, clockBottom);
+            preparedClockKey = key;
+        }
+
+        if (pollBackground() || fullRepaint || w != preparedW || h != preparedH) {
+            // Robot bounds scale with the target, so place every robot afresh
+            for (int i = 0; i < n; i++) {
+                int p = 3 * i;
+                robotPainters[i].bounds(w, h, flipped, poses[p], poses[p + 1], poses[p + 2], robotBounds[i]);
+            }
+            dirty.setBounds(0, 0, w, h);
+            fullRepaint = false;
+            preparedW = w;
+            preparedH = h;
+        }
+        return dirty;
+    }
+
+    /**
+     * Draws the frame last prepared, within the target's clip.
+     * @param g2   target graphics, clipped to the region to redraw if not all of it
+     * @param w    target width (pixels)
+     * @param h    target height (pixels)
+     * @param gc   configuration of the destination, or null if offscreen
+     * @param fill color behind the field image
+     */
+    void paint(Graphics2D g2, int w, int h, GraphicsConfiguration gc, Color fill) {
+        if (w <= 0 || h <= 0) return;
+        if (!prepared || w != preparedW || h != preparedH) prepare(w, h, gc);
+        Telemetry telemetry = this.telemetry;
+        long start = telemetry != null ? System.nanoTime() : 0;
+
+        clip.setBounds(0, 0, w, h);
+        g2.getClipBounds(clip);
+        int clipX0 = Math.max(0, clip.x), clipY0 = Math.max(0, clip.y);
+        int clipX1 = Math.min(w, clip.x + clip.width), clipY1 = Math.min(h, clip.y + clip.height);
+        if (clipX1 <= clipX0 || clipY1 <= clipY0) return;
+        clip.setBounds(clipX0, clipY0, clipX1 - clipX0, clipY1 - clipY0);
+
+        // The cached layer covers the whole target, so no need to clear first
+        g2.drawImage(getBackgroundLayer(w, h, gc, fill), 0, 0, null);
+        historyOverlay.paint(g2);
+
+        // Enable antialiasing for smooth lines
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                            RenderingHints.VALUE_ANTIALIAS_ON);
+
+        boolean flipped = alliance == Alliance.BlUE;
+        for (int i = 0; i < robotPainters.length; i++) {
+            if (!robotBounds[i].intersects(clip)) continue;
+            robotPainters[i].paint(g2, w, h, world.getAlliance(i), flipped,
+                                   poses[3 * i], poses[3 * i + 1], poses[3 * i + 2]);
+        }
+
+        MatchClock clock = world.getMatchClock();
+        if (clock != null && clip.y < clockBottom) paintClock(g2, clock, w);
+        if (telemetry != null) {
+            telemetry.recordPaint(System.nanoTime() - start);
+            telemetry.recordPaintArea((long) clip.width * clip.height, (long) w * h);
+        }
+        if (backgroundSettled && !firstFrame.isDone()) firstFrame.complete(System.nanoTime());
+    }
+
+    /**
+     * Grows a region to cover a rectangle, treating an empty region as nothing
+     * rather than as a point at its corner.
+     */
+    static void union(Rectangle region, int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) return;
+        if (region.isEmpty()) {
+            region.setBounds(x, y, w, h);
+        } else {
+            region.add(x, y);
+            region.add(x + w, y + h);
+        }
+    }
+
+    private static void union(Rectangle region, Rectangle r) {
+        union(region, r.x, r.y, r.width, r.height);
+    }
+
+    private void samplePoses(int n) {
+        PoseSnapshot snapshot = poseSnapshot;
+        if (snapshot != null && snapshot.getRobotCount() == n) {
+            snapshot.sample(System.nanoTime(), poses);
+        } else {
+            for (int i = 0; i < n; i++) {
+                SimBot bot = world.getRobot(i);
+                poses[3 * i]     = bot.getX();
+                poses[3 * i + 1] = bot.getY();
+                poses[3 * i + 2] = bot.getHeading();
+            }
+        }
+    }
+
+    private void createPainters(int n) {
+        robotPainters = new RobotPainter[n];
+        for (int i = 0; i < n; i++) {
+            SimBot bot = world.getRobot(i);
+            robotPainters[i] = new RobotPainter(bot.getWidth(), bot.getLength(), fieldSize);
+        }
+        robotBounds = new Rectangle[n];
+        for (int i = 0; i < n; i++) robotBounds[i] = new Rectangle();
+        poses = new double[3 * n];
+        shownPoses = new double[3 * n];
+        fullRepaint = true;   // robots were added or removed
+    }
+
+    /**
+     * Draws the match clock centered at the top of the field.
+     */
+    private void paintClock(Graphics2D g2, MatchClock clock, int w) {
+        long key = clockKey(clock);
+        if (key != clockKey) {
+            clockText = clock.toString();
+            clockKey = key;
+        }
+        g2.setFont(CLOCK_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        int textW = fm.stringWidth(clockText);
+        int x = (w - textW) / 2;
+        g2.setColor(Color.BLACK);
+        g2.fillRect(x - 6, 4, textW + 12, fm.getHeight() + 4);
+        g2.setColor(clock.isEndgame() ? Color.ORANGE : Color.WHITE);
+        g2.drawString(clockText, x, 6 + fm.getAscent());
+        clockBottom = fm.getHeight() + 8;
+    }
+
+    /** @return a value that changes exactly when the clock's text or color does */
+    private static long clockKey(MatchClock clock) {
+        return (long) Math.ceil(clock.getPhaseRemaining()) * 8 + clock.getPhase().ordinal() * 2
+                + (clock.isEndgame() ? 1 : 0);
+    }
+
+    /**
+     * Returns the background layer for the given size, rebuilding it only
+     * when the size or graphics configuration has changed, or the image has arrived.
+     */
+    private BufferedImage getBackgroundLayer(int w, int h, GraphicsConfiguration gc, Color fill) {
+        if (backgroundCache == null
+                || backgroundCache.getWidth() != w
+                || backgroundCache.getHeight() != h
+                || cacheConfig != gc) {
+            backgroundCache = renderBackgroundLayer(w, h, gc, fill);
+            cacheConfig = gc;
+        }
+        return backgroundCache;
+    }
+
+    /**
+     * Scales (aspect-ratio preserved) and, for Blue alliance, rotates the field
+     * image once into an opaque image in the screen's native pixel format.
+     */
+    private BufferedImage renderBackgroundLayer(int panelW, int panelH, GraphicsConfiguration gc, Color fill) {
+        BufferedImage layer = gc != null
+                ? gc.createCompatibleImage(panelW, panelH, Transparency.OPAQUE)
+                : new BufferedImage(panelW, panelH, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = layer.createGraphics();
+        try {
+            g2.setColor(fill);
+            g2.fillRect(0, 0, panelW, panelH);
+
+            // Rotate background for Blue alliance
+            if (alliance == Alliance.BlUE) {
+                g2.rotate(Math.PI, panelW / 2.0, panelH / 2.0);
+            }
+
+            // Draw the selected background image, nothing while it decodes, or fallback to grey
+            if (backgroundImage != null) {
+                int imgW = backgroundImage.getWidth();
+                int imgH = backgroundImage.getHeight();
+
+                double scaleX = (double) panelW / imgW;
+                double scaleY = (double) panelH / imgH;
+                double scaleImage = Math.min(scaleX, scaleY);
+
+                int drawW = (int)(imgW * scaleImage);
+                int drawH = (int)(imgH * scaleImage);
+                int x = (panelW - drawW) / 2;
+                int y = (panelH - drawH) / 2;
+
+                // Quality hints are affordable here since this only runs on resize
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.setRenderingHint(RenderingHints.KEY_RENDERING,
+                                    RenderingHints.VALUE_RENDER_QUALITY);
+                g2.drawImage(backgroundImage, x, y, drawW, drawH, null);
+            } else if (backgroundSettled) {
+                g2.setColor(Color.GRAY);
+                g2.fillRect(0, 0, panelW, panelH);
+            }
+        } finally {
+            g2.dispose();
+        }
+        return layer;
+    }
+}
@@ -0,0 +1,47 @@
+package com.chrislemoine.simulator.ui;
+
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.LoopStats;
+import com.chrislemoine.simulator.core.PoseSnapshot;
+import com.chrislemoine.simulator.telemetry.Telemetry;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A component that draws the field on its own schedule, reading poses
+ * published by the physics thread.
+ */
+public interface FieldView {
+    /**
+     * Begins drawing frames.
+     * @param snapshot interpolated pose source written by the physics thread
+     * @param stats    physics loop statistics, for on-screen diagnostics
+     */
+    void startRendering(PoseSnapshot snapshot, LoopStats stats);
+
+    /** Stops drawing frames. */
+    void stopRendering();
+
+    /**
+     * Records how long each frame takes to paint.
+     * @param telemetry where to record, or null for none
+     */
+    void setTelemetry(Telemetry telemetry);
+
+    /**
+     * @param history practice history recorded by the physics thread, or null for none
+     */
+    void setHistory(FieldHistory history);
+
+    /**
+     * Chooses what history is drawn over the field. Safe to call from any thread.
+     * @param mode trails, heatmap or nothing
+     */
+    void setOverlayMode(OverlayMode mode);
+
+    /** @return what history is drawn over the field */
+    OverlayMode getOverlayMode();
+
+    /** @return completes with System.nanoTime() of the first frame drawn with the field background in place */
+    CompletableFuture<Long> firstFrame();
+}
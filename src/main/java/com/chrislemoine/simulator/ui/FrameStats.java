@@ -0,0 +1,84 @@
+package com.chrislemoine.simulator.ui;
+
+import com.chrislemoine.simulator.core.LoopStats;
+
+import java.awt.*;
+
+/**
+ * Frame pacing diagnostics for the active renderer, drawn as a small overlay.
+ * <p>The overlay text is rebuilt a few times a second rather than every frame,
+ * so steady-state frames don't allocate strings.</p>
+ */
+class FrameStats {
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.BOLD, 12);
+    private static final Color SHADE = new Color(0, 0, 0, 160);
+
+    private final long targetNanos;   // expected frame spacing; frames well past it count as dropped
+
+    private long lastFrameNanos;
+    private long dropped;
+
+    // Window accumulated since the overlay text was last rebuilt
+    private long windowStartNanos;
+    private long windowFrames;
+    private long windowFrameNanos;
+    private long windowMaxNanos;
+    private long windowTicks = -1;
+
+    private String text = "";
+
+    /**
+     * @param targetNanos expected frame spacing (nanoseconds)
+     */
+    FrameStats(long targetNanos) {
+        this.targetNanos = targetNanos;
+    }
+
+    /**
+     * Records the start of a frame.
+     * @param nowNanos System.nanoTime() at the start of the frame
+     * @param loop     physics statistics to report alongside, or null
+     */
+    void frame(long nowNanos, LoopStats loop) {
+        if (lastFrameNanos != 0) {
+            long spacing = nowNanos - lastFrameNanos;
+            if (spacing > targetNanos + targetNanos / 2) dropped++;
+            windowFrames++;
+            windowFrameNanos += spacing;
+            windowMaxNanos = Math.max(windowMaxNanos, spacing);
+        } else {
+            windowStartNanos = nowNanos;
+            if (loop != null) windowTicks = loop.getTicks();
+        }
+        lastFrameNanos = nowNanos;
+
+        long window = nowNanos - windowStartNanos;
+        if (window >= REFRESH_NANOS && windowFrames > 0) {
+            double seconds = window / 1e9;
+            double physicsHz = 0;
+            if (loop != null) {
+                long ticks = loop.getTicks();
+                if (windowTicks >= 0) physicsHz = (ticks - windowTicks) / seconds;
+                windowTicks = ticks;
+            }
+            text = String.format("frame %.2f ms (max %.2f)  %.0f fps  physics %.0f Hz  dropped %d",
+                    windowFrameNanos / 1e6 / windowFrames, windowMaxNanos / 1e6,
+                    windowFrames / seconds, physicsHz, dropped);
+            windowStartNanos = nowNanos;
+            windowFrames = 0;
+            windowFrameNanos = 0;
+            windowMaxNanos = 0;
+        }
+    }
+
+    /** Draws the overlay in the top-left corner. */
+    void paint(Graphics2D g2) {
+        g2.setFont(FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        g2.setColor(SHADE);
+        g2.fillRect(4, 4, fm.stringWidth(text) + 8, fm.getHeight() + 4);
+        g2.setColor(Color.WHITE);
+        g2.drawString(text, 8, 6 + fm.getAscent());
+    }
+}
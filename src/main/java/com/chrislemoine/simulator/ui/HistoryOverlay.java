@@ -0,0 +1,248 @@
+package com.chrislemoine.simulator.ui;
+
+import com.chrislemoine.simulator.core.FieldHistory;
+import com.chrislemoine.simulator.core.PoseTrail;
+import com.chrislemoine.simulator.core.World;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Draws a {@link FieldHistory} over the field as either robot trails or an
+ * occupancy heatmap, at a cost per frame that does not grow with the session.
+ * <p> - Trails are drawn into a cached translucent layer. Each frame only
+ * the segments recorded since the last one are added, so the layer keeps
+ * everything driven since it was last rebuilt, even points the trail's ring
+ * has since dropped.</p>
+ * <p> - The heatmap is colored from the occupancy grid a few times a second
+ * and scaled once into its own layer.</p>
+ * <p> - Either layer is rebuilt from scratch only on resize or when the
+ * history is cleared.</p>
+ * <p>Bringing the layer up to date is separate from drawing it, and reports
+ * which pixels changed, so a host can repaint just those.</p>
+ * <p>Not thread-safe: drawn from the host's render thread, except the mode,
+ * which any thread may set.</p>
+ */
+class HistoryOverlay {
+    private static final Color RED_TRAIL  = new Color(255, 90, 90, 190);
+    private static final Color BLUE_TRAIL = new Color(90, 150, 255, 190);
+    private static final Color CLEAR      = new Color(0, 0, 0, 0);
+    private static final long HEATMAP_REFRESH_NANOS = 250_000_000L;
+    private static final int[] HEAT_PALETTE = heatPalette();
+
+    private final World world;
+    private final boolean flipped;
+    private final double fieldSize;
+    private volatile OverlayMode mode = OverlayMode.NONE;
+    private OverlayMode shownMode = OverlayMode.NONE;
+
+    // Layers and what they were built for; current is the one drawn, or null
+    private BufferedImage trailLayer, heatLayer, current;
+    private int layerW, layerH;
+    private GraphicsConfiguration layerConfig;
+    private int generation;
+
+    // Trails: last point drawn per robot (-1 = none yet), and reused scratch space
+    private long[] drawn = new long[0];
+    private float[] points = new float[0];
+    private final Path2D.Float path = new Path2D.Float();
+    private BasicStroke trailStroke;
+
+    // Heatmap: one pixel per grid cell, colored in place before scaling up
+    private BufferedImage heatCells;
+    private long heatBuiltAt;
+
+    /**
+     * @param world   the robots whose history is drawn, for their alliance colors
+     * @param flipped   true if the field is drawn rotated 180 degrees
+     * @param fieldSize side of the field drawn across the target's short side (inches)
+     */
+    HistoryOverlay(World world, boolean flipped, double fieldSize) {
+        this.world     = world;
+        this.flipped   = flipped;
+        this.fieldSize = fieldSize;
+    }
+
+    void setMode(OverlayMode mode) {
+        this.mode = mode;
+    }
+
+    OverlayMode getMode() { return mode; }
+
+    /**
+     * Brings the current layer up to date.
+     * @param w       target width (pixels)
+     * @param h       target height (pixels)
+     * @param gc      configuration of the destination, or null if offscreen
+     * @param history what to draw, or null for nothing
+     * @param changed grown to cover every target pixel that looks different since the last update
+     */
+    void update(int w, int h, GraphicsConfiguration gc, FieldHistory history, Rectangle changed) {
+        OverlayMode mode = history != null ? this.mode : OverlayMode.NONE;
+        if (mode != shownMode) {
+            FieldRenderer.union(changed, 0, 0, w, h);
+            shownMode = mode;
+        }
+        if (mode == OverlayMode.NONE) {
+            current = null;
+            return;
+        }
+
+        if (w != layerW || h != layerH || gc != layerConfig) {
+            trailLayer = null;
+            heatLayer  = null;
+            layerW = w;
+            layerH = h;
+            layerConfig = gc;
+        }
+        if (history.getGeneration() != generation) {
+            generation = history.getGeneration();
+            trailLayer = null;
+            heatLayer  = null;
+        }
+
+        current = mode == OverlayMode.TRAIL ? updateTrails(history, w, h, gc, changed)
+                                            : updateHeatmap(history, w, h, gc, changed);
+    }
+
+    /**
+     * Draws the layer as of the last {@link #update}, if there is one.
+     * @param g2 target graphics
+     */
+    void paint(Graphics2D g2) {
+        if (current != null) g2.drawImage(current, 0, 0, null);
+    }
+
+    /**
+     * Appends every trail's new segments to the trail layer, creating it first if needed.
+     */
+    private BufferedImage updateTrails(FieldHistory history, int w, int h, GraphicsConfiguration gc, Rectangle changed) {
+        int n = history.getTrailCount();
+        if (trailLayer == null || drawn.length != n) {
+            FieldRenderer.union(changed, 0, 0, w, h);
+            trailLayer = createLayer(w, h, gc);
+            drawn = new long[n];
+            java.util.Arrays.fill(drawn, -1);
+            trailStroke = new BasicStroke(Math.max(1.5f, Math.min(w, h) / 400f),
+                                          BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        }
+
+        double scale = Math.min(w, h) / fieldSize;
+        double sx = flipped ? -scale : scale, sy = flipped ? scale : -scale;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        Graphics2D g = null;
+        try {
+            for (int i = 0; i < n; i++) {
+                PoseTrail trail = history.getTrail(i);
+                long written = trail.getWritten();
+                long last = drawn[i];
+                if (written - 1 == last) continue;
+
+                // Carry on from the last point drawn, or start afresh if the ring has moved past it
+                long from = last >= trail.getOldest() ? last : trail.getOldest();
+                int count = (int) (written - from);
+                if (count <= 0) continue;
+                if (points.length < 3 * count) points = new float[3 * trail.getCapacity()];
+                if (!trail.copy(from, written, points)) continue;   // overwritten mid-copy; retry next frame
+                drawn[i] = written - 1;
+                if (count < 2) continue;
+
+                path.reset();
+                boolean penUp = true;
+                for (int p = 0; p < count; p++) {
+                    if (Float.isNaN(points[3 * p])) {   // a break in the trail
+                        penUp = true;
+                        continue;
+                    }
+                    float px = (float) (w / 2.0 + points[3 * p] * sx);
+                    float py = (float) (h / 2.0 + points[3 * p + 1] * sy);
+                    if (penUp) path.moveTo(px, py); else path.lineTo(px, py);
+                    penUp = false;
+                    minX = Math.min(minX, px);
+                    minY = Math.min(minY, py);
+                    maxX = Math.max(maxX, px);
+                    maxY = Math.max(maxY, py);
+                }
+                if (g == null) {
+                    g = trailLayer.createGraphics();
+                    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    g.setStroke(trailStroke);
+                }
+                g.setColor(world.getAlliance(i) == Alliance.BlUE ? BLUE_TRAIL : RED_TRAIL);
+                g.draw(path);
+            }
+        } finally {
+            if (g != null) g.dispose();
+        }
+        if (minX <= maxX) {
+            // Half the pen width past the end points, plus a pixel for antialiasing
+            int pad = (int) Math.ceil(trailStroke.getLineWidth() / 2) + 1;
+            int left = (int) Math.floor(minX) - pad, top = (int) Math.floor(minY) - pad;
+            FieldRenderer.union(changed, left, top, (int) Math.ceil(maxX) + pad - left, (int) Math.ceil(maxY) + pad - top);
+        }
+        return trailLayer;
+    }
+
+    /**
+     * Recolors and rescales the heatmap layer if it is missing or a refresh is due.
+     */
+    private BufferedImage updateHeatmap(FieldHistory history, int w, int h, GraphicsConfiguration gc, Rectangle changed) {
+        long now = System.nanoTime();
+        if (heatLayer != null && now - heatBuiltAt < HEATMAP_REFRESH_NANOS) return heatLayer;
+        if (heatLayer == null) heatLayer = createLayer(w, h, gc);
+        heatBuiltAt = now;
+
+        // Log scale so a few heavily used spots don't wash out the rest
+        int size = history.getGridSize();
+        if (heatCells == null || heatCells.getWidth() != size) {
+            heatCells = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        }
+        int[] pixels = ((DataBufferInt) heatCells.getRaster().getDataBuffer()).getData();
+        double norm = (HEAT_PALETTE.length - 1) / Math.log1p(Math.max(1, history.getMaxOccupancy()));
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int count = history.getOccupancy(col, row);
+                int color = count == 0 ? 0 : HEAT_PALETTE[Math.min(HEAT_PALETTE.length - 1, (int) (Math.log1p(count) * norm))];
+                // Image rows run down the screen; +Y is up, or down when flipped for Blue
+                int px = flipped ? size - 1 - col : col;
+                int py = flipped ? row : size - 1 - row;
+                pixels[py * size + px] = color;
+            }
+        }
+
+        Graphics2D g = heatLayer.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.setColor(CLEAR);
+            g.fillRect(0, 0, w, h);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // The grid covers the drawn field rounded up to whole inches, centered on it
+            int side = (int) Math.round(Math.min(w, h) * size / fieldSize);
+            g.drawImage(heatCells, (w - side) / 2, (h - side) / 2, side, side, null);
+            FieldRenderer.union(changed, (w - side) / 2, (h - side) / 2, side, side);
+        } finally {
+            g.dispose();
+        }
+        return heatLayer;
+    }
+
+    private static BufferedImage createLayer(int w, int h, GraphicsConfiguration gc) {
+        return gc != null
+                ? gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+                : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /** Blue through yellow to red, growing more opaque as it heats up. */
+    private static int[] heatPalette() {
+        int[] palette = new int[256];
+        for (int i = 0; i < palette.length; i++) {
+            float t = i / (palette.length - 1f);
+            float hue = 0.66f * (1 - t);
+            int alpha = 70 + (int) (150 * t);
+            palette[i] = (alpha << 24) | (Color.HSBtoRGB(hue, 1f, 1f) & 0xFFFFFF);
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,20 @@
+package com.chrislemoine.simulator.ui;
+
+/**
+ * What practice history, if any, is drawn over the field.
+ */
+public enum OverlayMode {
+    /** Just the field and robots. */
+    NONE,
+
+    /** The path each robot has driven. */
+    TRAIL,
+
+    /** How long robots have spent in each part of the field. */
+    HEATMAP;
+
+    /** @return the mode after this one, wrapping around; for a single cycling hotkey */
+    public OverlayMode next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
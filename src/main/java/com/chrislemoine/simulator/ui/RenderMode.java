@@ -0,0 +1,23 @@
+package com.chrislemoine.simulator.ui;
+
+/**
+ * How frames get to the screen.
+ */
+public enum RenderMode {
+    /** Swing repaint requests every 16 ms; the RepaintManager decides when to paint. */
+    SWING_TIMER,
+
+    /** Render thread with a BufferStrategy, capped at a chosen frame rate. */
+    ACTIVE_CAPPED,
+
+    /** Render thread with a BufferStrategy, drawing as fast as possible. */
+    ACTIVE_UNCAPPED,
+
+    /** Render thread with a BufferStrategy, paced to the display's refresh rate. */
+    ACTIVE_VSYNC;
+
+    /** @return true if frames are drawn by a dedicated render thread */
+    public boolean isActive() {
+        return this != SWING_TIMER;
+    }
+}
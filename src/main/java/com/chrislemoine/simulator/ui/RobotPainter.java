@@ -0,0 +1,138 @@
+package com.chrislemoine.simulator.ui;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Draws one robot footprint without allocating per frame.
+ * <p>Colors are shared constants per alliance, the body and wheel/marker
+ * geometry are built once in robot-local inches, the outline stroke is only
+ * rebuilt when the field scale changes, and the field-to-panel transform is
+ * a reused {@link AffineTransform} that is undone in place after drawing.</p>
+ * <p>The wheels and marker are separate rectangles rather than one path:
+ * Java2D allocates an iterator for every path it fills, but not for a
+ * rectangle.</p>
+ */
+class RobotPainter {
+    // Semi-transparent alliance tints: body, then wheels/marker/outline
+    private static final Color RED_BODY   = new Color(237, 28, 36, 200);
+    private static final Color RED_WHEEL  = new Color(119, 13, 18, 200);
+    private static final Color BLUE_BODY  = new Color(46, 49, 146, 200);
+    private static final Color BLUE_WHEEL = new Color(23, 25, 73, 200);
+
+    private static final double WHEEL_W = 4.0;   // inches
+    private static final double WHEEL_H = 2.0;   // inches
+    private static final int BOUNDS_MARGIN = 2;  // pixels, for the outline and antialiasing
+
+    private final double fieldSize;
+    private final double width, length;
+    private final Rectangle2D.Double body;
+    private final Rectangle2D.Double[] details;  // four wheels and the direction marker
+    private final AffineTransform transform = new AffineTransform();
+
+    private BasicStroke outline;
+    private double outlineScale = Double.NaN;
+
+    /**
+     * @param width  robot width (inches)
+     * @param length    robot length (inches)
+     * @param fieldSize side of the field drawn across the panel's short side (inches)
+     */
+    RobotPainter(double width, double length, double fieldSize) {
+        this.fieldSize = fieldSize;
+        this.width     = width;
+        this.length    = length;
+        double w = width;
+        double h = length;
+        body = new Rectangle2D.Double(-w / 2, -h / 2, w, h);
+
+        // Direction Marker
+        double dirH = h / 3;
+        double dirW = w * 0.05;
+        details = new Rectangle2D.Double[] {
+                // frontLeft, frontRight, rearLeft, rearRight
+                new Rectangle2D.Double(w / 2 - WHEEL_W - 1, h / 2 - WHEEL_H - 1, WHEEL_W, WHEEL_H),
+                new Rectangle2D.Double(w / 2 - WHEEL_W - 1, -h / 2 + 1, WHEEL_W, WHEEL_H),
+                new Rectangle2D.Double(-w / 2 + 1, h / 2 - WHEEL_H - 1, WHEEL_W, WHEEL_H),
+                new Rectangle2D.Double(-w / 2 + 1, -h / 2 + 1, WHEEL_W, WHEEL_H),
+                new Rectangle2D.Double(dirH / 2, -dirW / 2, dirH, dirW)
+        };
+    }
+
+    /**
+     * Draws the robot at a field pose. The graphics transform is left as it was found.
+     * @param g2       target graphics in panel pixels
+     * @param panelW   panel width (pixels)
+     * @param panelH   panel height (pixels)
+     * @param alliance tint, and whether the field is viewed from the Blue side
+     * @param flipped  true if the field is drawn rotated 180 degrees
+     * @param x        robot X (inches)
+     * @param y        robot Y (inches)
+     * @param heading  robot heading (radians)
+     */
+    void paint(Graphics2D g2, double panelW, double panelH, Alliance alliance, boolean flipped,
+               double x, double y, double heading) {
+        // Field inches to panel pixels: center origin, +Y up, the field across the short side
+        double scale = Math.min(panelW, panelH) / fieldSize;
+        transform.setToTranslation(panelW / 2.0, panelH / 2.0);
+        if (flipped) {
+            transform.scale(-scale, scale);   // same as rotating the view 180 degrees
+        } else {
+            transform.scale(scale, -scale);
+        }
+        transform.translate(x, y);
+        transform.rotate(heading);
+
+        if (scale != outlineScale) {
+            outline = new BasicStroke((float) (1.0 / scale));
+            outlineScale = scale;
+        }
+
+        boolean blue = alliance == Alliance.BlUE;
+        Color bodyColor  = blue ? BLUE_BODY : RED_BODY;
+        Color wheelColor = blue ? BLUE_WHEEL : RED_WHEEL;
+
+        g2.transform(transform);
+
+        g2.setColor(bodyColor);
+        g2.fill(body);
+        g2.setColor(wheelColor);
+        for (Rectangle2D.Double detail : details) g2.fill(detail);
+        g2.setStroke(outline);
+        g2.draw(body);
+
+        try {
+            transform.invert();
+            g2.transform(transform);
+        } catch (NoninvertibleTransformException e) {
+            // Only possible for a zero-sized panel, where nothing was drawn anyway
+        }
+    }
+
+    /**
+     * Finds the pixels {@link #paint} touches for a pose, without drawing.
+     * @param panelW  panel width (pixels)
+     * @param panelH  panel height (pixels)
+     * @param flipped true if the field is drawn rotated 180 degrees
+     * @param x       robot X (inches)
+     * @param y       robot Y (inches)
+     * @param heading robot heading (radians)
+     * @param out     set to the robot's bounding box in panel pixels
+     */
+    void bounds(double panelW, double panelH, boolean flipped, double x, double y, double heading, Rectangle out) {
+        double scale = Math.min(panelW, panelH) / fieldSize;
+        double cos = Math.abs(Math.cos(heading)), sin = Math.abs(Math.sin(heading));
+        // Half extents of the rotated footprint; body X runs along the heading
+        double halfX = (cos * width + sin * length) / 2 * scale;
+        double halfY = (sin * width + cos * length) / 2 * scale;
+        double cx = panelW / 2.0 + (flipped ? -x : x) * scale;
+        double cy = panelH / 2.0 + (flipped ? y : -y) * scale;
+        int left = (int) Math.floor(cx - halfX) - BOUNDS_MARGIN;
+        int top  = (int) Math.floor(cy - halfY) - BOUNDS_MARGIN;
+        out.setBounds(left, top,
+                      (int) Math.ceil(cx + halfX) + BOUNDS_MARGIN - left,
+                      (int) Math.ceil(cy + halfY) + BOUNDS_MARGIN - top);
+    }
+}
@@ -1,21 +1,39 @@
 package com.chrislemoine.simulator.ui;
 
+import com.chrislemoine.simulator.field.FieldCatalog;
+import com.chrislemoine.simulator.field.FieldDefinition;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.IOException;
 
 /**
  * Modal dialog for selecting simulation settings:
  * <p> - Drive type (ROBOT_CENTRIC or FIELD_CENTRIC)</p>
- * <p> - Field background (Dark or Light)</p>
+ * <p> - Field, from every season in the {@link FieldCatalog}, and one of its
+ * backgrounds, with a preview decoded in the background. A field's definition
+ * is only loaded once it is picked.</p>
  * <p> - Alliance color (Red or Blue)</p>
+ * <p> - Rendering mode and frame-rate cap</p>
  *
  * Blocks until the user clicks "Continue," then exposes the selections via getters.
  */
 public class SettingsDialog extends JDialog {
+    private static final int PREVIEW_SIZE = 128;   // pixels
+
     private DriveMode selectedDrive = DriveMode.ROBOT_CENTRIC;
+    private FieldDefinition selectedField;
     private Background selectedBackground = Background.FIELD_INTO_THE_DEEP_JUICE_DARK;
     private Alliance selectedAlliance = Alliance.RED;
+    private RenderMode selectedRenderMode = RenderMode.SWING_TIMER;
+    private int selectedFpsCap = 120;
+
+    private final JLabel preview = new JLabel("Loading...", SwingConstants.CENTER);
+    private Background previewed;
+    private final JComboBox<FieldCatalog.Entry> fieldBox = new JComboBox<>();
+    private final JComboBox<Background> backgroundBox = new JComboBox<>();
+    private FieldDefinition shownField;
 
     /**
      * Constructs and displays a modal settings dialog.
@@ -24,7 +42,7 @@ public class SettingsDialog extends JDialog {
     public SettingsDialog(JFrame parent) {
         super(parent, "Simulator Settings", true);
         setLayout(new BorderLayout());
-        setSize(500, 150);
+        setSize(880, 200);
         setLocationRelativeTo(parent);
 
 
@@ -39,16 +57,36 @@ public class SettingsDialog extends JDialog {
         modePanel.add(robotCentricBtn);
         modePanel.add(fieldCentricBtn);
 
-        // --- BACKGROUND OPTIONS ---
-        JRadioButton darkBtn = new JRadioButton("Juice Dark", true);
-        JRadioButton lightBtn = new JRadioButton("Juice light");
-        ButtonGroup bgGroup = new ButtonGroup();
-        bgGroup.add(darkBtn);
-        bgGroup.add(lightBtn);
+        // --- FIELD AND BACKGROUND OPTIONS ---
         JPanel bgPanel = new JPanel(new GridLayout(2, 1));
-        bgPanel.setBorder(BorderFactory.createTitledBorder("Field Background"));
-        bgPanel.add(darkBtn);
-        bgPanel.add(lightBtn);
+        bgPanel.setBorder(BorderFactory.createTitledBorder("Field"));
+        bgPanel.add(fieldBox);
+        bgPanel.add(backgroundBox);
+
+        // --- PREVIEW PANEL ---
+        preview.setPreferredSize(new Dimension(PREVIEW_SIZE, PREVIEW_SIZE));
+        JPanel previewPanel = new JPanel(new BorderLayout());
+        previewPanel.setBorder(BorderFactory.createTitledBorder("Preview"));
+        previewPanel.add(preview, BorderLayout.CENTER);
+
+        fieldBox.addActionListener(e -> showField((FieldCatalog.Entry) fieldBox.getSelectedItem()));
+        backgroundBox.addActionListener(e -> {
+            Background background = (Background) backgroundBox.getSelectedItem();
+            if (background != null) showPreview(background);
+        });
+        FieldCatalog.Entry initial = null;
+        try {
+            FieldCatalog catalog = FieldCatalog.shared();
+            for (FieldCatalog.Entry entry : catalog.getEntries()) fieldBox.addItem(entry);
+            initial = catalog.getDefault();
+        } catch (IOException e) {
+            System.err.println("Could not list fields: " + e.getMessage());
+        }
+        if (initial != null) {
+            fieldBox.setSelectedItem(initial);
+        } else {
+            backgroundBox.addItem(selectedBackground);
+        }
 
         // --- ALLIANCE PANEL ---
         JRadioButton redBtn = new JRadioButton("Red Alliance", true);
@@ -61,12 +99,27 @@ public class SettingsDialog extends JDialog {
         alliancePanel.add(redBtn);
         alliancePanel.add(blueBtn);
 
+        // --- RENDERING PANEL ---
+        JComboBox<String> renderBox = new JComboBox<>(new String[] {
+                "Swing repaint (60 Hz)", "Active, capped", "Active, uncapped", "Active, display rate"
+        });
+        JSpinner fpsSpinner = new JSpinner(new SpinnerNumberModel(selectedFpsCap, 30, 1000, 10));
+        JPanel fpsRow = new JPanel(new BorderLayout(5, 0));
+        fpsRow.add(new JLabel("FPS cap"), BorderLayout.WEST);
+        fpsRow.add(fpsSpinner, BorderLayout.CENTER);
+        JPanel renderPanel = new JPanel(new GridLayout(2, 1));
+        renderPanel.setBorder(BorderFactory.createTitledBorder("Rendering"));
+        renderPanel.add(renderBox);
+        renderPanel.add(fpsRow);
+
         // Combine both panels side by side
         JPanel center = new JPanel(new GridLayout(1, 2, 10, 10));
         center.add(modePanel);
         center.add(bgPanel);
         center.add(alliancePanel);
+        center.add(renderPanel);
         add(center, BorderLayout.CENTER);
+        add(previewPanel, BorderLayout.EAST);
 
         // --- CONTINUE BUTTON ---
         JButton ok = new JButton("Continue");
@@ -74,12 +127,15 @@ public class SettingsDialog extends JDialog {
             selectedDrive = robotCentricBtn.isSelected()
                     ? DriveMode.ROBOT_CENTRIC
                     : DriveMode.FIELD_CENTRIC;
-            selectedBackground = darkBtn.isSelected()
-                    ? Background.FIELD_INTO_THE_DEEP_JUICE_DARK
-                    : Background.FIELD_INTO_THE_DEEP_JUICE_LIGHT;
+            // A field that failed to load leaves the default background on the bare field
+            selectedField = shownField;
+            Background background = (Background) backgroundBox.getSelectedItem();
+            if (background != null) selectedBackground = background;
             selectedAlliance = redBtn.isSelected()
                     ? Alliance.RED
                     : Alliance.BlUE;
+            selectedRenderMode = RenderMode.values()[renderBox.getSelectedIndex()];
+            selectedFpsCap = (Integer) fpsSpinner.getValue();
             setVisible(false);
         });
         JPanel south = new JPanel();
@@ -87,14 +143,64 @@ public class SettingsDialog extends JDialog {
         add(south, BorderLayout.SOUTH);
     }
 
+    /**
+     * Loads a field's definition, which is near-instant once cached, and lists
+     * its backgrounds. A field that fails to load is shown as unavailable.
+     */
+    private void showField(FieldCatalog.Entry entry) {
+        if (entry == null) return;
+        backgroundBox.removeAllItems();
+        try {
+            shownField = entry.load();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not load field " + entry.getId() + ": " + e.getMessage());
+            shownField = null;
+            previewed = null;
+            preview.setIcon(null);
+            preview.setText("Unavailable");
+            return;
+        }
+        for (Background background : shownField.getBackgrounds()) backgroundBox.addItem(background);
+        backgroundBox.setSelectedIndex(0);
+    }
+
+    /**
+     * Shows a theme's preview once it has decoded, and starts decoding the
+     * full image too, so it is likely ready by the time the user continues.
+     * Runs on the EDT; the decoding never does.
+     */
+    private void showPreview(Background background) {
+        previewed = background;
+        AssetCache assets = AssetCache.shared();
+        assets.loadPreview(background, PREVIEW_SIZE).whenComplete((image, error) -> SwingUtilities.invokeLater(() -> {
+            if (previewed != background) return;   // the user has since picked another theme
+            if (image != null) {
+                preview.setIcon(new ImageIcon(image));
+                preview.setText(null);
+            } else {
+                preview.setIcon(null);
+                preview.setText("Unavailable");
+            }
+        }));
+        assets.load(background);
+    }
+
     /** @return the drive type the user selected */
     public DriveMode getSelectedDriveMode() {
         return selectedDrive;
     }
+    /** @return the field the user selected, or null if no field definition could be loaded */
+    public FieldDefinition getSelectedField() {
+        return selectedField;
+    }
     /** @return the background the user selected */
     public Background getSelectedBackground() {
         return selectedBackground;
     }
     /** @return the selected alliance */
     public Alliance getSelectedAlliance() { return selectedAlliance; }
+    /** @return how frames should be drawn */
+    public RenderMode getSelectedRenderMode() { return selectedRenderMode; }
+    /** @return frame-rate cap for {@link RenderMode#ACTIVE_CAPPED} */
+    public int getSelectedFpsCap() { return selectedFpsCap; }
 }
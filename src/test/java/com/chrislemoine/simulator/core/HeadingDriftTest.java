@@ -0,0 +1,43 @@
+package com.chrislemoine.simulator.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Long-run accuracy of heading handling.
+ * <p>Drives a robot round a circle at constant speed and turn rate, with a
+ * whole number of ticks per lap, for 10 million ticks. Every lap should bring
+ * it back to the start pose, so whatever error is left at the end is
+ * accumulated floating-point drift.</p>
+ */
+class HeadingDriftTest {
+    private static final long TICKS = 10_000_000L;
+    private static final int TICKS_PER_LAP = 400;
+    private static final double DT = 0.005;
+    private static final double SPEED = 30.0;                 // inches/sec
+    private static final double MAX_POSITION_ERROR = 1e-3;   // inches
+    private static final double MAX_HEADING_ERROR = 1e-6;    // radians
+
+    @Test
+    void tenMillionTicksOfCirclingComeBackToTheStart() {
+        double omega = 2 * Math.PI / (TICKS_PER_LAP * DT);
+        double h0 = Math.PI / 2;
+
+        // Constraints high enough that the robot is at full speed from the first tick
+        SimBot bot = new SimBotBuilder()
+                .setStartPose(0, 0, h0)
+                .setConstraints(SPEED, 1e9, omega, 1e9)
+                .build();
+        for (long t = 0; t < TICKS; t++) {
+            bot.drive(1, 0, 1);
+            bot.update(DT);
+        }
+
+        double positionError = Math.hypot(bot.getX(), bot.getY());
+        double headingError = Math.abs(SimBot.normalizeAngle(bot.getHeading() - h0));
+        assertTrue(positionError <= MAX_POSITION_ERROR, "position drifted " + positionError + " in");
+        assertTrue(headingError <= MAX_HEADING_ERROR, "heading drifted " + headingError + " rad");
+        assertTrue(Math.abs(bot.getHeading()) <= Math.PI, "heading left [-pi, pi]: " + bot.getHeading());
+    }
+}
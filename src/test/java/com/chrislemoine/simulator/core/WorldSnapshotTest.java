@@ -0,0 +1,73 @@
+package com.chrislemoine.simulator.core;
+
+import com.chrislemoine.simulator.collision.CollisionWorld;
+import com.chrislemoine.simulator.input.ScriptedController;
+import com.chrislemoine.simulator.ui.Alliance;
+import com.chrislemoine.simulator.ui.DriveMode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class WorldSnapshotTest {
+    private static final double DT = 0.005;
+
+    /** Two robots on scripts into each other and the walls, with a match clock. */
+    private static World world() {
+        World world = new World();
+        world.setCollisionWorld(CollisionWorld.forField());
+        world.setMatchClock(new MatchClock());
+        world.addRobot(new SimBotBuilder().setStartPose(0, -48, Math.PI / 2).build(),
+                       new ScriptedController(DT).hold(1, 0.3, 0, 2).hold(0, -1, 1, 2),
+                       Alliance.RED, DriveMode.ROBOT_CENTRIC);
+        world.addRobot(new SimBotBuilder().setStartPose(0, 48, -Math.PI / 2)
+                               .setDriveModel(new MecanumDriveModel()).build(),
+                       new ScriptedController(DT).hold(1, -0.2, 0.5, 3).idle(1),
+                       Alliance.BlUE, DriveMode.FIELD_CENTRIC);
+        return world;
+    }
+
+    private static void step(World world, int ticks) {
+        for (int t = 0; t < ticks; t++) world.step(DT);
+    }
+
+    @Test
+    void restoreThenSaveGivesTheSameBits() {
+        World world = world();
+        step(world, 300);
+        WorldSnapshot saved = world.snapshot();
+
+        step(world, 200);
+        assertNotEquals(saved, world.snapshot());
+
+        world.restore(saved);
+        assertEquals(saved, world.snapshot());
+    }
+
+    @Test
+    void restoredWorldRunsOnExactlyAsTheOriginal() {
+        World original = world();
+        step(original, 300);
+        WorldSnapshot fork = original.snapshot();
+        step(original, 400);
+        WorldSnapshot expected = original.snapshot();
+
+        // The same world rewound, and a separately built one restored into
+        original.restore(fork);
+        step(original, 400);
+        assertEquals(expected, original.snapshot());
+
+        World other = world();
+        other.restore(fork);
+        step(other, 400);
+        assertEquals(expected, other.snapshot());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        World world = world();
+        step(world, 123);
+        WorldSnapshot snapshot = world.snapshot();
+        assertEquals(snapshot, WorldSnapshot.fromBytes(snapshot.toBytes()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.chrislemoine.simulator.field;
+
+import com.chrislemoine.simulator.ui.Alliance;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FieldFormatTest {
+    private static final String CUSTOM = String.join("\n",
+            "# A practice field with a non-ASCII name",
+            "name    Übungsfeld",
+            "season  0",
+            "size    120",
+            "background /background/practice.png  Grid",
+            "obstacle pillar  10  -5  4  6  30",
+            "obstacle wall   -20  20  2 40",
+            "start red    0 -50  90",
+            "start blue   0  50 -90",
+            "start blue  30  50 -90",
+            "");
+
+    @Test
+    void customFieldSurvivesTextToBinaryToRead() {
+        FieldDefinition parsed = FieldFormat.parse("custom", CUSTOM, null);
+        assertEquals("Übungsfeld", parsed.getName());
+        assertEquals(2, parsed.getObstacleCount());
+        assertEquals(2, parsed.getStartCount(Alliance.BlUE));
+        assertSame(parsed, roundTrip(parsed));
+    }
+
+    @Test
+    void everyBuiltInFieldSurvivesTextToBinaryToRead() throws IOException {
+        FieldCatalog catalog = new FieldCatalog(null, null);
+        for (FieldCatalog.Entry entry : catalog.getEntries()) {
+            String text;
+            try (InputStream in = FieldFormatTest.class.getResourceAsStream("/fields/" + entry.getId() + ".field")) {
+                assertNotNull(in, entry.getId());
+                text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            FieldDefinition parsed = FieldFormat.parse(entry.getId(), text, null);
+            assertSame(parsed, roundTrip(parsed));
+        }
+    }
+
+    @Test
+    void truncatedBinaryIsRejected() {
+        byte[] bytes = FieldFormat.write(FieldFormat.parse("custom", CUSTOM, null));
+        ByteBuffer cut = ByteBuffer.wrap(bytes, 0, bytes.length - 5).slice();
+        assertThrows(IllegalArgumentException.class, () -> FieldFormat.read("custom", cut));
+    }
+
+    private static FieldDefinition roundTrip(FieldDefinition field) {
+        byte[] bytes = FieldFormat.write(field);
+        FieldDefinition read = FieldFormat.read(field.getId(), ByteBuffer.wrap(bytes));
+        // Writing what was read must give the very same bytes
+        assertArrayEquals(bytes, FieldFormat.write(read));
+        return read;
+    }
+
+    private static void assertSame(FieldDefinition expected, FieldDefinition actual) {
+        String id = expected.getId();
+        assertEquals(id, actual.getId());
+        assertEquals(expected.getName(), actual.getName(), id);
+        assertEquals(expected.getSeason(), actual.getSeason(), id);
+        assertEquals(expected.getSize(), actual.getSize(), id);
+        assertEquals(expected.getBackgrounds(), actual.getBackgrounds(), id);
+        for (int i = 0; i < expected.getBackgrounds().size(); i++) {
+            assertEquals(expected.getBackgrounds().get(i).getName(), actual.getBackgrounds().get(i).getName(), id);
+        }
+        assertEquals(expected.getObstacleCount(), actual.getObstacleCount(), id);
+        for (int i = 0; i < expected.getObstacleCount(); i++) {
+            assertEquals(expected.getObstacleName(i), actual.getObstacleName(i), id);
+            assertArrayEquals(expected.getObstacle(i), actual.getObstacle(i), id);
+        }
+        for (Alliance a : Alliance.values()) {
+            assertEquals(expected.getStartCount(a), actual.getStartCount(a), id);
+            for (int i = 0; i < expected.getStartCount(a); i++) {
+                assertArrayEquals(expected.getStartPose(a, i), actual.getStartPose(a, i), id);
+            }
+        }
+        assertEquals(expected.getGeometryHash(), actual.getGeometryHash(), id);
+    }
+}
@@ -0,0 +1,74 @@
+package com.chrislemoine.simulator.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NetProtocolTest {
+    private static final int ROBOTS = 8;
+
+    /** Quantized robots at random poses and speeds, headings all the way round. */
+    private static int[] frame(Random random) {
+        int[] frame = new int[ROBOTS * NetProtocol.FIELDS];
+        for (int r = 0; r < ROBOTS; r++) {
+            NetProtocol.quantize(random.nextDouble() * 144 - 72, random.nextDouble() * 144 - 72,
+                                 random.nextDouble() * 2 * Math.PI - Math.PI,
+                                 random.nextGaussian() * 40, random.nextGaussian() * 40, random.nextGaussian() * 4,
+                                 frame, r * NetProtocol.FIELDS);
+        }
+        return frame;
+    }
+
+    private static int[] roundTrip(int[] cur, int[] base) {
+        ByteBuffer buffer = ByteBuffer.allocate(NetProtocol.maxStateBytes(ROBOTS)).order(NetProtocol.ORDER);
+        NetProtocol.writeRobots(cur, 0, base, 0, ROBOTS, buffer);
+        assertTrue(buffer.position() <= NetProtocol.maxStateBytes(ROBOTS) - NetProtocol.STATE_HEADER_BYTES);
+        buffer.flip();
+
+        int[] read = new int[cur.length];
+        NetProtocol.readRobots(buffer, base, 0, ROBOTS, read, 0);
+        assertEquals(0, buffer.remaining(), "bytes left unread");
+        return read;
+    }
+
+    @Test
+    void keyframesRoundTrip() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            int[] cur = frame(random);
+            assertArrayEquals(cur, roundTrip(cur, null));
+        }
+    }
+
+    @Test
+    void deltasRoundTrip() {
+        Random random = new Random(2);
+        for (int i = 0; i < 100; i++) {
+            int[] base = frame(random);
+            int[] cur = frame(random);
+            assertArrayEquals(cur, roundTrip(cur, base));
+        }
+    }
+
+    @Test
+    void headingDeltaWrapsTheShortWay() {
+        int[] base = new int[ROBOTS * NetProtocol.FIELDS];
+        int[] cur = new int[ROBOTS * NetProtocol.FIELDS];
+        NetProtocol.quantize(0, 0, Math.PI - 0.001, 0, 0, 0, base, 0);
+        NetProtocol.quantize(0, 0, -Math.PI + 0.001, 0, 0, 0, cur, 0);
+        assertArrayEquals(cur, roundTrip(cur, base));
+    }
+
+    @Test
+    void unchangedFrameCostsOneByteARobot() {
+        int[] base = frame(new Random(3));
+        ByteBuffer buffer = ByteBuffer.allocate(NetProtocol.maxStateBytes(ROBOTS)).order(NetProtocol.ORDER);
+        NetProtocol.writeRobots(base, 0, base, 0, ROBOTS, buffer);
+        assertEquals(ROBOTS, buffer.position());
+    }
+}
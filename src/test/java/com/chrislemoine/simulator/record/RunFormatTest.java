@@ -0,0 +1,73 @@
+package com.chrislemoine.simulator.record;
+
+import com.chrislemoine.simulator.core.SimBot;
+import com.chrislemoine.simulator.core.SimBotBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunFormatTest {
+    private static final int TICK_HZ = 200;
+    private static final int TICKS = 500;
+
+    @TempDir
+    Path dir;
+
+    private static double axial(int t)   { return Math.sin(t * 0.01); }
+    private static double lateral(int t) { return t % 100 < 50 ? 0.5 : -0.25; }
+    private static double yaw(int t)     { return -Math.cos(t * 0.03) / 3; }
+
+    @Test
+    void recordingReadsBackExactly() throws IOException {
+        Path file = dir.resolve("run.ftcrun");
+        SimBot bot = new SimBotBuilder()
+                .setStartPose(12, -63, Math.PI / 2)
+                .setConstraints(55, 140, 3.5, 9)
+                .setDimensions(17.25, 16.5)
+                .build();
+        double[] poses = new double[3 * TICKS];
+        try (RunRecorder recorder = new RunRecorder(file, bot, TICK_HZ, RunFormat.FLAG_WALLS, 0x1234abcd)) {
+            for (int t = 0; t < TICKS; t++) {
+                bot.drive(axial(t), lateral(t), yaw(t));
+                bot.update(1.0 / TICK_HZ);
+                recorder.record(axial(t), lateral(t), yaw(t), bot);
+                poses[3 * t]     = bot.getX();
+                poses[3 * t + 1] = bot.getY();
+                poses[3 * t + 2] = bot.getHeading();
+            }
+        }
+        assertEquals(RunFormat.HEADER_BYTES + (long) TICKS * RunFormat.RECORD_BYTES, Files.size(file));
+
+        RunRecording run = RunRecording.open(file);
+        assertEquals(TICK_HZ, run.getTickHz());
+        assertEquals(TICKS, run.getTickCount());
+        assertTrue(run.hasWalls());
+        assertEquals(0x1234abcd, run.getFieldHash());
+
+        SimBot replayed = run.createBot();
+        assertEquals(12, replayed.getX());
+        assertEquals(-63, replayed.getY());
+        assertEquals(Math.PI / 2, replayed.getHeading());
+        assertEquals(55, replayed.getMaxVel());
+        assertEquals(140, replayed.getMaxAccel());
+        assertEquals(3.5, replayed.getMaxAngVel());
+        assertEquals(9, replayed.getMaxAngAccel());
+        assertEquals(17.25, replayed.getWidth());
+        assertEquals(16.5, replayed.getLength());
+
+        for (int t = 0; t < TICKS; t++) {
+            assertEquals(axial(t), run.getAxial(t));
+            assertEquals(lateral(t), run.getLateral(t));
+            assertEquals(yaw(t), run.getYaw(t));
+            assertEquals(poses[3 * t], run.getX(t));
+            assertEquals(poses[3 * t + 1], run.getY(t));
+            assertEquals(poses[3 * t + 2], run.getHeading(t));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.chrislemoine.simulator.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link RobotPainter} allocates nothing per call once warmed up, counted
+ * with the JVM's per-thread allocation counter.
+ * <p>The one accepted exception is Java2D's own pipeline, outside the
+ * painter: {@link RobotPainter#paint} undoes its transform by applying the
+ * inverse, which leaves rounding residue in the Graphics. If the same
+ * Graphics is reused for the next frame, that frame's {@code drawImage}
+ * takes Java2D's general transformed-image path, which allocates. Swing
+ * hands {@code paintComponent} a fresh Graphics every time, so the panel
+ * never sees it; only a caller reusing one Graphics would.</p>
+ */
+class RobotPainterAllocationTest {
+    private static final int CALLS = 20_000;
+    private static final int ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** @return the fewest bytes allocated by {@link #CALLS} runs of the action over {@link #ROUNDS} rounds */
+    private static long leastBytes(Runnable calls) {
+        calls.run();   // warm up, so the JIT has compiled what it will
+        long least = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long before = allocatedBytes();
+            calls.run();
+            least = Math.min(least, allocatedBytes() - before);
+        }
+        return least;
+    }
+
+    @Test
+    void paintAllocatesNothing() {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        RobotPainter painter = new RobotPainter(17.25, 15.5, 144);
+        try {
+            long bytes = leastBytes(() -> {
+                for (int i = 0; i < CALLS; i++) {
+                    painter.paint(g2, 800, 600, (i & 2) == 0 ? Alliance.RED : Alliance.BlUE, (i & 1) == 0,
+                                  i % 60 - 30, i % 100 - 50, i * 0.01);
+                }
+            });
+            assertEquals(0, bytes, "bytes allocated by " + CALLS + " paints");
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    @Test
+    void boundsAllocatesNothing() {
+        RobotPainter painter = new RobotPainter(17.25, 15.5, 144);
+        Rectangle out = new Rectangle();
+        long bytes = leastBytes(() -> {
+            for (int i = 0; i < CALLS; i++) {
+                painter.bounds(800, 600, (i & 1) == 0, i % 60 - 30, i % 100 - 50, i * 0.01, out);
+            }
+        });
+        assertEquals(0, bytes, "bytes allocated by " + CALLS + " bounds calls");
+    }
+}